@@ -0,0 +1,52 @@
+package ru.yandex.practicum.mymarket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.yandex.practicum.mymarket.dto.request.ItemsFilterRequestDto;
+import ru.yandex.practicum.mymarket.enums.SortType;
+import ru.yandex.practicum.mymarket.service.catalog.CatalogCacheKeys;
+import ru.yandex.practicum.mymarket.service.catalog.CatalogQuery;
+
+/**
+ * Building the items list cache key: search canonicalization and hashing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+	@Param({"", "phone", "  Смартфон  Alpha с экраном 6.1 дюйма  "})
+	private String search;
+
+	private ItemsFilterRequestDto filter;
+
+	@Setup
+	public void setUp() {
+		filter = new ItemsFilterRequestDto(search, SortType.PRICE);
+	}
+
+	@Benchmark
+	public CatalogQuery canonicalQuery() {
+		return CatalogQuery.of(filter);
+	}
+
+	@Benchmark
+	public String itemIdsBlockKey() {
+		return CatalogCacheKeys.itemIdsBlock(7L, 3L, CatalogQuery.of(filter), 0, 50);
+	}
+}
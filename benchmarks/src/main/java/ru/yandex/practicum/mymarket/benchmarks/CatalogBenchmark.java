@@ -0,0 +1,83 @@
+package ru.yandex.practicum.mymarket.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import ru.yandex.practicum.mymarket.dto.request.ItemsFilterRequestDto;
+import ru.yandex.practicum.mymarket.dto.response.ItemResponseDto;
+import ru.yandex.practicum.mymarket.enums.SortType;
+import ru.yandex.practicum.mymarket.service.model.CartCounts;
+import ru.yandex.practicum.mymarket.service.model.CartLine;
+
+/**
+ * Catalog page: search, sorting and paging of the whole catalog on a cache miss, hydration of a page
+ * from the cache, and the cart counts overlay.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogBenchmark {
+
+	@Param({"1000", "10000"})
+	private int catalogSize;
+
+	@Param({"NO", "ALPHA", "PRICE"})
+	private SortType sort;
+
+	private final Pageable pageable = PageRequest.of(3, 20);
+
+	private CatalogFixture uncached;
+	private CatalogFixture cached;
+	private ItemsFilterRequestDto filter;
+	private ItemsFilterRequestDto searchFilter;
+	private List<CartLine> cart;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		uncached = new CatalogFixture(catalogSize, false);
+		cached = new CatalogFixture(catalogSize, true);
+		filter = new ItemsFilterRequestDto("", sort);
+		searchFilter = new ItemsFilterRequestDto("Phone", sort);
+		cart = cached.cart(30);
+		cached.itemService.getItems(filter, pageable).block();
+	}
+
+	@Benchmark
+	public Page<ItemResponseDto> listPageUncached() {
+		return uncached.itemService.getItems(filter, pageable).block();
+	}
+
+	@Benchmark
+	public Page<ItemResponseDto> searchPageUncached() {
+		return uncached.itemService.getItems(searchFilter, pageable).block();
+	}
+
+	@Benchmark
+	public Page<ItemResponseDto> listPageCached() {
+		return cached.itemService.getItems(filter, pageable).block();
+	}
+
+	@Benchmark
+	public Page<ItemResponseDto> listPageWithCartCountsCached() {
+		return cached.itemService.getItemsWithCartCounts(filter, pageable, CartCounts.of(cart)).block();
+	}
+}
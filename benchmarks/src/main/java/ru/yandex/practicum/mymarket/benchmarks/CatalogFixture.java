@@ -0,0 +1,169 @@
+package ru.yandex.practicum.mymarket.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.mymarket.entity.ItemEntity;
+import ru.yandex.practicum.mymarket.mapper.ItemMapperImpl;
+import ru.yandex.practicum.mymarket.repository.ItemImageRepository;
+import ru.yandex.practicum.mymarket.repository.ItemRepository;
+import ru.yandex.practicum.mymarket.service.ReactiveCacheService;
+import ru.yandex.practicum.mymarket.service.catalog.CatalogVersion;
+import ru.yandex.practicum.mymarket.service.impl.ItemServiceImpl;
+import ru.yandex.practicum.mymarket.service.model.CartLine;
+
+/**
+ * A generated catalog of the given size with ItemServiceImpl wired to in-memory repositories and cache,
+ * so benchmarks measure the service code rather than Postgres and Redis.
+ */
+final class CatalogFixture {
+
+	private static final String[] KINDS = {"Смартфон", "Ноутбук", "Наушники", "Планшет", "Часы", "Колонка", "Phone", "Camera"};
+	private static final String[] BRANDS = {"Alpha", "Nova", "Zenit", "Orion", "Vega", "Atlas"};
+
+	final List<ItemEntity> items;
+	final InMemoryCacheService cacheService;
+	final ItemServiceImpl itemService;
+
+	CatalogFixture(int catalogSize, boolean cacheEnabled) {
+		this.items = generateItems(catalogSize);
+		this.cacheService = new InMemoryCacheService(cacheEnabled);
+		this.itemService = new ItemServiceImpl(itemRepository(items), unsupported(ItemImageRepository.class),
+				new ItemMapperImpl(), cacheService, new FixedCatalogVersion(), new SimpleMeterRegistry(),
+				Duration.ofMinutes(10), 50);
+	}
+
+	/**
+	 * A cart with {@code size} random catalog items.
+	 */
+	List<CartLine> cart(int size) {
+		Random random = new Random(7);
+		List<CartLine> lines = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			ItemEntity item = items.get(random.nextInt(items.size()));
+			lines.add(new CartLine(item.getId(), 1 + random.nextInt(3)));
+		}
+		return lines;
+	}
+
+	static List<ItemEntity> generateItems(int size) {
+		Random random = new Random(42);
+		List<ItemEntity> items = new ArrayList<>(size);
+		for (long id = 1; id <= size; id++) {
+			String kind = KINDS[random.nextInt(KINDS.length)];
+			String brand = BRANDS[random.nextInt(BRANDS.length)];
+			items.add(new ItemEntity(
+					id,
+					kind + " " + brand + " " + (100 + random.nextInt(900)),
+					kind + " " + brand + ": подробное описание характеристик товара, комплектации и гарантии #" + id,
+					500L + random.nextInt(200_000),
+					"/images/" + id + ".jpg"));
+		}
+		return Collections.unmodifiableList(items);
+	}
+
+	private static ItemRepository itemRepository(List<ItemEntity> items) {
+		Map<Long, ItemEntity> byId = items.stream().collect(Collectors.toMap(ItemEntity::getId, Function.identity()));
+		return (ItemRepository) Proxy.newProxyInstance(ItemRepository.class.getClassLoader(),
+				new Class<?>[] {ItemRepository.class},
+				(proxy, method, args) -> switch (method.getName()) {
+					case "findAll" -> Flux.fromIterable(items);
+					case "findByTitleContainingIgnoreCaseOrDescriptionContainingIgnoreCase" -> {
+						String search = ((String) args[0]).toLowerCase(Locale.ROOT);
+						yield Flux.fromIterable(items)
+								.filter(item -> item.getTitle().toLowerCase(Locale.ROOT).contains(search)
+										|| item.getDescription().toLowerCase(Locale.ROOT).contains(search));
+					}
+					case "findAllById" -> {
+						List<ItemEntity> found = new ArrayList<>();
+						for (Object id : (Iterable<?>) args[0]) {
+							ItemEntity item = byId.get((Long) id);
+							if (item != null) {
+								found.add(item);
+							}
+						}
+						yield Flux.fromIterable(found);
+					}
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T unsupported(Class<T> type) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+				(proxy, method, args) -> {
+					throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	/**
+	 * Cache that keeps values in a map, or misses on every lookup when disabled.
+	 */
+	static final class InMemoryCacheService extends ReactiveCacheService {
+
+		private final boolean enabled;
+		private final Map<String, Object> values = new ConcurrentHashMap<>();
+
+		InMemoryCacheService(boolean enabled) {
+			super(null, null, new SimpleMeterRegistry(), ObservationRegistry.NOOP);
+			this.enabled = enabled;
+		}
+
+		@Override
+		public <T> Mono<T> getOrPut(String key, Class<T> valueClass, Mono<T> dataSupplier, Duration ttl) {
+			Object cached = values.get(key);
+			if (valueClass.isInstance(cached)) {
+				return Mono.just(valueClass.cast(cached));
+			}
+			return enabled ? dataSupplier.doOnNext(value -> values.put(key, value)) : dataSupplier;
+		}
+
+		@Override
+		public <T> Mono<List<T>> multiGet(List<String> keys, Class<T> valueClass) {
+			List<T> result = new ArrayList<>(keys.size());
+			for (String key : keys) {
+				Object cached = values.get(key);
+				result.add(valueClass.isInstance(cached) ? valueClass.cast(cached) : null);
+			}
+			return Mono.just(result);
+		}
+
+		@Override
+		public Mono<Void> putAll(Map<String, ?> entries, Duration ttl) {
+			if (enabled) {
+				values.putAll(entries);
+			}
+			return Mono.empty();
+		}
+	}
+
+	private static final class FixedCatalogVersion extends CatalogVersion {
+
+		FixedCatalogVersion() {
+			super(null, Duration.ofSeconds(10));
+		}
+
+		@Override
+		public long current() {
+			return 1L;
+		}
+
+		@Override
+		public long currentPrices() {
+			return 1L;
+		}
+	}
+}
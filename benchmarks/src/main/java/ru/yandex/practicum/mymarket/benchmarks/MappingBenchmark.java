@@ -0,0 +1,78 @@
+package ru.yandex.practicum.mymarket.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ru.yandex.practicum.mymarket.dto.response.ItemDetailsResponseDto;
+import ru.yandex.practicum.mymarket.entity.ItemEntity;
+import ru.yandex.practicum.mymarket.mapper.CartMapper;
+import ru.yandex.practicum.mymarket.mapper.CartMapperImpl;
+import ru.yandex.practicum.mymarket.mapper.ItemMapper;
+import ru.yandex.practicum.mymarket.mapper.ItemMapperImpl;
+import ru.yandex.practicum.mymarket.service.model.CartEntry;
+
+/**
+ * MapStruct mappings of one page of 50 items.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+	private final ItemMapper itemMapper = new ItemMapperImpl();
+	private final CartMapper cartMapper = new CartMapperImpl();
+
+	private List<ItemEntity> items;
+	private List<ItemDetailsResponseDto> details;
+	private List<CartEntry> cartEntries;
+
+	@Setup
+	public void setUp() {
+		items = CatalogFixture.generateItems(50);
+		details = items.stream().map(item -> itemMapper.toItemDetailsResponse(item, 0)).toList();
+		cartEntries = items.stream().map(item -> new CartEntry(item, 2)).toList();
+	}
+
+	@Benchmark
+	public void itemToResponse(Blackhole blackhole) {
+		for (ItemEntity item : items) {
+			blackhole.consume(itemMapper.toItemResponse(item, 1));
+		}
+	}
+
+	@Benchmark
+	public void itemToDetails(Blackhole blackhole) {
+		for (ItemEntity item : items) {
+			blackhole.consume(itemMapper.toItemDetailsResponse(item, 0));
+		}
+	}
+
+	@Benchmark
+	public void detailsToResponse(Blackhole blackhole) {
+		for (ItemDetailsResponseDto item : details) {
+			blackhole.consume(itemMapper.toItemResponse(item));
+		}
+	}
+
+	@Benchmark
+	public void cartEntryToResponse(Blackhole blackhole) {
+		for (CartEntry entry : cartEntries) {
+			blackhole.consume(cartMapper.toCartItemResponse(entry));
+		}
+	}
+}
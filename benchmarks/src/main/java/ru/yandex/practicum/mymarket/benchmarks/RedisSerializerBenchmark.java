@@ -0,0 +1,71 @@
+package ru.yandex.practicum.mymarket.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import ru.yandex.practicum.mymarket.config.RedisConfig;
+import ru.yandex.practicum.mymarket.dto.response.CachedItemIdsPageDto;
+import ru.yandex.practicum.mymarket.dto.response.ItemDetailsResponseDto;
+
+/**
+ * The cache value serializer of RedisConfig on the values the catalog caches: item details
+ * and a block of 50 item ids.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisSerializerBenchmark {
+
+	private final RedisSerializer<Object> serializer = RedisConfig.cacheValueSerializer();
+
+	private ItemDetailsResponseDto item;
+	private CachedItemIdsPageDto idsBlock;
+	private byte[] itemBytes;
+	private byte[] idsBlockBytes;
+
+	@Setup
+	public void setUp() {
+		item = new ItemDetailsResponseDto(42L, "Смартфон Alpha 512",
+				"Смартфон Alpha: подробное описание характеристик товара, комплектации и гарантии", "/images/42.jpg",
+				49_990L, 0);
+		idsBlock = new CachedItemIdsPageDto(List.copyOf(LongStream.rangeClosed(1, 50).boxed().toList()), 0, 50, 10_000);
+		itemBytes = serializer.serialize(item);
+		idsBlockBytes = serializer.serialize(idsBlock);
+	}
+
+	@Benchmark
+	public byte[] serializeItem() {
+		return serializer.serialize(item);
+	}
+
+	@Benchmark
+	public Object deserializeItem() {
+		return serializer.deserialize(itemBytes);
+	}
+
+	@Benchmark
+	public byte[] serializeIdsBlock() {
+		return serializer.serialize(idsBlock);
+	}
+
+	@Benchmark
+	public Object deserializeIdsBlock() {
+		return serializer.deserialize(idsBlockBytes);
+	}
+}
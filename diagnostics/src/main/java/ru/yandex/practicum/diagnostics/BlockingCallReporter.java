@@ -0,0 +1,144 @@
+package ru.yandex.practicum.diagnostics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingMethod;
+import reactor.blockhound.BlockingOperationError;
+import reactor.blockhound.integration.BlockHoundIntegration;
+
+/**
+ * BlockHound integration reporting blocking calls made on non-blocking threads (Netty event loops, Reactor parallel
+ * schedulers). Calls are counted in {@code reactor.blocking.calls} by blocking method, and the first call from every
+ * call site is logged with its stack trace. A call site is the blocking method with the top frames outside the JDK and
+ * BlockHound; the most recent {@value #MAX_CALL_SITES} call sites are remembered. With {@code fail} the call also throws {@link BlockingOperationError},
+ * as BlockHound does by default.
+ * <p>
+ * Reports are queued without locks and handled on a thread of the reporter: logging on the offending thread would
+ * itself block and be reported again.
+ */
+@Slf4j
+public class BlockingCallReporter implements BlockHoundIntegration, AutoCloseable {
+
+	public static final String BLOCKING_CALLS_COUNTER = "reactor.blocking.calls";
+
+	private static final int MAX_PENDING = 10_000;
+	static final int MAX_CALL_SITES = 1_000;
+	private static final int CALL_SITE_FRAMES = 5;
+	private static final List<String> SKIPPED_FRAME_PREFIXES = List.of("java.", "jdk.", "sun.", "reactor.blockhound.");
+
+	private final MeterRegistry meterRegistry;
+	private final boolean fail;
+	private final Queue<Report> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pendingCount = new AtomicInteger();
+	private final AtomicInteger dropped = new AtomicInteger();
+	private final Set<String> reportedCallSites = Collections.newSetFromMap(new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+			return size() > MAX_CALL_SITES;
+		}
+	});
+	private final Thread worker;
+	private volatile boolean running = true;
+
+	public BlockingCallReporter(MeterRegistry meterRegistry, boolean fail, Duration drainInterval) {
+		this.meterRegistry = meterRegistry;
+		this.fail = fail;
+		this.worker = Thread.ofPlatform()
+				.name("blocking-call-reporter")
+				.daemon()
+				.unstarted(() -> {
+					while (running) {
+						drain();
+						try {
+							Thread.sleep(drainInterval);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							return;
+						}
+					}
+				});
+	}
+
+	public void start() {
+		worker.start();
+	}
+
+	@Override
+	public void applyTo(BlockHound.Builder builder) {
+		builder.blockingMethodCallback(this::report);
+	}
+
+	void report(BlockingMethod method) {
+		if (pendingCount.incrementAndGet() <= MAX_PENDING) {
+			pending.add(new Report(method, Thread.currentThread().getName(), new BlockingOperationError(method)));
+		} else {
+			pendingCount.decrementAndGet();
+			dropped.incrementAndGet();
+		}
+		if (fail) {
+			throw new BlockingOperationError(method);
+		}
+	}
+
+	/**
+	 * Counts and logs the queued reports.
+	 */
+	synchronized void drain() {
+		Report report;
+		while ((report = pending.poll()) != null) {
+			pendingCount.decrementAndGet();
+			Counter.builder(BLOCKING_CALLS_COUNTER)
+					.tag("method", report.method().toString())
+					.register(meterRegistry)
+					.increment();
+			if (reportedCallSites.add(callSite(report.method(), report.stackTrace()))) {
+				log.warn("Blocking call {} on non-blocking thread {}", report.method(), report.thread(), report.stackTrace());
+			}
+		}
+		int lost = dropped.getAndSet(0);
+		if (lost > 0) {
+			log.warn("{} blocking calls were not reported: too many pending reports", lost);
+		}
+	}
+
+	synchronized int rememberedCallSites() {
+		return reportedCallSites.size();
+	}
+
+	@Override
+	public void close() {
+		running = false;
+		worker.interrupt();
+		drain();
+	}
+
+	static String callSite(BlockingMethod method, Throwable stackTrace) {
+		List<String> frames = new ArrayList<>(CALL_SITE_FRAMES + 1);
+		frames.add(method.toString());
+		for (StackTraceElement frame : stackTrace.getStackTrace()) {
+			if (frames.size() > CALL_SITE_FRAMES) {
+				break;
+			}
+			if (SKIPPED_FRAME_PREFIXES.stream().noneMatch(frame.getClassName()::startsWith)) {
+				frames.add(frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber());
+			}
+		}
+		return String.join(" <- ", frames);
+	}
+
+	private record Report(BlockingMethod method, String thread, BlockingOperationError stackTrace) {
+	}
+}
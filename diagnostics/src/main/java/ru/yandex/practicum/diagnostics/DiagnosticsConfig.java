@@ -0,0 +1,47 @@
+package ru.yandex.practicum.diagnostics;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.blockhound.BlockHound;
+import reactor.netty.http.HttpResources;
+import reactor.netty.tcp.TcpResources;
+
+/**
+ * Blocking diagnostics, enabled by the {@code blocking-diagnostics} profile: BlockHound reports blocking calls on
+ * event loops through {@link BlockingCallReporter}, and {@link EventLoopLagProbe} measures the lag of the global
+ * Reactor Netty event loops: those of the server and WebClient and those of the R2DBC driver. BlockHound needs the JVM flag
+ * {@code -XX:+AllowRedefinitionToAddDeleteMethods}.
+ * <p>
+ * Registered as an auto-configuration, so every service depending on this module gets the profile.
+ */
+@AutoConfiguration
+@Profile("blocking-diagnostics")
+public class DiagnosticsConfig {
+
+	@Bean(destroyMethod = "close")
+	public BlockingCallReporter blockingCallReporter(
+			MeterRegistry meterRegistry,
+			@Value("${diagnostics.blocking.fail:false}") boolean fail) {
+		BlockingCallReporter reporter = new BlockingCallReporter(meterRegistry, fail, Duration.ofSeconds(1));
+		reporter.start();
+		BlockHound.install(reporter);
+		return reporter;
+	}
+
+	@Bean(destroyMethod = "close")
+	public EventLoopLagProbe eventLoopLagProbe(
+			MeterRegistry meterRegistry,
+			@Value("${diagnostics.event-loop-lag.interval:100ms}") Duration interval) {
+		EventLoopLagProbe probe = new EventLoopLagProbe(
+				List.of(HttpResources.get().onServer(true), TcpResources.get().onClient(true)), meterRegistry, interval);
+		probe.start();
+		return probe;
+	}
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.diagnostics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+
+/**
+ * Measures how late tasks scheduled on each event loop run, in the {@code reactor.eventloop.lag} timer tagged with the
+ * loop thread; its {@code max} is the worst recent lag. A loop stalled by a blocking call or a long computation runs
+ * the I/O of all its connections late by as much.
+ */
+public class EventLoopLagProbe implements AutoCloseable {
+
+	public static final String LAG_TIMER = "reactor.eventloop.lag";
+
+	private final List<EventLoopGroup> eventLoopGroups;
+	private final MeterRegistry meterRegistry;
+	private final long intervalNanos;
+	private volatile boolean running;
+
+	public EventLoopLagProbe(List<EventLoopGroup> eventLoopGroups, MeterRegistry meterRegistry, Duration interval) {
+		this.eventLoopGroups = eventLoopGroups;
+		this.meterRegistry = meterRegistry;
+		this.intervalNanos = interval.toNanos();
+	}
+
+	public void start() {
+		running = true;
+		for (EventLoopGroup eventLoops : eventLoopGroups) {
+			for (EventExecutor eventLoop : eventLoops) {
+				schedule(eventLoop);
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		running = false;
+	}
+
+	private void schedule(EventExecutor eventLoop) {
+		if (!running || eventLoop.isShuttingDown()) {
+			return;
+		}
+		long due = System.nanoTime() + intervalNanos;
+		eventLoop.schedule(() -> {
+			Timer.builder(LAG_TIMER)
+					.tag("loop", Thread.currentThread().getName())
+					.register(meterRegistry)
+					.record(Math.max(0, System.nanoTime() - due), TimeUnit.NANOSECONDS);
+			schedule(eventLoop);
+		}, intervalNanos, TimeUnit.NANOSECONDS);
+	}
+}
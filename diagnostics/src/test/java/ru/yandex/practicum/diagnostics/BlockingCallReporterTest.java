@@ -0,0 +1,71 @@
+package ru.yandex.practicum.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.blockhound.BlockingMethod;
+import reactor.blockhound.BlockingOperationError;
+
+class BlockingCallReporterTest {
+
+	private static final BlockingMethod SLEEP = new BlockingMethod("java.lang.Thread", "sleep", 0x0008);
+
+	private SimpleMeterRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+	}
+
+	@Test
+	void report_countsBlockingCallsByMethod() {
+		try (BlockingCallReporter reporter = new BlockingCallReporter(registry, false, Duration.ofSeconds(1))) {
+			reporter.report(SLEEP);
+			reporter.report(SLEEP);
+			reporter.drain();
+
+			assertEquals(2.0, registry.get(BlockingCallReporter.BLOCKING_CALLS_COUNTER)
+					.tag("method", "java.lang.Thread.sleep").counter().count());
+		}
+	}
+
+	@Test
+	void callSite_keysOnTheMethodAndTopFramesOutsideTheJdk() {
+		String callSite = BlockingCallReporter.callSite(SLEEP, new BlockingOperationError(SLEEP));
+
+		assertTrue(callSite.startsWith("java.lang.Thread.sleep <- " + BlockingCallReporterTest.class.getName()
+				+ ".callSite_keysOnTheMethodAndTopFramesOutsideTheJdk:"), callSite);
+		assertEquals(6, callSite.split(" <- ").length);
+	}
+
+	@Test
+	void drain_remembersABoundedNumberOfCallSites() {
+		try (BlockingCallReporter reporter = new BlockingCallReporter(registry, false, Duration.ofSeconds(1))) {
+			for (int i = 0; i <= BlockingCallReporter.MAX_CALL_SITES; i++) {
+				reporter.report(new BlockingMethod("java.lang.Thread", "sleep" + i, 0x0008));
+			}
+			reporter.report(SLEEP);
+			reporter.report(SLEEP);
+			reporter.drain();
+
+			assertEquals(BlockingCallReporter.MAX_CALL_SITES, reporter.rememberedCallSites());
+		}
+	}
+
+	@Test
+	void report_failsTheCallWhenConfigured() {
+		try (BlockingCallReporter reporter = new BlockingCallReporter(registry, true, Duration.ofSeconds(1))) {
+			assertThrows(BlockingOperationError.class, () -> reporter.report(SLEEP));
+			reporter.drain();
+
+			assertEquals(1.0, registry.get(BlockingCallReporter.BLOCKING_CALLS_COUNTER).counter().count());
+		}
+	}
+}
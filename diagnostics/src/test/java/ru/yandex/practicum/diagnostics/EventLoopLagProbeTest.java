@@ -0,0 +1,52 @@
+package ru.yandex.practicum.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.channel.nio.NioEventLoopGroup;
+
+class EventLoopLagProbeTest {
+
+	private NioEventLoopGroup eventLoops;
+	private SimpleMeterRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		eventLoops = new NioEventLoopGroup(1);
+		registry = new SimpleMeterRegistry();
+	}
+
+	@AfterEach
+	void tearDown() {
+		eventLoops.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+	}
+
+	@Test
+	void recordsLagOfABlockedLoop() throws Exception {
+		try (EventLoopLagProbe probe = new EventLoopLagProbe(List.of(eventLoops), registry, Duration.ofMillis(10))) {
+			probe.start();
+			eventLoops.submit(() -> sleep(200)).get();
+			Thread.sleep(50);
+
+			Timer lag = registry.get(EventLoopLagProbe.LAG_TIMER).timer();
+			assertTrue(lag.max(TimeUnit.MILLISECONDS) >= 100, "max lag " + lag.max(TimeUnit.MILLISECONDS));
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package ru.yandex.practicum.mymarket.loadtest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * Stand-in for payment-service implementing the two operations market-app calls on the checkout path:
+ * {@code GET /api/users/{userId}/balance} and {@code POST /api/payments}. Every response is delayed by
+ * the configured latency plus a random jitter, and fails with 503 at the configured error rate.
+ * Requests without a bearer token are rejected with 401, as the real service does. The health endpoint
+ * market-app probes before allowing checkout is always up.
+ */
+@Slf4j
+final class FakePaymentService implements AutoCloseable {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final AtomicLong paymentIds = new AtomicLong();
+	private final Duration latency;
+	private final Duration jitter;
+	private final double errorRate;
+	private final long balance;
+	private final DisposableServer server;
+
+	FakePaymentService(LoadTestSettings settings) {
+		this.latency = settings.paymentLatency();
+		this.jitter = settings.paymentJitter();
+		this.errorRate = settings.paymentErrorRate();
+		this.balance = settings.userBalance();
+		this.server = HttpServer.create()
+				.host("localhost")
+				.port(0)
+				.route(routes -> routes
+						.get("/actuator/health", (request, response) -> response
+								.header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+								.sendString(Mono.just("{\"status\":\"UP\"}")))
+						.get("/api/users/{userId}/balance", this::balance)
+						.post("/api/payments", this::createPayment))
+				.bindNow();
+		log.info("Fake payment-service started at {} (latency {} + up to {}, error rate {})",
+				url(), latency, jitter, errorRate);
+	}
+
+	String url() {
+		return "http://localhost:" + server.port();
+	}
+
+	@Override
+	public void close() {
+		server.disposeNow();
+	}
+
+	private Mono<Void> balance(HttpServerRequest request, HttpServerResponse response) {
+		long userId = Long.parseLong(request.param("userId"));
+		return respond(request, response, Mono.fromSupplier(() -> Map.of("userId", userId, "balance", balance)));
+	}
+
+	private Mono<Void> createPayment(HttpServerRequest request, HttpServerResponse response) {
+		Mono<Map<String, Object>> payment = request.receive().aggregate().asString(StandardCharsets.UTF_8)
+				.map(body -> {
+					JsonNode payload = readTree(body);
+					OffsetDateTime now = OffsetDateTime.now();
+					Map<String, Object> created = new LinkedHashMap<>();
+					created.put("id", paymentIds.incrementAndGet());
+					created.put("orderId", payload.path("orderId").asLong());
+					created.put("userId", payload.path("userId").asLong());
+					created.put("amount", payload.path("amount").asLong());
+					created.put("status", "COMPLETED");
+					created.put("description", payload.path("description").asText());
+					created.put("createdAt", now.toString());
+					created.put("updatedAt", now.toString());
+					return created;
+				});
+		return respond(request, response.status(HttpResponseStatus.CREATED), payment);
+	}
+
+	private Mono<Void> respond(HttpServerRequest request, HttpServerResponse response, Mono<?> body) {
+		String authorization = request.requestHeaders().get(HttpHeaderNames.AUTHORIZATION);
+		if (authorization == null || !authorization.startsWith("Bearer ")) {
+			return response.status(HttpResponseStatus.UNAUTHORIZED).send().then();
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Duration delay = jitter.isZero() ? latency : latency.plusNanos(random.nextLong(jitter.toNanos() + 1));
+		boolean fail = random.nextDouble() < errorRate;
+		Mono<?> payload = fail ? Mono.just(error(request)) : body;
+		return Mono.delay(delay)
+				.then(payload)
+				.flatMap(value -> response
+						.status(fail ? HttpResponseStatus.SERVICE_UNAVAILABLE : response.status())
+						.header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+						.sendString(Mono.fromCallable(() -> objectMapper.writeValueAsString(value)))
+						.then());
+	}
+
+	private Map<String, Object> error(HttpServerRequest request) {
+		return Map.of(
+				"error", "Service Unavailable",
+				"message", "Injected failure",
+				"timestamp", OffsetDateTime.now().toString(),
+				"path", request.uri());
+	}
+
+	private JsonNode readTree(String body) {
+		try {
+			return objectMapper.readTree(body);
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Invalid payment request: " + body, e);
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package ru.yandex.practicum.mymarket.loadtest;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import ru.yandex.practicum.mymarket.enums.CartAction;
+import ru.yandex.practicum.mymarket.enums.SortType;
+
+/**
+ * Closed-loop load: every virtual user logs in during the warmup, then runs scenarios picked by weight
+ * back to back (with the think time between them) until the measurement ends.
+ */
+@Slf4j
+final class LoadDriver {
+
+	private static final String[] SEARCHES = {"смартфон", "Ноутбук", "pro", "наушники", "  Смартфон  Pro ", "gaming",
+			"alpha", "часы", "Планшет", "камера"};
+
+	private final LoadTestSettings settings;
+	private final String appUrl;
+	private final List<Long> itemIds;
+	private final List<Scenario> wheel;
+	private final int pages;
+	private final LoadStats stats;
+	private final WebClient client;
+
+	LoadDriver(LoadTestSettings settings, String appUrl, List<Long> itemIds) {
+		this.settings = settings;
+		this.appUrl = appUrl;
+		this.itemIds = itemIds;
+		this.wheel = wheel(settings.mix());
+		this.pages = Math.max(1, itemIds.size() / settings.pageSize());
+		this.stats = new LoadStats(settings.duration());
+		ConnectionProvider connections = ConnectionProvider.builder("load-test")
+				.maxConnections(settings.users() * 2)
+				.pendingAcquireMaxCount(-1)
+				.build();
+		this.client = WebClient.builder()
+				.clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)
+						.responseTimeout(Duration.ofSeconds(30))))
+				.build();
+	}
+
+	void run(PrintStream out) {
+		log.info("Running {} users against {}: warmup {}, measurement {}, mix {}",
+				settings.users(), appUrl, settings.warmup(), settings.duration(), settings.mix());
+		long deadline = System.nanoTime() + settings.warmup().plus(settings.duration()).toNanos();
+		Disposable start = Mono.delay(settings.warmup()).subscribe(ignored -> stats.startRecording());
+		Disposable stop = Mono.delay(settings.warmup().plus(settings.duration())).subscribe(ignored -> stats.stopRecording());
+		AtomicInteger failedLogins = new AtomicInteger();
+		try {
+			Flux.range(0, settings.users())
+					.flatMap(i -> runUser(new VirtualUser("loadtest-user-" + (i + 1), appUrl, client, stats),
+							settings.warmup().multipliedBy(i).dividedBy(settings.users()), deadline, failedLogins),
+							settings.users())
+					.blockLast();
+		} finally {
+			start.dispose();
+			stop.dispose();
+			stats.stopRecording();
+		}
+		if (failedLogins.get() > 0) {
+			log.warn("{} of {} users could not log in and did not run", failedLogins.get(), settings.users());
+		}
+		stats.print(out, settings.duration());
+	}
+
+	private Mono<Void> runUser(VirtualUser user, Duration startDelay, long deadline, AtomicInteger failedLogins) {
+		return Mono.delay(startDelay)
+				.then(user.login())
+				.flatMapMany(loggedIn -> {
+					if (!loggedIn) {
+						failedLogins.incrementAndGet();
+						return Flux.empty();
+					}
+					return Mono.defer(() -> iteration(user)).repeat(() -> System.nanoTime() < deadline);
+				})
+				.then();
+	}
+
+	private Mono<Void> iteration(VirtualUser user) {
+		Scenario scenario = wheel.get(ThreadLocalRandom.current().nextInt(wheel.size()));
+		Mono<Void> run = run(user, scenario);
+		return settings.thinkTime().isZero() ? run : run.then(Mono.delay(settings.thinkTime()).then());
+	}
+
+	private Mono<Void> run(VirtualUser user, Scenario scenario) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		SortType sort = SortType.values()[random.nextInt(SortType.values().length)];
+		return switch (scenario) {
+			case BROWSE -> {
+				int page = 1 + random.nextInt(pages);
+				yield user.get("browse", uri -> uri.path("/api/items")
+						.queryParam("pageNumber", page)
+						.queryParam("pageSize", settings.pageSize())
+						.queryParam("sort", sort)
+						.build());
+			}
+			case SEARCH -> {
+				String search = SEARCHES[random.nextInt(SEARCHES.length)];
+				yield user.get("search", uri -> uri.path("/api/items")
+						.queryParam("search", search)
+						.queryParam("pageSize", settings.pageSize())
+						.queryParam("sort", sort)
+						.build());
+			}
+			case ITEM -> {
+				long id = randomItem(random);
+				yield user.get("item", uri -> uri.path("/api/items/{id}").build(id));
+			}
+			case CART -> addToCart(user, random)
+					.then(user.get("cart-view", uri -> uri.path("/api/cart/items").build()));
+			case CHECKOUT -> addToCart(user, random)
+					.then(user.post("checkout", "/api/buy", new LinkedMultiValueMap<>()));
+		};
+	}
+
+	private Mono<Void> addToCart(VirtualUser user, ThreadLocalRandom random) {
+		MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+		form.add("id", String.valueOf(randomItem(random)));
+		form.add("action", CartAction.PLUS.name());
+		return user.post("cart-add", "/api/cart/line", form);
+	}
+
+	private long randomItem(ThreadLocalRandom random) {
+		return itemIds.get(random.nextInt(itemIds.size()));
+	}
+
+	/**
+	 * Every scenario repeated by its weight, so a uniform pick follows the mix.
+	 */
+	private static List<Scenario> wheel(Map<Scenario, Integer> mix) {
+		List<Scenario> wheel = new ArrayList<>();
+		mix.forEach((scenario, weight) -> {
+			for (int i = 0; i < weight; i++) {
+				wheel.add(scenario);
+			}
+		});
+		return List.copyOf(wheel);
+	}
+}
@@ -0,0 +1,128 @@
+package ru.yandex.practicum.mymarket.loadtest;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Latencies of load test requests in the {@code loadtest.request} timer by step and outcome
+ * ({@code success} for 2xx, {@code http_<status>}, {@code timeout} or {@code error}). Nothing is
+ * recorded until {@link #startRecording()}, so the warmup does not skew the report.
+ */
+final class LoadStats {
+
+	static final String SUCCESS = "success";
+
+	private static final String TIMER = "loadtest.request";
+	private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+	private final Duration statisticsExpiry;
+	private volatile boolean recording;
+
+	/**
+	 * @param measurement measured time; percentiles are kept over all of it instead of a rolling window
+	 */
+	LoadStats(Duration measurement) {
+		this.statisticsExpiry = measurement.multipliedBy(2).plusMinutes(1);
+	}
+
+	void startRecording() {
+		recording = true;
+	}
+
+	void stopRecording() {
+		recording = false;
+	}
+
+	void record(String step, String outcome, long nanos) {
+		if (!recording) {
+			return;
+		}
+		Timer.builder(TIMER)
+				.tag("step", step)
+				.tag("outcome", outcome)
+				.publishPercentiles(PERCENTILES)
+				.percentilePrecision(2)
+				.distributionStatisticExpiry(statisticsExpiry)
+				.distributionStatisticBufferLength(1)
+				.register(registry)
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Prints per step throughput, errors and latency percentiles of successful requests, then errors by outcome.
+	 */
+	void print(PrintStream out, Duration measured) {
+		Map<String, StepSummary> steps = new TreeMap<>();
+		Map<String, Long> errors = new TreeMap<>();
+		for (Timer timer : registry.find(TIMER).timers()) {
+			String step = timer.getId().getTag("step");
+			String outcome = timer.getId().getTag("outcome");
+			StepSummary summary = steps.computeIfAbsent(step, ignored -> new StepSummary());
+			summary.requests += timer.count();
+			if (SUCCESS.equals(outcome)) {
+				summary.success = timer.takeSnapshot();
+			} else {
+				summary.errors += timer.count();
+				errors.merge(step + " " + outcome, timer.count(), Long::sum);
+			}
+		}
+
+		double seconds = measured.toMillis() / 1000.0;
+		out.println();
+		out.printf(Locale.ROOT, "Measured %s%n", measured);
+		out.printf(Locale.ROOT, "%-10s %10s %8s %9s %9s %9s %9s %9s %9s%n",
+				"step", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+		long totalRequests = 0;
+		for (Map.Entry<String, StepSummary> entry : steps.entrySet()) {
+			StepSummary summary = entry.getValue();
+			totalRequests += summary.requests;
+			out.printf(Locale.ROOT, "%-10s %10d %8d %9.1f %9s %9s %9s %9s %9s%n",
+					entry.getKey(), summary.requests, summary.errors, summary.requests / seconds,
+					percentile(summary.success, 0.5), percentile(summary.success, 0.9),
+					percentile(summary.success, 0.99), percentile(summary.success, 0.999),
+					summary.success == null ? "-" : millis(summary.success.max(TimeUnit.NANOSECONDS)));
+		}
+		out.printf(Locale.ROOT, "%-10s %10d %8s %9.1f%n", "total", totalRequests, "", totalRequests / seconds);
+		if (!errors.isEmpty()) {
+			out.println();
+			out.println("Errors:");
+			errors.entrySet().stream()
+					.sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+					.forEach(entry -> out.printf(Locale.ROOT, "  %-30s %10d%n", entry.getKey(), entry.getValue()));
+		}
+	}
+
+	private static String percentile(HistogramSnapshot snapshot, double percentile) {
+		if (snapshot == null) {
+			return "-";
+		}
+		for (ValueAtPercentile value : snapshot.percentileValues()) {
+			if (value.percentile() == percentile) {
+				return millis(value.value(TimeUnit.NANOSECONDS));
+			}
+		}
+		return "-";
+	}
+
+	private static String millis(double nanos) {
+		return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+	}
+
+	private static final class StepSummary {
+		long requests;
+		long errors;
+		HistogramSnapshot success;
+	}
+}
@@ -0,0 +1,124 @@
+package ru.yandex.practicum.mymarket.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.mymarket.MyMarketAppApplication;
+import ru.yandex.practicum.mymarket.entity.ItemEntity;
+import ru.yandex.practicum.mymarket.repository.ItemRepository;
+
+/**
+ * Boots market-app against Testcontainers Postgres and Redis, the stub identity provider and the fake
+ * payment-service, seeds the catalog, runs the load and prints the report. Settings come from
+ * {@code -Dloadtest.*} (see {@link LoadTestSettings}); {@code --name=value} arguments override
+ * market-app properties.
+ */
+@Slf4j
+public final class LoadTestApplication {
+
+	private static final String[] KINDS = {"Смартфон", "Ноутбук", "Наушники", "Планшет", "Часы", "Колонка", "Камера"};
+	private static final String[] BRANDS = {"Alpha", "Nova", "Zenit", "Orion", "Vega", "Pro", "Gaming"};
+
+	private static final String[] DEBUG_LOGGERS = {
+			"ru.yandex.practicum.mymarket",
+			"ru.yandex.practicum.mymarket.service.impl.OrderServiceImpl",
+			"ru.yandex.practicum.mymarket.service.impl.UserServiceImpl",
+			"ru.yandex.practicum.mymarket.config.CustomLogoutSuccessHandler",
+			"org.springframework.security.web.server.authentication.logout",
+			"org.springframework.security.oauth2.client"};
+
+	private LoadTestApplication() {
+	}
+
+	public static void main(String[] args) {
+		LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+		try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+					.withDatabaseName("my_market_db");
+		     GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+					.withExposedPorts(6379)) {
+			postgres.start();
+			redis.start();
+
+			Map<String, String> infrastructure = new LinkedHashMap<>();
+			infrastructure.put("spring.r2dbc.url", String.format("r2dbc:postgresql://%s:%d/%s",
+					postgres.getHost(), postgres.getFirstMappedPort(), postgres.getDatabaseName()));
+			infrastructure.put("spring.r2dbc.username", postgres.getUsername());
+			infrastructure.put("spring.r2dbc.password", postgres.getPassword());
+			infrastructure.put("spring.data.redis.host", redis.getHost());
+			infrastructure.put("spring.data.redis.port", String.valueOf(redis.getFirstMappedPort()));
+			run(settings, infrastructure, args);
+		}
+	}
+
+	/**
+	 * Runs the load test against market-app connected to the Postgres and Redis given in {@code infrastructure}.
+	 */
+	static void run(LoadTestSettings settings, Map<String, String> infrastructure, String[] args) {
+		try (StubIdentityProvider identityProvider = new StubIdentityProvider();
+		     FakePaymentService paymentService = new FakePaymentService(settings)) {
+			Map<String, String> properties = new LinkedHashMap<>(infrastructure);
+			properties.put("server.port", "0");
+			properties.put("payment.service.url", paymentService.url());
+			properties.putAll(identityProvider.marketAppProperties());
+			// Per request DEBUG logging configured in application.properties would dominate the measurements
+			for (String logger : DEBUG_LOGGERS) {
+				properties.put("logging.level." + logger, "WARN");
+			}
+
+			try (ConfigurableApplicationContext app = SpringApplication.run(MyMarketAppApplication.class,
+					commandLine(properties, args))) {
+				String appUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+				List<Long> itemIds = seedCatalog(app.getBean(ItemRepository.class), settings.extraItems()).block();
+				log.info("market-app is up at {} with {} items", appUrl, itemIds.size());
+				new LoadDriver(settings, appUrl, itemIds).run(System.out);
+			}
+		}
+	}
+
+	/**
+	 * Adds {@code extraItems} generated items to the seeded catalog and returns the ids of all items.
+	 */
+	private static Mono<List<Long>> seedCatalog(ItemRepository itemRepository, int extraItems) {
+		Random random = new Random(42);
+		return Flux.range(0, extraItems)
+				.map(i -> {
+					String kind = KINDS[random.nextInt(KINDS.length)];
+					String brand = BRANDS[random.nextInt(BRANDS.length)];
+					return new ItemEntity(null, kind + " " + brand + " " + (100 + random.nextInt(900)),
+							kind + " " + brand + ": описание характеристик, комплектации и гарантии",
+							500L + random.nextInt(200_000), "images/android_phone.png");
+				})
+				.buffer(500)
+				.concatMap(itemRepository::saveAll)
+				.thenMany(itemRepository.findAll())
+				.map(ItemEntity::getId)
+				.collectList();
+	}
+
+	/**
+	 * market-app properties as command line arguments, overridden by {@code --name=value} arguments of the load test.
+	 */
+	private static String[] commandLine(Map<String, String> properties, String[] args) {
+		Map<String, String> merged = new LinkedHashMap<>(properties);
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (arg.startsWith("--") && separator > 2) {
+				merged.put(arg.substring(2, separator), arg.substring(separator + 1));
+			}
+		}
+		return merged.entrySet().stream()
+				.map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+				.toArray(String[]::new);
+	}
+}
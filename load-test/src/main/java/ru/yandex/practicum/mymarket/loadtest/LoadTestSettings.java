@@ -0,0 +1,82 @@
+package ru.yandex.practicum.mymarket.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Load test settings, read from {@code -Dloadtest.*} system properties.
+ *
+ * @param users           number of concurrent virtual users, each with its own session
+ * @param warmup          ramp-up time: users log in spread over it and nothing is recorded
+ * @param duration        measured time after the warmup
+ * @param thinkTime       pause of a user between two scenarios
+ * @param extraItems      generated items added to the seeded catalog
+ * @param pageSize        catalog page size of browse and search
+ * @param paymentLatency  latency of every fake payment-service response
+ * @param paymentJitter   random extra latency of a fake payment-service response, up to this value
+ * @param paymentErrorRate share of fake payment-service responses that fail with 503
+ * @param userBalance     balance the fake payment-service reports for every user
+ * @param mix             relative weights of the scenarios
+ */
+record LoadTestSettings(
+		int users,
+		Duration warmup,
+		Duration duration,
+		Duration thinkTime,
+		int extraItems,
+		int pageSize,
+		Duration paymentLatency,
+		Duration paymentJitter,
+		double paymentErrorRate,
+		long userBalance,
+		Map<Scenario, Integer> mix
+) {
+
+	static LoadTestSettings fromSystemProperties() {
+		return new LoadTestSettings(
+				Integer.parseInt(property("users", "50")),
+				duration("warmup", "30s"),
+				duration("duration", "2m"),
+				duration("think-time", "0ms"),
+				Integer.parseInt(property("catalog.extra-items", "1000")),
+				Integer.parseInt(property("page-size", "20")),
+				duration("payment.latency", "50ms"),
+				duration("payment.jitter", "20ms"),
+				Double.parseDouble(property("payment.error-rate", "0")),
+				Long.parseLong(property("payment.balance", "1000000000000")),
+				mix(property("mix", "browse=40,search=25,item=15,cart=15,checkout=5")));
+	}
+
+	/**
+	 * Parses {@code browse=40,search=25,...}; scenarios that are not listed are not run.
+	 */
+	static Map<Scenario, Integer> mix(String value) {
+		Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+		for (String entry : value.split(",")) {
+			String[] parts = entry.trim().split("=");
+			if (parts.length != 2) {
+				throw new IllegalArgumentException("Invalid scenario weight '" + entry + "', expected name=weight");
+			}
+			int weight = Integer.parseInt(parts[1].trim());
+			if (weight > 0) {
+				mix.put(Scenario.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), weight);
+			}
+		}
+		if (mix.isEmpty()) {
+			throw new IllegalArgumentException("Scenario mix is empty: " + value);
+		}
+		return mix;
+	}
+
+	private static Duration duration(String name, String defaultValue) {
+		return DurationStyle.detectAndParse(property(name, defaultValue));
+	}
+
+	private static String property(String name, String defaultValue) {
+		return System.getProperty("loadtest." + name, defaultValue);
+	}
+}
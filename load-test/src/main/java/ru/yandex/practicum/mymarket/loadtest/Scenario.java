@@ -0,0 +1,22 @@
+package ru.yandex.practicum.mymarket.loadtest;
+
+/**
+ * What a virtual user does in one iteration.
+ */
+enum Scenario {
+
+	/** A random catalog page with a random sort. */
+	BROWSE,
+
+	/** The first catalog page of a search. */
+	SEARCH,
+
+	/** Details of a random item. */
+	ITEM,
+
+	/** Adds a random item to the cart and opens the cart. */
+	CART,
+
+	/** Adds a random item to the cart and buys the cart. */
+	CHECKOUT
+}
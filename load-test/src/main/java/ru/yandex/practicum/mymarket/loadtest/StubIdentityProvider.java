@@ -0,0 +1,267 @@
+package ru.yandex.practicum.mymarket.loadtest;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * Minimal OpenID Connect provider standing in for the Keycloak realm: it authorizes every login
+ * without a page, issuing tokens for the user named in {@code login_hint}, and issues client
+ * credentials tokens to market-app for payment-service. Tokens are RS256 JWTs signed by a key
+ * generated at startup and published at {@code /certs}.
+ */
+@Slf4j
+final class StubIdentityProvider implements AutoCloseable {
+
+	private static final Duration TOKEN_TTL = Duration.ofHours(1);
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final Map<String, PendingLogin> pendingLogins = new ConcurrentHashMap<>();
+	private final RSAKey signingKey;
+	private final DisposableServer server;
+
+	StubIdentityProvider() {
+		try {
+			this.signingKey = new RSAKeyGenerator(2048).keyID("load-test").generate();
+		} catch (JOSEException e) {
+			throw new IllegalStateException("Failed to generate the signing key", e);
+		}
+		this.server = HttpServer.create()
+				.host("localhost")
+				.port(0)
+				.route(routes -> routes
+						.get("/.well-known/openid-configuration", (request, response) -> json(response, discovery()))
+						.get("/auth", this::authorize)
+						.post("/token", this::token)
+						.get("/certs", (request, response) -> response
+								.header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+								.sendString(Mono.just(new JWKSet(signingKey.toPublicJWK()).toString())))
+						.get("/userinfo", this::userInfo)
+						.get("/logout", (request, response) -> response.status(HttpResponseStatus.NO_CONTENT).send()))
+				.bindNow();
+		log.info("Stub identity provider started at {}", issuer());
+	}
+
+	String issuer() {
+		return "http://localhost:" + server.port();
+	}
+
+	/**
+	 * market-app properties pointing both Keycloak client providers and the resource server at this issuer.
+	 */
+	Map<String, String> marketAppProperties() {
+		String issuer = issuer();
+		Map<String, String> properties = new LinkedHashMap<>();
+		properties.put("spring.security.oauth2.resourceserver.jwt.issuer-uri", issuer);
+		properties.put("spring.security.oauth2.client.provider.keycloak.authorization-uri", issuer + "/auth");
+		properties.put("spring.security.oauth2.client.provider.keycloak.token-uri", issuer + "/token");
+		properties.put("spring.security.oauth2.client.provider.keycloak.user-info-uri", issuer + "/userinfo");
+		properties.put("spring.security.oauth2.client.provider.keycloak.jwk-set-uri", issuer + "/certs");
+		properties.put("spring.security.oauth2.client.provider.keycloak.end-session-uri", issuer + "/logout");
+		properties.put("spring.security.oauth2.client.provider.keycloak-internal.token-uri", issuer + "/token");
+		properties.put("spring.security.oauth2.client.provider.keycloak-internal.jwk-set-uri", issuer + "/certs");
+		properties.put("keycloak.logout.endpoint", issuer + "/logout");
+		return properties;
+	}
+
+	@Override
+	public void close() {
+		server.disposeNow();
+	}
+
+	private Map<String, Object> discovery() {
+		String issuer = issuer();
+		Map<String, Object> discovery = new LinkedHashMap<>();
+		discovery.put("issuer", issuer);
+		discovery.put("authorization_endpoint", issuer + "/auth");
+		discovery.put("token_endpoint", issuer + "/token");
+		discovery.put("userinfo_endpoint", issuer + "/userinfo");
+		discovery.put("jwks_uri", issuer + "/certs");
+		discovery.put("end_session_endpoint", issuer + "/logout");
+		discovery.put("response_types_supported", List.of("code"));
+		discovery.put("subject_types_supported", List.of("public"));
+		discovery.put("id_token_signing_alg_values_supported", List.of("RS256"));
+		return discovery;
+	}
+
+	private Mono<Void> authorize(HttpServerRequest request, HttpServerResponse response) {
+		Map<String, List<String>> params = new QueryStringDecoder(request.uri()).parameters();
+		String redirectUri = first(params, "redirect_uri");
+		String username = first(params, "login_hint");
+		if (redirectUri == null || username == null) {
+			return response.status(HttpResponseStatus.BAD_REQUEST).sendString(Mono.just("redirect_uri and login_hint are required")).then();
+		}
+		String code = UUID.randomUUID().toString();
+		pendingLogins.put(code, new PendingLogin(username, first(params, "client_id"), first(params, "nonce")));
+
+		StringBuilder location = new StringBuilder(redirectUri)
+				.append(redirectUri.contains("?") ? '&' : '?')
+				.append("code=").append(code);
+		String state = first(params, "state");
+		if (state != null) {
+			location.append("&state=").append(URLEncoder.encode(state, StandardCharsets.UTF_8));
+		}
+		return response.status(HttpResponseStatus.FOUND)
+				.header(HttpHeaderNames.LOCATION, location.toString())
+				.send()
+				.then();
+	}
+
+	private Mono<Void> token(HttpServerRequest request, HttpServerResponse response) {
+		String clientId = basicAuthClientId(request.requestHeaders().get(HttpHeaderNames.AUTHORIZATION));
+		return request.receive().aggregate().asString(StandardCharsets.UTF_8)
+				.defaultIfEmpty("")
+				.flatMap(body -> {
+					Map<String, List<String>> form = new QueryStringDecoder(body, false).parameters();
+					String client = clientId != null ? clientId : first(form, "client_id");
+					String grantType = first(form, "grant_type");
+					if ("client_credentials".equals(grantType)) {
+						return json(response, tokenResponse(accessToken(client, client, client), null, first(form, "scope")));
+					}
+					if ("authorization_code".equals(grantType)) {
+						PendingLogin login = pendingLogins.remove(String.valueOf(first(form, "code")));
+						if (login == null) {
+							return json(response.status(HttpResponseStatus.BAD_REQUEST), Map.of("error", "invalid_grant"));
+						}
+						String audience = login.clientId() != null ? login.clientId() : client;
+						return json(response, tokenResponse(accessToken(login.username(), login.username(), audience),
+								idToken(login, audience), "openid profile email"));
+					}
+					return json(response.status(HttpResponseStatus.BAD_REQUEST), Map.of("error", "unsupported_grant_type"));
+				});
+	}
+
+	private Mono<Void> userInfo(HttpServerRequest request, HttpServerResponse response) {
+		String authorization = request.requestHeaders().get(HttpHeaderNames.AUTHORIZATION);
+		if (authorization == null || !authorization.startsWith("Bearer ")) {
+			return response.status(HttpResponseStatus.UNAUTHORIZED).send().then();
+		}
+		try {
+			JWTClaimsSet claims = SignedJWT.parse(authorization.substring("Bearer ".length())).getJWTClaimsSet();
+			String username = claims.getStringClaim("preferred_username");
+			return json(response, Map.of(
+					"sub", claims.getSubject(),
+					"preferred_username", username,
+					"name", username,
+					"email", username + "@load.test"));
+		} catch (ParseException e) {
+			return response.status(HttpResponseStatus.UNAUTHORIZED).send().then();
+		}
+	}
+
+	private Map<String, Object> tokenResponse(String accessToken, String idToken, String scope) {
+		Map<String, Object> token = new LinkedHashMap<>();
+		token.put("access_token", accessToken);
+		token.put("token_type", "Bearer");
+		token.put("expires_in", TOKEN_TTL.toSeconds());
+		if (scope != null) {
+			token.put("scope", scope);
+		}
+		if (idToken != null) {
+			token.put("id_token", idToken);
+		}
+		return token;
+	}
+
+	private String accessToken(String subject, String username, String audience) {
+		Instant now = Instant.now();
+		return sign(new JWTClaimsSet.Builder()
+				.issuer(issuer())
+				.subject(subject)
+				.audience(audience)
+				.issueTime(Date.from(now))
+				.expirationTime(Date.from(now.plus(TOKEN_TTL)))
+				.claim("preferred_username", username)
+				.claim("scope", "openid profile email")
+				.build());
+	}
+
+	private String idToken(PendingLogin login, String audience) {
+		Instant now = Instant.now();
+		JWTClaimsSet.Builder claims = new JWTClaimsSet.Builder()
+				.issuer(issuer())
+				.subject(login.username())
+				.audience(audience)
+				.issueTime(Date.from(now))
+				.expirationTime(Date.from(now.plus(TOKEN_TTL)))
+				.claim("auth_time", now.getEpochSecond())
+				.claim("azp", audience)
+				.claim("preferred_username", login.username())
+				.claim("name", login.username())
+				.claim("email", login.username() + "@load.test");
+		if (login.nonce() != null) {
+			claims.claim("nonce", login.nonce());
+		}
+		return sign(claims.build());
+	}
+
+	private String sign(JWTClaimsSet claims) {
+		try {
+			SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(), claims);
+			jwt.sign(new RSASSASigner(signingKey));
+			return jwt.serialize();
+		} catch (JOSEException e) {
+			throw new IllegalStateException("Failed to sign a token", e);
+		}
+	}
+
+	private Mono<Void> json(HttpServerResponse response, Object body) {
+		try {
+			return response.header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+					.sendString(Mono.just(objectMapper.writeValueAsString(body)))
+					.then();
+		} catch (JsonProcessingException e) {
+			return Mono.error(e);
+		}
+	}
+
+	private static String basicAuthClientId(String authorization) {
+		if (authorization == null || !authorization.startsWith("Basic ")) {
+			return null;
+		}
+		String credentials = new String(Base64.getDecoder().decode(authorization.substring("Basic ".length())), StandardCharsets.UTF_8);
+		int separator = credentials.indexOf(':');
+		String clientId = separator < 0 ? credentials : credentials.substring(0, separator);
+		return URLDecoder.decode(clientId, StandardCharsets.UTF_8);
+	}
+
+	private static String first(Map<String, List<String>> params, String name) {
+		List<String> values = params.get(name);
+		return values == null || values.isEmpty() ? null : values.get(0);
+	}
+
+	private record PendingLogin(String username, String clientId, String nonce) {
+	}
+}
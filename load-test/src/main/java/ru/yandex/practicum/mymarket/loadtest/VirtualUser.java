@@ -0,0 +1,138 @@
+package ru.yandex.practicum.mymarket.loadtest;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseCookie;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+/**
+ * One shopper with its own session cookies. {@link #login()} walks the browser authorization code flow
+ * through market-app and the stub identity provider; other requests are timed into {@link LoadStats}
+ * and never fail, so one bad response does not stop the user.
+ */
+@Slf4j
+final class VirtualUser {
+
+	private static final int MAX_LOGIN_REDIRECTS = 6;
+
+	private final String username;
+	private final String appUrl;
+	private final WebClient client;
+	private final LoadStats stats;
+	private final Map<String, String> cookies = new ConcurrentHashMap<>();
+
+	VirtualUser(String username, String appUrl, WebClient client, LoadStats stats) {
+		this.username = username;
+		this.appUrl = appUrl;
+		this.client = client;
+		this.stats = stats;
+	}
+
+	String username() {
+		return username;
+	}
+
+	/**
+	 * Completes with {@code true} once market-app has an authenticated session for this user.
+	 */
+	Mono<Boolean> login() {
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			return follow(URI.create(appUrl + "/oauth2/authorization/keycloak"), 0)
+					.map(status -> status.is2xxSuccessful() && cookies.containsKey("SESSION"))
+					.onErrorResume(error -> {
+						log.warn("Login of {} failed: {}", username, error.getMessage());
+						return Mono.just(false);
+					})
+					.doOnNext(loggedIn -> stats.record("login", loggedIn ? LoadStats.SUCCESS : "error", System.nanoTime() - start));
+		});
+	}
+
+	Mono<Void> get(String step, Function<UriBuilder, URI> uri) {
+		return timed(step, client.get().uri(appUrl, uri));
+	}
+
+	Mono<Void> post(String step, String path, MultiValueMap<String, String> form) {
+		return timed(step, client.post().uri(appUrl + path).body(BodyInserters.fromFormData(form)));
+	}
+
+	private Mono<Void> timed(String step, WebClient.RequestHeadersSpec<?> request) {
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			return request.cookies(sent -> cookies.forEach(sent::add))
+					.exchangeToMono(response -> {
+						storeCookies(response);
+						return response.releaseBody().thenReturn(response.statusCode());
+					})
+					.map(status -> status.is2xxSuccessful() ? LoadStats.SUCCESS : "http_" + status.value())
+					.onErrorResume(error -> Mono.just(Exceptions.unwrap(error) instanceof TimeoutException ? "timeout" : "error"))
+					.doOnNext(outcome -> stats.record(step, outcome, System.nanoTime() - start))
+					.then();
+		});
+	}
+
+	private Mono<HttpStatusCode> follow(URI uri, int redirects) {
+		boolean toApp = uri.toString().startsWith(appUrl);
+		return client.get().uri(uri)
+				.cookies(sent -> {
+					if (toApp) {
+						cookies.forEach(sent::add);
+					}
+				})
+				.exchangeToMono(response -> {
+					if (toApp) {
+						storeCookies(response);
+					}
+					Mono<HttpStatusCode> status = response.releaseBody().thenReturn(response.statusCode());
+					URI location = response.headers().asHttpHeaders().getLocation();
+					if (!response.statusCode().is3xxRedirection() || location == null) {
+						return status;
+					}
+					if (redirects >= MAX_LOGIN_REDIRECTS) {
+						return Mono.error(new IllegalStateException("Too many redirects logging in " + username));
+					}
+					return status.then(follow(next(uri, location), redirects + 1));
+				});
+	}
+
+	/**
+	 * Resolves a redirect, adding {@code login_hint} on the way to the identity provider so it knows who logs in.
+	 */
+	private URI next(URI current, URI location) {
+		URI resolved = current.resolve(location);
+		if (resolved.toString().startsWith(appUrl)) {
+			return resolved;
+		}
+		return UriComponentsBuilder.fromUri(resolved)
+				.queryParam("login_hint", username)
+				.build(true)
+				.toUri();
+	}
+
+	private void storeCookies(ClientResponse response) {
+		for (Map.Entry<String, List<ResponseCookie>> entry : response.cookies().entrySet()) {
+			for (ResponseCookie cookie : entry.getValue()) {
+				if (cookie.getMaxAge().isZero()) {
+					cookies.remove(cookie.getName());
+				} else {
+					cookies.put(cookie.getName(), cookie.getValue());
+				}
+			}
+		}
+	}
+}
@@ -1,29 +1,48 @@
 package ru.yandex.practicum.mymarket.client;
 
 import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 import org.springframework.stereotype.Component;
-
-import io.github.resilience4j.circuitbreaker.CircuitBreaker;
-import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.core.instrument.Tags;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
-import ru.yandex.practicum.payment.client.api.BalancesApi;
-import ru.yandex.practicum.payment.client.api.PaymentsApi;
-import ru.yandex.practicum.payment.client.invoker.ApiClient;
+import ru.yandex.practicum.mymarket.config.resilience.DependencyGuard;
+import ru.yandex.practicum.mymarket.service.metrics.ReactiveTimers;
 import ru.yandex.practicum.payment.client.model.BalanceResponse;
 import ru.yandex.practicum.payment.client.model.PaymentRequest;
 import ru.yandex.practicum.payment.client.model.PaymentResponse;
 
+/**
+ * Client of payment-service. Calls are timed in {@code payment.client} by operation and outcome
+ * ({@code success}, {@code timeout}, {@code circuit_open}, {@code bulkhead_full}, {@code client_error},
+ * {@code server_error}, {@code connect_error}, {@code error}), including retries, and traced as
+ * {@code payment-client <operation>} spans with the HTTP requests of the attempts as children.
+ * <p>
+ * Reads and writes go through separate {@link DependencyGuard}s, so a flood of balance lookups cannot open the
+ * circuit breaker of payments. Calls are balanced over the {@link PaymentServiceInstances}.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class PaymentClient {
 
-	private final ApiClient apiClient;
-	private final CircuitBreaker paymentServiceCircuitBreaker;
+	private final PaymentServiceInstances instances;
+	private final DependencyGuard paymentReadGuard;
+	private final DependencyGuard paymentWriteGuard;
+	private final MeterRegistry meterRegistry;
+	private final ObservationRegistry observationRegistry;
 
 	public Mono<PaymentResponse> createPayment(Long orderId, Long userId, Long amount, String description) {
 		log.info("Creating payment for order {}, user {}, amount: {}", orderId, userId, amount);
@@ -34,49 +53,84 @@ public class PaymentClient {
 		request.setAmount(amount);
 		request.setDescription(description);
 
-		PaymentsApi paymentsApi = new PaymentsApi(apiClient);
-
-		return paymentsApi.createPayment(request)
-				.timeout(Duration.ofSeconds(10))
-				.transformDeferred(CircuitBreakerOperator.of(paymentServiceCircuitBreaker))
+		return onInstance(instance -> instance.paymentsApi().createPayment(request).timeout(Duration.ofSeconds(10)))
+				.transform(paymentWriteGuard.mono())
 				.retryWhen(Retry.backoff(3, Duration.ofMillis(500))
 						.maxBackoff(Duration.ofSeconds(2))
 						.doBeforeRetry(signal -> log.warn("Retrying payment creation for order {}, attempt {}",
 								orderId, signal.totalRetries() + 1)))
 				.doOnSuccess(response -> log.info("Payment created successfully: {}", response.getId()))
-				.doOnError(error -> log.error("Failed to create payment for order {}: {}", orderId, error.getMessage()));
+				.doOnError(error -> log.error("Failed to create payment for order {}: {}", orderId, error.getMessage()))
+				.transform(timed("create-payment"));
 	}
 
 	public Mono<PaymentResponse> getPayment(Long paymentId) {
 		log.debug("Getting payment {}", paymentId);
 
-		PaymentsApi paymentsApi = new PaymentsApi(apiClient);
-
-		return paymentsApi.getPayment(paymentId)
+		return onInstance(instance -> instance.paymentsApi().getPayment(paymentId))
+				.transform(paymentReadGuard.mono())
 				.doOnSuccess(response -> log.debug("Payment {} retrieved: status={}", paymentId, response.getStatus()))
-				.doOnError(error -> log.error("Failed to get payment {}: {}", paymentId, error.getMessage()));
+				.doOnError(error -> log.error("Failed to get payment {}: {}", paymentId, error.getMessage()))
+				.transform(timed("get-payment"));
 	}
 
 	public Mono<PaymentResponse> cancelPayment(Long paymentId) {
 		log.info("Cancelling payment {}", paymentId);
 
-		PaymentsApi paymentsApi = new PaymentsApi(apiClient);
-
-		return paymentsApi.cancelPayment(paymentId)
+		return onInstance(instance -> instance.paymentsApi().cancelPayment(paymentId))
+				.transform(paymentWriteGuard.mono())
 				.doOnSuccess(response -> log.info("Payment {} cancelled successfully", paymentId))
-				.doOnError(error -> log.error("Failed to cancel payment {}: {}", paymentId, error.getMessage()));
+				.doOnError(error -> log.error("Failed to cancel payment {}: {}", paymentId, error.getMessage()))
+				.transform(timed("cancel-payment"));
 	}
 
 	public Mono<Long> getUserBalance(Long userId) {
 		log.debug("Getting balance for user {}", userId);
 
-		BalancesApi balancesApi = new BalancesApi(apiClient);
-
-		return balancesApi.getUserBalance(userId)
+		return onInstance(instance -> instance.balancesApi().getUserBalance(userId).timeout(Duration.ofSeconds(5)))
 				.map(BalanceResponse::getBalance)
-				.timeout(Duration.ofSeconds(5))
-				.transformDeferred(CircuitBreakerOperator.of(paymentServiceCircuitBreaker))
+				.transform(paymentReadGuard.mono())
 				.doOnSuccess(balance -> log.debug("User {} balance: {}", userId, balance))
-				.doOnError(error -> log.error("Failed to get balance for user {}: {}", userId, error.getMessage()));
+				.doOnError(error -> log.error("Failed to get balance for user {}: {}", userId, error.getMessage()))
+				.transform(timed("get-balance"));
+	}
+
+	/**
+	 * Sends the call to the instance {@link PaymentServiceInstances#choose() chosen} at subscription, so every retry
+	 * chooses again, and tracks the outcome for the instance's health.
+	 */
+	private <T> Mono<T> onInstance(Function<PaymentServiceInstance, Mono<T>> call) {
+		return Mono.defer(() -> {
+			PaymentServiceInstance instance = instances.choose();
+			return call.apply(instance).transform(instances.tracked(instance));
+		});
+	}
+
+	private <T> Function<Mono<T>, Mono<T>> timed(String operation) {
+		return ReactiveTimers.traced(meterRegistry, observationRegistry, "payment.client", "payment-client " + operation,
+				Tags.of("operation", operation), PaymentClient::outcome);
+	}
+
+	static String outcome(Throwable error) {
+		Throwable cause = Exceptions.unwrap(error);
+		if (Exceptions.isRetryExhausted(cause) && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		if (cause instanceof TimeoutException) {
+			return "timeout";
+		}
+		if (cause instanceof CallNotPermittedException) {
+			return "circuit_open";
+		}
+		if (cause instanceof BulkheadFullException) {
+			return "bulkhead_full";
+		}
+		if (cause instanceof WebClientResponseException response) {
+			return response.getStatusCode().is4xxClientError() ? "client_error" : "server_error";
+		}
+		if (cause instanceof WebClientRequestException) {
+			return "connect_error";
+		}
+		return "error";
 	}
 }
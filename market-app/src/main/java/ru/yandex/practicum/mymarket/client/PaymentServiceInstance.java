@@ -0,0 +1,101 @@
+package ru.yandex.practicum.mymarket.client;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ru.yandex.practicum.payment.client.api.BalancesApi;
+import ru.yandex.practicum.payment.client.api.PaymentsApi;
+import ru.yandex.practicum.payment.client.invoker.ApiClient;
+
+/**
+ * One payment-service instance with its API clients, the number of calls in flight to it and its health. The API
+ * clients are stateless and shared by all calls. An instance becomes unhealthy after
+ * {@value #FAILURE_THRESHOLD} consecutive failed calls and healthy again on the first answered call or probe.
+ * Instances start unhealthy until proven otherwise.
+ */
+public class PaymentServiceInstance {
+
+	static final int FAILURE_THRESHOLD = 3;
+
+	private final String url;
+	private final ApiClient apiClient;
+	private final PaymentsApi paymentsApi;
+	private final BalancesApi balancesApi;
+	private final AtomicInteger outstanding = new AtomicInteger();
+	private final AtomicBoolean healthy = new AtomicBoolean();
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+	private final AtomicBoolean probing = new AtomicBoolean();
+
+	public PaymentServiceInstance(String url, ApiClient apiClient) {
+		this.url = url;
+		this.apiClient = apiClient;
+		this.paymentsApi = new PaymentsApi(apiClient);
+		this.balancesApi = new BalancesApi(apiClient);
+	}
+
+	public String url() {
+		return url;
+	}
+
+	public ApiClient apiClient() {
+		return apiClient;
+	}
+
+	public PaymentsApi paymentsApi() {
+		return paymentsApi;
+	}
+
+	public BalancesApi balancesApi() {
+		return balancesApi;
+	}
+
+	/**
+	 * Calls in flight to the instance.
+	 */
+	public int outstanding() {
+		return outstanding.get();
+	}
+
+	void callStarted() {
+		outstanding.incrementAndGet();
+	}
+
+	void callFinished() {
+		outstanding.decrementAndGet();
+	}
+
+	public boolean isHealthy() {
+		return healthy.get();
+	}
+
+	/**
+	 * Records an answered call or probe; {@code true} if the instance was unhealthy.
+	 */
+	public boolean recordSuccess() {
+		consecutiveFailures.set(0);
+		return !healthy.getAndSet(true);
+	}
+
+	/**
+	 * Records a failed call; {@code true} if it made the instance unhealthy.
+	 */
+	public boolean recordFailure() {
+		return consecutiveFailures.incrementAndGet() >= FAILURE_THRESHOLD && healthy.getAndSet(false);
+	}
+
+	/**
+	 * {@code true} if the caller should start probing, {@code false} if the instance is probed already.
+	 */
+	public boolean tryStartProbing() {
+		return probing.compareAndSet(false, true);
+	}
+
+	public void stopProbing() {
+		probing.set(false);
+	}
+
+	@Override
+	public String toString() {
+		return url;
+	}
+}
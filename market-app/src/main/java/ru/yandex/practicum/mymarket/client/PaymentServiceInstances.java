@@ -0,0 +1,134 @@
+package ru.yandex.practicum.mymarket.client;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.payment.client.invoker.ApiClient;
+
+/**
+ * The payment-service instances market-app balances calls over. Each call goes to the healthy instance with the fewest
+ * calls in flight, so a slow replica gets less traffic instead of an equal share; ties go round robin. While no instance
+ * is healthy calls go to all of them, so a recovered instance is noticed by live traffic too. Health and calls in flight
+ * of every instance are published as the {@code payment.client.instance.healthy{instance}} and
+ * {@code payment.client.instance.outstanding{instance}} gauges.
+ */
+@Slf4j
+public class PaymentServiceInstances {
+
+	private final List<PaymentServiceInstance> instances;
+	private final AtomicInteger next = new AtomicInteger();
+	private volatile Consumer<PaymentServiceInstance> unhealthyListener = instance -> {
+	};
+
+	public PaymentServiceInstances(List<String> urls, WebClient webClient, MeterRegistry meterRegistry) {
+		if (urls.isEmpty()) {
+			throw new IllegalArgumentException("At least one payment-service URL is required");
+		}
+		this.instances = urls.stream()
+				.map(url -> {
+					ApiClient apiClient = new ApiClient(webClient);
+					apiClient.setBasePath(url);
+					return new PaymentServiceInstance(url, apiClient);
+				})
+				.toList();
+		for (PaymentServiceInstance instance : instances) {
+			Gauge.builder("payment.client.instance.healthy", instance, healthy -> healthy.isHealthy() ? 1 : 0)
+					.description("Whether the payment-service instance is considered healthy")
+					.tag("instance", instance.url())
+					.register(meterRegistry);
+			Gauge.builder("payment.client.instance.outstanding", instance, PaymentServiceInstance::outstanding)
+					.description("Calls in flight to the payment-service instance")
+					.tag("instance", instance.url())
+					.register(meterRegistry);
+		}
+	}
+
+	public List<PaymentServiceInstance> all() {
+		return instances;
+	}
+
+	public boolean anyHealthy() {
+		for (PaymentServiceInstance instance : instances) {
+			if (instance.isHealthy()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Instance for the next call: the healthy one with the fewest calls in flight, scanning from a rotating start
+	 * so ties are spread.
+	 */
+	public PaymentServiceInstance choose() {
+		int size = instances.size();
+		if (size == 1) {
+			return instances.get(0);
+		}
+		boolean anyHealthy = anyHealthy();
+		int start = Math.floorMod(next.getAndIncrement(), size);
+		PaymentServiceInstance chosen = null;
+		for (int i = 0; i < size; i++) {
+			PaymentServiceInstance instance = instances.get((start + i) % size);
+			if ((instance.isHealthy() || !anyHealthy)
+					&& (chosen == null || instance.outstanding() < chosen.outstanding())) {
+				chosen = instance;
+			}
+		}
+		return chosen;
+	}
+
+	/**
+	 * Counts the call as in flight to the instance and tracks its outcome: timeouts, connection errors and server errors
+	 * count as failures of the instance, any answer as success.
+	 */
+	public <T> Function<Mono<T>, Mono<T>> tracked(PaymentServiceInstance instance) {
+		return mono -> mono
+				.doOnSubscribe(subscription -> instance.callStarted())
+				.doFinally(signal -> instance.callFinished())
+				.doOnSuccess(ignored -> recordSuccess(instance))
+				.doOnError(error -> {
+					if (isInstanceFailure(error)) {
+						recordFailure(instance);
+					} else {
+						recordSuccess(instance);
+					}
+				});
+	}
+
+	/**
+	 * Listener called when an instance becomes unhealthy.
+	 */
+	public void onUnhealthy(Consumer<PaymentServiceInstance> listener) {
+		this.unhealthyListener = listener;
+	}
+
+	public void recordSuccess(PaymentServiceInstance instance) {
+		if (instance.recordSuccess()) {
+			log.info("Payment service instance {} is HEALTHY", instance);
+		}
+	}
+
+	private void recordFailure(PaymentServiceInstance instance) {
+		if (instance.recordFailure()) {
+			log.warn("Payment service instance {} is UNHEALTHY after {} consecutive failures",
+					instance, PaymentServiceInstance.FAILURE_THRESHOLD);
+			unhealthyListener.accept(instance);
+		}
+	}
+
+	private static boolean isInstanceFailure(Throwable error) {
+		return switch (PaymentClient.outcome(error)) {
+			case "timeout", "server_error", "connect_error" -> true;
+			default -> false;
+		};
+	}
+}
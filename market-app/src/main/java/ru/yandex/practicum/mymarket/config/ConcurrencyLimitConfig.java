@@ -0,0 +1,40 @@
+package ru.yandex.practicum.mymarket.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import ru.yandex.practicum.mymarket.config.concurrency.ConcurrencyLimitFilter;
+import ru.yandex.practicum.mymarket.config.concurrency.GradientConcurrencyLimit;
+
+/**
+ * Adaptive concurrency limit with load shedding by request priority, disabled by {@code concurrency.limit.enabled=false}.
+ * Runs first, so shed requests cost no session lookup, security filters or request log.
+ */
+@Configuration
+@ConditionalOnProperty(name = "concurrency.limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+	@Bean
+	public GradientConcurrencyLimit gradientConcurrencyLimit(
+			@Value("${concurrency.limit.initial:40}") int initialLimit,
+			@Value("${concurrency.limit.min:10}") int minLimit,
+			@Value("${concurrency.limit.max:400}") int maxLimit) {
+		return new GradientConcurrencyLimit(initialLimit, minLimit, maxLimit);
+	}
+
+	@Bean
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	public ConcurrencyLimitFilter concurrencyLimitFilter(
+			GradientConcurrencyLimit gradientConcurrencyLimit,
+			MeterRegistry meterRegistry,
+			@Value("${concurrency.limit.retry-after:1s}") Duration retryAfter) {
+		return new ConcurrencyLimitFilter(gradientConcurrencyLimit, retryAfter, meterRegistry);
+	}
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.mymarket.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import ru.yandex.practicum.mymarket.config.logging.SampledRequestLogFilter;
+
+/**
+ * Sampled request log, enabled by {@code logging.requests.sample-rate} (set by the {@code production} profile).
+ * Runs right after the concurrency limit and before the security filters, so the logged duration covers the whole
+ * request; shed requests are counted by the limit instead.
+ */
+@Configuration
+public class LoggingConfig {
+
+	@Bean
+	@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+	@ConditionalOnProperty(name = "logging.requests.sample-rate")
+	public SampledRequestLogFilter sampledRequestLogFilter(@Value("${logging.requests.sample-rate}") double sampleRate) {
+		return new SampledRequestLogFilter(sampleRate);
+	}
+}
@@ -1,8 +1,13 @@
 package ru.yandex.practicum.mymarket.config;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.security.oauth2.client.AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager;
 import org.springframework.security.oauth2.client.InMemoryReactiveOAuth2AuthorizedClientService;
 import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientManager;
@@ -12,7 +17,12 @@ import org.springframework.security.oauth2.client.registration.ReactiveClientReg
 import org.springframework.security.oauth2.client.web.reactive.function.client.ServerOAuth2AuthorizedClientExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 
-import ru.yandex.practicum.payment.client.invoker.ApiClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import ru.yandex.practicum.mymarket.client.PaymentServiceInstances;
 
 @Configuration
 public class PaymentClientConfig {
@@ -41,25 +51,69 @@ public class PaymentClientConfig {
 		return authorizedClientManager;
 	}
 
+	/**
+	 * Dedicated connection pool for payment-service, so checkout does not compete with other outgoing calls for
+	 * connections. Waiting for a connection is bounded in both queue length and time, idle connections are evicted in
+	 * the background before payment-service or a proxy closes them, and the pool is published as
+	 * {@code reactor.netty.connection.provider.*} metrics.
+	 */
+	@Bean(destroyMethod = "dispose")
+	public ConnectionProvider paymentConnectionProvider(
+			@Value("${payment.client.pool.max-connections:100}") int maxConnections,
+			@Value("${payment.client.pool.pending-acquire-max-count:500}") int pendingAcquireMaxCount,
+			@Value("${payment.client.pool.pending-acquire-timeout:2s}") Duration pendingAcquireTimeout,
+			@Value("${payment.client.pool.max-idle-time:30s}") Duration maxIdleTime,
+			@Value("${payment.client.pool.max-life-time:5m}") Duration maxLifeTime,
+			@Value("${payment.client.pool.evict-in-background:30s}") Duration evictInBackground) {
+		return ConnectionProvider.builder("payment-service")
+				.maxConnections(maxConnections)
+				.pendingAcquireMaxCount(pendingAcquireMaxCount)
+				.pendingAcquireTimeout(pendingAcquireTimeout)
+				.maxIdleTime(maxIdleTime)
+				.maxLifeTime(maxLifeTime)
+				.evictInBackground(evictInBackground)
+				.metrics(true)
+				.build();
+	}
+
+	/**
+	 * With {@code payment.client.http2} calls go over cleartext HTTP/2 (h2c), multiplexed on few connections; an
+	 * instance that does not support it keeps answering over HTTP/1.1.
+	 */
 	@Bean
 	public WebClient paymentWebClient(
 			WebClient.Builder builder,
-			ReactiveOAuth2AuthorizedClientManager authorizedClientManager) {
+			ReactiveOAuth2AuthorizedClientManager authorizedClientManager,
+			ConnectionProvider paymentConnectionProvider,
+			@Value("${payment.client.http2:true}") boolean http2,
+			@Value("${payment.client.connect-timeout:2s}") Duration connectTimeout) {
 
 		ServerOAuth2AuthorizedClientExchangeFilterFunction oauth2 =
 				new ServerOAuth2AuthorizedClientExchangeFilterFunction(authorizedClientManager);
 
 		oauth2.setDefaultClientRegistrationId("market-app");
 
+		HttpClient httpClient = HttpClient.create(paymentConnectionProvider)
+				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis());
+		if (http2) {
+			httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+		}
+
 		return builder
+				.clientConnector(new ReactorClientHttpConnector(httpClient))
 				.filter(oauth2)
 				.build();
 	}
 
+	/**
+	 * Instances listed in {@code payment.service.url}, separated by commas.
+	 */
 	@Bean
-	public ApiClient paymentApiClient(WebClient paymentWebClient) {
-		ApiClient apiClient = new ApiClient(paymentWebClient);
-		apiClient.setBasePath(paymentServiceUrl);
-		return apiClient;
+	public PaymentServiceInstances paymentServiceInstances(WebClient paymentWebClient, MeterRegistry meterRegistry) {
+		List<String> urls = Arrays.stream(paymentServiceUrl.split(","))
+				.map(String::trim)
+				.filter(url -> !url.isEmpty())
+				.toList();
+		return new PaymentServiceInstances(urls, paymentWebClient, meterRegistry);
 	}
 }
@@ -0,0 +1,154 @@
+package ru.yandex.practicum.mymarket.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.boot.r2dbc.ConnectionFactoryDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.ReactiveTransactionManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.proxy.ProxyConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import ru.yandex.practicum.mymarket.config.r2dbc.MicrometerPoolMetricsRecorder;
+import ru.yandex.practicum.mymarket.config.r2dbc.MicrometerQueryExecutionListener;
+import ru.yandex.practicum.mymarket.config.r2dbc.ReadOnlyRoutingConnectionFactory;
+import ru.yandex.practicum.mymarket.config.r2dbc.ReadOnlyRoutingTransactionManager;
+import ru.yandex.practicum.mymarket.config.resilience.DependencyGuard;
+import ru.yandex.practicum.mymarket.config.resilience.GuardedConnectionFactory;
+
+/**
+ * Instrumented R2DBC connection pools. Statements of both pools are timed by {@link MicrometerQueryExecutionListener}
+ * and traced by the {@link ConnectionFactoryDecorator}s Spring Boot would apply to its own pool. Connections are taken
+ * from each pool through its {@link DependencyGuard} (see {@link GuardedConnectionFactory}).
+ * <p>
+ * The write pool is configured by the standard {@code spring.r2dbc.*} properties. With {@code r2dbc.read.enabled=true}
+ * a separate read pool is created and connections of {@code @Transactional(readOnly = true)} transactions are taken
+ * from it, so catalog reads do not compete with checkout writes for connections.
+ */
+@Configuration
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class R2dbcConfig {
+
+	@Configuration
+	@ConditionalOnProperty(name = "r2dbc.read.enabled", havingValue = "false", matchIfMissing = true)
+	static class SinglePoolConfiguration {
+
+		@Bean(destroyMethod = "dispose")
+		public ConnectionPool writeConnectionFactory(R2dbcProperties properties, MeterRegistry meterRegistry,
+		                                             ObjectProvider<ConnectionFactoryDecorator> decorators) {
+			return writePool(properties, meterRegistry, decorators);
+		}
+
+		@Bean
+		@Primary
+		public ConnectionFactory connectionFactory(
+				@Qualifier("writeConnectionFactory") ConnectionFactory writeConnectionFactory,
+				DependencyGuard databaseWriteGuard) {
+			return new GuardedConnectionFactory(writeConnectionFactory, databaseWriteGuard);
+		}
+	}
+
+	@Configuration
+	@ConditionalOnProperty(name = "r2dbc.read.enabled", havingValue = "true")
+	static class ReadWritePoolsConfiguration {
+
+		@Bean(destroyMethod = "dispose")
+		public ConnectionPool writeConnectionFactory(R2dbcProperties properties, MeterRegistry meterRegistry,
+		                                             ObjectProvider<ConnectionFactoryDecorator> decorators) {
+			return writePool(properties, meterRegistry, decorators);
+		}
+
+		@Bean(destroyMethod = "dispose")
+		public ConnectionPool readConnectionFactory(
+				R2dbcProperties properties,
+				MeterRegistry meterRegistry,
+				ObjectProvider<ConnectionFactoryDecorator> decorators,
+				@Value("${r2dbc.read.url}") String url,
+				@Value("${r2dbc.read.username:}") String username,
+				@Value("${r2dbc.read.password:}") String password,
+				@Value("${r2dbc.read.pool.initial-size:10}") int initialSize,
+				@Value("${r2dbc.read.pool.max-size:20}") int maxSize,
+				@Value("${r2dbc.read.pool.max-idle-time:30m}") Duration maxIdleTime,
+				@Value("${r2dbc.read.pool.max-acquire-time:5s}") Duration maxAcquireTime) {
+			ConnectionFactory connectionFactory = ConnectionFactoryBuilder.withUrl(url)
+					.username(username.isEmpty() ? properties.getUsername() : username)
+					.password(password.isEmpty() ? properties.getPassword() : password)
+					.build();
+			return new ConnectionPool(ConnectionPoolConfiguration.builder(instrumented(connectionFactory, meterRegistry, decorators, "read"))
+					.name("read")
+					.initialSize(initialSize)
+					.maxSize(maxSize)
+					.maxIdleTime(maxIdleTime)
+					.maxAcquireTime(maxAcquireTime)
+					.metricsRecorder(new MicrometerPoolMetricsRecorder(meterRegistry, "read"))
+					.build());
+		}
+
+		@Bean
+		@Primary
+		public ConnectionFactory connectionFactory(
+				@Qualifier("writeConnectionFactory") ConnectionFactory writeConnectionFactory,
+				@Qualifier("readConnectionFactory") ConnectionFactory readConnectionFactory,
+				DependencyGuard databaseWriteGuard,
+				DependencyGuard databaseReadGuard) {
+			return new ReadOnlyRoutingConnectionFactory(
+					new GuardedConnectionFactory(writeConnectionFactory, databaseWriteGuard),
+					new GuardedConnectionFactory(readConnectionFactory, databaseReadGuard));
+		}
+
+		@Bean
+		public ReactiveTransactionManager transactionManager(ConnectionFactory connectionFactory) {
+			ReadOnlyRoutingTransactionManager transactionManager = new ReadOnlyRoutingTransactionManager(connectionFactory);
+			transactionManager.setEnforceReadOnly(true);
+			return transactionManager;
+		}
+	}
+
+	private static ConnectionPool writePool(R2dbcProperties properties, MeterRegistry meterRegistry,
+	                                        ObjectProvider<ConnectionFactoryDecorator> decorators) {
+		ConnectionFactory connectionFactory = ConnectionFactoryBuilder.withUrl(properties.getUrl())
+				.username(properties.getUsername())
+				.password(properties.getPassword())
+				.build();
+
+		R2dbcProperties.Pool pool = properties.getPool();
+		PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+		ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration.builder(instrumented(connectionFactory, meterRegistry, decorators, "write"))
+				.name("write")
+				.initialSize(pool.getInitialSize())
+				.maxSize(pool.getMaxSize())
+				.minIdle(pool.getMinIdle())
+				.metricsRecorder(new MicrometerPoolMetricsRecorder(meterRegistry, "write"));
+		map.from(pool.getMaxIdleTime()).to(builder::maxIdleTime);
+		map.from(pool.getMaxLifeTime()).to(builder::maxLifeTime);
+		map.from(pool.getMaxAcquireTime()).to(builder::maxAcquireTime);
+		map.from(pool.getMaxCreateConnectionTime()).to(builder::maxCreateConnectionTime);
+		map.from(pool.getMaxValidationTime()).to(builder::maxValidationTime);
+		map.from(pool.getValidationQuery()).to(builder::validationQuery);
+		map.from(pool.getValidationDepth()).to(builder::validationDepth);
+		return new ConnectionPool(builder.build());
+	}
+
+	private static ConnectionFactory instrumented(ConnectionFactory connectionFactory, MeterRegistry meterRegistry,
+	                                              ObjectProvider<ConnectionFactoryDecorator> decorators, String poolName) {
+		ConnectionFactory decorated = connectionFactory;
+		for (ConnectionFactoryDecorator decorator : decorators.orderedStream().toList()) {
+			decorated = decorator.decorate(decorated);
+		}
+		return ProxyConnectionFactory.builder(decorated)
+				.listener(new MicrometerQueryExecutionListener(meterRegistry, poolName))
+				.build();
+	}
+}
@@ -4,8 +4,10 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -18,10 +20,7 @@ public class RedisConfig {
 	public ReactiveRedisTemplate<String, Object> reactiveRedisTemplate(
 			ReactiveRedisConnectionFactory connectionFactory) {
 
-		ObjectMapper objectMapper = new ObjectMapper();
-		objectMapper.registerModule(new JavaTimeModule());
-
-		GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+		RedisSerializer<Object> serializer = cacheValueSerializer();
 
 		RedisSerializationContext<String, Object> serializationContext = RedisSerializationContext
 				.<String, Object>newSerializationContext(new StringRedisSerializer())
@@ -31,4 +30,24 @@ public class RedisConfig {
 
 		return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
 	}
+
+	/**
+	 * JSON serializer of cached values. Values carry their class name, so they are read back as the cached type
+	 * rather than as maps.
+	 */
+	public static RedisSerializer<Object> cacheValueSerializer() {
+		ObjectMapper objectMapper = new ObjectMapper();
+		objectMapper.registerModule(new JavaTimeModule());
+
+		return GenericJackson2JsonRedisSerializer.builder()
+				.objectMapper(objectMapper)
+				.defaultTyping(true)
+				.build();
+	}
+
+	@Bean
+	public ReactiveRedisMessageListenerContainer reactiveRedisMessageListenerContainer(
+			ReactiveRedisConnectionFactory connectionFactory) {
+		return new ReactiveRedisMessageListenerContainer(connectionFactory);
+	}
 }
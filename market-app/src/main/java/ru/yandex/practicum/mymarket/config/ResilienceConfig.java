@@ -2,14 +2,27 @@ package ru.yandex.practicum.mymarket.config;
 
 import java.time.Duration;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.mymarket.config.resilience.DependencyGuard;
 
+/**
+ * A circuit breaker and a bulkhead per kind of downstream call, so one degraded path cannot starve the others:
+ * balance reads of payment-service cannot open the breaker of payments, and a slow Redis or an exhausted database
+ * pool fails its own calls fast instead of tying up every request. Circuit breakers and bulkheads are published
+ * as {@code resilience4j.circuitbreaker.*} and {@code resilience4j.bulkhead.*} metrics tagged by name.
+ */
 @Slf4j
 @Configuration
 public class ResilienceConfig {
@@ -29,16 +42,99 @@ public class ResilienceConfig {
 	}
 
 	@Bean
-	public CircuitBreaker paymentServiceCircuitBreaker(CircuitBreakerRegistry registry) {
-		CircuitBreaker circuitBreaker = registry.circuitBreaker("paymentService");
+	public BulkheadRegistry bulkheadRegistry() {
+		return BulkheadRegistry.of(BulkheadConfig.custom()
+				.maxWaitDuration(Duration.ZERO)
+				.build());
+	}
+
+	@Bean
+	public MeterBinder circuitBreakerMetrics(CircuitBreakerRegistry circuitBreakerRegistry) {
+		return TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry);
+	}
+
+	@Bean
+	public MeterBinder bulkheadMetrics(BulkheadRegistry bulkheadRegistry) {
+		return TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry);
+	}
+
+	/**
+	 * Balance and payment lookups of payment-service.
+	 */
+	@Bean
+	public DependencyGuard paymentReadGuard(CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads) {
+		return guard("payment-read", circuitBreakers.getDefaultConfig(), 50, circuitBreakers, bulkheads);
+	}
+
+	/**
+	 * Payment creation and cancellation; its breaker also decides whether checkout is offered.
+	 */
+	@Bean
+	public DependencyGuard paymentWriteGuard(CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads) {
+		CircuitBreakerConfig config = CircuitBreakerConfig.from(circuitBreakers.getDefaultConfig())
+				.slowCallDurationThreshold(Duration.ofSeconds(5))
+				.build();
+		return guard("payment-write", config, 20, circuitBreakers, bulkheads);
+	}
+
+	/**
+	 * Redis round trips of the cache; while the breaker is open lookups fall back to the database.
+	 */
+	@Bean
+	public DependencyGuard redisGuard(CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads) {
+		CircuitBreakerConfig config = CircuitBreakerConfig.from(circuitBreakers.getDefaultConfig())
+				.slowCallDurationThreshold(Duration.ofMillis(500))
+				.slidingWindowSize(50)
+				.minimumNumberOfCalls(20)
+				.waitDurationInOpenState(Duration.ofSeconds(5))
+				.build();
+		return guard("redis", config, 200, circuitBreakers, bulkheads);
+	}
+
+	/**
+	 * Connection acquisition from the write pool (the only pool unless {@code r2dbc.read.enabled=true}).
+	 */
+	@Bean
+	public DependencyGuard databaseWriteGuard(CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads) {
+		return guard("database-write", databaseConfig(circuitBreakers), 200, circuitBreakers, bulkheads);
+	}
+
+	/**
+	 * Connection acquisition from the read pool.
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "r2dbc.read.enabled", havingValue = "true")
+	public DependencyGuard databaseReadGuard(CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads) {
+		return guard("database-read", databaseConfig(circuitBreakers), 200, circuitBreakers, bulkheads);
+	}
+
+	/**
+	 * Acquisitions fail only when the pool is exhausted past {@code max-acquire-time} or the database is down,
+	 * so a breaker over a wide window, counting an acquisition over a second as slow.
+	 */
+	private static CircuitBreakerConfig databaseConfig(CircuitBreakerRegistry circuitBreakers) {
+		return CircuitBreakerConfig.from(circuitBreakers.getDefaultConfig())
+				.slowCallDurationThreshold(Duration.ofSeconds(1))
+				.slidingWindowSize(50)
+				.minimumNumberOfCalls(20)
+				.waitDurationInOpenState(Duration.ofSeconds(5))
+				.build();
+	}
+
+	private static DependencyGuard guard(String name, CircuitBreakerConfig circuitBreakerConfig, int maxConcurrentCalls,
+	                                     CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads) {
+		CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(name, circuitBreakerConfig);
 
 		circuitBreaker.getEventPublisher()
-				.onStateTransition(event -> log.warn("Circuit Breaker: {} -> {}",
+				.onStateTransition(event -> log.warn("Circuit Breaker {}: {} -> {}", name,
 						event.getStateTransition().getFromState(),
 						event.getStateTransition().getToState()))
 				.onFailureRateExceeded(
-						event -> log.error("Circuit Breaker failure rate exceeded: {}%", event.getFailureRate()));
+						event -> log.error("Circuit Breaker {} failure rate exceeded: {}%", name, event.getFailureRate()));
 
-		return circuitBreaker;
+		BulkheadConfig bulkheadConfig = BulkheadConfig.from(bulkheads.getDefaultConfig())
+				.maxConcurrentCalls(maxConcurrentCalls)
+				.build();
+		return new DependencyGuard(circuitBreaker, bulkheads.bulkhead(name, bulkheadConfig));
 	}
 }
@@ -1,7 +1,9 @@
 package ru.yandex.practicum.mymarket.config;
 
 import java.net.URI;
+import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
@@ -10,6 +12,8 @@ import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 
+import ru.yandex.practicum.security.IpAllowlistAuthorizationManager;
+
 @Configuration
 @EnableWebFluxSecurity
 public class SecurityConfig {
@@ -17,7 +21,8 @@ public class SecurityConfig {
 	@Bean
 	public SecurityWebFilterChain securityWebFilterChain(
 			ServerHttpSecurity http,
-			ReactiveClientRegistrationRepository clientRegistrationRepository) {
+			ReactiveClientRegistrationRepository clientRegistrationRepository,
+			@Value("${metrics.prometheus.allowed-addresses:127.0.0.1/32,::1/128}") List<String> prometheusAddresses) {
 
 		CustomLogoutSuccessHandler customLogoutHandler =
 			new CustomLogoutSuccessHandler(clientRegistrationRepository);
@@ -28,6 +33,8 @@ public class SecurityConfig {
 		return http
 				.authorizeExchange(exchanges -> exchanges
 						.pathMatchers("/login", "/css/**", "/js/**", "/images/**", "/webjars/**", "/login/**", "/oauth2/**", "/logout").permitAll()
+						.pathMatchers("/actuator/health").permitAll()
+						.pathMatchers("/actuator/prometheus").access(new IpAllowlistAuthorizationManager(prometheusAddresses))
 						.pathMatchers("/", "/items", "/items/**", "/api/items", "/api/items/**").permitAll()
 						.anyExchange().authenticated())
 				.exceptionHandling(exceptionHandling -> exceptionHandling
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.mymarket.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.observation.MeterObservationHandler;
+import io.micrometer.observation.Observation;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.handler.TracingAwareMeterObservationHandler;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import ru.yandex.practicum.mymarket.config.tracing.SelectiveMeterObservationHandler;
+
+/**
+ * Tracing. Spans are exported to the OTLP collector at {@code management.otlp.tracing.endpoint} when it is set and
+ * written to the log with {@code tracing.log-spans.enabled=true}.
+ * <p>
+ * Replaces the default meter handler of observations with {@link SelectiveMeterObservationHandler}, so spans that are
+ * timed elsewhere do not produce duplicate meters.
+ */
+@Configuration
+public class TracingConfig {
+
+	@Bean
+	public MeterObservationHandler<Observation.Context> meterObservationHandler(MeterRegistry meterRegistry,
+	                                                                           ObjectProvider<Tracer> tracer) {
+		MeterObservationHandler<Observation.Context> handler = new DefaultMeterObservationHandler(meterRegistry);
+		Tracer available = tracer.getIfAvailable();
+		return new SelectiveMeterObservationHandler(available == null
+				? handler
+				: new TracingAwareMeterObservationHandler<>(handler, available));
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "tracing.log-spans.enabled", havingValue = "true")
+	public SpanExporter loggingSpanExporter() {
+		return LoggingSpanExporter.create();
+	}
+}
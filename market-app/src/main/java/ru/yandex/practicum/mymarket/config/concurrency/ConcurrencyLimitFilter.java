@@ -0,0 +1,106 @@
+package ru.yandex.practicum.mymarket.config.concurrency;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Admits requests while those in flight stay within their {@link RequestPriority#share() share} of the
+ * {@link GradientConcurrencyLimit adaptive limit} and rejects the rest at once with 503 and {@code Retry-After}, instead
+ * of letting them queue on the database pool and Redis until everything times out. Every completed request feeds its
+ * latency back into the limit; cancelled ones are not sampled.
+ * <p>
+ * Publishes the gauges {@code http.server.concurrency.limit} and {@code http.server.concurrency.inflight} and the counter
+ * {@code http.server.requests.rejected{priority}}.
+ */
+public class ConcurrencyLimitFilter implements WebFilter {
+
+	private static final byte[] REJECTED_BODY = "{\"message\":\"Service is overloaded, please retry later\"}"
+			.getBytes(StandardCharsets.UTF_8);
+
+	private final GradientConcurrencyLimit limit;
+	private final String retryAfterSeconds;
+	private final AtomicInteger inflight = new AtomicInteger();
+	private final Map<RequestPriority, Counter> rejected = new EnumMap<>(RequestPriority.class);
+
+	public ConcurrencyLimitFilter(GradientConcurrencyLimit limit, Duration retryAfter, MeterRegistry meterRegistry) {
+		this.limit = limit;
+		this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+		Gauge.builder("http.server.concurrency.limit", limit, GradientConcurrencyLimit::limit)
+				.description("Adaptive limit of concurrent requests")
+				.register(meterRegistry);
+		Gauge.builder("http.server.concurrency.inflight", inflight, AtomicInteger::get)
+				.description("Requests in flight under the concurrency limit")
+				.register(meterRegistry);
+		for (RequestPriority priority : RequestPriority.values()) {
+			rejected.put(priority, Counter.builder("http.server.requests.rejected")
+					.description("Requests rejected by the concurrency limit")
+					.tag("priority", priority.name().toLowerCase())
+					.register(meterRegistry));
+		}
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		RequestPriority priority = RequestPriority.of(exchange.getRequest());
+		if (priority == null) {
+			return chain.filter(exchange);
+		}
+		int admitted = tryAcquire(priority);
+		if (admitted == 0) {
+			rejected.get(priority).increment();
+			return reject(exchange);
+		}
+		long start = System.nanoTime();
+		return chain.filter(exchange)
+				.doFinally(signal -> {
+					inflight.decrementAndGet();
+					if (signal != SignalType.CANCEL) {
+						limit.onSample(System.nanoTime() - start, admitted);
+					}
+				});
+	}
+
+	/**
+	 * Requests in flight including this one, or 0 if the priority's share of the limit is used up.
+	 */
+	private int tryAcquire(RequestPriority priority) {
+		int allowed = Math.max(1, (int) (limit.limit() * priority.share()));
+		while (true) {
+			int current = inflight.get();
+			if (current >= allowed) {
+				return 0;
+			}
+			if (inflight.compareAndSet(current, current + 1)) {
+				return current + 1;
+			}
+		}
+	}
+
+	private Mono<Void> reject(ServerWebExchange exchange) {
+		ServerHttpResponse response = exchange.getResponse();
+		response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+		response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+		if (!exchange.getRequest().getPath().pathWithinApplication().value().startsWith("/api/")) {
+			return response.setComplete();
+		}
+		response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+		return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(REJECTED_BODY)));
+	}
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.mymarket.config.concurrency;
+
+/**
+ * Adaptive limit of concurrent requests following the gradient algorithm: the limit is scaled by the ratio of the long
+ * term latency (the no-load baseline) to the latest one, plus a small queue allowance to probe for more capacity. When
+ * latency grows because requests queue on the database pool or Redis, the ratio drops below one and the limit shrinks
+ * until latency returns to the baseline; while latency stays flat the limit grows.
+ */
+public class GradientConcurrencyLimit {
+
+	private static final double TOLERANCE = 1.5;
+	private static final double SMOOTHING = 0.2;
+	private static final int LONG_WINDOW = 600;
+	private static final int WARMUP_SAMPLES = 10;
+
+	private final int minLimit;
+	private final int maxLimit;
+
+	private volatile int limit;
+	private double estimatedLimit;
+	private double longRtt;
+	private long samples;
+
+	public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+		if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+			throw new IllegalArgumentException("Expected 1 <= min <= initial <= max, got min " + minLimit
+					+ ", initial " + initialLimit + ", max " + maxLimit);
+		}
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.limit = initialLimit;
+		this.estimatedLimit = initialLimit;
+	}
+
+	public int limit() {
+		return limit;
+	}
+
+	/**
+	 * Records a completed request.
+	 *
+	 * @param rttNanos time the request took
+	 * @param inflight requests in flight when it started, including itself
+	 */
+	public synchronized void onSample(long rttNanos, int inflight) {
+		double shortRtt = Math.max(1, rttNanos);
+		samples++;
+		if (samples <= WARMUP_SAMPLES) {
+			longRtt += (shortRtt - longRtt) / samples;
+		} else {
+			longRtt += (shortRtt - longRtt) * 2 / (LONG_WINDOW + 1);
+		}
+		// After a long overload the baseline has absorbed the queueing latency: let it drift back to recover faster
+		if (longRtt / shortRtt > 2) {
+			longRtt *= 0.95;
+		}
+		// Far below the limit latency says nothing about capacity, and growing would let the limit run away
+		if (inflight < estimatedLimit / 2) {
+			return;
+		}
+
+		double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+		double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+		estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING));
+		limit = (int) estimatedLimit;
+	}
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.mymarket.config.concurrency;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+/**
+ * Request classes of the concurrency limit. Each class may use its share of the limit, so as load grows anonymous
+ * catalog browsing is shed first and checkout and cart writes last.
+ */
+public enum RequestPriority {
+
+	/**
+	 * Checkout and cart writes: every POST of market-app except logout.
+	 */
+	CRITICAL(1.0),
+	/**
+	 * Pages and API calls of signed-in users.
+	 */
+	NORMAL(0.9),
+	/**
+	 * Catalog pages and items without a session cookie.
+	 */
+	ANONYMOUS_BROWSING(0.7);
+
+	private static final String SESSION_COOKIE = "SESSION";
+	private static final String[] UNLIMITED = {"/actuator/", "/css/", "/js/", "/images/", "/webjars/", "/favicon.ico",
+			"/api/events"};
+
+	private final double share;
+
+	RequestPriority(double share) {
+		this.share = share;
+	}
+
+	/**
+	 * Share of the concurrency limit requests of this class may occupy.
+	 */
+	public double share() {
+		return share;
+	}
+
+	/**
+	 * Class of the request, or {@code null} for requests outside the limit: static resources, actuator endpoints and
+	 * the long-lived event stream.
+	 */
+	public static RequestPriority of(ServerHttpRequest request) {
+		String path = request.getPath().pathWithinApplication().value();
+		for (String prefix : UNLIMITED) {
+			if (path.startsWith(prefix)) {
+				return null;
+			}
+		}
+		if (HttpMethod.POST.equals(request.getMethod())) {
+			return path.equals("/logout") ? NORMAL : CRITICAL;
+		}
+		if (isCatalog(path) && !request.getCookies().containsKey(SESSION_COOKIE)) {
+			return ANONYMOUS_BROWSING;
+		}
+		return NORMAL;
+	}
+
+	private static boolean isCatalog(String path) {
+		return path.equals("/") || path.equals("/items") || path.startsWith("/items/")
+				|| path.equals("/api") || path.equals("/api/items") || path.startsWith("/api/items/");
+	}
+}
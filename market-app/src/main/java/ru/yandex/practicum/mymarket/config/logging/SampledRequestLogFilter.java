@@ -0,0 +1,53 @@
+package ru.yandex.practicum.mymarket.config.logging;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Logs one line per request at INFO (method, path, status, duration) for a random {@code sampleRate} share of requests
+ * and for every request ending with a server error. Stands in for per-step debug logging in production: the cost is
+ * one random number per request, and formatting only for the logged ones.
+ */
+@Slf4j
+public class SampledRequestLogFilter implements WebFilter {
+
+	private final double sampleRate;
+
+	public SampledRequestLogFilter(double sampleRate) {
+		this.sampleRate = sampleRate;
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		boolean sampled = sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+		long start = System.nanoTime();
+		return chain.filter(exchange)
+				.doFinally(signal -> {
+					HttpStatusCode status = exchange.getResponse().getStatusCode();
+					boolean failed = signal == SignalType.ON_ERROR || status != null && status.is5xxServerError();
+					if (sampled || failed) {
+						log(exchange.getRequest(), signal, status, System.nanoTime() - start);
+					}
+				});
+	}
+
+	private static void log(ServerHttpRequest request, SignalType signal, HttpStatusCode status, long nanos) {
+		String outcome = switch (signal) {
+			case ON_ERROR -> "error";
+			case CANCEL -> "cancelled";
+			default -> status != null ? String.valueOf(status.value()) : "-";
+		};
+		log.info("{} {} {} {} ms", request.getMethod(), request.getPath().value(), outcome,
+				TimeUnit.NANOSECONDS.toMillis(nanos));
+	}
+}
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.mymarket.config.r2dbc;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.pool.PoolMetricsRecorder;
+
+/**
+ * Records connection pool timings that the actuator pool gauges (acquired, pending, idle) do not cover:
+ * how long acquires wait for a free connection and how long new connections take to open.
+ */
+public class MicrometerPoolMetricsRecorder implements PoolMetricsRecorder {
+
+	private final Timer pendingAcquireSuccess;
+	private final Timer pendingAcquireFailure;
+	private final Timer allocationSuccess;
+	private final Timer allocationFailure;
+	private final Timer idleTime;
+	private final Counter fastPath;
+	private final Counter slowPath;
+
+	public MicrometerPoolMetricsRecorder(MeterRegistry registry, String poolName) {
+		this.pendingAcquireSuccess = timer(registry, "r2dbc.pool.acquire.pending", poolName, "success");
+		this.pendingAcquireFailure = timer(registry, "r2dbc.pool.acquire.pending", poolName, "failure");
+		this.allocationSuccess = timer(registry, "r2dbc.pool.allocation", poolName, "success");
+		this.allocationFailure = timer(registry, "r2dbc.pool.allocation", poolName, "failure");
+		this.idleTime = Timer.builder("r2dbc.pool.idle.time")
+				.tag("name", poolName)
+				.register(registry);
+		this.fastPath = counter(registry, poolName, "fast");
+		this.slowPath = counter(registry, poolName, "slow");
+	}
+
+	@Override
+	public void recordPendingSuccessAndLatency(long latencyMs) {
+		pendingAcquireSuccess.record(latencyMs, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void recordPendingFailureAndLatency(long latencyMs) {
+		pendingAcquireFailure.record(latencyMs, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void recordAllocationSuccessAndLatency(long latencyMs) {
+		allocationSuccess.record(latencyMs, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void recordAllocationFailureAndLatency(long latencyMs) {
+		allocationFailure.record(latencyMs, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void recordIdleTime(long millisecondsIdle) {
+		idleTime.record(millisecondsIdle, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void recordFastPath() {
+		fastPath.increment();
+	}
+
+	@Override
+	public void recordSlowPath() {
+		slowPath.increment();
+	}
+
+	@Override
+	public void recordResetLatency(long latencyMs) {
+	}
+
+	@Override
+	public void recordDestroyLatency(long latencyMs) {
+	}
+
+	@Override
+	public void recordRecycled() {
+	}
+
+	@Override
+	public void recordLifetimeDuration(long millisecondsSinceAllocation) {
+	}
+
+	private static Timer timer(MeterRegistry registry, String name, String poolName, String outcome) {
+		return Timer.builder(name)
+				.tag("name", poolName)
+				.tag("outcome", outcome)
+				.register(registry);
+	}
+
+	private static Counter counter(MeterRegistry registry, String poolName, String path) {
+		return Counter.builder("r2dbc.pool.acquire")
+				.tag("name", poolName)
+				.tag("path", path)
+				.register(registry);
+	}
+}
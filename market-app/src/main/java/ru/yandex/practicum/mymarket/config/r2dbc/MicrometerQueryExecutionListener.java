@@ -0,0 +1,61 @@
+package ru.yandex.practicum.mymarket.config.r2dbc;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+
+/**
+ * Times statement executions in {@code r2dbc.query}, tagged with the pool name, the statement type
+ * ({@code select}, {@code insert}, {@code update}, {@code delete}, {@code with} or {@code other}) and the outcome.
+ * The statement text is not a tag, so the timers are registered once, when the listener is created.
+ */
+public class MicrometerQueryExecutionListener implements ProxyExecutionListener {
+
+	private static final List<String> STATEMENT_TYPES = List.of("select", "insert", "update", "delete", "with");
+	private static final String OTHER = "other";
+
+	private final Map<String, Timer> successTimers;
+	private final Map<String, Timer> failureTimers;
+
+	public MicrometerQueryExecutionListener(MeterRegistry registry, String poolName) {
+		this.successTimers = timers(registry, poolName, "success");
+		this.failureTimers = timers(registry, poolName, "failure");
+	}
+
+	@Override
+	public void afterQuery(QueryExecutionInfo execInfo) {
+		String query = execInfo.getQueries().isEmpty() ? "" : execInfo.getQueries().get(0).getQuery();
+		(execInfo.isSuccess() ? successTimers : failureTimers)
+				.get(statementType(query))
+				.record(execInfo.getExecuteDuration());
+	}
+
+	static String statementType(String query) {
+		int start = 0;
+		while (start < query.length() && Character.isWhitespace(query.charAt(start))) {
+			start++;
+		}
+		for (String type : STATEMENT_TYPES) {
+			if (query.regionMatches(true, start, type, 0, type.length())) {
+				return type;
+			}
+		}
+		return OTHER;
+	}
+
+	private static Map<String, Timer> timers(MeterRegistry registry, String poolName, String outcome) {
+		return Stream.concat(STATEMENT_TYPES.stream(), Stream.of(OTHER))
+				.collect(Collectors.toUnmodifiableMap(Function.identity(), type -> Timer.builder("r2dbc.query")
+						.tag("name", poolName)
+						.tag("type", type)
+						.tag("outcome", outcome)
+						.register(registry)));
+	}
+}
@@ -0,0 +1,31 @@
+package ru.yandex.practicum.mymarket.config.r2dbc;
+
+import java.util.Map;
+
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Mono;
+
+/**
+ * Routes connections of read-only transactions to the read pool and everything else to the write pool.
+ * The read-only flag is put into the subscriber context by {@link ReadOnlyRoutingTransactionManager}.
+ */
+public class ReadOnlyRoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+
+	public static final String READ_ONLY_KEY = ReadOnlyRoutingConnectionFactory.class.getName() + ".READ_ONLY";
+
+	static final String WRITE = "write";
+	static final String READ = "read";
+
+	public ReadOnlyRoutingConnectionFactory(ConnectionFactory writeConnectionFactory, ConnectionFactory readConnectionFactory) {
+		setTargetConnectionFactories(Map.of(WRITE, writeConnectionFactory, READ, readConnectionFactory));
+		setDefaultTargetConnectionFactory(writeConnectionFactory);
+	}
+
+	@Override
+	protected Mono<Object> determineCurrentLookupKey() {
+		return Mono.deferContextual(context ->
+				Mono.just(context.<Boolean>getOrDefault(READ_ONLY_KEY, false) ? READ : WRITE));
+	}
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.mymarket.config.r2dbc;
+
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Mono;
+
+/**
+ * Exposes the read-only flag of a new transaction to {@link ReadOnlyRoutingConnectionFactory}
+ * while the transaction connection is acquired. Transactions joining an existing one keep its connection.
+ */
+public class ReadOnlyRoutingTransactionManager extends R2dbcTransactionManager {
+
+	public ReadOnlyRoutingTransactionManager(ConnectionFactory connectionFactory) {
+		super(connectionFactory);
+	}
+
+	@Override
+	protected Mono<Void> doBegin(TransactionSynchronizationManager synchronizationManager, Object transaction,
+			TransactionDefinition definition) {
+		return super.doBegin(synchronizationManager, transaction, definition)
+				.contextWrite(context -> context.put(ReadOnlyRoutingConnectionFactory.READ_ONLY_KEY, definition.isReadOnly()));
+	}
+}
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.mymarket.config.resilience;
+
+import java.util.function.Function;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * Circuit breaker and bulkhead of one kind of downstream call. The bulkhead wraps the circuit breaker, so calls
+ * rejected because too many are in flight fail with {@code BulkheadFullException} without counting as failures
+ * of the dependency. Bulkheads must not wait for permits: the wait would block the event loop.
+ */
+public class DependencyGuard {
+
+	private final CircuitBreaker circuitBreaker;
+	private final Bulkhead bulkhead;
+
+	public DependencyGuard(CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+		this.circuitBreaker = circuitBreaker;
+		this.bulkhead = bulkhead;
+	}
+
+	public CircuitBreaker circuitBreaker() {
+		return circuitBreaker;
+	}
+
+	public Bulkhead bulkhead() {
+		return bulkhead;
+	}
+
+	public <T> Function<Mono<T>, Mono<T>> mono() {
+		return mono -> mono
+				.transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+				.transformDeferred(BulkheadOperator.of(bulkhead));
+	}
+}
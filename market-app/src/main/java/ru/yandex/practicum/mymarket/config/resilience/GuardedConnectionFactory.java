@@ -0,0 +1,32 @@
+package ru.yandex.practicum.mymarket.config.resilience;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import reactor.core.publisher.Mono;
+
+/**
+ * Takes connections from a pool through a {@link DependencyGuard}. The bulkhead bounds the requests waiting for
+ * a connection, and the circuit breaker fails them fast while acquisitions keep timing out, instead of queueing
+ * every request for the whole {@code max-acquire-time}.
+ */
+public class GuardedConnectionFactory implements ConnectionFactory {
+
+	private final ConnectionFactory delegate;
+	private final DependencyGuard guard;
+
+	public GuardedConnectionFactory(ConnectionFactory delegate, DependencyGuard guard) {
+		this.delegate = delegate;
+		this.guard = guard;
+	}
+
+	@Override
+	public Mono<Connection> create() {
+		return Mono.<Connection>from(delegate.create()).transform(guard.mono());
+	}
+
+	@Override
+	public ConnectionFactoryMetadata getMetadata() {
+		return delegate.getMetadata();
+	}
+}
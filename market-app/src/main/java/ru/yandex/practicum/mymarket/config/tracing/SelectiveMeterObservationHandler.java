@@ -0,0 +1,62 @@
+package ru.yandex.practicum.mymarket.config.tracing;
+
+import io.micrometer.core.instrument.observation.MeterObservationHandler;
+import io.micrometer.observation.Observation;
+import io.r2dbc.proxy.observation.QueryContext;
+import ru.yandex.practicum.mymarket.config.r2dbc.MicrometerQueryExecutionListener;
+import ru.yandex.practicum.mymarket.service.metrics.ReactiveTimers;
+
+/**
+ * Records meters of observations, except of those that are timed elsewhere: spans of {@link ReactiveTimers} and
+ * R2DBC statements, timed by {@link MicrometerQueryExecutionListener} in {@code r2dbc.query} under other tags.
+ */
+public class SelectiveMeterObservationHandler implements MeterObservationHandler<Observation.Context> {
+
+	private final MeterObservationHandler<Observation.Context> delegate;
+
+	public SelectiveMeterObservationHandler(MeterObservationHandler<Observation.Context> delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public boolean supportsContext(Observation.Context context) {
+		return !(context instanceof ReactiveTimers.SpanContext)
+				&& !(context instanceof QueryContext)
+				&& delegate.supportsContext(context);
+	}
+
+	@Override
+	public void onStart(Observation.Context context) {
+		delegate.onStart(context);
+	}
+
+	@Override
+	public void onError(Observation.Context context) {
+		delegate.onError(context);
+	}
+
+	@Override
+	public void onEvent(Observation.Event event, Observation.Context context) {
+		delegate.onEvent(event, context);
+	}
+
+	@Override
+	public void onScopeOpened(Observation.Context context) {
+		delegate.onScopeOpened(context);
+	}
+
+	@Override
+	public void onScopeClosed(Observation.Context context) {
+		delegate.onScopeClosed(context);
+	}
+
+	@Override
+	public void onScopeReset(Observation.Context context) {
+		delegate.onScopeReset(context);
+	}
+
+	@Override
+	public void onStop(Observation.Context context) {
+		delegate.onStop(context);
+	}
+}
@@ -14,7 +14,10 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Mono;
 import ru.yandex.practicum.mymarket.dto.request.CartUpdateRequestDto;
+import ru.yandex.practicum.mymarket.dto.request.ChangeItemCountRequestDto;
+import ru.yandex.practicum.mymarket.dto.response.CartLineResponseDto;
 import ru.yandex.practicum.mymarket.dto.response.CartStateResponseDto;
+import ru.yandex.practicum.mymarket.dto.response.CartSummaryResponseDto;
 import ru.yandex.practicum.mymarket.service.CartService;
 
 @RestController
@@ -34,7 +37,25 @@ public class ApiCartController {
 
 	@PostMapping("/items")
 	@Operation(summary = "Update cart with action")
-	public Mono<CartStateResponseDto> updateCart(@Valid @ModelAttribute CartUpdateRequestDto request, WebSession session) {
+	public Mono<CartLineResponseDto> updateCart(@Valid @ModelAttribute CartUpdateRequestDto request, WebSession session) {
 		return cartService.updateCart(request, session);
 	}
+
+	@GetMapping("/summary")
+	@Operation(summary = "Get cart summary")
+	public Mono<CartSummaryResponseDto> getCartSummary(WebSession session) {
+		return cartService.getCartSummary(session);
+	}
+
+	@PostMapping("/summary")
+	@Operation(summary = "Update cart with action and get cart summary")
+	public Mono<CartSummaryResponseDto> updateCartSummary(@Valid @ModelAttribute CartUpdateRequestDto request, WebSession session) {
+		return cartService.applyActionAndGetSummary(request.action(), request.id(), session);
+	}
+
+	@PostMapping("/line")
+	@Operation(summary = "Update cart with action and get the changed line with cart summary")
+	public Mono<CartLineResponseDto> updateCartLine(@Valid @ModelAttribute ChangeItemCountRequestDto request, WebSession session) {
+		return cartService.applyActionAndGetLine(request.action(), request.id(), session);
+	}
 }
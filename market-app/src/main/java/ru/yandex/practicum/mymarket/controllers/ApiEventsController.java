@@ -0,0 +1,31 @@
+package ru.yandex.practicum.mymarket.controllers;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import ru.yandex.practicum.mymarket.service.UserService;
+import ru.yandex.practicum.mymarket.service.events.UserEventBus;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/events")
+@Tag(name = "Events", description = "Cart and order updates of the current user")
+public class ApiEventsController {
+
+	private final UserService userService;
+	private final UserEventBus userEventBus;
+
+	@GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	@Operation(summary = "Stream cart summary changes and order status transitions")
+	public Flux<ServerSentEvent<String>> events() {
+		return userService.getCurrentUserId()
+				.flatMapMany(userEventBus::stream);
+	}
+}
@@ -11,12 +11,13 @@ import org.springframework.web.server.WebSession;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Mono;
 import ru.yandex.practicum.mymarket.dto.request.ItemsFilterRequestDto;
 import ru.yandex.practicum.mymarket.dto.request.ChangeItemCountRequestDto;
-import ru.yandex.practicum.mymarket.dto.response.CartStateResponseDto;
+import ru.yandex.practicum.mymarket.dto.response.CartLineResponseDto;
 import ru.yandex.practicum.mymarket.dto.response.ItemDetailsResponseDto;
 import ru.yandex.practicum.mymarket.dto.response.ItemResponseDto;
 import ru.yandex.practicum.mymarket.service.CartService;
@@ -37,15 +38,15 @@ public class ApiItemsController {
 	public Mono<Page<ItemResponseDto>> getItems(
 			@Valid @ModelAttribute ItemsFilterRequestDto filter,
 			@RequestParam(defaultValue = "1") @Positive int pageNumber,
-			@RequestParam(defaultValue = "5") @Positive int pageSize) {
+			@RequestParam(defaultValue = "5") @Positive @Max(100) int pageSize) {
 		Pageable pageable = PageRequest.of(pageNumber - 1, pageSize);
 		return itemService.getItems(filter, pageable);
 	}
 
 	@PostMapping("/items")
 	@Operation(summary = "Change item count from catalog page")
-	public Mono<CartStateResponseDto> changeItemCount(@Valid @ModelAttribute ChangeItemCountRequestDto request, WebSession session) {
-		return cartService.applyActionAndGetCart(request.action(), request.id(), session);
+	public Mono<CartLineResponseDto> changeItemCount(@Valid @ModelAttribute ChangeItemCountRequestDto request, WebSession session) {
+		return cartService.applyActionAndGetLine(request.action(), request.id(), session);
 	}
 
 	@GetMapping("items/{id}")
@@ -56,11 +57,11 @@ public class ApiItemsController {
 
 	@PostMapping("items/{id}")
 	@Operation(summary = "Change item count from item details page")
-	public Mono<CartStateResponseDto> changeItemCountOnDetails(
+	public Mono<CartLineResponseDto> changeItemCountOnDetails(
 			@PathVariable("id") @Positive Long id,
 			@Valid @ModelAttribute ChangeItemCountRequestDto request,
 			WebSession session) {
-		return cartService.applyActionAndGetCart(request.action(), id, session);
+		return cartService.applyActionAndGetLine(request.action(), id, session);
 	}
 
 	@GetMapping("items/{id}/image")
@@ -16,6 +16,7 @@ import org.springframework.web.reactive.result.view.Rendering;
 import org.springframework.web.server.WebSession;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,12 +27,14 @@ import ru.yandex.practicum.mymarket.dto.request.CartUpdateRequestDto;
 import ru.yandex.practicum.mymarket.dto.request.ChangeItemCountRequestDto;
 import ru.yandex.practicum.mymarket.dto.request.ItemsFilterRequestDto;
 import ru.yandex.practicum.mymarket.dto.response.CartStateResponseDto;
+import ru.yandex.practicum.mymarket.dto.response.CartSummaryResponseDto;
 import ru.yandex.practicum.mymarket.exception.UserNotFoundException;
 import ru.yandex.practicum.mymarket.service.CartService;
 import ru.yandex.practicum.mymarket.service.ItemService;
 import ru.yandex.practicum.mymarket.service.OrderService;
 import ru.yandex.practicum.mymarket.service.PaymentServiceHealthCheck;
 import ru.yandex.practicum.mymarket.service.UserService;
+import ru.yandex.practicum.mymarket.service.model.CartCounts;
 
 @Slf4j
 @Controller
@@ -97,28 +100,37 @@ public class ViewController {
 				.modelAttribute("isAuthenticated", attributes.isAuthenticated());
 	}
 
+	private Mono<Long> cartTotal(WebSession session) {
+		return cartService.getCartSummary(session)
+				.map(CartSummaryResponseDto::total)
+				.onErrorReturn(0L);
+	}
+
 	@GetMapping(value = {"/", "/items"}, produces = MediaType.TEXT_HTML_VALUE)
 	public Mono<Rendering> itemsPage(
 			@ModelAttribute @Valid ItemsFilterRequestDto filter,
 			@RequestParam(defaultValue = "1") @Positive int pageNumber,
-			@RequestParam(defaultValue = "5") @Positive int pageSize,
+			@RequestParam(defaultValue = "5") @Positive @Max(100) int pageSize,
 			WebSession session) {
 		Pageable pageable = PageRequest.of(pageNumber - 1, pageSize);
 
 		return Mono.zip(
-				cartService.getCart(session).onErrorReturn(new CartStateResponseDto(java.util.List.of(), 0L)),
+				cartService.getCartCounts(session).onErrorReturn(CartCounts.EMPTY),
+				cartTotal(session),
 				getCommonAttributesForAnonymous()
 		)
 		.flatMap(tuple -> {
-			CartStateResponseDto cart = tuple.getT1();
-			CommonViewAttributes commonAttrs = tuple.getT2();
-			return itemService.getItemsWithCartCounts(filter, pageable, cart)
+			CartCounts cartCounts = tuple.getT1();
+			long total = tuple.getT2();
+			CommonViewAttributes commonAttrs = tuple.getT3();
+			return itemService.getItemsWithCartCounts(filter, pageable, cartCounts)
 					.map(page -> addCommonAttributes(
 							Rendering.view("items")
 									.modelAttribute("items", page.getContent())
 									.modelAttribute("page", page)
 									.modelAttribute("search", filter.search())
-									.modelAttribute("sort", filter.sort()),
+									.modelAttribute("sort", filter.sort())
+									.modelAttribute("total", total),
 							commonAttrs
 					).build());
 		});
@@ -134,19 +146,19 @@ public class ViewController {
 	@GetMapping(value = "/items/{id}", produces = MediaType.TEXT_HTML_VALUE)
 	public Mono<Rendering> itemPage(@PathVariable("id") @Positive Long id, WebSession session) {
 		return Mono.zip(
-				cartService.getCart(session).onErrorReturn(new CartStateResponseDto(java.util.List.of(), 0L)),
+				cartTotal(session),
 				cartService.getItemCountInCart(id, session).onErrorReturn(0),
 				getCommonAttributesForAnonymous()
 		)
 		.flatMap(tuple -> {
-			CartStateResponseDto cart = tuple.getT1();
+			long total = tuple.getT1();
 			int countInCart = tuple.getT2();
 			CommonViewAttributes commonAttrs = tuple.getT3();
 			return itemService.getItemWithCartCount(id, countInCart)
 					.map(item -> addCommonAttributes(
 							Rendering.view("item")
 									.modelAttribute("item", item)
-									.modelAttribute("total", cart.total()),
+									.modelAttribute("total", total),
 							commonAttrs
 					).build());
 		});
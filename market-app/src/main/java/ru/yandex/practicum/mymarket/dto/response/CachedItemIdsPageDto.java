@@ -5,19 +5,19 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-public record CachedItemsPageDto(
-	List<ItemResponseDto> content,
+public record CachedItemIdsPageDto(
+	List<Long> itemIds,
 	int pageNumber,
 	int pageSize,
 	long totalElements
 ) {
 	@JsonCreator
-	public CachedItemsPageDto(
-			@JsonProperty("content") List<ItemResponseDto> content,
+	public CachedItemIdsPageDto(
+			@JsonProperty("itemIds") List<Long> itemIds,
 			@JsonProperty("pageNumber") int pageNumber,
 			@JsonProperty("pageSize") int pageSize,
 			@JsonProperty("totalElements") long totalElements) {
-		this.content = content;
+		this.itemIds = itemIds;
 		this.pageNumber = pageNumber;
 		this.pageSize = pageSize;
 		this.totalElements = totalElements;
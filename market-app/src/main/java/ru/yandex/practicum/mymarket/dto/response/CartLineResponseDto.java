@@ -0,0 +1,15 @@
+package ru.yandex.practicum.mymarket.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Cart line after an action, with the cart summary")
+public record CartLineResponseDto(
+	@Schema(description = "Item identifier", example = "1")
+	Long id,
+
+	@Schema(description = "Count of the item in cart after the action", example = "3")
+	int count,
+
+	@Schema(description = "Cart summary after the action")
+	CartSummaryResponseDto summary
+) {}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.mymarket.dto.response;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Shopping cart summary")
+public record CartSummaryResponseDto(
+	@Schema(description = "Number of distinct items in cart", example = "2")
+	int lines,
+
+	@Schema(description = "Total number of items in cart", example = "5")
+	long items,
+
+	@Schema(description = "Total cart price", example = "59970")
+	long total
+) {
+
+	public static CartSummaryResponseDto of(List<CartItemResponseDto> items) {
+		return new CartSummaryResponseDto(
+			items.size(),
+			items.stream().mapToLong(CartItemResponseDto::count).sum(),
+			items.stream().mapToLong(item -> item.price() * item.count()).sum()
+		);
+	}
+}
@@ -4,6 +4,7 @@ import java.util.List;
 import java.time.LocalDateTime;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import ru.yandex.practicum.mymarket.entity.OrderStatus;
 
 @Schema(description = "Order information with items and total sum")
 public record OrderResponseDto(
@@ -17,5 +18,8 @@ public record OrderResponseDto(
 	long totalSum,
 
 	@Schema(description = "Order creation time")
-	LocalDateTime createdAt
+	LocalDateTime createdAt,
+
+	@Schema(description = "Order payment status", example = "PAID")
+	OrderStatus status
 ) {}
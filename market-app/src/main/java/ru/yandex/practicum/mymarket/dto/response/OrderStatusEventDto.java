@@ -0,0 +1,13 @@
+package ru.yandex.practicum.mymarket.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.yandex.practicum.mymarket.entity.OrderStatus;
+
+@Schema(description = "Order status transition")
+public record OrderStatusEventDto(
+	@Schema(description = "Order identifier", example = "1")
+	Long orderId,
+
+	@Schema(description = "New order status", example = "PAID")
+	OrderStatus status
+) {}
@@ -1,12 +1,16 @@
 package ru.yandex.practicum.mymarket.exception;
 
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import ru.yandex.practicum.mymarket.dto.response.ApiErrorResponse;
@@ -64,6 +68,18 @@ public class GlobalExceptionHandler {
 				.body(new ApiErrorResponse(ex.getMessage()));
 	}
 
+	@ExceptionHandler({
+			CallNotPermittedException.class,
+			BulkheadFullException.class,
+			DataAccessResourceFailureException.class,
+			CannotCreateTransactionException.class
+	})
+	public ResponseEntity<ApiErrorResponse> handleDependencyUnavailable(RuntimeException ex) {
+		log.warn("Dependency unavailable: {}", ex.getMessage());
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.body(new ApiErrorResponse("Service temporarily unavailable, please retry later"));
+	}
+
 	@ExceptionHandler(AccessDeniedException.class)
 	public ResponseEntity<ApiErrorResponse> handleAccessDenied(AccessDeniedException ex) {
 		log.warn("Access denied: {}", ex.getMessage());
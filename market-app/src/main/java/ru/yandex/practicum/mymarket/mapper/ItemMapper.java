@@ -12,4 +12,6 @@ public interface ItemMapper {
 	ItemResponseDto toItemResponse(ItemEntity entity, int count);
 
 	ItemDetailsResponseDto toItemDetailsResponse(ItemEntity entity, int count);
+
+	ItemResponseDto toItemResponse(ItemDetailsResponseDto details);
 }
@@ -1,5 +1,7 @@
 package ru.yandex.practicum.mymarket.repository;
 
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 
 import reactor.core.publisher.Flux;
@@ -15,4 +17,52 @@ public interface CartItemRepository extends ReactiveCrudRepository<CartItemEntit
 	Mono<Void> deleteByUserId(Long userId);
 
 	Mono<Void> deleteByUserIdAndItemId(Long userId, Long itemId);
+
+	/**
+	 * Serializes write-backs of one user's cart until the end of the current transaction.
+	 */
+	@Query("SELECT 1 FROM pg_advisory_xact_lock(:userId)")
+	Mono<Integer> lockCartWriteBack(Long userId);
+
+	@Query("INSERT INTO cart_items (user_id, item_id, count, created_at, updated_at) " +
+			"VALUES (:userId, :itemId, 1, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+			"ON CONFLICT (user_id, item_id) DO UPDATE SET " +
+			"count = cart_items.count + 1, " +
+			"updated_at = CURRENT_TIMESTAMP " +
+			"RETURNING count, nextval('cart_line_versions') AS version")
+	Mono<CartLineCount> incrementCount(Long userId, Long itemId);
+
+	/**
+	 * Decrements the item count, deleting the row when the last one is removed.
+	 * Emits the new count (0 when deleted) or completes empty when the item is not in the cart.
+	 */
+	@Query("WITH decremented AS (" +
+			"UPDATE cart_items SET count = count - 1, updated_at = CURRENT_TIMESTAMP " +
+			"WHERE user_id = :userId AND item_id = :itemId AND count > 1 " +
+			"RETURNING count, nextval('cart_line_versions') AS version), " +
+			"deleted AS (" +
+			"DELETE FROM cart_items WHERE user_id = :userId AND item_id = :itemId AND count = 1 " +
+			"RETURNING 0 AS count, nextval('cart_line_versions') AS version) " +
+			"SELECT count, version FROM decremented UNION ALL SELECT count, version FROM deleted")
+	Mono<CartLineCount> decrementCount(Long userId, Long itemId);
+
+	/**
+	 * Deletes the line and emits a zero count, or completes empty when the item is not in the cart.
+	 */
+	@Query("DELETE FROM cart_items WHERE user_id = :userId AND item_id = :itemId " +
+			"RETURNING 0 AS count, nextval('cart_line_versions') AS version")
+	Mono<CartLineCount> removeLine(Long userId, Long itemId);
+
+	@Modifying
+	@Query("INSERT INTO cart_items (user_id, item_id, count, created_at, updated_at) " +
+			"VALUES (:userId, :itemId, :count, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+			"ON CONFLICT (user_id, item_id) DO UPDATE SET " +
+			"count = EXCLUDED.count, " +
+			"updated_at = CURRENT_TIMESTAMP " +
+			"WHERE cart_items.count <> EXCLUDED.count")
+	Mono<Integer> upsertCount(Long userId, Long itemId, Integer count);
+
+	@Modifying
+	@Query("DELETE FROM cart_items WHERE user_id = :userId AND NOT (item_id = ANY(:keptItemIds))")
+	Mono<Integer> deleteByUserIdExcept(Long userId, Long[] keptItemIds);
 }
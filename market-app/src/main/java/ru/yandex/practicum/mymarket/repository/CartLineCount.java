@@ -0,0 +1,8 @@
+package ru.yandex.practicum.mymarket.repository;
+
+/**
+ * New count of a changed cart line with the version of the change, taken from {@code cart_line_versions}
+ * after the row lock, so a later change of the same line always has a greater version.
+ */
+public record CartLineCount(Integer count, Long version) {
+}
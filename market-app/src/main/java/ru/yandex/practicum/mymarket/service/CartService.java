@@ -6,8 +6,11 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.yandex.practicum.mymarket.dto.request.CartActionWithNavigationDto;
 import ru.yandex.practicum.mymarket.dto.request.CartUpdateRequestDto;
+import ru.yandex.practicum.mymarket.dto.response.CartLineResponseDto;
 import ru.yandex.practicum.mymarket.dto.response.CartStateResponseDto;
+import ru.yandex.practicum.mymarket.dto.response.CartSummaryResponseDto;
 import ru.yandex.practicum.mymarket.enums.CartAction;
+import ru.yandex.practicum.mymarket.service.model.CartCounts;
 import ru.yandex.practicum.mymarket.service.model.CartEntry;
 
 public interface CartService {
@@ -24,9 +27,18 @@ public interface CartService {
 
 	Mono<CartStateResponseDto> getCart(WebSession session);
 
-	Mono<CartStateResponseDto> updateCart(CartUpdateRequestDto request, WebSession session);
-
-	Mono<CartStateResponseDto> applyActionAndGetCart(CartAction action, Long itemId, WebSession session);
+	Mono<CartLineResponseDto> updateCart(CartUpdateRequestDto request, WebSession session);
 
 	Mono<Integer> getItemCountInCart(Long itemId, WebSession session);
+
+	/**
+	 * Item counts of the current cart, read without loading the items.
+	 */
+	Mono<CartCounts> getCartCounts(WebSession session);
+
+	Mono<CartSummaryResponseDto> getCartSummary(WebSession session);
+
+	Mono<CartSummaryResponseDto> applyActionAndGetSummary(CartAction action, Long itemId, WebSession session);
+
+	Mono<CartLineResponseDto> applyActionAndGetLine(CartAction action, Long itemId, WebSession session);
 }
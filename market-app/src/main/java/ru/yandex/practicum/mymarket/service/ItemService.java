@@ -6,15 +6,15 @@ import org.springframework.http.ResponseEntity;
 
 import reactor.core.publisher.Mono;
 import ru.yandex.practicum.mymarket.dto.request.ItemsFilterRequestDto;
-import ru.yandex.practicum.mymarket.dto.response.CartStateResponseDto;
 import ru.yandex.practicum.mymarket.dto.response.ItemDetailsResponseDto;
 import ru.yandex.practicum.mymarket.dto.response.ItemResponseDto;
+import ru.yandex.practicum.mymarket.service.model.CartCounts;
 
 public interface ItemService {
 
 	Mono<Page<ItemResponseDto>> getItems(ItemsFilterRequestDto filter, Pageable pageable);
 
-	Mono<Page<ItemResponseDto>> getItemsWithCartCounts(ItemsFilterRequestDto filter, Pageable pageable, CartStateResponseDto cart);
+	Mono<Page<ItemResponseDto>> getItemsWithCartCounts(ItemsFilterRequestDto filter, Pageable pageable, CartCounts cartCounts);
 
 	Mono<ItemDetailsResponseDto> getItem(Long id);
 
@@ -1,7 +1,6 @@
 package ru.yandex.practicum.mymarket.service;
 
 import java.time.Duration;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -12,70 +11,97 @@ import org.springframework.web.reactive.function.client.WebClient;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ru.yandex.practicum.mymarket.client.PaymentServiceInstance;
+import ru.yandex.practicum.mymarket.client.PaymentServiceInstances;
+import ru.yandex.practicum.mymarket.config.resilience.DependencyGuard;
 
+/**
+ * Availability of payment-service for checkout, derived from live calls: it is available while at least one instance
+ * is healthy and the circuit breaker of payments is not open. Instances are tracked passively by
+ * {@link PaymentServiceInstances}; {@code /actuator/health} of an instance is probed only while it is unhealthy, every
+ * {@code payment.service.probe-interval}, until it answers.
+ */
 @Slf4j
 @Service
 public class PaymentServiceHealthCheck {
 
 	private final WebClient webClient;
-	private final String paymentServiceUrl;
-	private final AtomicBoolean isAvailable = new AtomicBoolean(false);
+	private final PaymentServiceInstances instances;
 	private final CircuitBreaker circuitBreaker;
-	private Disposable healthCheckSubscription;
+	private final Duration probeInterval;
+	private final Sinks.Empty<Void> stop = Sinks.empty();
+	private volatile boolean stopped;
 
 	public PaymentServiceHealthCheck(
 			WebClient.Builder webClientBuilder,
-			@Value("${payment.service.url}") String paymentServiceUrl,
-			CircuitBreaker paymentServiceCircuitBreaker) {
-		this.webClient = webClientBuilder.baseUrl(paymentServiceUrl).build();
-		this.paymentServiceUrl = paymentServiceUrl;
-		this.circuitBreaker = paymentServiceCircuitBreaker;
+			PaymentServiceInstances paymentServiceInstances,
+			DependencyGuard paymentWriteGuard,
+			@Value("${payment.service.probe-interval:2s}") Duration probeInterval) {
+		this.webClient = webClientBuilder.build();
+		this.instances = paymentServiceInstances;
+		this.circuitBreaker = paymentWriteGuard.circuitBreaker();
+		this.probeInterval = probeInterval;
+		paymentServiceInstances.onUnhealthy(this::startProbing);
 	}
 
+	/**
+	 * Instances start unhealthy, so every one is probed until it answers.
+	 */
 	@EventListener(ApplicationReadyEvent.class)
 	public void startHealthCheck() {
-		log.info("Starting reactive health check for payment service");
-		healthCheckSubscription = Flux.interval(Duration.ofSeconds(1), Duration.ofSeconds(10))
-				.flatMap(tick -> checkHealth())
+		log.info("Probing {} payment service instances", instances.all().size());
+		instances.all().forEach(this::startProbing);
+	}
+
+	void startProbing(PaymentServiceInstance instance) {
+		if (instance.isHealthy() || !instance.tryStartProbing()) {
+			return;
+		}
+		Flux.interval(Duration.ZERO, probeInterval)
+				.onBackpressureDrop()
+				.concatMap(tick -> probe(instance))
+				.takeUntil(healthy -> healthy || instance.isHealthy())
+				.takeUntilOther(stop.asMono())
+				.doFinally(signal -> {
+					instance.stopProbing();
+					// A failure may have made the instance unhealthy again while this probe loop was finishing
+					if (!instance.isHealthy() && !stopped) {
+						startProbing(instance);
+					}
+				})
 				.subscribe();
 	}
 
-	Mono<Void> checkHealth() {
+	Mono<Boolean> probe(PaymentServiceInstance instance) {
 		return webClient.get()
-				.uri("/actuator/health")
+				.uri(instance.url() + "/actuator/health")
 				.retrieve()
 				.toBodilessEntity()
 				.timeout(Duration.ofSeconds(3))
-				.doOnSuccess(response -> {
-					boolean wasAvailable = isAvailable.getAndSet(true);
-					if (!wasAvailable) {
-						log.info("Payment service is now AVAILABLE");
-					}
-				})
-				.doOnError(error -> {
-					boolean wasAvailable = isAvailable.getAndSet(false);
-					if (wasAvailable) {
-						log.warn("Payment service is UNAVAILABLE: {}", error.getMessage());
-					}
+				.map(response -> {
+					instances.recordSuccess(instance);
+					return true;
 				})
-				.then()
-				.onErrorComplete();
+				.onErrorResume(error -> {
+					log.debug("Probe of payment service instance {} failed: {}", instance, error.getMessage());
+					return Mono.just(false);
+				});
 	}
 
 	public boolean isPaymentServiceAvailable() {
-		boolean healthCheckStatus = isAvailable.get();
+		boolean anyHealthy = instances.anyHealthy();
 		CircuitBreaker.State state = circuitBreaker.getState();
 		boolean circuitBreakerOk = state == CircuitBreaker.State.CLOSED
 				|| state == CircuitBreaker.State.HALF_OPEN;
 
-		boolean available = healthCheckStatus && circuitBreakerOk;
+		boolean available = anyHealthy && circuitBreakerOk;
 
 		if (!available) {
-			log.debug("Payment service unavailable - Health: {}, CircuitBreaker: {}",
-					healthCheckStatus, state);
+			log.debug("Payment service unavailable - Healthy instances: {}, CircuitBreaker: {}",
+					anyHealthy, state);
 		}
 
 		return available;
@@ -83,9 +109,8 @@ public class PaymentServiceHealthCheck {
 
 	@PreDestroy
 	public void stopHealthCheck() {
-		if (healthCheckSubscription != null && !healthCheckSubscription.isDisposed()) {
-			healthCheckSubscription.dispose();
-			log.info("Health check stopped");
-		}
+		stopped = true;
+		stop.tryEmitEmpty();
+		log.info("Health check stopped");
 	}
 }
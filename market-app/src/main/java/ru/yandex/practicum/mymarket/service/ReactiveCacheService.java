@@ -1,44 +1,133 @@
 package ru.yandex.practicum.mymarket.service;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import ru.yandex.practicum.mymarket.config.resilience.DependencyGuard;
+import ru.yandex.practicum.mymarket.service.metrics.ReactiveTimers;
 
+/**
+ * Redis cache of JSON values. Lookups are counted in {@code cache.lookups} by key prefix (the part before the first
+ * colon) and result ({@code hit}, {@code miss}, {@code error}); Redis round trips are timed in {@code cache.latency}
+ * and traced as {@code cache <operation> <prefix>} spans.
+ * <p>
+ * Lookups and writes go through the Redis {@link DependencyGuard}: while Redis is slow or down they fail fast,
+ * lookups are served from the data supplier and writes are skipped, as on any other cache error. Evictions are not
+ * guarded, so they are never skipped.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ReactiveCacheService {
 
+	private static final int SCAN_BATCH_SIZE = 500;
+
 	private final ReactiveRedisTemplate<String, Object> redisTemplate;
+	private final DependencyGuard redisGuard;
+	private final MeterRegistry meterRegistry;
+	private final ObservationRegistry observationRegistry;
+	private final Map<String, Map<String, Counter>> lookupCounters = new ConcurrentHashMap<>();
 
 	public <T> Mono<T> getOrPut(String key, Class<T> valueClass, Mono<T> dataSupplier, Duration ttl) {
 		log.debug("Cache lookup for key: {}", key);
 
+		String prefix = prefixOf(key);
 		return redisTemplate.opsForValue()
 				.get(key)
+				.transform(redisGuard.mono())
+				.transform(latency("get", prefix))
 				.cast(valueClass)
-				.doOnNext(cached -> log.debug("Cache HIT for key: {}", key))
+				.doOnNext(cached -> {
+					log.debug("Cache HIT for key: {}", key);
+					countLookups(prefix, "hit", 1);
+				})
 				.switchIfEmpty(
 						dataSupplier
 								.flatMap(data -> {
 									log.debug("Cache MISS for key: {}, caching with TTL: {}", key, ttl);
-									return redisTemplate.opsForValue()
-											.set(key, data, ttl)
+									countLookups(prefix, "miss", 1);
+									return redisTemplate.opsForValue().set(key, data, ttl)
+											.transform(redisGuard.mono())
+											.onErrorResume(error -> {
+												log.warn("Failed to cache value for key {}: {}", key, error.getMessage());
+												return Mono.empty();
+											})
 											.thenReturn(data);
 								})
 				)
 				.onErrorResume(error -> {
 					log.warn("Cache error for key {}: {}, falling back to data supplier",
 							key, error.getMessage());
+					countLookups(prefix, "error", 1);
 					return dataSupplier;
 				});
 	}
 
+	/**
+	 * Values of the keys in one MGET, in key order, with {@code null} for every miss.
+	 * A cache error is reported as all misses.
+	 */
+	public <T> Mono<List<T>> multiGet(List<String> keys, Class<T> valueClass) {
+		log.debug("Cache multi-get of {} keys", keys.size());
+		if (keys.isEmpty()) {
+			return Mono.just(List.of());
+		}
+		String prefix = prefixOf(keys.get(0));
+		return redisTemplate.opsForValue()
+				.multiGet(keys)
+				.transform(redisGuard.mono())
+				.transform(latency("multi-get", prefix))
+				.map(values -> {
+					List<T> result = new ArrayList<>(keys.size());
+					for (int i = 0; i < keys.size(); i++) {
+						Object value = i < values.size() ? values.get(i) : null;
+						result.add(valueClass.isInstance(value) ? valueClass.cast(value) : null);
+					}
+					long hits = result.stream().filter(value -> value != null).count();
+					countLookups(prefix, "hit", hits);
+					countLookups(prefix, "miss", keys.size() - hits);
+					return result;
+				})
+				.onErrorResume(error -> {
+					log.warn("Cache multi-get of {} keys failed: {}, treating as misses", keys.size(), error.getMessage());
+					countLookups(prefix, "error", keys.size());
+					return Mono.just(new ArrayList<>(Collections.nCopies(keys.size(), null)));
+				});
+	}
+
+	/**
+	 * Writes the values with the TTL. The SETs are sent without waiting for each other, so the connection
+	 * pipelines them. A cache error is only logged.
+	 */
+	public Mono<Void> putAll(Map<String, ?> values, Duration ttl) {
+		return Flux.fromIterable(values.entrySet())
+				.flatMap(entry -> redisTemplate.opsForValue().set(entry.getKey(), entry.getValue(), ttl))
+				.then()
+				.transform(redisGuard.mono())
+				.onErrorResume(error -> {
+					log.warn("Failed to cache {} values: {}", values.size(), error.getMessage());
+					return Mono.empty();
+				});
+	}
+
 	public Mono<Boolean> evict(String key) {
 		log.debug("Evicting cache key: {}", key);
 		return redisTemplate.delete(key)
@@ -50,11 +139,52 @@ public class ReactiveCacheService {
 				});
 	}
 
+	public Mono<Long> evictAll(Collection<String> keys) {
+		log.debug("Evicting {} cache keys", keys.size());
+		if (keys.isEmpty()) {
+			return Mono.just(0L);
+		}
+		return redisTemplate.unlink(keys.toArray(String[]::new))
+				.doOnNext(count -> log.debug("Evicted {} of {} cache keys", count, keys.size()));
+	}
+
+	/**
+	 * Evicts the keys matching the pattern with cursor-based SCAN and batched UNLINK,
+	 * so neither the lookup nor the deletion blocks Redis.
+	 */
 	public Mono<Long> evictByPattern(String pattern) {
 		log.debug("Evicting cache keys by pattern: {}", pattern);
-		return redisTemplate.keys(pattern)
-				.flatMap(redisTemplate::delete)
-				.reduce(0L, Long::sum)
+		return unlinkAll(redisTemplate.scan(ScanOptions.scanOptions().match(pattern).count(SCAN_BATCH_SIZE).build()))
 				.doOnNext(count -> log.info("Evicted {} cache keys for pattern: {}", count, pattern));
 	}
+
+	private Mono<Long> unlinkAll(Flux<String> keys) {
+		return keys.buffer(SCAN_BATCH_SIZE)
+				.concatMap(batch -> redisTemplate.unlink(batch.toArray(String[]::new)))
+				.reduce(0L, Long::sum);
+	}
+
+	/**
+	 * Increments {@code cache.lookups}; the counter of each prefix and result is registered on first use and reused.
+	 */
+	private void countLookups(String prefix, String result, long count) {
+		if (count > 0) {
+			lookupCounters.computeIfAbsent(prefix, key -> new ConcurrentHashMap<>())
+					.computeIfAbsent(result, key -> Counter.builder("cache.lookups")
+							.tag("prefix", prefix)
+							.tag("result", result)
+							.register(meterRegistry))
+					.increment(count);
+		}
+	}
+
+	private <T> Function<Mono<T>, Mono<T>> latency(String operation, String prefix) {
+		return ReactiveTimers.traced(meterRegistry, observationRegistry, "cache.latency", "cache " + operation + " " + prefix,
+				Tags.of("prefix", prefix, "operation", operation));
+	}
+
+	private static String prefixOf(String key) {
+		int separator = key.indexOf(':');
+		return separator > 0 ? key.substring(0, separator) : "other";
+	}
 }
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.mymarket.service.cart;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.mymarket.service.model.CartLine;
+import ru.yandex.practicum.mymarket.service.model.CartLineChange;
+
+/**
+ * Storage of cart lines per user. A line change also sets the line's absolute count in the user's
+ * {@link CartSummaryStore cart summary}; when concurrent changes of one line could reach the summary out of order,
+ * the storage evicts it instead, so a stale summary is recomputed rather than kept.
+ */
+public interface CartStorage {
+
+	Flux<CartLine> getLines(Long userId);
+
+	Mono<Integer> getCount(Long userId, Long itemId);
+
+	/**
+	 * Adds one item of the given price and emits the new count with the adjusted summary.
+	 */
+	Mono<CartLineChange> increment(Long userId, Long itemId, long price);
+
+	/**
+	 * Removes one item and emits the new count (0 when the line is removed) with the adjusted summary,
+	 * or completes empty when the item is not in the cart.
+	 */
+	Mono<CartLineChange> decrement(Long userId, Long itemId);
+
+	Mono<CartLineChange> remove(Long userId, Long itemId);
+
+	Mono<Void> clear(Long userId);
+}
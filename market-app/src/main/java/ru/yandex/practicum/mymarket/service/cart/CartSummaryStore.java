@@ -0,0 +1,185 @@
+package ru.yandex.practicum.mymarket.service.cart;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.mymarket.dto.response.CartItemResponseDto;
+import ru.yandex.practicum.mymarket.dto.response.CartSummaryResponseDto;
+import ru.yandex.practicum.mymarket.service.catalog.CatalogVersion;
+import ru.yandex.practicum.mymarket.service.model.CartLineChange;
+
+/**
+ * Maintained cart summaries: a Redis hash per user ({@code cart:summary:<version>.<price version>:<userId>})
+ * with the line count, item count and total, plus the count and price each line contributes.
+ * <p>
+ * A cart action adjusts the summary by the difference between the new and the previous contribution
+ * of one line, so it costs one script call regardless of the cart size. The adjustment sets the line's absolute count,
+ * and a versioned adjustment older than the last one applied to the line evicts the summary instead, so the next read
+ * recomputes it. The key embeds the {@link CatalogVersion catalog versions}, so a catalog
+ * or price change retires every summary at once and the next read recomputes it with the new prices; the retired
+ * summaries expire after {@code cart.summary.ttl}.
+ */
+@Slf4j
+@Service
+public class CartSummaryStore {
+
+	private static final String KEY_PREFIX = "cart:summary:";
+
+	/**
+	 * Lua function that sets the count of one line in the summary in {@code key} and returns the count followed by
+	 * the adjusted line count, item count and total, or just the count when there is no summary. A negative price
+	 * keeps the price the line was added with. A {@code version} older than the line's last one deletes the summary.
+	 */
+	private static final String ADJUST_FUNCTION = """
+			local function adjustSummary(key, itemId, newCount, price, ttl, version)
+				if redis.call('EXISTS', key) == 0 then return {newCount} end
+				if version and version ~= '' then
+					local versionField = 'v:' .. itemId
+					if tonumber(version) < tonumber(redis.call('HGET', key, versionField) or '0') then
+						redis.call('DEL', key)
+						return {newCount}
+					end
+					redis.call('HSET', key, versionField, version)
+				end
+				local countField = 'c:' .. itemId
+				local priceField = 'p:' .. itemId
+				local oldCount = tonumber(redis.call('HGET', key, countField) or '0')
+				local oldPrice = tonumber(redis.call('HGET', key, priceField) or '0')
+				local newPrice = tonumber(price)
+				if newPrice < 0 then newPrice = oldPrice end
+				local newLine = newCount > 0 and 1 or 0
+				local oldLine = oldCount > 0 and 1 or 0
+				redis.call('HINCRBY', key, 'lines', newLine - oldLine)
+				redis.call('HINCRBY', key, 'items', newCount - oldCount)
+				redis.call('HINCRBY', key, 'total', newCount * newPrice - oldCount * oldPrice)
+				if newCount > 0 then
+					redis.call('HSET', key, countField, newCount, priceField, newPrice)
+				else
+					redis.call('HDEL', key, countField, priceField)
+				end
+				redis.call('EXPIRE', key, ttl)
+				local summary = redis.call('HMGET', key, 'lines', 'items', 'total')
+				return {newCount, summary[1], summary[2], summary[3]}
+			end
+			""";
+
+	@SuppressWarnings("rawtypes")
+	private static final RedisScript<List> APPLY_SCRIPT = withSummary(
+			"return adjustSummary(KEYS[1], ARGV[1], tonumber(ARGV[2]), ARGV[3], ARGV[4], ARGV[5])");
+
+	private static final RedisScript<Long> STORE_SCRIPT = RedisScript.of("""
+			redis.call('DEL', KEYS[1])
+			redis.call('HSET', KEYS[1], 'lines', ARGV[2], 'items', ARGV[3], 'total', ARGV[4])
+			for i = 5, #ARGV, 3 do
+				redis.call('HSET', KEYS[1], 'c:' .. ARGV[i], ARGV[i + 1], 'p:' .. ARGV[i], ARGV[i + 2])
+			end
+			redis.call('EXPIRE', KEYS[1], ARGV[1])
+			return 1
+			""", Long.class);
+
+	private final ReactiveStringRedisTemplate redisTemplate;
+	private final CatalogVersion catalogVersion;
+	private final Duration ttl;
+
+	public CartSummaryStore(
+			ReactiveStringRedisTemplate redisTemplate,
+			CatalogVersion catalogVersion,
+			@Value("${cart.summary.ttl:3m}") Duration ttl) {
+		this.redisTemplate = redisTemplate;
+		this.catalogVersion = catalogVersion;
+		this.ttl = ttl;
+	}
+
+	public Mono<CartSummaryResponseDto> get(Long userId) {
+		return redisTemplate.<String, String>opsForHash()
+				.multiGet(summaryKey(userId), List.of("lines", "items", "total"))
+				.flatMap(values -> Mono.justOrEmpty(toSummary(values)));
+	}
+
+	/**
+	 * Sets the count of one cart line changed with the given version and emits the adjusted summary,
+	 * or completes empty when there is no summary to adjust or the change is older than one already applied.
+	 * A negative price keeps the line's price.
+	 */
+	public Mono<CartSummaryResponseDto> applyLineChange(Long userId, Long itemId, int count, long price, long version) {
+		return redisTemplate.execute(APPLY_SCRIPT, List.of(summaryKey(userId)),
+						List.of(itemId.toString(), String.valueOf(count), String.valueOf(price), ttlSeconds(),
+								String.valueOf(version)))
+				.next()
+				.flatMap(values -> Mono.justOrEmpty(toLineChange(values)))
+				.flatMap(change -> Mono.justOrEmpty(change.summary()));
+	}
+
+	/**
+	 * Script that runs {@code lineScript} with the {@code adjustSummary(key, itemId, newCount, price, ttl[, version])}
+	 * Lua function in scope, so a storage can change a cart line and its summary in one atomic call.
+	 * The script must return the result of {@code adjustSummary}, read with {@link #toLineChange(List)}.
+	 */
+	@SuppressWarnings("rawtypes")
+	public static RedisScript<List> withSummary(String lineScript) {
+		return RedisScript.of(ADJUST_FUNCTION + lineScript, List.class);
+	}
+
+	/**
+	 * Reads the result of a {@link #withSummary(String)} script; {@code null} when it returned a negative count.
+	 */
+	public static CartLineChange toLineChange(List<?> values) {
+		if (values.isEmpty()) {
+			return null;
+		}
+		int count = Integer.parseInt(values.get(0).toString());
+		if (count < 0) {
+			return null;
+		}
+		return new CartLineChange(count, values.size() > 1 ? toSummary(values.subList(1, values.size())) : null);
+	}
+
+	public Mono<CartSummaryResponseDto> store(Long userId, List<CartItemResponseDto> items) {
+		CartSummaryResponseDto summary = CartSummaryResponseDto.of(items);
+
+		List<String> args = new ArrayList<>(4 + items.size() * 3);
+		args.add(ttlSeconds());
+		args.add(String.valueOf(summary.lines()));
+		args.add(String.valueOf(summary.items()));
+		args.add(String.valueOf(summary.total()));
+		items.forEach(item -> {
+			args.add(item.id().toString());
+			args.add(String.valueOf(item.count()));
+			args.add(String.valueOf(item.price()));
+		});
+
+		return redisTemplate.execute(STORE_SCRIPT, List.of(summaryKey(userId)), args)
+				.then(Mono.just(summary))
+				.doOnSuccess(stored -> log.debug("Stored cart summary for user {}: {}", userId, stored));
+	}
+
+	public Mono<Void> evict(Long userId) {
+		return redisTemplate.delete(summaryKey(userId)).then();
+	}
+
+	private static CartSummaryResponseDto toSummary(List<?> values) {
+		if (values.size() < 3 || values.contains(null)) {
+			return null;
+		}
+		return new CartSummaryResponseDto(
+				Integer.parseInt(values.get(0).toString()),
+				Long.parseLong(values.get(1).toString()),
+				Long.parseLong(values.get(2).toString()));
+	}
+
+	public String ttlSeconds() {
+		return String.valueOf(ttl.toSeconds());
+	}
+
+	public String summaryKey(Long userId) {
+		return KEY_PREFIX + catalogVersion.current() + "." + catalogVersion.currentPrices() + ":" + userId;
+	}
+}
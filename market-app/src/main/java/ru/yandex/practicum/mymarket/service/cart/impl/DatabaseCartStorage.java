@@ -0,0 +1,78 @@
+package ru.yandex.practicum.mymarket.service.cart.impl;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.mymarket.entity.CartItemEntity;
+import ru.yandex.practicum.mymarket.repository.CartItemRepository;
+import ru.yandex.practicum.mymarket.repository.CartLineCount;
+import ru.yandex.practicum.mymarket.service.cart.CartStorage;
+import ru.yandex.practicum.mymarket.service.cart.CartSummaryStore;
+import ru.yandex.practicum.mymarket.service.model.CartLine;
+import ru.yandex.practicum.mymarket.service.model.CartLineChange;
+
+/**
+ * Cart storage in cart_items. A line change is one statement that returns the new count with its version;
+ * the summary is then set to that count, and a change that reaches the summary after a later one evicts it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cart.storage", havingValue = "database", matchIfMissing = true)
+public class DatabaseCartStorage implements CartStorage {
+
+	private static final long KEEP_PRICE = -1L;
+
+	private final CartItemRepository cartItemRepository;
+	private final CartSummaryStore cartSummaryStore;
+
+	@Override
+	public Flux<CartLine> getLines(Long userId) {
+		return cartItemRepository.findByUserId(userId)
+				.map(cartItem -> new CartLine(cartItem.getItemId(), cartItem.getCount()));
+	}
+
+	@Override
+	public Mono<Integer> getCount(Long userId, Long itemId) {
+		return cartItemRepository.findByUserIdAndItemId(userId, itemId)
+				.map(CartItemEntity::getCount)
+				.defaultIfEmpty(0);
+	}
+
+	@Override
+	public Mono<CartLineChange> increment(Long userId, Long itemId, long price) {
+		return changeLine(userId, itemId, cartItemRepository.incrementCount(userId, itemId), price);
+	}
+
+	@Override
+	public Mono<CartLineChange> decrement(Long userId, Long itemId) {
+		return changeLine(userId, itemId, cartItemRepository.decrementCount(userId, itemId), KEEP_PRICE);
+	}
+
+	@Override
+	public Mono<CartLineChange> remove(Long userId, Long itemId) {
+		return changeLine(userId, itemId, cartItemRepository.removeLine(userId, itemId), KEEP_PRICE)
+				.defaultIfEmpty(new CartLineChange(0, null));
+	}
+
+	@Override
+	public Mono<Void> clear(Long userId) {
+		return cartItemRepository.deleteByUserId(userId);
+	}
+
+	private Mono<CartLineChange> changeLine(Long userId, Long itemId, Mono<CartLineCount> change, long price) {
+		return change.flatMap(line -> cartSummaryStore.applyLineChange(userId, itemId, line.count(), price, line.version())
+				.map(summary -> new CartLineChange(line.count(), summary))
+				.onErrorResume(error -> {
+					log.warn("Failed to update cart summary of user {}: {}", userId, error.getMessage());
+					return cartSummaryStore.evict(userId)
+							.onErrorComplete()
+							.then(Mono.empty());
+				})
+				.defaultIfEmpty(new CartLineChange(line.count(), null)));
+	}
+}
@@ -0,0 +1,276 @@
+package ru.yandex.practicum.mymarket.service.cart.impl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.mymarket.repository.CartItemRepository;
+import ru.yandex.practicum.mymarket.service.cart.CartStorage;
+import ru.yandex.practicum.mymarket.service.cart.CartSummaryStore;
+import ru.yandex.practicum.mymarket.service.model.CartLine;
+import ru.yandex.practicum.mymarket.service.model.CartLineChange;
+
+/**
+ * Cart storage with a Redis hash per user ({@code cart:<userId>}, item id to count) as the live cart.
+ * <p>
+ * A hash is hydrated from cart_items on first access and marked with the {@value #HYDRATED_FIELD} field.
+ * Every mutation is a single Lua script that also adjusts the user's cart summary and adds the user to the
+ * {@value #DIRTY_KEY} set; a script that finds no marker changes nothing, and the mutation hydrates the hash and retries.
+ * A background flusher writes dirty carts back to cart_items. A user is removed from the dirty set before their cart
+ * is read, so a mutation racing with a flush is picked up by the next flush, and flushes of one user are serialized
+ * by an advisory lock taken before the hash is read, so the last committed snapshot is the latest one.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "cart.storage", havingValue = "redis")
+public class RedisCartStorage implements CartStorage {
+
+	static final String DIRTY_KEY = "cart:dirty";
+	static final String HYDRATED_FIELD = "_hydrated";
+
+	private static final long KEEP_PRICE = -1L;
+	private static final int NOT_HYDRATED = -2;
+
+	private static final String HYDRATED_GUARD = """
+			if redis.call('HEXISTS', KEYS[1], '_hydrated') == 0 then return {-2} end
+			""";
+
+	private static final RedisScript<Long> HYDRATE_SCRIPT = RedisScript.of("""
+			if redis.call('HEXISTS', KEYS[1], '_hydrated') == 1 then return 0 end
+			for i = 2, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end
+			redis.call('HSET', KEYS[1], '_hydrated', '1')
+			redis.call('EXPIRE', KEYS[1], ARGV[1])
+			return 1
+			""", Long.class);
+
+	@SuppressWarnings("rawtypes")
+	private static final RedisScript<List> INCREMENT_SCRIPT = CartSummaryStore.withSummary(HYDRATED_GUARD + """
+			local count = redis.call('HINCRBY', KEYS[1], ARGV[1], 1)
+			redis.call('SADD', KEYS[2], ARGV[2])
+			redis.call('EXPIRE', KEYS[1], ARGV[3])
+			return adjustSummary(KEYS[3], ARGV[1], count, ARGV[4], ARGV[5])
+			""");
+
+	@SuppressWarnings("rawtypes")
+	private static final RedisScript<List> DECREMENT_SCRIPT = CartSummaryStore.withSummary(HYDRATED_GUARD + """
+			local current = tonumber(redis.call('HGET', KEYS[1], ARGV[1]))
+			if not current then return {-1} end
+			redis.call('SADD', KEYS[2], ARGV[2])
+			redis.call('EXPIRE', KEYS[1], ARGV[3])
+			local count = 0
+			if current <= 1 then
+				redis.call('HDEL', KEYS[1], ARGV[1])
+			else
+				count = redis.call('HINCRBY', KEYS[1], ARGV[1], -1)
+			end
+			return adjustSummary(KEYS[3], ARGV[1], count, ARGV[4], ARGV[5])
+			""");
+
+	@SuppressWarnings("rawtypes")
+	private static final RedisScript<List> REMOVE_SCRIPT = CartSummaryStore.withSummary(HYDRATED_GUARD + """
+			redis.call('HDEL', KEYS[1], ARGV[1])
+			redis.call('SADD', KEYS[2], ARGV[2])
+			redis.call('EXPIRE', KEYS[1], ARGV[3])
+			return adjustSummary(KEYS[3], ARGV[1], 0, ARGV[4], ARGV[5])
+			""");
+
+	private static final RedisScript<Long> CLEAR_SCRIPT = RedisScript.of("""
+			redis.call('DEL', KEYS[1])
+			redis.call('HSET', KEYS[1], '_hydrated', '1')
+			redis.call('SADD', KEYS[2], ARGV[2])
+			redis.call('EXPIRE', KEYS[1], ARGV[3])
+			return 1
+			""", Long.class);
+
+	private final ReactiveStringRedisTemplate redisTemplate;
+	private final CartItemRepository cartItemRepository;
+	private final CartSummaryStore cartSummaryStore;
+	private final TransactionalOperator transactionalOperator;
+	private final Duration cartTtl;
+	private final Duration flushInterval;
+	private final int flushBatchSize;
+	private Disposable flushSubscription;
+
+	public RedisCartStorage(
+			ReactiveStringRedisTemplate redisTemplate,
+			CartItemRepository cartItemRepository,
+			CartSummaryStore cartSummaryStore,
+			TransactionalOperator transactionalOperator,
+			@Value("${cart.redis.ttl:7d}") Duration cartTtl,
+			@Value("${cart.redis.flush-interval:1s}") Duration flushInterval,
+			@Value("${cart.redis.flush-batch-size:100}") int flushBatchSize) {
+		this.redisTemplate = redisTemplate;
+		this.cartItemRepository = cartItemRepository;
+		this.cartSummaryStore = cartSummaryStore;
+		this.transactionalOperator = transactionalOperator;
+		this.cartTtl = cartTtl;
+		this.flushInterval = flushInterval;
+		this.flushBatchSize = flushBatchSize;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void startFlushing() {
+		log.info("Starting write-behind of Redis carts every {}", flushInterval);
+		flushSubscription = Flux.interval(flushInterval)
+				.onBackpressureDrop()
+				.concatMap(tick -> flushDirtyCarts())
+				.subscribe();
+	}
+
+	@Override
+	public Flux<CartLine> getLines(Long userId) {
+		return hydrate(userId)
+				.thenMany(readLines(userId));
+	}
+
+	@Override
+	public Mono<Integer> getCount(Long userId, Long itemId) {
+		return hydrate(userId)
+				.then(redisTemplate.<String, String>opsForHash().get(cartKey(userId), itemId.toString()))
+				.map(Integer::valueOf)
+				.defaultIfEmpty(0);
+	}
+
+	@Override
+	public Mono<CartLineChange> increment(Long userId, Long itemId, long price) {
+		return mutate(INCREMENT_SCRIPT, userId, itemId, price);
+	}
+
+	@Override
+	public Mono<CartLineChange> decrement(Long userId, Long itemId) {
+		return mutate(DECREMENT_SCRIPT, userId, itemId, KEEP_PRICE);
+	}
+
+	@Override
+	public Mono<CartLineChange> remove(Long userId, Long itemId) {
+		return mutate(REMOVE_SCRIPT, userId, itemId, KEEP_PRICE);
+	}
+
+	@Override
+	public Mono<Void> clear(Long userId) {
+		return redisTemplate.execute(CLEAR_SCRIPT, List.of(cartKey(userId), DIRTY_KEY),
+						List.of("", userId.toString(), ttlSeconds()))
+				.then();
+	}
+
+	/**
+	 * Runs a mutation script; when the script reports an unhydrated hash, hydrates it and runs the script once more.
+	 */
+	@SuppressWarnings("rawtypes")
+	private Mono<CartLineChange> mutate(RedisScript<List> script, Long userId, Long itemId, long price) {
+		Mono<List> mutation = redisTemplate.execute(script,
+						List.of(cartKey(userId), DIRTY_KEY, cartSummaryStore.summaryKey(userId)),
+						List.of(itemId.toString(), userId.toString(), ttlSeconds(), String.valueOf(price),
+								cartSummaryStore.ttlSeconds()))
+				.next();
+		return mutation
+				.flatMap(values -> isHydrated(values)
+						? Mono.just(values)
+						: load(userId).then(mutation).filter(RedisCartStorage::isHydrated)
+								.switchIfEmpty(Mono.error(() -> new IllegalStateException(
+										"Redis cart of user " + userId + " was evicted during hydration"))))
+				.flatMap(values -> Mono.justOrEmpty(CartSummaryStore.toLineChange(values)));
+	}
+
+	private static boolean isHydrated(List<?> values) {
+		return values.isEmpty() || Integer.parseInt(values.get(0).toString()) != NOT_HYDRATED;
+	}
+
+	private Mono<Void> hydrate(Long userId) {
+		return redisTemplate.opsForHash().hasKey(cartKey(userId), HYDRATED_FIELD)
+				.flatMap(hydrated -> hydrated ? Mono.empty() : load(userId));
+	}
+
+	private Mono<Void> load(Long userId) {
+		return cartItemRepository.findByUserId(userId)
+				.collectList()
+				.flatMap(cartItems -> {
+					List<String> args = new ArrayList<>(cartItems.size() * 2 + 1);
+					args.add(ttlSeconds());
+					cartItems.forEach(cartItem -> {
+						args.add(cartItem.getItemId().toString());
+						args.add(String.valueOf(cartItem.getCount()));
+					});
+					log.debug("Hydrating Redis cart of user {} with {} lines", userId, cartItems.size());
+					return redisTemplate.execute(HYDRATE_SCRIPT, List.of(cartKey(userId)), args).then();
+				});
+	}
+
+	private Flux<CartLine> readLines(Long userId) {
+		return redisTemplate.<String, String>opsForHash().entries(cartKey(userId))
+				.filter(entry -> !HYDRATED_FIELD.equals(entry.getKey()))
+				.map(entry -> new CartLine(Long.valueOf(entry.getKey()), Integer.parseInt(entry.getValue())));
+	}
+
+	Mono<Long> flushDirtyCarts() {
+		return redisTemplate.opsForSet().pop(DIRTY_KEY, flushBatchSize)
+				.concatMap(userId -> flushCart(Long.valueOf(userId))
+						.onErrorResume(error -> {
+							log.warn("Failed to write back cart of user {}: {}", userId, error.getMessage());
+							return redisTemplate.opsForSet().add(DIRTY_KEY, userId).then(Mono.empty());
+						}))
+				.count()
+				.doOnNext(flushed -> {
+					if (flushed > 0) {
+						log.debug("Wrote back {} Redis carts to cart_items", flushed);
+					}
+				})
+				.onErrorResume(error -> {
+					log.warn("Redis cart write-behind failed: {}", error.getMessage());
+					return Mono.just(0L);
+				});
+	}
+
+	/**
+	 * Writes one cart back; the hash is read only after the write-back lock is taken,
+	 * so a flush that waited for another one commits the newer snapshot.
+	 */
+	private Mono<Long> flushCart(Long userId) {
+		return cartItemRepository.lockCartWriteBack(userId)
+				.then(redisTemplate.opsForHash().hasKey(cartKey(userId), HYDRATED_FIELD))
+				.filter(Boolean::booleanValue)
+				.flatMap(hydrated -> readLines(userId).collectList())
+				.flatMap(lines -> cartItemRepository.deleteByUserIdExcept(userId,
+								lines.stream().map(CartLine::itemId).toArray(Long[]::new))
+						.thenMany(Flux.fromIterable(lines)
+								.concatMap(line -> cartItemRepository.upsertCount(userId, line.itemId(), line.count())))
+						.then(Mono.just(userId)))
+				.as(transactionalOperator::transactional);
+	}
+
+	private String ttlSeconds() {
+		return String.valueOf(cartTtl.toSeconds());
+	}
+
+	private static String cartKey(Long userId) {
+		return "cart:" + userId;
+	}
+
+	@PreDestroy
+	public void stopFlushing() {
+		if (flushSubscription != null && !flushSubscription.isDisposed()) {
+			flushSubscription.dispose();
+		}
+		try {
+			flushDirtyCarts().block(Duration.ofSeconds(10));
+		} catch (Exception e) {
+			log.warn("Final write-back of Redis carts did not complete: {}", e.getMessage());
+		}
+		log.info("Redis cart write-behind stopped");
+	}
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.mymarket.service.catalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.mymarket.service.ReactiveCacheService;
+
+/**
+ * Applies catalog changes to the cache. List pages hold only item ids, so the cached details and images
+ * of the changed items are always evicted and list pages are retired only when their ids may change:
+ * <ul>
+ *     <li>{@link CatalogChange.Scope#LISTING} bumps the catalog version, which retires every cached page;</li>
+ *     <li>{@link CatalogChange.Scope#PRICE} bumps the price version, which retires the pages sorted by price;</li>
+ *     <li>{@link CatalogChange.Scope#CONTENT} and {@link CatalogChange.Scope#IMAGE} leave the pages alone.</li>
+ * </ul>
+ * Versions are bumped once per change id, so every instance can apply the same notifications.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogCacheInvalidator {
+
+	private final ReactiveCacheService cacheService;
+	private final CatalogVersion catalogVersion;
+
+	public Mono<Void> apply(Collection<CatalogChange> changes) {
+		if (changes.isEmpty()) {
+			return Mono.empty();
+		}
+		List<String> keys = new ArrayList<>(changes.size() * 2);
+		changes.forEach(change -> {
+			keys.add(CatalogCacheKeys.item(change.itemId()));
+			keys.add(CatalogCacheKeys.itemImage(change.itemId()));
+		});
+		List<CatalogChange> listingChanges = withScope(changes, CatalogChange.Scope.LISTING);
+		List<CatalogChange> priceChanges = withScope(changes, CatalogChange.Scope.PRICE);
+		boolean listingChanged = !listingChanges.isEmpty();
+		boolean pricesChanged = !listingChanged && !priceChanges.isEmpty();
+
+		Mono<Void> pages = listingChanged
+				? bump(listingChanges, catalogVersion::bump, catalogVersion::bump).then()
+				: pricesChanged
+						? bump(priceChanges, catalogVersion::bumpPrices, catalogVersion::bumpPrices).then()
+						: Mono.empty();
+		return cacheService.evictAll(keys)
+				.then(pages)
+				.doOnSuccess(v -> log.info("Invalidated cache of {} catalog changes (listing changed: {}, prices changed: {})",
+						changes.size(), listingChanged, pricesChanged));
+	}
+
+	/**
+	 * Retires the cached items list pages and item details when the changed items are unknown,
+	 * e.g. after missing change notifications.
+	 */
+	public Mono<Void> catalogChanged() {
+		return cacheService.evictByPattern(CatalogCacheKeys.allItems())
+				.then(catalogVersion.bump())
+				.then();
+	}
+
+	/**
+	 * Bumps once per change id, or unconditionally when some change came without one.
+	 */
+	private static Mono<Long> bump(List<CatalogChange> changes, Function<Collection<Long>, Mono<Long>> bumpOnce,
+			Supplier<Mono<Long>> bumpAlways) {
+		List<Long> changeIds = changes.stream().map(CatalogChange::changeId).distinct().toList();
+		return changeIds.contains(null) ? bumpAlways.get() : bumpOnce.apply(changeIds);
+	}
+
+	private static List<CatalogChange> withScope(Collection<CatalogChange> changes, CatalogChange.Scope scope) {
+		return changes.stream().filter(change -> change.scope() == scope).toList();
+	}
+}
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.mymarket.service.catalog;
+
+import ru.yandex.practicum.mymarket.enums.SortType;
+
+/**
+ * Redis keys of the catalog cache.
+ * <p>
+ * Items lists are cached in fixed-size blocks of item ids, the items themselves are read from the per-item keys,
+ * so changing an item needs just its own key evicted. List blocks embed the catalog version, so bumping
+ * {@link CatalogVersion} retires the affected blocks at once; blocks of older versions are never read again and just expire.
+ */
+public final class CatalogCacheKeys {
+
+	private static final String ITEM_PREFIX = "item:";
+	private static final String ITEM_IMAGE_PREFIX = "item-image:";
+	private static final String ITEM_IDS_LIST_PREFIX = "items:ids:";
+
+	private CatalogCacheKeys() {
+	}
+
+	public static String item(Long itemId) {
+		return ITEM_PREFIX + itemId;
+	}
+
+	/**
+	 * Pattern matching the details keys of all items.
+	 */
+	public static String allItems() {
+		return ITEM_PREFIX + "*";
+	}
+
+	public static String itemImage(Long itemId) {
+		return ITEM_IMAGE_PREFIX + itemId;
+	}
+
+	/**
+	 * Key of a block of an items list: the ordered ids of the block items and the total, stamped with the catalog
+	 * version and, for lists sorted by price, with the price version. The query is hashed, so keys have a fixed length.
+	 */
+	public static String itemIdsBlock(long catalogVersion, long priceVersion, CatalogQuery query,
+	                                  int blockNumber, int blockSize) {
+		String stamp = query.sort() == SortType.PRICE
+				? "v" + catalogVersion + "p" + priceVersion
+				: "v" + catalogVersion;
+		return String.format("%s%s:%s:block=%d:size=%d",
+				ITEM_IDS_LIST_PREFIX,
+				stamp,
+				query.hash(),
+				blockNumber,
+				blockSize
+		);
+	}
+}
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.mymarket.service.catalog;
+
+/**
+ * One change notification of the {@code catalog_changes} channel, payload {@code <scope>:<item id>:<transaction id>}.
+ * The transaction id identifies the change across instances; it is {@code null} for a payload without one.
+ */
+public record CatalogChange(Scope scope, Long itemId, Long changeId) {
+
+	public enum Scope {
+		/** The item was added or removed, or a searched or sorted column changed: any list page may be affected. */
+		LISTING,
+		/** Only the price changed: just the pages sorted by price may be reordered. */
+		PRICE,
+		/** Only columns shown on the item changed: no list page is affected. */
+		CONTENT,
+		/** The item image changed: no list page is affected. */
+		IMAGE
+	}
+
+	/**
+	 * Parses a notification payload, or returns {@code null} for a malformed one.
+	 */
+	public static CatalogChange parse(String payload) {
+		if (payload == null) {
+			return null;
+		}
+		String[] parts = payload.split(":", -1);
+		if (parts.length < 2 || parts.length > 3) {
+			return null;
+		}
+		try {
+			return new CatalogChange(
+					Scope.valueOf(parts[0].toUpperCase()),
+					Long.valueOf(parts[1]),
+					parts.length == 3 ? Long.valueOf(parts[2]) : null);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+}
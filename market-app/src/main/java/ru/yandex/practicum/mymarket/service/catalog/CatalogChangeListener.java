@@ -0,0 +1,110 @@
+package ru.yandex.practicum.mymarket.service.catalog;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Listens to the {@value #CHANNEL} Postgres channel, fed by the items and item_images triggers from schema.sql,
+ * so catalog edits reach the cache whichever way they are made.
+ * <p>
+ * The listener holds a dedicated connection outside the pool and reconnects with backoff. Notifications are
+ * batched, so a bulk update costs one eviction and at most one version bump per batch. On every (re)connect
+ * the catalog version is bumped, since changes made while disconnected are unknown.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "catalog.changes.listen.enabled", havingValue = "true", matchIfMissing = true)
+public class CatalogChangeListener {
+
+	static final String CHANNEL = "catalog_changes";
+
+	private final R2dbcProperties r2dbcProperties;
+	private final CatalogCacheInvalidator cacheInvalidator;
+	private final int batchSize;
+	private final Duration batchWindow;
+	private Disposable listenSubscription;
+
+	public CatalogChangeListener(
+			R2dbcProperties r2dbcProperties,
+			CatalogCacheInvalidator cacheInvalidator,
+			@Value("${catalog.changes.batch-size:500}") int batchSize,
+			@Value("${catalog.changes.batch-window:200ms}") Duration batchWindow) {
+		this.r2dbcProperties = r2dbcProperties;
+		this.cacheInvalidator = cacheInvalidator;
+		this.batchSize = batchSize;
+		this.batchWindow = batchWindow;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void startListening() {
+		log.info("Listening to catalog changes on channel {}", CHANNEL);
+		listenSubscription = notifications()
+				.retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+						.maxBackoff(Duration.ofSeconds(30))
+						.transientErrors(true)
+						.doBeforeRetry(signal -> log.warn("Catalog change listener disconnected: {}",
+								signal.failure().getMessage())))
+				.mapNotNull(notification -> parseChange(notification.getParameter()))
+				.bufferTimeout(batchSize, batchWindow)
+				.concatMap(changes -> cacheInvalidator.apply(new LinkedHashSet<>(changes))
+						.onErrorResume(error -> {
+							log.warn("Failed to invalidate cache of catalog changes {}: {}", changes, error.getMessage());
+							return Mono.empty();
+						}))
+				.subscribe();
+	}
+
+	private Flux<Notification> notifications() {
+		return Flux.usingWhen(
+				Mono.from(ConnectionFactoryBuilder.withUrl(r2dbcProperties.getUrl())
+								.username(r2dbcProperties.getUsername())
+								.password(r2dbcProperties.getPassword())
+								.build()
+								.create())
+						.cast(PostgresqlConnection.class),
+				connection -> connection.createStatement("LISTEN " + CHANNEL).execute()
+						.flatMap(PostgresqlResult::getRowsUpdated)
+						.then(cacheInvalidator.catalogChanged()
+								.onErrorResume(error -> {
+									log.warn("Failed to bump catalog version on connect: {}", error.getMessage());
+									return Mono.empty();
+								}))
+						.doOnSuccess(v -> log.debug("Subscribed to channel {}", CHANNEL))
+						.thenMany(connection.getNotifications()),
+				PostgresqlConnection::close)
+				.concatWith(Mono.error(() -> new IllegalStateException("Notification stream of channel " + CHANNEL + " completed")));
+	}
+
+	private static CatalogChange parseChange(String payload) {
+		CatalogChange change = CatalogChange.parse(payload);
+		if (change == null) {
+			log.warn("Skipping malformed catalog change notification: {}", payload);
+		}
+		return change;
+	}
+
+	@PreDestroy
+	public void stopListening() {
+		if (listenSubscription != null && !listenSubscription.isDisposed()) {
+			listenSubscription.dispose();
+		}
+	}
+}
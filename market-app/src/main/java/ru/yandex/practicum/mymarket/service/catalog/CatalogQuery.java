@@ -0,0 +1,52 @@
+package ru.yandex.practicum.mymarket.service.catalog;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import ru.yandex.practicum.mymarket.dto.request.ItemsFilterRequestDto;
+import ru.yandex.practicum.mymarket.enums.SortType;
+
+/**
+ * Canonical form of an items list query. Searches that differ only in case, surrounding or repeated whitespace
+ * or Unicode composition find the same items, so they share one canonical search and one cache key.
+ * The canonical search is also what the catalog is queried with, so a cached list always matches its key.
+ */
+public record CatalogQuery(String search, SortType sort) {
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+	private static final int HASH_BYTES = 16;
+
+	public static CatalogQuery of(ItemsFilterRequestDto filter) {
+		return new CatalogQuery(canonicalSearch(filter.search()), filter.sort() != null ? filter.sort() : SortType.NO);
+	}
+
+	static String canonicalSearch(String search) {
+		if (search == null || search.isBlank()) {
+			return "";
+		}
+		String normalized = Normalizer.normalize(search, Normalizer.Form.NFKC);
+		return WHITESPACE.matcher(normalized.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
+	}
+
+	public boolean hasSearch() {
+		return !search.isEmpty();
+	}
+
+	/**
+	 * Fixed-length hex digest of the query, so that the cache key length does not depend on the search.
+	 */
+	public String hash() {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256")
+					.digest((sort.name() + ':' + search).getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest, 0, HASH_BYTES);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package ru.yandex.practicum.mymarket.service.catalog;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Catalog versions shared by all instances through Redis and embedded in the items list cache keys:
+ * the catalog version ({@value #VERSION_KEY}) changes with the set of items or their searched and sorted columns,
+ * the price version ({@value #PRICE_VERSION_KEY}) only with prices, so it retires just the pages sorted by price.
+ * <p>
+ * The versions are held locally so that building a cache key costs no Redis call. They are updated when this
+ * instance bumps them and re-read every {@code catalog.version.refresh-interval}, so an instance that missed
+ * a change serves the old pages for at most one interval.
+ * <p>
+ * Every instance receives the same change notifications, so a bump for known changes first claims their ids in
+ * Redis ({@code <version key>:change:<id>}) and increments the version only when some id was not claimed yet:
+ * a change bumps each version once however many instances react to it.
+ */
+@Slf4j
+@Service
+public class CatalogVersion {
+
+	static final String VERSION_KEY = "catalog:version";
+	static final String PRICE_VERSION_KEY = "catalog:price-version";
+	private static final String CHANGE_KEY_INFIX = ":change:";
+	private static final Duration CHANGE_CLAIM_TTL = Duration.ofHours(1);
+
+	/**
+	 * Claims the change ids in KEYS[2..] and increments the version in KEYS[1] if any of them was new;
+	 * emits the resulting version.
+	 */
+	private static final RedisScript<Long> BUMP_ONCE_SCRIPT = RedisScript.of("""
+			local claimed = 0
+			for i = 2, #KEYS do
+				if redis.call('SET', KEYS[i], '1', 'NX', 'EX', ARGV[1]) then claimed = claimed + 1 end
+			end
+			if claimed > 0 then return redis.call('INCR', KEYS[1]) end
+			return tonumber(redis.call('GET', KEYS[1]) or '0')
+			""", Long.class);
+
+	private final ReactiveStringRedisTemplate redisTemplate;
+	private final Duration refreshInterval;
+	private final AtomicLong version = new AtomicLong();
+	private final AtomicLong priceVersion = new AtomicLong();
+	private Disposable refreshSubscription;
+
+	public CatalogVersion(
+			ReactiveStringRedisTemplate redisTemplate,
+			@Value("${catalog.version.refresh-interval:10s}") Duration refreshInterval) {
+		this.redisTemplate = redisTemplate;
+		this.refreshInterval = refreshInterval;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void startRefreshing() {
+		log.info("Refreshing catalog version every {}", refreshInterval);
+		refreshSubscription = Flux.interval(Duration.ZERO, refreshInterval)
+				.onBackpressureDrop()
+				.concatMap(tick -> refresh())
+				.subscribe();
+	}
+
+	public long current() {
+		return version.get();
+	}
+
+	public long currentPrices() {
+		return priceVersion.get();
+	}
+
+	/**
+	 * Increments the shared catalog version and emits the new one.
+	 */
+	public Mono<Long> bump() {
+		return bump(VERSION_KEY, version);
+	}
+
+	/**
+	 * Increments the shared catalog version unless all the changes were already applied by some instance,
+	 * and emits the resulting version.
+	 */
+	public Mono<Long> bump(Collection<Long> changeIds) {
+		return bumpOnce(VERSION_KEY, version, changeIds);
+	}
+
+	/**
+	 * Increments the shared price version and emits the new one.
+	 */
+	public Mono<Long> bumpPrices() {
+		return bump(PRICE_VERSION_KEY, priceVersion);
+	}
+
+	/**
+	 * Increments the shared price version unless all the changes were already applied by some instance,
+	 * and emits the resulting version.
+	 */
+	public Mono<Long> bumpPrices(Collection<Long> changeIds) {
+		return bumpOnce(PRICE_VERSION_KEY, priceVersion, changeIds);
+	}
+
+	Mono<Void> refresh() {
+		return redisTemplate.opsForValue().multiGet(List.of(VERSION_KEY, PRICE_VERSION_KEY))
+				.doOnNext(values -> {
+					update(VERSION_KEY, version, parse(values.get(0)));
+					update(PRICE_VERSION_KEY, priceVersion, parse(values.get(1)));
+				})
+				.onErrorResume(error -> {
+					log.warn("Failed to refresh catalog version: {}", error.getMessage());
+					return Mono.empty();
+				})
+				.then();
+	}
+
+	private Mono<Long> bump(String key, AtomicLong local) {
+		return redisTemplate.opsForValue().increment(key)
+				.doOnNext(bumped -> {
+					update(key, local, bumped);
+					log.info("{} bumped to {}", key, bumped);
+				});
+	}
+
+	private Mono<Long> bumpOnce(String key, AtomicLong local, Collection<Long> changeIds) {
+		if (changeIds.isEmpty()) {
+			return bump(key, local);
+		}
+		List<String> keys = new ArrayList<>(changeIds.size() + 1);
+		keys.add(key);
+		changeIds.forEach(changeId -> keys.add(key + CHANGE_KEY_INFIX + changeId));
+		return redisTemplate.execute(BUMP_ONCE_SCRIPT, keys, List.of(String.valueOf(CHANGE_CLAIM_TTL.toSeconds())))
+				.next()
+				.doOnNext(current -> {
+					if (current > local.get()) {
+						log.info("{} bumped to {}", key, current);
+					}
+					update(key, local, current);
+				});
+	}
+
+	private static long parse(String value) {
+		return value != null ? Long.parseLong(value) : 0L;
+	}
+
+	private static void update(String key, AtomicLong local, long newVersion) {
+		long previous = local.getAndSet(newVersion);
+		if (newVersion != previous) {
+			log.debug("{} changed from {} to {}", key, previous, newVersion);
+		}
+	}
+
+	@PreDestroy
+	public void stopRefreshing() {
+		if (refreshSubscription != null && !refreshSubscription.isDisposed()) {
+			refreshSubscription.dispose();
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.mymarket.service.events;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.mymarket.dto.response.CartSummaryResponseDto;
+import ru.yandex.practicum.mymarket.dto.response.OrderStatusEventDto;
+import ru.yandex.practicum.mymarket.entity.OrderStatus;
+
+/**
+ * Per-user event stream over Redis pub/sub ({@code events:user:<userId>}), so that an event published
+ * by any instance reaches the SSE connections of that user on every instance.
+ * <p>
+ * Publishing never fails the calling flow: an event that could not be published is only logged.
+ */
+@Slf4j
+@Service
+public class UserEventBus {
+
+	public static final String CART_EVENT = "cart";
+	public static final String ORDER_EVENT = "order";
+
+	private static final String CHANNEL_PREFIX = "events:user:";
+
+	private final ReactiveStringRedisTemplate redisTemplate;
+	private final ReactiveRedisMessageListenerContainer listenerContainer;
+	private final ObjectMapper objectMapper;
+	private final Duration heartbeatInterval;
+
+	public UserEventBus(
+			ReactiveStringRedisTemplate redisTemplate,
+			ReactiveRedisMessageListenerContainer listenerContainer,
+			ObjectMapper objectMapper,
+			@Value("${events.heartbeat-interval:15s}") Duration heartbeatInterval) {
+		this.redisTemplate = redisTemplate;
+		this.listenerContainer = listenerContainer;
+		this.objectMapper = objectMapper;
+		this.heartbeatInterval = heartbeatInterval;
+	}
+
+	public Mono<Void> publishCartSummary(Long userId, CartSummaryResponseDto summary) {
+		return publish(userId, CART_EVENT, summary);
+	}
+
+	public Mono<Void> publishOrderStatus(Long userId, Long orderId, OrderStatus status) {
+		return publish(userId, ORDER_EVENT, new OrderStatusEventDto(orderId, status));
+	}
+
+	/**
+	 * Events of one user as SSE, with a comment every {@code events.heartbeat-interval}
+	 * so that proxies do not close an idle connection.
+	 */
+	public Flux<ServerSentEvent<String>> stream(Long userId) {
+		Flux<ServerSentEvent<String>> events = listenerContainer.receive(ChannelTopic.of(channel(userId)))
+				.concatMap(message -> Mono.justOrEmpty(toServerSentEvent(message.getMessage())));
+		Flux<ServerSentEvent<String>> heartbeats = Flux.interval(heartbeatInterval)
+				.map(tick -> ServerSentEvent.<String>builder().comment("heartbeat").build());
+		return Flux.merge(events, heartbeats)
+				.doOnSubscribe(subscription -> log.debug("User {} subscribed to events", userId))
+				.doFinally(signal -> log.debug("User {} event stream finished: {}", userId, signal));
+	}
+
+	private Mono<Void> publish(Long userId, String type, Object data) {
+		return Mono.fromCallable(() -> objectMapper.writeValueAsString(new UserEvent(type, data)))
+				.flatMap(message -> redisTemplate.convertAndSend(channel(userId), message))
+				.doOnNext(receivers -> log.debug("Published {} event for user {} to {} receivers", type, userId, receivers))
+				.onErrorResume(error -> {
+					log.warn("Failed to publish {} event for user {}: {}", type, userId, error.getMessage());
+					return Mono.empty();
+				})
+				.then();
+	}
+
+	private ServerSentEvent<String> toServerSentEvent(String message) {
+		try {
+			JsonNode event = objectMapper.readTree(message);
+			return ServerSentEvent.builder(event.path("data").toString())
+					.event(event.path("type").asText())
+					.build();
+		} catch (JsonProcessingException e) {
+			log.warn("Skipping malformed user event: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	private static String channel(Long userId) {
+		return CHANNEL_PREFIX + userId;
+	}
+
+	private record UserEvent(String type, Object data) {
+	}
+}
@@ -1,11 +1,12 @@
 package ru.yandex.practicum.mymarket.service.impl;
 
-import java.time.LocalDateTime;
+import java.util.function.Function;
 
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.WebSession;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
@@ -13,28 +14,39 @@ import reactor.core.publisher.Mono;
 import ru.yandex.practicum.mymarket.dto.request.CartActionWithNavigationDto;
 import ru.yandex.practicum.mymarket.dto.request.CartUpdateRequestDto;
 import ru.yandex.practicum.mymarket.dto.response.CartItemResponseDto;
+import ru.yandex.practicum.mymarket.dto.response.CartLineResponseDto;
 import ru.yandex.practicum.mymarket.dto.response.CartStateResponseDto;
-import ru.yandex.practicum.mymarket.entity.CartItemEntity;
+import ru.yandex.practicum.mymarket.dto.response.CartSummaryResponseDto;
 import ru.yandex.practicum.mymarket.enums.CartAction;
 import ru.yandex.practicum.mymarket.mapper.CartMapper;
-import ru.yandex.practicum.mymarket.repository.CartItemRepository;
 import ru.yandex.practicum.mymarket.repository.ItemRepository;
 import ru.yandex.practicum.mymarket.service.CartService;
 import ru.yandex.practicum.mymarket.service.ItemService;
 import ru.yandex.practicum.mymarket.service.UserService;
+import ru.yandex.practicum.mymarket.service.cart.CartStorage;
+import ru.yandex.practicum.mymarket.service.cart.CartSummaryStore;
+import ru.yandex.practicum.mymarket.service.events.UserEventBus;
+import ru.yandex.practicum.mymarket.service.logging.ReactiveLogs;
+import ru.yandex.practicum.mymarket.service.metrics.ReactiveTimers;
+import ru.yandex.practicum.mymarket.service.model.CartCounts;
 import ru.yandex.practicum.mymarket.service.model.CartEntry;
+import ru.yandex.practicum.mymarket.service.model.CartLineChange;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
-@Transactional
 public class CartServiceImpl implements CartService {
 
-	private final CartItemRepository cartItemRepository;
+	private static final String CART_TIMER = "market.cart";
+
+	private final CartStorage cartStorage;
 	private final ItemRepository itemRepository;
 	private final CartMapper cartMapper;
 	private final ItemService itemService;
 	private final UserService userService;
+	private final CartSummaryStore cartSummaryStore;
+	private final UserEventBus userEventBus;
+	private final MeterRegistry meterRegistry;
 
 	@Override
 	public Mono<Void> applyCartAction(CartAction action, Long itemId, WebSession session) {
@@ -43,11 +55,35 @@ public class CartServiceImpl implements CartService {
 			log.warn("applyCartAction called with null action or itemId: action={}, itemId={}", action, itemId);
 			return Mono.empty();
 		}
-		return switch (action) {
-			case PLUS -> addItem(itemId);
-			case MINUS -> removeOne(itemId);
-			case DELETE -> removeAll(itemId);
+		return userService.getCurrentUserId()
+				.flatMap(userId -> applyAction(userId, action, itemId))
+				.then();
+	}
+
+	private Mono<CartLineChange> applyAction(Long userId, CartAction action, Long itemId) {
+		return changeLine(userId, action, itemId)
+				.flatMap(change -> summaryAfterChange(userId, change));
+	}
+
+	/**
+	 * The storage adjusts the summary together with the line; it is recomputed only when the user has none.
+	 */
+	private Mono<CartLineChange> summaryAfterChange(Long userId, CartLineChange change) {
+		Mono<CartSummaryResponseDto> summary = change.summary() != null
+				? Mono.just(change.summary())
+				: recomputeSummary(userId);
+		return summary
+				.flatMap(adjusted -> userEventBus.publishCartSummary(userId, adjusted)
+						.thenReturn(new CartLineChange(change.count(), adjusted)));
+	}
+
+	private Mono<CartLineChange> changeLine(Long userId, CartAction action, Long itemId) {
+		Mono<CartLineChange> change = switch (action) {
+			case PLUS -> addItem(userId, itemId);
+			case MINUS -> removeOne(userId, itemId);
+			case DELETE -> removeAll(userId, itemId);
 		};
+		return change.transform(timed(action.name().toLowerCase()));
 	}
 
 	@Override
@@ -56,7 +92,7 @@ public class CartServiceImpl implements CartService {
 				params.action(), params.id());
 		return applyCartAction(params.action(), params.id(), session)
 				.thenReturn(buildRedirectUrl(params))
-				.doOnSuccess(url -> log.debug("Redirecting to: {}", url));
+				.transform(ReactiveLogs.debugOnNext(log, url -> log.debug("Redirecting to: {}", url)));
 	}
 
 	private String buildRedirectUrl(CartActionWithNavigationDto params) {
@@ -79,53 +115,41 @@ public class CartServiceImpl implements CartService {
 	public Mono<Void> clear(WebSession session) {
 		log.debug("clear called - clearing cart");
 		return userService.getCurrentUserId()
-				.flatMap(userId -> cartItemRepository.deleteByUserId(userId)
-						.doOnSuccess(v -> log.debug("Cart cleared successfully for user {}", userId)));
+				.flatMap(userId -> cartStorage.clear(userId)
+						.then(cartSummaryStore.evict(userId)
+								.onErrorResume(error -> {
+									log.warn("Failed to evict cart summary of user {}: {}", userId, error.getMessage());
+									return Mono.empty();
+								}))
+						.then(userEventBus.publishCartSummary(userId, new CartSummaryResponseDto(0, 0, 0L)))
+						.transform(ReactiveLogs.debugOnComplete(log, () -> log.debug("Cart cleared for user {}", userId))))
+				.transform(timed("clear"));
 	}
 
 	@Override
-	@Transactional(readOnly = true)
 	public Flux<CartEntry> getItems(WebSession session) {
 		log.debug("getItems called");
 		return userService.getCurrentUserId()
-				.flatMapMany(userId -> {
-					log.debug("Getting cart items for user {}", userId);
-					return cartItemRepository.findByUserId(userId);
-				})
-				.flatMap(cartItem -> itemRepository.findById(cartItem.getItemId())
-						.map(item -> new CartEntry(item, cartItem.getCount())))
-				.doOnComplete(() -> log.debug("getItems completed"));
+				.flatMapMany(cartStorage::getLines)
+				.flatMap(line -> itemRepository.findById(line.itemId())
+						.map(item -> new CartEntry(item, line.count())))
+				.transform(ReactiveTimers.timedMany(meterRegistry, CART_TIMER, Tags.of("operation", "items")));
 	}
 
 	@Override
-	@Transactional(readOnly = true)
 	public Mono<Long> getTotalPrice(WebSession session) {
 		log.debug("getTotalPrice called");
 		return getItems(session)
 				.map(entry -> entry.getItem().getPrice() * entry.getCount())
 				.reduce(0L, Long::sum)
-				.doOnSuccess(total -> log.debug("Total price calculated: {}", total));
+				.transform(ReactiveLogs.debugOnNext(log, total -> log.debug("Total price calculated: {}", total)));
 	}
 
 	@Override
-	@Transactional(readOnly = true)
 	public Mono<CartStateResponseDto> getCart(WebSession session) {
 		log.debug("getCart called");
 		return userService.getCurrentUserId()
-				.flatMapMany(userId -> {
-					log.debug("Getting cart for user {}", userId);
-					return cartItemRepository.findByUserId(userId);
-				})
-				.flatMap(cartItem -> itemService.getItem(cartItem.getItemId())
-						.map(item -> new CartItemResponseDto(
-								item.id(),
-								item.title(),
-								item.description(),
-								item.imgPath(),
-								item.price(),
-								cartItem.getCount()
-						))
-						.doOnSuccess(i -> log.debug("Loaded item {} from cache for cart", cartItem.getItemId())))
+				.flatMapMany(this::loadCartItems)
 				.collectList()
 				.map(items -> {
 					long total = items.stream()
@@ -133,87 +157,123 @@ public class CartServiceImpl implements CartService {
 							.sum();
 					return new CartStateResponseDto(items, total);
 				})
-				.doOnSuccess(cart -> log.debug("getCart returned cart with {} items, total: {}",
-						cart.items().size(), cart.total()));
+				.transform(ReactiveLogs.debugOnNext(log, cart -> log.debug("getCart returned cart with {} items, total: {}",
+						cart.items().size(), cart.total())))
+				.transform(timed("get"));
+	}
+
+	private Flux<CartItemResponseDto> loadCartItems(Long userId) {
+		log.debug("Getting cart for user {}", userId);
+		return cartStorage.getLines(userId)
+				.flatMap(line -> itemService.getItem(line.itemId())
+						.map(item -> new CartItemResponseDto(
+								item.id(),
+								item.title(),
+								item.description(),
+								item.imgPath(),
+								item.price(),
+								line.count()
+						)));
 	}
 
 	@Override
-	public Mono<CartStateResponseDto> updateCart(CartUpdateRequestDto request, WebSession session) {
-		log.debug("updateCart called with action: {}, itemId: {}", request.action(), request.id());
-		return applyActionAndGetCart(request.action(), request.id(), session);
+	public Mono<CartCounts> getCartCounts(WebSession session) {
+		log.debug("getCartCounts called");
+		return userService.getCurrentUserId()
+				.flatMapMany(cartStorage::getLines)
+				.collectList()
+				.map(CartCounts::of)
+				.transform(timed("counts"));
 	}
 
 	@Override
-	public Mono<CartStateResponseDto> applyActionAndGetCart(CartAction action, Long itemId, WebSession session) {
-		log.debug("applyActionAndGetCart called with action: {}, itemId: {}", action, itemId);
-		return applyCartAction(action, itemId, session)
-				.then(getCart(session))
-				.doOnSuccess(cart -> log.debug("Cart updated: {} items, total: {}",
-						cart.items().size(), cart.total()));
+	public Mono<CartSummaryResponseDto> getCartSummary(WebSession session) {
+		log.debug("getCartSummary called");
+		return userService.getCurrentUserId()
+				.flatMap(this::currentSummary)
+				.transform(timed("summary"));
+	}
+
+	private Mono<CartSummaryResponseDto> currentSummary(Long userId) {
+		return cartSummaryStore.get(userId)
+				.onErrorResume(error -> {
+					log.warn("Failed to read cart summary of user {}: {}", userId, error.getMessage());
+					return Mono.empty();
+				})
+				.switchIfEmpty(Mono.defer(() -> recomputeSummary(userId)));
 	}
 
-	private Mono<Void> addItem(Long itemId) {
-		log.debug("addItem called with itemId: {}", itemId);
+	@Override
+	public Mono<CartSummaryResponseDto> applyActionAndGetSummary(CartAction action, Long itemId, WebSession session) {
+		log.debug("applyActionAndGetSummary called with action: {}, itemId: {}", action, itemId);
+		if (action == null || itemId == null) {
+			return getCartSummary(session);
+		}
 		return userService.getCurrentUserId()
-				.flatMap(userId -> cartItemRepository.findByUserIdAndItemId(userId, itemId)
-						.flatMap(existing -> {
-							existing.setCount(existing.getCount() + 1);
-							existing.setUpdatedAt(LocalDateTime.now());
-							log.debug("Incrementing count for user {}, item {}: {} -> {}",
-									userId, itemId, existing.getCount() - 1, existing.getCount());
-							return cartItemRepository.save(existing);
-						})
-						.switchIfEmpty(Mono.defer(() -> {
-							CartItemEntity newItem = new CartItemEntity();
-							newItem.setUserId(userId);
-							newItem.setItemId(itemId);
-							newItem.setCount(1);
-							newItem.setCreatedAt(LocalDateTime.now());
-							newItem.setUpdatedAt(LocalDateTime.now());
-							log.debug("Adding new item to cart for user {}, item {}", userId, itemId);
-							return cartItemRepository.save(newItem);
-						})))
-				.then()
-				.doOnSuccess(v -> log.debug("Item {} added to cart successfully", itemId));
-	}
-
-	private Mono<Void> removeOne(Long itemId) {
-		log.debug("removeOne called with itemId: {}", itemId);
+				.flatMap(userId -> applyAction(userId, action, itemId)
+						.map(CartLineChange::summary)
+						.switchIfEmpty(Mono.defer(() -> currentSummary(userId))))
+				.transform(ReactiveLogs.debugOnNext(log, summary -> log.debug("Cart summary after action: {}", summary)));
+	}
+
+	@Override
+	public Mono<CartLineResponseDto> applyActionAndGetLine(CartAction action, Long itemId, WebSession session) {
+		log.debug("applyActionAndGetLine called with action: {}, itemId: {}", action, itemId);
+		if (action == null || itemId == null) {
+			return getCartSummary(session)
+					.map(summary -> new CartLineResponseDto(itemId, 0, summary));
+		}
 		return userService.getCurrentUserId()
-				.flatMap(userId -> cartItemRepository.findByUserIdAndItemId(userId, itemId)
-						.flatMap(existing -> {
-							if (existing.getCount() > 1) {
-								int oldCount = existing.getCount();
-								existing.setCount(oldCount - 1);
-								existing.setUpdatedAt(LocalDateTime.now());
-								log.debug("Decrementing count for user {}, item {}: {} -> {}",
-										userId, itemId, oldCount, existing.getCount());
-								return cartItemRepository.save(existing).then();
-							} else {
-								log.debug("Removing item {} from cart for user {}", itemId, userId);
-								return cartItemRepository.deleteByUserIdAndItemId(userId, itemId);
-							}
+				.flatMap(userId -> applyAction(userId, action, itemId)
+						.switchIfEmpty(Mono.defer(() -> currentSummary(userId)
+								.map(summary -> new CartLineChange(0, summary)))))
+				.map(change -> new CartLineResponseDto(itemId, change.count(), change.summary()))
+				.transform(ReactiveLogs.debugOnNext(log, line -> log.debug("Cart line after action: {}", line)));
+	}
+
+	private Mono<CartSummaryResponseDto> recomputeSummary(Long userId) {
+		log.debug("Recomputing cart summary for user {}", userId);
+		return loadCartItems(userId)
+				.collectList()
+				.flatMap(items -> cartSummaryStore.store(userId, items)
+						.onErrorResume(error -> {
+							log.warn("Failed to store cart summary of user {}: {}", userId, error.getMessage());
+							return Mono.just(CartSummaryResponseDto.of(items));
 						}))
-				.then()
-				.doOnSuccess(v -> log.debug("Removed one item {} from cart", itemId));
+				.transform(timed("summary-recompute"));
 	}
 
-	private Mono<Void> removeAll(Long itemId) {
-		log.debug("removeAll called with itemId: {}", itemId);
-		return userService.getCurrentUserId()
-				.flatMap(userId -> cartItemRepository.deleteByUserIdAndItemId(userId, itemId)
-						.doOnSuccess(v -> log.debug("Removed all items {} from cart for user {}", itemId, userId)))
-				.then();
+	@Override
+	public Mono<CartLineResponseDto> updateCart(CartUpdateRequestDto request, WebSession session) {
+		log.debug("updateCart called with action: {}, itemId: {}", request.action(), request.id());
+		return applyActionAndGetLine(request.action(), request.id(), session);
+	}
+
+	private Mono<CartLineChange> addItem(Long userId, Long itemId) {
+		return itemService.getItem(itemId)
+				.flatMap(item -> cartStorage.increment(userId, itemId, item.price()))
+				.transform(ReactiveLogs.debugOnNext(log, change -> log.debug("Item {} count for user {} is now {}", itemId, userId, change.count())));
+	}
+
+	private Mono<CartLineChange> removeOne(Long userId, Long itemId) {
+		return cartStorage.decrement(userId, itemId)
+				.transform(ReactiveLogs.debugOnNext(log, change -> log.debug("Item {} count for user {} is now {}", itemId, userId, change.count())));
+	}
+
+	private Mono<CartLineChange> removeAll(Long userId, Long itemId) {
+		return cartStorage.remove(userId, itemId)
+				.transform(ReactiveLogs.debugOnNext(log, change -> log.debug("Removed all items {} from cart for user {}", itemId, userId)));
 	}
 
 	@Override
-	@Transactional(readOnly = true)
 	public Mono<Integer> getItemCountInCart(Long itemId, WebSession session) {
 		log.debug("getItemCountInCart called with itemId: {}", itemId);
 		return userService.getCurrentUserId()
-				.flatMap(userId -> cartItemRepository.findByUserIdAndItemId(userId, itemId)
-						.map(CartItemEntity::getCount)
-						.defaultIfEmpty(0))
-				.doOnSuccess(count -> log.debug("Item {} count in cart: {}", itemId, count));
+				.flatMap(userId -> cartStorage.getCount(userId, itemId))
+				.transform(ReactiveLogs.debugOnNext(log, count -> log.debug("Item {} count in cart: {}", itemId, count)));
+	}
+
+	private <T> Function<Mono<T>, Mono<T>> timed(String operation) {
+		return ReactiveTimers.timed(meterRegistry, CART_TIMER, Tags.of("operation", operation));
 	}
 }
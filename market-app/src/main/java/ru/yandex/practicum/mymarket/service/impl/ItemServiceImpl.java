@@ -1,11 +1,12 @@
 package ru.yandex.practicum.mymarket.service.impl;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
@@ -19,14 +20,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.yandex.practicum.mymarket.dto.request.ItemsFilterRequestDto;
-import ru.yandex.practicum.mymarket.dto.response.CachedItemsPageDto;
-import ru.yandex.practicum.mymarket.dto.response.CartItemResponseDto;
-import ru.yandex.practicum.mymarket.dto.response.CartStateResponseDto;
+import ru.yandex.practicum.mymarket.dto.response.CachedItemIdsPageDto;
 import ru.yandex.practicum.mymarket.dto.response.ItemDetailsResponseDto;
 import ru.yandex.practicum.mymarket.dto.response.ItemResponseDto;
 import ru.yandex.practicum.mymarket.entity.ItemEntity;
@@ -37,102 +37,191 @@ import ru.yandex.practicum.mymarket.repository.ItemImageRepository;
 import ru.yandex.practicum.mymarket.repository.ItemRepository;
 import ru.yandex.practicum.mymarket.service.ItemService;
 import ru.yandex.practicum.mymarket.service.ReactiveCacheService;
+import ru.yandex.practicum.mymarket.service.catalog.CatalogCacheKeys;
+import ru.yandex.practicum.mymarket.service.catalog.CatalogQuery;
+import ru.yandex.practicum.mymarket.service.catalog.CatalogVersion;
+import ru.yandex.practicum.mymarket.service.logging.ReactiveLogs;
+import ru.yandex.practicum.mymarket.service.metrics.ReactiveTimers;
+import ru.yandex.practicum.mymarket.service.model.CartCounts;
 import ru.yandex.practicum.mymarket.enums.SortType;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 @Transactional
 public class ItemServiceImpl implements ItemService {
 
+	private static final String ITEMS_TIMER = "market.items";
+	/**
+	 * Upper bound of the id blocks one page may span, so a page size much larger than the block size
+	 * cannot fan out into a cache lookup per block.
+	 */
+	static final int MAX_BLOCKS_PER_PAGE = 16;
+
 	private final ItemRepository itemRepository;
 	private final ItemImageRepository itemImageRepository;
 	private final ItemMapper itemMapper;
 	private final ReactiveCacheService cacheService;
-
-	@Value("${cache.items.ttl}")
-	private Duration itemsCacheTtl;
-
-	private static final String ITEM_CACHE_KEY_PREFIX = "item:";
-	private static final String ITEM_IMAGE_CACHE_KEY_PREFIX = "item-image:";
-	private static final String ITEMS_LIST_CACHE_KEY_PREFIX = "items:list:";
+	private final CatalogVersion catalogVersion;
+	private final MeterRegistry meterRegistry;
+	private final Duration itemsCacheTtl;
+	private final int itemIdsBlockSize;
+
+	public ItemServiceImpl(
+			ItemRepository itemRepository,
+			ItemImageRepository itemImageRepository,
+			ItemMapper itemMapper,
+			ReactiveCacheService cacheService,
+			CatalogVersion catalogVersion,
+			MeterRegistry meterRegistry,
+			@Value("${cache.items.ttl}") Duration itemsCacheTtl,
+			@Value("${cache.items.block-size:50}") int itemIdsBlockSize) {
+		if (itemIdsBlockSize <= 0) {
+			throw new IllegalArgumentException("cache.items.block-size must be positive: " + itemIdsBlockSize);
+		}
+		this.itemRepository = itemRepository;
+		this.itemImageRepository = itemImageRepository;
+		this.itemMapper = itemMapper;
+		this.cacheService = cacheService;
+		this.catalogVersion = catalogVersion;
+		this.meterRegistry = meterRegistry;
+		this.itemsCacheTtl = itemsCacheTtl;
+		this.itemIdsBlockSize = itemIdsBlockSize;
+	}
 
 	@Override
 	@Transactional(readOnly = true)
 	public Mono<Page<ItemResponseDto>> getItems(ItemsFilterRequestDto filter, Pageable pageable) {
 		log.debug("getItems called with filter: {}, pageable: {}", filter, pageable);
 
-		String cacheKey = buildItemsListCacheKey(filter, pageable);
-
-		Mono<CachedItemsPageDto> dataSupplier = getItemsPage(filter, pageable, item -> itemMapper.toItemResponse(item, 0))
-				.map(page -> new CachedItemsPageDto(
-						page.getContent(),
-						page.getNumber(),
-						page.getSize(),
-						page.getTotalElements()
-				))
-				.doOnSuccess(cached -> log.debug("getItems loaded from DB: {} items", cached.content().size()));
-
-		return cacheService.getOrPut(cacheKey, CachedItemsPageDto.class, dataSupplier, itemsCacheTtl)
-				.<Page<ItemResponseDto>>map(cached -> new PageImpl<>(
-						cached.content(),
-						PageRequest.of(cached.pageNumber(), cached.pageSize()),
-						cached.totalElements()
-				))
-				.doOnSuccess(page -> log.debug("getItems returned {} items, total: {}",
-						page.getNumberOfElements(), page.getTotalElements()));
+		return getCachedItemIdsPage(filter, pageable)
+				.flatMap(cached -> loadItems(cached.itemIds())
+						.map(content -> toPage(cached, content)))
+				.transform(ReactiveLogs.debugOnNext(log, page -> log.debug("getItems returned {} items, total: {}",
+						page.getNumberOfElements(), page.getTotalElements())))
+				.transform(timed("list"));
 	}
 
 	@Override
 	@Transactional(readOnly = true)
-	public Mono<Page<ItemResponseDto>> getItemsWithCartCounts(ItemsFilterRequestDto filter, Pageable pageable, CartStateResponseDto cart) {
-		log.debug("getItemsWithCartCounts called with filter: {}, pageable: {}, cart items count: {}",
-				filter, pageable, cart.items().size());
-
-		Map<Long, Integer> cartCountMap = cart.items().stream()
-				.collect(Collectors.toMap(CartItemResponseDto::id, CartItemResponseDto::count));
-
-		return getItems(filter, pageable)
-				.<Page<ItemResponseDto>>map(page -> {
-					List<ItemResponseDto> itemsWithCartCounts = page.getContent().stream()
-							.map(item -> {
-								int countInCart = cartCountMap.getOrDefault(item.id(), 0);
-								if (item.count() != countInCart) {
-									return new ItemResponseDto(
-											item.id(),
-											item.title(),
-											item.description(),
-											item.imgPath(),
-											item.price(),
-											countInCart
-									);
-								}
-								return item;
-							})
-							.toList();
-					return new PageImpl<>(itemsWithCartCounts, pageable, page.getTotalElements());
-				})
-				.doOnSuccess(page -> log.debug("getItemsWithCartCounts returned {} items (from cache)",
-						page.getNumberOfElements()));
-	}
-
-	private Mono<Page<ItemResponseDto>> getItemsPage(
-			ItemsFilterRequestDto filter,
-			Pageable pageable,
-			Function<ItemEntity, ItemResponseDto> mapper) {
-
-		return getFilteredAndSortedItems(filter)
+	public Mono<Page<ItemResponseDto>> getItemsWithCartCounts(ItemsFilterRequestDto filter, Pageable pageable, CartCounts cartCounts) {
+		log.debug("getItemsWithCartCounts called with filter: {}, pageable: {}", filter, pageable);
+
+		return getCachedItemIdsPage(filter, pageable)
+				.flatMap(cached -> loadItems(cached.itemIds())
+						.map(content -> toPage(cached, cartCounts.overlay(content))))
+				.transform(ReactiveLogs.debugOnNext(log, page -> log.debug("getItemsWithCartCounts returned {} items",
+						page.getNumberOfElements())))
+				.transform(timed("list-with-cart"));
+	}
+
+	/**
+	 * The list is cached as blocks of {@code cache.items.block-size} ordered item ids and the total, the items
+	 * are read from their own keys, so a change of one item never rewrites the lists it appears on. Pages of any
+	 * size are cut from the blocks, so page sizes share cache entries.
+	 */
+	private Mono<CachedItemIdsPageDto> getCachedItemIdsPage(ItemsFilterRequestDto filter, Pageable pageable) {
+		CatalogQuery query = CatalogQuery.of(filter);
+		long offset = pageable.getOffset();
+		long firstBlockIndex = offset / itemIdsBlockSize;
+		long lastBlockIndex = (offset + pageable.getPageSize() - 1) / itemIdsBlockSize;
+		if (lastBlockIndex - firstBlockIndex >= MAX_BLOCKS_PER_PAGE) {
+			return Mono.error(new IllegalArgumentException("Page size " + pageable.getPageSize()
+					+ " spans more than " + MAX_BLOCKS_PER_PAGE + " blocks of " + itemIdsBlockSize + " items"));
+		}
+
+		Mono<List<Long>> allIds = getFilteredAndSortedItems(query)
+				.map(ItemEntity::getId)
+				.collectList()
+				.transform(ReactiveLogs.debugOnNext(log, ids -> log.debug("getItems loaded from DB: {} item ids", ids.size())))
+				.cache();
+
+		if (lastBlockIndex > Integer.MAX_VALUE) {
+			// No list holds that many ids, so the page is past the end and only the total is read
+			return getCachedItemIdsBlock(query, 0, allIds)
+					.map(block -> new CachedItemIdsPageDto(List.of(), pageable.getPageNumber(), pageable.getPageSize(),
+							block.totalElements()));
+		}
+		int firstBlock = (int) firstBlockIndex;
+		int lastBlock = (int) lastBlockIndex;
+		return Flux.range(firstBlock, lastBlock - firstBlock + 1)
+				.flatMapSequential(block -> getCachedItemIdsBlock(query, block, allIds))
 				.collectList()
-				.map(allItems -> createPage(allItems, pageable, mapper));
+				.map(blocks -> createIdsPage(blocks, firstBlock, pageable));
 	}
 
-	private Flux<ItemEntity> getFilteredAndSortedItems(ItemsFilterRequestDto filter) {
-		String search = filter.search();
-		Flux<ItemEntity> itemsFlux = (search != null && !search.isBlank())
-				? itemRepository.findByTitleContainingIgnoreCaseOrDescriptionContainingIgnoreCase(search, search)
+	private Mono<CachedItemIdsPageDto> getCachedItemIdsBlock(CatalogQuery query, int block, Mono<List<Long>> allIds) {
+		String cacheKey = CatalogCacheKeys.itemIdsBlock(catalogVersion.current(), catalogVersion.currentPrices(),
+				query, block, itemIdsBlockSize);
+
+		Mono<CachedItemIdsPageDto> dataSupplier = allIds
+				.map(ids -> sliceIds(ids, (long) block * itemIdsBlockSize, itemIdsBlockSize, block));
+
+		return cacheService.getOrPut(cacheKey, CachedItemIdsPageDto.class, dataSupplier, itemsCacheTtl);
+	}
+
+	/**
+	 * Reads the items in one multi-get of their cache keys and loads the misses in one query,
+	 * caching them back. Items deleted since the page was cached are skipped.
+	 */
+	private Mono<List<ItemResponseDto>> loadItems(List<Long> ids) {
+		List<String> keys = ids.stream().map(CatalogCacheKeys::item).toList();
+
+		return cacheService.multiGet(keys, ItemDetailsResponseDto.class)
+				.flatMap(cached -> {
+					List<Long> missing = new ArrayList<>();
+					for (int i = 0; i < ids.size(); i++) {
+						if (cached.get(i) == null) {
+							missing.add(ids.get(i));
+						}
+					}
+					if (missing.isEmpty()) {
+						return Mono.just(assemble(ids, cached, Map.of()));
+					}
+					if (log.isDebugEnabled()) {
+						log.debug("Item cache misses: {} of {}", missing.size(), ids.size());
+					}
+					return itemRepository.findAllById(missing)
+							.map(item -> itemMapper.toItemDetailsResponse(item, 0))
+							.collectMap(ItemDetailsResponseDto::id)
+							.flatMap(loaded -> cacheService.putAll(toCacheEntries(loaded), itemsCacheTtl)
+									.thenReturn(assemble(ids, cached, loaded)));
+				});
+	}
+
+	private List<ItemResponseDto> assemble(
+			List<Long> ids,
+			List<ItemDetailsResponseDto> cached,
+			Map<Long, ItemDetailsResponseDto> loaded) {
+
+		List<ItemResponseDto> content = new ArrayList<>(cached.size());
+		for (int i = 0; i < cached.size(); i++) {
+			ItemDetailsResponseDto details = cached.get(i);
+			if (details == null) {
+				details = loaded.get(ids.get(i));
+			}
+			if (details != null) {
+				content.add(itemMapper.toItemResponse(details));
+			}
+		}
+		return content;
+	}
+
+	private static Map<String, ItemDetailsResponseDto> toCacheEntries(Map<Long, ItemDetailsResponseDto> items) {
+		Map<String, ItemDetailsResponseDto> entries = new HashMap<>(items.size() * 2);
+		items.forEach((id, details) -> entries.put(CatalogCacheKeys.item(id), details));
+		return entries;
+	}
+
+	private static Page<ItemResponseDto> toPage(CachedItemIdsPageDto cached, List<ItemResponseDto> content) {
+		return new PageImpl<>(content, PageRequest.of(cached.pageNumber(), cached.pageSize()), cached.totalElements());
+	}
+
+	private Flux<ItemEntity> getFilteredAndSortedItems(CatalogQuery query) {
+		Flux<ItemEntity> itemsFlux = query.hasSearch()
+				? itemRepository.findByTitleContainingIgnoreCaseOrDescriptionContainingIgnoreCase(query.search(), query.search())
 				: itemRepository.findAll();
 
-		return applySorting(itemsFlux, filter.sort());
+		return applySorting(itemsFlux, query.sort());
 	}
 
 	private Flux<ItemEntity> applySorting(Flux<ItemEntity> itemsFlux, SortType sortType) {
@@ -144,40 +233,44 @@ public class ItemServiceImpl implements ItemService {
 		};
 	}
 
-	private Page<ItemResponseDto> createPage(
-			List<ItemEntity> allItems,
-			Pageable pageable,
-			Function<ItemEntity, ItemResponseDto> mapper) {
+	private static CachedItemIdsPageDto sliceIds(List<Long> allIds, long offset, int size, int pageNumber) {
+		int start = (int) Math.min(offset, allIds.size());
+		int end = Math.min(start + size, allIds.size());
 
-		long total = allItems.size();
-		int start = (int) pageable.getOffset();
-		int end = Math.min(start + pageable.getPageSize(), allItems.size());
+		return new CachedItemIdsPageDto(
+				List.copyOf(allIds.subList(start, end)),
+				pageNumber,
+				size,
+				allIds.size()
+		);
+	}
 
-		List<ItemResponseDto> pageContent = allItems.subList(start, end).stream()
-				.map(mapper)
-				.toList();
+	private CachedItemIdsPageDto createIdsPage(List<CachedItemIdsPageDto> blocks, int firstBlock, Pageable pageable) {
+		List<Long> blockIds = new ArrayList<>();
+		blocks.forEach(block -> blockIds.addAll(block.itemIds()));
+		long offset = pageable.getOffset() - (long) firstBlock * itemIdsBlockSize;
 
-		return new PageImpl<>(pageContent, pageable, total);
+		CachedItemIdsPageDto page = sliceIds(blockIds, offset, pageable.getPageSize(), pageable.getPageNumber());
+		return new CachedItemIdsPageDto(page.itemIds(), page.pageNumber(), page.pageSize(), blocks.get(0).totalElements());
 	}
 
 	@Override
 	@Transactional(readOnly = true)
 	public Mono<ItemDetailsResponseDto> getItem(Long id) {
 		log.debug("getItem called with id: {}", id);
-		String cacheKey = ITEM_CACHE_KEY_PREFIX + id;
+		String cacheKey = CatalogCacheKeys.item(id);
 
 		Mono<ItemDetailsResponseDto> dataSupplier = findItemById(id)
 				.map(item -> itemMapper.toItemDetailsResponse(item, 0))
-				.doOnSuccess(item -> log.debug("getItem loaded from DB: {}", item.title()));
+				.transform(ReactiveLogs.debugOnNext(log, item -> log.debug("getItem loaded from DB: {}", item.title())));
 
 		return cacheService.getOrPut(cacheKey, ItemDetailsResponseDto.class, dataSupplier, itemsCacheTtl)
-				.doOnSuccess(item -> log.debug("getItem returned item: {}", item.title()));
+				.transform(timed("get"));
 	}
 
 	@Override
 	@Transactional(readOnly = true)
 	public Mono<ItemDetailsResponseDto> getItemWithCartCount(Long id, int count) {
-		log.debug("getItemWithCartCount called with id: {}, count: {}", id, count);
 		return getItem(id)
 				.map(cached -> new ItemDetailsResponseDto(
 						cached.id(),
@@ -187,25 +280,24 @@ public class ItemServiceImpl implements ItemService {
 						cached.price(),
 						count
 				))
-				.doOnSuccess(item -> log.debug("getItemWithCartCount returned item: {} with count: {}",
-						item.title(), count));
+				.transform(ReactiveLogs.debugOnNext(log, item -> log.debug("getItemWithCartCount returned item: {} with count: {}",
+						item.title(), item.count())));
 	}
 
 	@Override
 	@Transactional(readOnly = true)
 	public Mono<ResponseEntity<byte[]>> getItemImageResponse(Long id) {
 		log.debug("getItemImageResponse called with id: {}", id);
-		String cacheKey = ITEM_IMAGE_CACHE_KEY_PREFIX + id;
+		String cacheKey = CatalogCacheKeys.itemImage(id);
 
 		Mono<ItemImageEntity> dataSupplier = itemImageRepository.findByItemId(id)
 				.switchIfEmpty(Mono.error(new ItemNotFoundException("Item image not found for item id: " + id)))
-				.doOnSuccess(image -> log.debug("getItemImageResponse loaded from DB for item id: {}, size: {} bytes",
-						id, image.getData() != null ? image.getData().length : 0));
+				.transform(ReactiveLogs.debugOnNext(log, image -> log.debug("getItemImageResponse loaded from DB for item id: {}, size: {} bytes",
+						id, image.getData() != null ? image.getData().length : 0)));
 
 		return cacheService.getOrPut(cacheKey, ItemImageEntity.class, dataSupplier, itemsCacheTtl)
 				.map(this::toImageResponse)
-				.doOnSuccess(response -> log.debug("getItemImageResponse returned image for item id: {}, size: {} bytes",
-						id, response.getBody() != null ? response.getBody().length : 0));
+				.transform(timed("image"));
 	}
 
 	private Mono<ItemEntity> findItemById(Long id) {
@@ -235,15 +327,7 @@ public class ItemServiceImpl implements ItemService {
 		return MediaType.APPLICATION_OCTET_STREAM;
 	}
 
-	private String buildItemsListCacheKey(ItemsFilterRequestDto filter, Pageable pageable) {
-		String search = filter.search() != null ? filter.search() : "";
-		String sort = filter.sort() != null ? filter.sort().name() : "NO";
-		return String.format("%ssearch=%s:sort=%s:page=%d:size=%d",
-				ITEMS_LIST_CACHE_KEY_PREFIX,
-				search,
-				sort,
-				pageable.getPageNumber(),
-				pageable.getPageSize()
-		);
+	private <T> Function<Mono<T>, Mono<T>> timed(String operation) {
+		return ReactiveTimers.timed(meterRegistry, ITEMS_TIMER, Tags.of("operation", operation));
 	}
 }
@@ -2,12 +2,16 @@ package ru.yandex.practicum.mymarket.service.impl;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Function;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.web.server.WebSession;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
@@ -16,6 +20,7 @@ import ru.yandex.practicum.mymarket.dto.response.OrderResponseDto;
 import ru.yandex.practicum.mymarket.entity.OrderEntity;
 import ru.yandex.practicum.mymarket.entity.OrderItemEntity;
 import ru.yandex.practicum.mymarket.exception.EmptyCartException;
+import ru.yandex.practicum.mymarket.exception.InsufficientBalanceException;
 import ru.yandex.practicum.mymarket.exception.OrderNotFoundException;
 import ru.yandex.practicum.mymarket.exception.PaymentException;
 import ru.yandex.practicum.mymarket.mapper.OrderMapper;
@@ -25,6 +30,9 @@ import ru.yandex.practicum.mymarket.repository.OrderRepository;
 import ru.yandex.practicum.mymarket.service.CartService;
 import ru.yandex.practicum.mymarket.service.OrderService;
 import ru.yandex.practicum.mymarket.service.UserService;
+import ru.yandex.practicum.mymarket.service.events.UserEventBus;
+import ru.yandex.practicum.mymarket.service.logging.ReactiveLogs;
+import ru.yandex.practicum.mymarket.service.metrics.ReactiveTimers;
 import ru.yandex.practicum.mymarket.service.model.CartEntry;
 
 @Slf4j
@@ -32,6 +40,9 @@ import ru.yandex.practicum.mymarket.service.model.CartEntry;
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
+	private static final String BUY_TIMER = "market.order.buy";
+	private static final String BUY_STAGE_TIMER = "market.order.buy.stage";
+
 	private final OrderRepository orderRepository;
 	private final OrderItemRepository orderItemRepository;
 	private final CartService cartService;
@@ -39,13 +50,18 @@ public class OrderServiceImpl implements OrderService {
 	private final TransactionalOperator transactionalOperator;
 	private final PaymentClient paymentClient;
 	private final UserService userService;
+	private final UserEventBus userEventBus;
+	private final MeterRegistry meterRegistry;
+	private final ObservationRegistry observationRegistry;
 
 	@Override
 	public Mono<OrderResponseDto> buy(WebSession session) {
-		log.info("buy called - creating order from cart");
+		log.debug("buy called - creating order from cart");
 		return userService.getCurrentUserId()
 				.zipWith(cartService.getItems(session).collectList())
-				.doOnNext(tuple -> log.debug("Cart contains {} items for user {}", tuple.getT2().size(), tuple.getT1()))
+				.transform(stage("cart"))
+				.transform(ReactiveLogs.debugOnNext(log, tuple -> log.debug("Cart contains {} items for user {}",
+						tuple.getT2().size(), tuple.getT1())))
 				.flatMap(tuple -> {
 					Long userId = tuple.getT1();
 					List<CartEntry> cartEntries = tuple.getT2();
@@ -54,28 +70,36 @@ public class OrderServiceImpl implements OrderService {
 							.flatMap(totalSum -> {
 								log.debug("Checking balance for user {}: required amount = {}", userId, totalSum);
 								return userService.hasEnoughBalance(userId, totalSum)
+										.transform(stage("balance"))
 										.flatMap(hasEnough -> {
 											if (!hasEnough) {
 												log.warn("Insufficient balance for user {}", userId);
-												return Mono.error(new ru.yandex.practicum.mymarket.exception.InsufficientBalanceException(
+												return Mono.error(new InsufficientBalanceException(
 														"Недостаточно средств для оформления заказа"));
 											}
-											log.info("Balance check passed. Creating order for user {}, amount: {}", userId, totalSum);
+											log.debug("Balance check passed. Creating order for user {}, amount: {}", userId, totalSum);
 											return createOrderFromCart(userId, cartEntries)
-													.as(transactionalOperator::transactional);
+													.as(transactionalOperator::transactional)
+													.transform(stage("create"))
+													.flatMap(order -> publishStatus(order).thenReturn(order));
 										});
 							});
 				})
 				.flatMap(order -> {
-					log.info("Order created with id: {}, status: {}, total: {}. Creating payment...",
-							order.getId(), order.getStatus(), order.getTotalSum());
+					if (log.isDebugEnabled()) {
+						log.debug("Order created with id: {}, status: {}, total: {}. Creating payment...",
+								order.getId(), order.getStatus(), order.getTotalSum());
+					}
 					return createPaymentForOrder(order)
+							.transform(stage("payment"))
 							.flatMap(paidOrder -> {
-								log.info("Payment successful for order {}. Updating status to PAID", paidOrder.getId());
+								log.debug("Payment successful for order {}. Updating status to PAID", paidOrder.getId());
 								paidOrder.setStatus(ru.yandex.practicum.mymarket.entity.OrderStatus.PAID);
 								paidOrder.setUpdatedAt(LocalDateTime.now());
 								return orderRepository.save(paidOrder)
-										.as(transactionalOperator::transactional);
+										.as(transactionalOperator::transactional)
+										.transform(stage("confirm"))
+										.flatMap(saved -> publishStatus(saved).thenReturn(saved));
 							})
 							.onErrorResume(error -> {
 								log.error("Payment failed for order {}: {}. Updating status to FAILED",
@@ -84,16 +108,35 @@ public class OrderServiceImpl implements OrderService {
 								order.setUpdatedAt(LocalDateTime.now());
 								return orderRepository.save(order)
 										.as(transactionalOperator::transactional)
+										.flatMap(this::publishStatus)
 										.then(Mono.error(error));
 							});
 				})
 				.flatMap(order -> buildOrderResponse(order))
-				.flatMap(response -> {
-					log.info("Order {} successfully paid. Clearing cart", response.id());
-					return cartService.clear(session).thenReturn(response);
-				})
+				.flatMap(response -> cartService.clear(session)
+						.transform(stage("clear"))
+						.thenReturn(response))
 				.doOnSuccess(order -> log.info("Order {} completed successfully with status PAID", order.id()))
-				.doOnError(error -> log.error("Failed to complete order: {}", error.getMessage()));
+				.doOnError(error -> log.error("Failed to complete order: {}", error.getMessage()))
+				.transform(ReactiveTimers.traced(meterRegistry, observationRegistry, BUY_TIMER, "buy", Tags.empty(),
+						OrderServiceImpl::buyOutcome));
+	}
+
+	private <T> Function<Mono<T>, Mono<T>> stage(String stage) {
+		return ReactiveTimers.traced(meterRegistry, observationRegistry, BUY_STAGE_TIMER, "buy " + stage, Tags.of("stage", stage));
+	}
+
+	private static String buyOutcome(Throwable error) {
+		if (error instanceof EmptyCartException) {
+			return "empty_cart";
+		}
+		if (error instanceof InsufficientBalanceException) {
+			return "insufficient_balance";
+		}
+		if (error instanceof PaymentException) {
+			return "payment_failed";
+		}
+		return "error";
 	}
 
 	@Override
@@ -101,13 +144,10 @@ public class OrderServiceImpl implements OrderService {
 	public Flux<OrderResponseDto> getOrders() {
 		log.debug("getOrders called");
 		return userService.getCurrentUserId()
-				.flatMapMany(userId -> {
-					log.debug("Getting orders for user {}", userId);
-					return orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
-				})
-				.doOnNext(order -> log.debug("Found order: id={}, total={}", order.getId(), order.getTotalSum()))
-				.flatMap(this::buildOrderResponse)
-				.doOnComplete(() -> log.debug("getOrders completed"));
+				.flatMapMany(orderRepository::findByUserIdOrderByCreatedAtDesc)
+				.transform(ReactiveLogs.debugOnNextMany(log, order -> log.debug("Found order: id={}, total={}",
+						order.getId(), order.getTotalSum())))
+				.flatMap(this::buildOrderResponse);
 	}
 
 	@Override
@@ -127,8 +167,8 @@ public class OrderServiceImpl implements OrderService {
 							}
 							return buildOrderResponse(order);
 						}))
-				.doOnSuccess(order -> log.debug("getOrder returned order: id={}, items count: {}",
-						order.id(), order.items().size()));
+				.transform(ReactiveLogs.debugOnNext(log, order -> log.debug("getOrder returned order: id={}, items count: {}",
+						order.id(), order.items().size())));
 	}
 
 	private Mono<OrderEntity> createOrderFromCart(Long userId, List<CartEntry> cartEntries) {
@@ -137,13 +177,15 @@ public class OrderServiceImpl implements OrderService {
 			return Mono.error(new EmptyCartException("Cannot create order from empty cart"));
 		}
 
-		log.debug("Creating order from {} cart entries for user {}", cartEntries.size(), userId);
+		if (log.isDebugEnabled()) {
+			log.debug("Creating order from {} cart entries for user {}", cartEntries.size(), userId);
+		}
 		return calculateTotalReactive(cartEntries)
-				.doOnNext(total -> log.debug("Calculated order total: {}", total))
 				.flatMap(totalSum -> {
 					OrderEntity order = new OrderEntity(null, userId, totalSum, LocalDateTime.now());
 					return orderRepository.save(order)
-							.doOnSuccess(saved -> log.debug("Order entity saved with id: {}", saved.getId()))
+							.transform(ReactiveLogs.debugOnNext(log, saved -> log.debug("Order entity saved with id: {}, total: {}",
+									saved.getId(), saved.getTotalSum())))
 							.flatMap(saved -> saveOrderItems(saved.getId(), cartEntries)
 									.thenReturn(saved));
 				});
@@ -157,15 +199,12 @@ public class OrderServiceImpl implements OrderService {
 	}
 
 	private Mono<Void> saveOrderItems(Long orderId, List<CartEntry> cartEntries) {
-		log.debug("Saving order items for order id: {}", orderId);
 		return Flux.fromIterable(cartEntries)
 				.filter(entry -> entry.getCount() > 0)
-				.doOnNext(entry -> log.debug("Saving order item: orderId={}, itemTitle={}, count={}",
-						orderId, entry.getItem().getTitle(), entry.getCount()))
 				.map(entry -> toOrderItem(orderId, entry))
 				.flatMap(orderItemRepository::save)
 				.then()
-				.doOnSuccess(v -> log.debug("All order items saved for order id: {}", orderId));
+				.transform(ReactiveLogs.debugOnComplete(log, () -> log.debug("All order items saved for order id: {}", orderId)));
 	}
 
 	private OrderItemEntity toOrderItem(Long orderId, CartEntry entry) {
@@ -186,13 +225,17 @@ public class OrderServiceImpl implements OrderService {
 						orderEntity.getId(),
 						items,
 						orderEntity.getTotalSum(),
-						orderEntity.getCreatedAt()
+						orderEntity.getCreatedAt(),
+						orderEntity.getStatus()
 				));
 	}
 
+	private Mono<Void> publishStatus(OrderEntity order) {
+		return userEventBus.publishOrderStatus(order.getUserId(), order.getId(), order.getStatus());
+	}
+
 	private Mono<OrderEntity> createPaymentForOrder(OrderEntity order) {
 		String description = "Оплата заказа #" + order.getId();
-		log.info("Creating payment for order {}, amount: {}, user: {}", order.getId(), order.getTotalSum(), order.getUserId());
 
 		return paymentClient.createPayment(order.getId(), order.getUserId(), order.getTotalSum(), description)
 				.doOnSuccess(payment -> {
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.mymarket.service.logging;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Debug logging operators for reactive pipelines that are only added while debug is enabled for the logger. With debug
+ * off the pipeline gets no operator, so it pays neither for the extra subscriber nor for the message arguments.
+ * The level is checked at assembly, i.e. on every call of the method building the pipeline.
+ * Use with {@code transform}, e.g. {@code .transform(ReactiveLogs.debugOnNext(log, page -> log.debug("{} items", page.getSize())))}.
+ */
+public final class ReactiveLogs {
+
+	private ReactiveLogs() {
+	}
+
+	public static <T> Function<Mono<T>, Mono<T>> debugOnNext(Logger log, Consumer<? super T> message) {
+		return log.isDebugEnabled() ? mono -> mono.doOnNext(message) : Function.identity();
+	}
+
+	public static <T> Function<Mono<T>, Mono<T>> debugOnComplete(Logger log, Runnable message) {
+		return log.isDebugEnabled() ? mono -> mono.doOnSuccess(ignored -> message.run()) : Function.identity();
+	}
+
+	public static <T> Function<Flux<T>, Flux<T>> debugOnNextMany(Logger log, Consumer<? super T> message) {
+		return log.isDebugEnabled() ? flux -> flux.doOnNext(message) : Function.identity();
+	}
+}
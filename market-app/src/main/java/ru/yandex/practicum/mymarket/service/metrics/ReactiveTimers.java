@@ -0,0 +1,109 @@
+package ru.yandex.practicum.mymarket.service.metrics;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Timers for reactive pipelines: the time from subscription to the terminal signal, tagged with an {@code outcome}
+ * of {@code success}, {@code cancelled} or, for errors, {@code error} or a value of the given error classifier.
+ * Use with {@code transform}, e.g. {@code .transform(ReactiveTimers.timed(registry, "market.items", Tags.of("operation", "get")))}.
+ * <p>
+ * The {@code traced} variants also observe the pipeline as a span with the same tags and outcome. Its parent is the
+ * observation in the subscriber context (the request, an enclosing span), and WebClient calls and R2DBC statements made
+ * inside become its children. The spans are {@link SpanContext}s, which do not produce meters of their own.
+ */
+public final class ReactiveTimers {
+
+	public static final String OUTCOME_TAG = "outcome";
+
+	private ReactiveTimers() {
+	}
+
+	public static <T> Function<Mono<T>, Mono<T>> timed(MeterRegistry registry, String name, Tags tags) {
+		return timed(registry, name, tags, error -> "error");
+	}
+
+	public static <T> Function<Mono<T>, Mono<T>> timed(MeterRegistry registry, String name, Tags tags,
+	                                                 Function<Throwable, String> errorOutcome) {
+		return mono -> Mono.defer(() -> {
+			Timer.Sample sample = Timer.start(registry);
+			AtomicReference<Throwable> error = new AtomicReference<>();
+			return mono
+					.doOnError(error::set)
+					.doFinally(signal -> stop(sample, registry, name, tags, outcome(signal, error.get(), errorOutcome)));
+		});
+	}
+
+	public static <T> Function<Mono<T>, Mono<T>> traced(MeterRegistry meterRegistry, ObservationRegistry observationRegistry,
+	                                                  String name, String spanName, Tags tags) {
+		return traced(meterRegistry, observationRegistry, name, spanName, tags, error -> "error");
+	}
+
+	public static <T> Function<Mono<T>, Mono<T>> traced(MeterRegistry meterRegistry, ObservationRegistry observationRegistry,
+	                                                  String name, String spanName, Tags tags,
+	                                                  Function<Throwable, String> errorOutcome) {
+		return mono -> Mono.deferContextual(context -> {
+			Observation observation = Observation.createNotStarted(name, SpanContext::new, observationRegistry)
+					.contextualName(spanName);
+			Observation parent = context.getOrDefault(ObservationThreadLocalAccessor.KEY, null);
+			if (parent != null) {
+				observation.parentObservation(parent);
+			}
+			tags.forEach(tag -> observation.lowCardinalityKeyValue(tag.getKey(), tag.getValue()));
+			observation.start();
+			Timer.Sample sample = Timer.start(meterRegistry);
+			AtomicReference<Throwable> error = new AtomicReference<>();
+			return mono
+					.doOnError(error::set)
+					.doFinally(signal -> {
+						String outcome = outcome(signal, error.get(), errorOutcome);
+						stop(sample, meterRegistry, name, tags, outcome);
+						if (error.get() != null) {
+							observation.error(error.get());
+						}
+						observation.lowCardinalityKeyValue(OUTCOME_TAG, outcome).stop();
+					})
+					.contextWrite(downstream -> downstream.put(ObservationThreadLocalAccessor.KEY, observation));
+		});
+	}
+
+	public static <T> Function<Flux<T>, Flux<T>> timedMany(MeterRegistry registry, String name, Tags tags) {
+		return flux -> Flux.defer(() -> {
+			Timer.Sample sample = Timer.start(registry);
+			AtomicReference<Throwable> error = new AtomicReference<>();
+			return flux
+					.doOnError(error::set)
+					.doFinally(signal -> stop(sample, registry, name, tags, outcome(signal, error.get(), e -> "error")));
+		});
+	}
+
+	private static String outcome(SignalType signal, Throwable error, Function<Throwable, String> errorOutcome) {
+		return switch (signal) {
+			case ON_ERROR -> errorOutcome.apply(error);
+			case CANCEL -> "cancelled";
+			default -> "success";
+		};
+	}
+
+	private static void stop(Timer.Sample sample, MeterRegistry registry, String name, Tags tags, String outcome) {
+		sample.stop(Timer.builder(name)
+				.tags(tags.and(OUTCOME_TAG, outcome))
+				.register(registry));
+	}
+
+	/**
+	 * Context of the spans of {@code traced} pipelines, which are timed by {@code ReactiveTimers} itself.
+	 */
+	public static final class SpanContext extends Observation.Context {
+	}
+}
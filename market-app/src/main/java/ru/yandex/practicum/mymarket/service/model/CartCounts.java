@@ -0,0 +1,86 @@
+package ru.yandex.practicum.mymarket.service.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+import ru.yandex.practicum.mymarket.dto.response.ItemResponseDto;
+
+/**
+ * Item counts of one cart as parallel primitive arrays sorted by item id,
+ * so a lookup is a binary search without boxing.
+ */
+public final class CartCounts {
+
+	public static final CartCounts EMPTY = new CartCounts(new long[0], new int[0]);
+
+	private final long[] itemIds;
+	private final int[] counts;
+
+	private CartCounts(long[] itemIds, int[] counts) {
+		this.itemIds = itemIds;
+		this.counts = counts;
+	}
+
+	public static CartCounts of(List<CartLine> lines) {
+		if (lines.isEmpty()) {
+			return EMPTY;
+		}
+		long[] itemIds = new long[lines.size()];
+		int[] counts = new int[lines.size()];
+		for (int i = 0; i < lines.size(); i++) {
+			CartLine line = lines.get(i);
+			int position = i;
+			while (position > 0 && itemIds[position - 1] > line.itemId()) {
+				itemIds[position] = itemIds[position - 1];
+				counts[position] = counts[position - 1];
+				position--;
+			}
+			itemIds[position] = line.itemId();
+			counts[position] = line.count();
+		}
+		return new CartCounts(itemIds, counts);
+	}
+
+	public int count(long itemId) {
+		int index = Arrays.binarySearch(itemIds, itemId);
+		return index >= 0 ? counts[index] : 0;
+	}
+
+	/**
+	 * Catalog items with their counts in this cart. Returns {@code items} itself when every count already matches,
+	 * otherwise a view that creates a new DTO only for the items whose count differs.
+	 */
+	public List<ItemResponseDto> overlay(List<ItemResponseDto> items) {
+		for (ItemResponseDto item : items) {
+			if (item.count() != count(item.id())) {
+				return new Overlay(items);
+			}
+		}
+		return items;
+	}
+
+	private final class Overlay extends AbstractList<ItemResponseDto> {
+
+		private final List<ItemResponseDto> items;
+
+		private Overlay(List<ItemResponseDto> items) {
+			this.items = items;
+		}
+
+		@Override
+		public ItemResponseDto get(int index) {
+			ItemResponseDto item = items.get(index);
+			int countInCart = count(item.id());
+			if (item.count() == countInCart) {
+				return item;
+			}
+			return new ItemResponseDto(item.id(), item.title(), item.description(), item.imgPath(), item.price(), countInCart);
+		}
+
+		@Override
+		public int size() {
+			return items.size();
+		}
+	}
+}
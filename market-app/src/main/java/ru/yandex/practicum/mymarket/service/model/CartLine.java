@@ -0,0 +1,4 @@
+package ru.yandex.practicum.mymarket.service.model;
+
+public record CartLine(Long itemId, int count) {
+}
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.mymarket.service.model;
+
+import ru.yandex.practicum.mymarket.dto.response.CartSummaryResponseDto;
+
+/**
+ * New count of a changed cart line and the cart summary adjusted in the same step,
+ * or a {@code null} summary when the user has none to adjust.
+ */
+public record CartLineChange(int count, CartSummaryResponseDto summary) {
+}
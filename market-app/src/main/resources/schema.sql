@@ -61,6 +61,10 @@ CREATE TABLE IF NOT EXISTS cart_items (
     CONSTRAINT uk_cart_items_user_item UNIQUE (user_id, item_id)
 );
 
+-- Версии изменений строк корзины: берутся после блокировки строки,
+-- поэтому более позднее изменение строки всегда получает большую версию
+CREATE SEQUENCE IF NOT EXISTS cart_line_versions;
+
 -- Индексы для оптимизации поиска
 CREATE INDEX IF NOT EXISTS idx_users_username ON users(username);
 CREATE INDEX IF NOT EXISTS idx_items_title ON items(title);
@@ -70,3 +74,42 @@ CREATE INDEX IF NOT EXISTS idx_orders_created_at ON orders(created_at DESC);
 CREATE INDEX IF NOT EXISTS idx_orders_status ON orders(status);
 CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items(order_id);
 CREATE INDEX IF NOT EXISTS idx_cart_items_user_id ON cart_items(user_id);
+
+-- Уведомления об изменениях каталога для инвалидации кэша
+-- (канал catalog_changes, payload "<scope>:<id товара>:<id транзакции>"):
+-- listing - товар добавлен/удалён или изменены поля поиска, price - изменена только цена (сортировка по цене),
+-- content - изменены только прочие поля, image - изменено изображение.
+-- По id транзакции экземпляры приложения поднимают версию каталога один раз на изменение.
+-- Тело функции в одинарных кавычках: скрипт инициализации делит команды по ';' вне кавычек.
+CREATE OR REPLACE FUNCTION notify_catalog_change() RETURNS trigger AS '
+DECLARE
+    scope TEXT;
+    changed_item_id BIGINT;
+BEGIN
+    IF TG_TABLE_NAME = ''item_images'' THEN
+        scope := ''image'';
+        changed_item_id := COALESCE(NEW.item_id, OLD.item_id);
+    ELSE
+        IF TG_OP <> ''UPDATE''
+                OR NEW.title IS DISTINCT FROM OLD.title
+                OR NEW.description IS DISTINCT FROM OLD.description THEN
+            scope := ''listing'';
+        ELSIF NEW.price IS DISTINCT FROM OLD.price THEN
+            scope := ''price'';
+        ELSE
+            scope := ''content'';
+        END IF;
+        changed_item_id := COALESCE(NEW.id, OLD.id);
+    END IF;
+    PERFORM pg_notify(''catalog_changes'', scope || '':'' || changed_item_id || '':'' || txid_current());
+    RETURN NULL;
+END
+' LANGUAGE plpgsql;
+
+CREATE OR REPLACE TRIGGER trg_items_catalog_change
+    AFTER INSERT OR UPDATE OR DELETE ON items
+    FOR EACH ROW EXECUTE FUNCTION notify_catalog_change();
+
+CREATE OR REPLACE TRIGGER trg_item_images_catalog_change
+    AFTER INSERT OR UPDATE OR DELETE ON item_images
+    FOR EACH ROW EXECUTE FUNCTION notify_catalog_change();
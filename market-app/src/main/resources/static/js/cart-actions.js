@@ -0,0 +1,66 @@
+/*
+ * Кнопки +/- на витрине и в карточке товара: действие отправляется в POST /api/cart/line,
+ * в ответ приходит новое количество товара и сводка корзины, и обновляются только счётчик и сумма.
+ * Если запрос не удался (например, истекла сессия), форма отправляется обычным способом.
+ */
+(function () {
+    function updateTotal(total) {
+        document.querySelectorAll('[data-cart-total]').forEach(function (element) {
+            element.textContent = total + ' ₽';
+        });
+    }
+
+    function updateLine(form, line) {
+        form.querySelectorAll('[data-cart-count]').forEach(function (element) {
+            element.textContent = line.count;
+        });
+        form.querySelectorAll('[data-cart-add]').forEach(function (element) {
+            element.classList.toggle('d-none', line.count > 0);
+        });
+        updateTotal(line.summary.total);
+    }
+
+    function submitAsPage(form, action) {
+        var input = document.createElement('input');
+        input.type = 'hidden';
+        input.name = 'action';
+        input.value = action;
+        form.appendChild(input);
+        form.submit();
+    }
+
+    document.querySelectorAll('form[data-cart-item]').forEach(function (form) {
+        form.addEventListener('submit', function (event) {
+            var action = event.submitter ? event.submitter.value : null;
+            if (!action) {
+                return;
+            }
+            event.preventDefault();
+
+            var buttons = form.querySelectorAll('button');
+            buttons.forEach(function (button) { button.disabled = true; });
+
+            fetch('/api/cart/line', {
+                method: 'POST',
+                headers: {'Accept': 'application/json'},
+                body: new URLSearchParams({id: form.dataset.cartItem, action: action}),
+                redirect: 'manual'
+            })
+                .then(function (response) {
+                    if (!response.ok) {
+                        throw new Error('HTTP ' + response.status);
+                    }
+                    return response.json();
+                })
+                .then(function (line) {
+                    updateLine(form, line);
+                })
+                .catch(function () {
+                    submitAsPage(form, action);
+                })
+                .finally(function () {
+                    buttons.forEach(function (button) { button.disabled = false; });
+                });
+        });
+    });
+})();
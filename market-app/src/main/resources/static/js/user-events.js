@@ -0,0 +1,35 @@
+/*
+ * Подписка на события текущего пользователя (GET /api/events): изменения корзины из других вкладок
+ * обновляют сумму корзины, смена статуса заказа обновляет бейдж статуса на странице заказа. Текущий статус
+ * страница заказа получает при отрисовке, поток доносит только последующие изменения.
+ */
+(function () {
+    if (!window.EventSource) {
+        return;
+    }
+
+    var statusTitles = {PENDING: 'Ожидает оплаты', PAID: 'Оплачен', FAILED: 'Ошибка оплаты'};
+    var statusClasses = {PENDING: 'text-bg-warning', PAID: 'text-bg-success', FAILED: 'text-bg-danger'};
+
+    var events = new EventSource('/api/events');
+
+    events.addEventListener('cart', function (event) {
+        var summary = JSON.parse(event.data);
+        document.querySelectorAll('[data-cart-total]').forEach(function (element) {
+            element.textContent = summary.total + ' ₽';
+        });
+    });
+
+    events.addEventListener('order', function (event) {
+        var order = JSON.parse(event.data);
+        document.querySelectorAll('[data-order-status="' + order.orderId + '"]').forEach(function (element) {
+            element.textContent = statusTitles[order.status] || order.status;
+            element.classList.remove('d-none', 'text-bg-warning', 'text-bg-success', 'text-bg-danger');
+            element.classList.add(statusClasses[order.status] || 'text-bg-secondary');
+        });
+    });
+
+    window.addEventListener('beforeunload', function () {
+        events.close();
+    });
+})();
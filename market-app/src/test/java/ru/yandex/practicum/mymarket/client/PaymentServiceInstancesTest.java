@@ -0,0 +1,103 @@
+package ru.yandex.practicum.mymarket.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class PaymentServiceInstancesTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final PaymentServiceInstances instances = new PaymentServiceInstances(
+			List.of("http://payment-1:8081", "http://payment-2:8081"), WebClient.create(), meterRegistry);
+	private final PaymentServiceInstance first = instances.all().get(0);
+	private final PaymentServiceInstance second = instances.all().get(1);
+
+	@Test
+	void balancesOverHealthyInstances() {
+		first.recordSuccess();
+		second.recordSuccess();
+
+		Set<String> chosen = new HashSet<>();
+		for (int i = 0; i < 4; i++) {
+			chosen.add(instances.choose().url());
+		}
+
+		assertEquals(Set.of(first.url(), second.url()), chosen);
+	}
+
+	@Test
+	void prefersInstanceWithFewestCallsInFlight() {
+		first.recordSuccess();
+		second.recordSuccess();
+		Sinks.Empty<Void> slowCall = Sinks.empty();
+		slowCall.asMono().transform(instances.tracked(first)).subscribe();
+
+		for (int i = 0; i < 4; i++) {
+			assertEquals(second, instances.choose());
+		}
+		assertEquals(1, meterRegistry.get("payment.client.instance.outstanding").tag("instance", first.url())
+				.gauge().value());
+
+		slowCall.tryEmitEmpty();
+		assertEquals(0, first.outstanding());
+	}
+
+	@Test
+	void skipsUnhealthyInstanceAndReportsIt() {
+		first.recordSuccess();
+		second.recordSuccess();
+		List<PaymentServiceInstance> reported = new ArrayList<>();
+		instances.onUnhealthy(reported::add);
+
+		for (int i = 0; i < PaymentServiceInstance.FAILURE_THRESHOLD; i++) {
+			Mono.error(new TimeoutException()).transform(instances.tracked(second)).onErrorComplete().block();
+		}
+
+		assertEquals(List.of(second), reported);
+		assertFalse(second.isHealthy());
+		for (int i = 0; i < 4; i++) {
+			assertEquals(first, instances.choose());
+		}
+		assertEquals(0, meterRegistry.get("payment.client.instance.healthy").tag("instance", second.url())
+				.gauge().value());
+	}
+
+	@Test
+	void clientErrorsDoNotCountAgainstTheInstance() {
+		first.recordSuccess();
+
+		for (int i = 0; i < PaymentServiceInstance.FAILURE_THRESHOLD; i++) {
+			Mono.error(WebClientResponseException.create(HttpStatus.PAYMENT_REQUIRED.value(), "Payment Required",
+					null, null, null)).transform(instances.tracked(first)).onErrorComplete().block();
+		}
+
+		assertTrue(first.isHealthy());
+	}
+
+	@Test
+	void usesAllInstancesWhileNoneIsHealthy() {
+		assertFalse(instances.anyHealthy());
+
+		Set<String> chosen = new HashSet<>();
+		for (int i = 0; i < 4; i++) {
+			chosen.add(instances.choose().url());
+		}
+
+		assertEquals(2, chosen.size());
+	}
+}
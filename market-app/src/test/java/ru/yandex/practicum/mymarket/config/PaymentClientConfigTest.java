@@ -1,12 +1,27 @@
 package ru.yandex.practicum.mymarket.config;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.client.registration.InMemoryReactiveClientRegistrationRepository;
 import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.reactive.function.client.WebClient;
-import ru.yandex.practicum.payment.client.invoker.ApiClient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import reactor.netty.resources.ConnectionProvider;
+import ru.yandex.practicum.mymarket.client.PaymentServiceInstance;
+import ru.yandex.practicum.mymarket.client.PaymentServiceInstances;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -25,30 +40,101 @@ class PaymentClientConfigTest {
 		PaymentClientConfig config = new PaymentClientConfig();
 		ReactiveClientRegistrationRepository repository = createTestRepository();
 
+		ConnectionProvider provider = ConnectionProvider.create("payment-service-test", 1);
+
 		WebClient webClient = config.paymentWebClient(
 				WebClient.builder(),
-				config.authorizedClientManager(repository));
+				config.authorizedClientManager(repository),
+				provider,
+				true,
+				Duration.ofSeconds(2));
 
 		assertThat(webClient).isNotNull();
+		provider.dispose();
+	}
+
+	@Test
+	void shouldPostThroughHttp2ClientToHttp11Server() throws IOException, InterruptedException {
+		try (MockWebServer server = new MockWebServer()) {
+			server.setDispatcher(new Dispatcher() {
+				@Override
+				public MockResponse dispatch(RecordedRequest request) {
+					if ("/token".equals(request.getPath())) {
+						return new MockResponse()
+								.setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+								.setBody("{\"access_token\":\"test-token\",\"token_type\":\"Bearer\",\"expires_in\":300}");
+					}
+					return new MockResponse()
+							.setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+							.setBody(request.getBody().clone().readUtf8());
+				}
+			});
+			server.start();
+			PaymentClientConfig config = new PaymentClientConfig();
+			ConnectionProvider provider = ConnectionProvider.create("payment-service-h2c-test", 1);
+			WebClient webClient = config.paymentWebClient(
+					WebClient.builder(),
+					config.authorizedClientManager(createTestRepository(server.url("/token").toString())),
+					provider,
+					true,
+					Duration.ofSeconds(2));
+
+			String body = "{\"userId\":1,\"amount\":1500}";
+			String response = webClient.post()
+					.uri(server.url("/api/payments").toString())
+					.contentType(MediaType.APPLICATION_JSON)
+					.bodyValue(body)
+					.retrieve()
+					.bodyToMono(String.class)
+					.block(Duration.ofSeconds(5));
+
+			assertThat(response).isEqualTo(body);
+			assertThat(server.takeRequest(1, TimeUnit.SECONDS).getPath()).isEqualTo("/token");
+			RecordedRequest payment = server.takeRequest(1, TimeUnit.SECONDS);
+			assertThat(payment.getMethod()).isEqualTo("POST");
+			assertThat(payment.getHeader(HttpHeaders.UPGRADE)).isEqualTo("h2c");
+			assertThat(payment.getHeader(HttpHeaders.AUTHORIZATION)).isEqualTo("Bearer test-token");
+			assertThat(payment.getBody().readUtf8()).isEqualTo(body);
+			provider.dispose();
+		}
 	}
 
 	@Test
-	void shouldCreatePaymentApiClient() {
+	void shouldCreateBoundedPaymentConnectionProvider() {
 		PaymentClientConfig config = new PaymentClientConfig();
+
+		ConnectionProvider provider = config.paymentConnectionProvider(10, 20, Duration.ofSeconds(1),
+				Duration.ofSeconds(30), Duration.ofMinutes(5), Duration.ofSeconds(30));
+
+		assertThat(provider.maxConnections()).isEqualTo(10);
+		provider.dispose();
+	}
+
+	@Test
+	void shouldCreateInstanceForEveryPaymentServiceUrl() {
+		PaymentClientConfig config = new PaymentClientConfig();
+		ReflectionTestUtils.setField(config, "paymentServiceUrl", "http://payment-1:8081, http://payment-2:8081");
 		WebClient webClient = WebClient.builder().build();
 
-		ApiClient apiClient = config.paymentApiClient(webClient);
+		PaymentServiceInstances instances = config.paymentServiceInstances(webClient, new SimpleMeterRegistry());
 
-		assertThat(apiClient).isNotNull();
+		assertThat(instances.all())
+				.extracting(PaymentServiceInstance::url)
+				.containsExactly("http://payment-1:8081", "http://payment-2:8081");
+		assertThat(instances.all().get(0).apiClient().getBasePath()).isEqualTo("http://payment-1:8081");
 	}
 
 	private ReactiveClientRegistrationRepository createTestRepository() {
+		return createTestRepository("http://localhost:8180/token");
+	}
+
+	private ReactiveClientRegistrationRepository createTestRepository(String tokenUri) {
 		ClientRegistration registration = ClientRegistration
 				.withRegistrationId("market-app")
 				.clientId("test-client")
 				.clientSecret("test-secret")
 				.authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
-				.tokenUri("http://localhost:8180/token")
+				.tokenUri(tokenUri)
 				.build();
 
 		return new InMemoryReactiveClientRegistrationRepository(registration);
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.mymarket.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import ru.yandex.practicum.mymarket.dto.response.CachedItemIdsPageDto;
+import ru.yandex.practicum.mymarket.dto.response.ItemDetailsResponseDto;
+
+class RedisConfigTest {
+
+	private final RedisSerializer<Object> serializer = RedisConfig.cacheValueSerializer();
+
+	@Test
+	void cacheValueSerializer_readsBackCachedTypes() {
+		ItemDetailsResponseDto item = new ItemDetailsResponseDto(1L, "Phone", "desc", "img", 100L, 0);
+		CachedItemIdsPageDto page = new CachedItemIdsPageDto(List.copyOf(List.of(3L, 1L, 2L)), 0, 50, 3);
+
+		assertEquals(item, serializer.deserialize(serializer.serialize(item)));
+		assertEquals(page, serializer.deserialize(serializer.serialize(page)));
+	}
+}
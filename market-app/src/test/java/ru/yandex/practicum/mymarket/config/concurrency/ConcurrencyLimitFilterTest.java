@@ -0,0 +1,81 @@
+package ru.yandex.practicum.mymarket.config.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class ConcurrencyLimitFilterTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	// 10 in flight at most: 7 for anonymous browsing, 9 for signed-in users
+	private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+			new GradientConcurrencyLimit(10, 10, 10), Duration.ofSeconds(2), meterRegistry);
+	private final Sinks.Empty<Void> pending = Sinks.empty();
+	private final WebFilterChain hangingChain = exchange -> pending.asMono();
+
+	@Test
+	void shedsAnonymousBrowsingBeforeCheckout() {
+		for (int i = 0; i < 7; i++) {
+			filter.filter(anonymous("/api/items"), hangingChain).subscribe();
+		}
+
+		MockServerWebExchange browse = anonymous("/api/items");
+		StepVerifier.create(filter.filter(browse, hangingChain)).verifyComplete();
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, browse.getResponse().getStatusCode());
+		assertEquals("2", browse.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+		MockServerWebExchange cartView = MockServerWebExchange.from(MockServerHttpRequest.get("/api/cart/items")
+				.cookie(new HttpCookie("SESSION", "s")));
+		filter.filter(cartView, hangingChain).subscribe();
+		assertNull(cartView.getResponse().getStatusCode());
+
+		MockServerWebExchange checkout = MockServerWebExchange.from(MockServerHttpRequest.post("/api/buy"));
+		filter.filter(checkout, hangingChain).subscribe();
+		assertNull(checkout.getResponse().getStatusCode());
+
+		assertEquals(1, meterRegistry.get("http.server.requests.rejected").tag("priority", "anonymous_browsing")
+				.counter().count());
+		assertEquals(9, meterRegistry.get("http.server.concurrency.inflight").gauge().value());
+	}
+
+	@Test
+	void releasesPermitsWhenRequestsComplete() {
+		for (int i = 0; i < 7; i++) {
+			filter.filter(anonymous("/items"), hangingChain).subscribe();
+		}
+		pending.tryEmitEmpty();
+
+		MockServerWebExchange browse = anonymous("/items");
+		StepVerifier.create(filter.filter(browse, exchange -> pending.asMono())).verifyComplete();
+
+		assertNull(browse.getResponse().getStatusCode());
+		assertEquals(0, meterRegistry.get("http.server.concurrency.inflight").gauge().value());
+	}
+
+	@Test
+	void doesNotLimitStaticResourcesAndEvents() {
+		for (int i = 0; i < 12; i++) {
+			filter.filter(anonymous("/api/events"), hangingChain).subscribe();
+			filter.filter(anonymous("/css/styles.css"), hangingChain).subscribe();
+		}
+
+		assertEquals(0, meterRegistry.get("http.server.concurrency.inflight").gauge().value());
+	}
+
+	private static MockServerWebExchange anonymous(String path) {
+		return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+	}
+}
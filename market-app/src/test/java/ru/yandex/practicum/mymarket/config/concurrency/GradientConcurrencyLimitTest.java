@@ -0,0 +1,70 @@
+package ru.yandex.practicum.mymarket.config.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class GradientConcurrencyLimitTest {
+
+	private static final long BASELINE = TimeUnit.MILLISECONDS.toNanos(20);
+
+	@Test
+	void growsWhileLatencyStaysFlat() {
+		GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 10, 100);
+
+		for (int i = 0; i < 50; i++) {
+			limit.onSample(BASELINE, limit.limit());
+		}
+
+		assertTrue(limit.limit() > 20, "limit " + limit.limit());
+	}
+
+	@Test
+	void shrinksWhenRequestsStartQueueing() {
+		GradientConcurrencyLimit limit = new GradientConcurrencyLimit(50, 10, 100);
+		for (int i = 0; i < 20; i++) {
+			limit.onSample(BASELINE, 25);
+		}
+		int before = limit.limit();
+
+		for (int i = 0; i < 20; i++) {
+			limit.onSample(BASELINE * 5, limit.limit());
+		}
+
+		assertTrue(limit.limit() < before, "limit " + limit.limit() + ", before " + before);
+	}
+
+	@Test
+	void staysWithinBounds() {
+		GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 10, 30);
+		for (int i = 0; i < 200; i++) {
+			limit.onSample(BASELINE, limit.limit());
+		}
+		assertEquals(30, limit.limit());
+
+		for (int i = 0; i < 30; i++) {
+			limit.onSample(BASELINE * 100, limit.limit());
+		}
+		assertEquals(10, limit.limit());
+	}
+
+	@Test
+	void ignoresSamplesFarBelowTheLimit() {
+		GradientConcurrencyLimit limit = new GradientConcurrencyLimit(40, 10, 100);
+
+		for (int i = 0; i < 50; i++) {
+			limit.onSample(BASELINE, 5);
+		}
+
+		assertEquals(40, limit.limit());
+	}
+
+	@Test
+	void rejectsInconsistentBounds() {
+		assertThrows(IllegalArgumentException.class, () -> new GradientConcurrencyLimit(5, 10, 100));
+	}
+}
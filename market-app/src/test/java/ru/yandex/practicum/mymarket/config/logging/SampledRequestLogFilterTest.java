@@ -0,0 +1,73 @@
+package ru.yandex.practicum.mymarket.config.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class SampledRequestLogFilterTest {
+
+	private Logger logger;
+	private ListAppender<ILoggingEvent> appender;
+
+	@BeforeEach
+	void setUp() {
+		logger = (Logger) LoggerFactory.getLogger(SampledRequestLogFilter.class);
+		appender = new ListAppender<>();
+		appender.start();
+		logger.addAppender(appender);
+	}
+
+	@AfterEach
+	void tearDown() {
+		logger.detachAppender(appender);
+	}
+
+	@Test
+	void logsSampledRequests() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/items"));
+
+		StepVerifier.create(new SampledRequestLogFilter(1.0).filter(exchange, ex -> {
+			ex.getResponse().setStatusCode(HttpStatus.OK);
+			return Mono.empty();
+		})).verifyComplete();
+
+		assertEquals(1, appender.list.size());
+		assertTrue(appender.list.get(0).getFormattedMessage().startsWith("GET /api/items 200 "));
+	}
+
+	@Test
+	void skipsUnsampledRequests() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/items"));
+
+		StepVerifier.create(new SampledRequestLogFilter(0).filter(exchange, ex -> {
+			ex.getResponse().setStatusCode(HttpStatus.OK);
+			return Mono.empty();
+		})).verifyComplete();
+
+		assertEquals(0, appender.list.size());
+	}
+
+	@Test
+	void alwaysLogsFailedRequests() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/buy"));
+
+		StepVerifier.create(new SampledRequestLogFilter(0).filter(exchange, ex -> Mono.error(new IllegalStateException())))
+				.verifyError(IllegalStateException.class);
+
+		assertEquals(1, appender.list.size());
+		assertTrue(appender.list.get(0).getFormattedMessage().startsWith("POST /api/buy error "));
+	}
+}
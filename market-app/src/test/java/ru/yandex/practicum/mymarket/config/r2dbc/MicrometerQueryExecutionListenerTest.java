@@ -0,0 +1,26 @@
+package ru.yandex.practicum.mymarket.config.r2dbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class MicrometerQueryExecutionListenerTest {
+
+	@Test
+	void statementType_usesLeadingKeyword() {
+		assertEquals("select", MicrometerQueryExecutionListener.statementType("  SELECT * FROM items"));
+		assertEquals("insert", MicrometerQueryExecutionListener.statementType("insert into orders values ($1)"));
+		assertEquals("update", MicrometerQueryExecutionListener.statementType("UPDATE orders SET status = $1"));
+		assertEquals("delete", MicrometerQueryExecutionListener.statementType("DELETE FROM cart_items"));
+		assertEquals("other", MicrometerQueryExecutionListener.statementType("LISTEN catalog_changes"));
+	}
+
+	@Test
+	void statementType_ignoresCaseAndTagsCommonTableExpressions() {
+		assertEquals("select", MicrometerQueryExecutionListener.statementType("\n\tselect count FROM cart_items"));
+		assertEquals("delete", MicrometerQueryExecutionListener.statementType("Delete FROM cart_items"));
+		assertEquals("with", MicrometerQueryExecutionListener.statementType("WITH decremented AS (UPDATE cart_items)"));
+		assertEquals("with", MicrometerQueryExecutionListener.statementType("  with deleted AS (DELETE FROM cart_items)"));
+		assertEquals("other", MicrometerQueryExecutionListener.statementType(""));
+	}
+}
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.mymarket.config.r2dbc;
+
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.test.StepVerifier;
+
+class ReadOnlyRoutingConnectionFactoryTest {
+
+	private ReadOnlyRoutingConnectionFactory connectionFactory;
+
+	@BeforeEach
+	void setUp() {
+		connectionFactory = new ReadOnlyRoutingConnectionFactory(mock(ConnectionFactory.class), mock(ConnectionFactory.class));
+		connectionFactory.afterPropertiesSet();
+	}
+
+	@Test
+	void determineCurrentLookupKey_shouldRouteToWritePoolByDefault() {
+		StepVerifier.create(connectionFactory.determineCurrentLookupKey())
+				.expectNext(ReadOnlyRoutingConnectionFactory.WRITE)
+				.verifyComplete();
+	}
+
+	@Test
+	void determineCurrentLookupKey_shouldRouteReadOnlyTransactionsToReadPool() {
+		StepVerifier.create(connectionFactory.determineCurrentLookupKey()
+						.contextWrite(context -> context.put(ReadOnlyRoutingConnectionFactory.READ_ONLY_KEY, true)))
+				.expectNext(ReadOnlyRoutingConnectionFactory.READ)
+				.verifyComplete();
+	}
+
+	@Test
+	void determineCurrentLookupKey_shouldRouteReadWriteTransactionsToWritePool() {
+		StepVerifier.create(connectionFactory.determineCurrentLookupKey()
+						.contextWrite(context -> context.put(ReadOnlyRoutingConnectionFactory.READ_ONLY_KEY, false)))
+				.expectNext(ReadOnlyRoutingConnectionFactory.WRITE)
+				.verifyComplete();
+	}
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.mymarket.config.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class DependencyGuardTest {
+
+	private final CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("redis");
+	private final DependencyGuard guard = new DependencyGuard(circuitBreaker, Bulkhead.of("redis",
+			BulkheadConfig.custom().maxConcurrentCalls(1).maxWaitDuration(Duration.ZERO).build()));
+
+	@Test
+	void rejectsCallsBeyondTheBulkheadWithoutRecordingFailures() {
+		Sinks.One<String> pending = Sinks.one();
+		pending.asMono().transform(guard.mono()).subscribe();
+
+		StepVerifier.create(Mono.just("value").transform(guard.mono()))
+				.verifyError(BulkheadFullException.class);
+
+		assertEquals(0, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+		pending.tryEmitValue("done");
+		assertEquals(1, circuitBreaker.getMetrics().getNumberOfSuccessfulCalls());
+		assertEquals(1, guard.bulkhead().getMetrics().getAvailableConcurrentCalls());
+	}
+
+	@Test
+	void failsFastWhileTheCircuitIsOpen() {
+		circuitBreaker.transitionToOpenState();
+
+		StepVerifier.create(Mono.just("value").transform(guard.mono()))
+				.verifyError(CallNotPermittedException.class);
+
+		assertEquals(1, guard.bulkhead().getMetrics().getAvailableConcurrentCalls());
+	}
+}
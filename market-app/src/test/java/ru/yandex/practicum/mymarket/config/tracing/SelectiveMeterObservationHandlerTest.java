@@ -0,0 +1,49 @@
+package ru.yandex.practicum.mymarket.config.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.r2dbc.proxy.observation.QueryContext;
+import ru.yandex.practicum.mymarket.service.metrics.ReactiveTimers;
+
+class SelectiveMeterObservationHandlerTest {
+
+	private SimpleMeterRegistry meterRegistry;
+	private ObservationRegistry observationRegistry;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		observationRegistry = ObservationRegistry.create();
+		observationRegistry.observationConfig()
+				.observationHandler(new SelectiveMeterObservationHandler(new DefaultMeterObservationHandler(meterRegistry)));
+	}
+
+	@Test
+	void recordsMetersOfOtherObservations() {
+		Observation.createNotStarted("http.client.requests", observationRegistry).start().stop();
+
+		assertEquals(1, meterRegistry.get("http.client.requests").timer().count());
+	}
+
+	@Test
+	void skipsReactiveTimersSpans() {
+		Observation.createNotStarted("market.order.buy", ReactiveTimers.SpanContext::new, observationRegistry).start().stop();
+
+		assertNull(meterRegistry.find("market.order.buy").timer());
+	}
+
+	@Test
+	void skipsR2dbcQueries() {
+		Observation.createNotStarted("r2dbc.query", QueryContext::new, observationRegistry).start().stop();
+
+		assertNull(meterRegistry.find("r2dbc.query").timer());
+	}
+}
@@ -9,8 +9,9 @@ import org.springframework.web.reactive.function.BodyInserters;
 
 import reactor.core.publisher.Mono;
 import ru.yandex.practicum.mymarket.dto.request.CartUpdateRequestDto;
-import ru.yandex.practicum.mymarket.dto.response.CartItemResponseDto;
+import ru.yandex.practicum.mymarket.dto.response.CartLineResponseDto;
 import ru.yandex.practicum.mymarket.dto.response.CartStateResponseDto;
+import ru.yandex.practicum.mymarket.dto.response.CartSummaryResponseDto;
 import ru.yandex.practicum.mymarket.enums.CartAction;
 import ru.yandex.practicum.mymarket.service.CartService;
 
@@ -41,23 +42,51 @@ class ApiCartControllerTest {
 	}
 
 	@Test
-	void postCart_updatesCart() {
-		CartItemResponseDto item = new CartItemResponseDto(5L, "Title", "Desc", "img", 150L, 2);
-		CartStateResponseDto state = new CartStateResponseDto(List.of(item), 300L);
-		cartService.updateResponse = Mono.just(state);
+	void postCart_returnsLineWithSummary() {
+		CartLineResponseDto line = new CartLineResponseDto(5L, 2, new CartSummaryResponseDto(1, 2, 300L));
+		cartService.lineResponse = Mono.just(line);
 
 		webTestClient.post()
 				.uri("/api/cart/items")
 				.body(BodyInserters.fromFormData("id", "5").with("action", CartAction.PLUS.name()))
 				.exchange()
 				.expectStatus().isOk()
-				.expectBody(CartStateResponseDto.class)
-				.isEqualTo(state);
+				.expectBody(CartLineResponseDto.class)
+				.isEqualTo(line);
+	}
+
+	@Test
+	void postCartSummary_returnsSummary() {
+		CartSummaryResponseDto summary = new CartSummaryResponseDto(1, 2, 300L);
+		cartService.summaryResponse = Mono.just(summary);
+
+		webTestClient.post()
+				.uri("/api/cart/summary")
+				.body(BodyInserters.fromFormData("id", "5").with("action", CartAction.PLUS.name()))
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(CartSummaryResponseDto.class)
+				.isEqualTo(summary);
+	}
+
+	@Test
+	void postCartLine_returnsLineWithSummary() {
+		CartLineResponseDto line = new CartLineResponseDto(5L, 2, new CartSummaryResponseDto(1, 2, 300L));
+		cartService.lineResponse = Mono.just(line);
+
+		webTestClient.post()
+				.uri("/api/cart/line")
+				.body(BodyInserters.fromFormData("id", "5").with("action", CartAction.PLUS.name()))
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(CartLineResponseDto.class)
+				.isEqualTo(line);
 	}
 
 	private static class StubCartService implements CartService {
 		private Mono<CartStateResponseDto> cartResponse = Mono.empty();
-		private Mono<CartStateResponseDto> updateResponse = Mono.empty();
+		private Mono<CartSummaryResponseDto> summaryResponse = Mono.empty();
+		private Mono<CartLineResponseDto> lineResponse = Mono.empty();
 
 		@Override
 		public Mono<Void> applyCartAction(CartAction action, Long itemId, org.springframework.web.server.WebSession session) {
@@ -85,13 +114,8 @@ class ApiCartControllerTest {
 		}
 
 		@Override
-		public Mono<CartStateResponseDto> updateCart(CartUpdateRequestDto request, org.springframework.web.server.WebSession session) {
-			return updateResponse;
-		}
-
-		@Override
-		public Mono<CartStateResponseDto> applyActionAndGetCart(CartAction action, Long itemId, org.springframework.web.server.WebSession session) {
-			return Mono.empty();
+		public Mono<CartLineResponseDto> updateCart(CartUpdateRequestDto request, org.springframework.web.server.WebSession session) {
+			return applyActionAndGetLine(request.action(), request.id(), session);
 		}
 
 		@Override
@@ -103,5 +127,25 @@ class ApiCartControllerTest {
 		public Mono<Integer> getItemCountInCart(Long itemId, org.springframework.web.server.WebSession session) {
 			return Mono.just(0);
 		}
+
+		@Override
+		public Mono<ru.yandex.practicum.mymarket.service.model.CartCounts> getCartCounts(org.springframework.web.server.WebSession session) {
+			return Mono.just(ru.yandex.practicum.mymarket.service.model.CartCounts.EMPTY);
+		}
+
+		@Override
+		public Mono<CartSummaryResponseDto> getCartSummary(org.springframework.web.server.WebSession session) {
+			return summaryResponse;
+		}
+
+		@Override
+		public Mono<CartSummaryResponseDto> applyActionAndGetSummary(CartAction action, Long itemId, org.springframework.web.server.WebSession session) {
+			return summaryResponse;
+		}
+
+		@Override
+		public Mono<CartLineResponseDto> applyActionAndGetLine(CartAction action, Long itemId, org.springframework.web.server.WebSession session) {
+			return lineResponse;
+		}
 	}
 }
@@ -1,7 +1,5 @@
 package ru.yandex.practicum.mymarket.controllers;
 
-import java.util.List;
-
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.ResponseEntity;
@@ -11,8 +9,9 @@ import org.springframework.web.reactive.function.BodyInserters;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.yandex.practicum.mymarket.dto.request.ItemsFilterRequestDto;
-import ru.yandex.practicum.mymarket.dto.response.CartItemResponseDto;
+import ru.yandex.practicum.mymarket.dto.response.CartLineResponseDto;
 import ru.yandex.practicum.mymarket.dto.response.CartStateResponseDto;
+import ru.yandex.practicum.mymarket.dto.response.CartSummaryResponseDto;
 import ru.yandex.practicum.mymarket.dto.response.ItemDetailsResponseDto;
 import ru.yandex.practicum.mymarket.dto.response.ItemResponseDto;
 import ru.yandex.practicum.mymarket.enums.CartAction;
@@ -54,17 +53,16 @@ class ApiItemsControllerTest {
 
 	@Test
 	void postItems_updatesCart() {
-		CartItemResponseDto item = new CartItemResponseDto(1L, "Title", "Desc", "img", 100L, 1);
-		CartStateResponseDto cartState = new CartStateResponseDto(List.of(item), 100L);
-		cartService.updateResponse = Mono.just(cartState);
+		CartLineResponseDto line = new CartLineResponseDto(1L, 1, new CartSummaryResponseDto(1, 1, 100L));
+		cartService.updateResponse = Mono.just(line);
 
 		webTestClient.post()
 				.uri("/api/items")
 				.body(BodyInserters.fromFormData("id", "1").with("action", "PLUS"))
 				.exchange()
 				.expectStatus().isOk()
-				.expectBody(CartStateResponseDto.class)
-				.isEqualTo(cartState);
+				.expectBody(CartLineResponseDto.class)
+				.isEqualTo(line);
 	}
 
 	@Test
@@ -82,15 +80,15 @@ class ApiItemsControllerTest {
 
 	@Test
 	void postItemId_updatesCart() {
-		CartStateResponseDto state = new CartStateResponseDto(List.of(), 0);
-		cartService.updateResponse = Mono.just(state);
+		CartLineResponseDto line = new CartLineResponseDto(3L, 0, new CartSummaryResponseDto(0, 0, 0L));
+		cartService.updateResponse = Mono.just(line);
 
 		webTestClient.post()
 				.uri(uriBuilder -> uriBuilder.path("/api/items/3").queryParam("action", "DELETE").build())
 				.exchange()
 				.expectStatus().isOk()
-				.expectBody(CartStateResponseDto.class)
-				.isEqualTo(state);
+				.expectBody(CartLineResponseDto.class)
+				.isEqualTo(line);
 	}
 
 	@Test
@@ -117,7 +115,7 @@ class ApiItemsControllerTest {
 		}
 
 		@Override
-		public Mono<org.springframework.data.domain.Page<ItemResponseDto>> getItemsWithCartCounts(ItemsFilterRequestDto filter, org.springframework.data.domain.Pageable pageable, ru.yandex.practicum.mymarket.dto.response.CartStateResponseDto cart) {
+		public Mono<org.springframework.data.domain.Page<ItemResponseDto>> getItemsWithCartCounts(ItemsFilterRequestDto filter, org.springframework.data.domain.Pageable pageable, ru.yandex.practicum.mymarket.service.model.CartCounts cartCounts) {
 			return itemsPage;
 		}
 
@@ -138,7 +136,7 @@ class ApiItemsControllerTest {
 	}
 
 	private static class StubCartService implements CartService {
-		private Mono<CartStateResponseDto> updateResponse = Mono.empty();
+		private Mono<CartLineResponseDto> updateResponse = Mono.empty();
 		private Mono<CartStateResponseDto> cartResponse = Mono.empty();
 
 		@Override
@@ -167,12 +165,7 @@ class ApiItemsControllerTest {
 		}
 
 		@Override
-		public Mono<CartStateResponseDto> updateCart(ru.yandex.practicum.mymarket.dto.request.CartUpdateRequestDto request, org.springframework.web.server.WebSession session) {
-			return updateResponse;
-		}
-
-		@Override
-		public Mono<CartStateResponseDto> applyActionAndGetCart(CartAction action, Long itemId, org.springframework.web.server.WebSession session) {
+		public Mono<CartLineResponseDto> updateCart(ru.yandex.practicum.mymarket.dto.request.CartUpdateRequestDto request, org.springframework.web.server.WebSession session) {
 			return updateResponse;
 		}
 
@@ -185,5 +178,27 @@ class ApiItemsControllerTest {
 		public Mono<Integer> getItemCountInCart(Long itemId, org.springframework.web.server.WebSession session) {
 			return Mono.just(0);
 		}
+
+		@Override
+		public Mono<ru.yandex.practicum.mymarket.service.model.CartCounts> getCartCounts(org.springframework.web.server.WebSession session) {
+			return Mono.just(ru.yandex.practicum.mymarket.service.model.CartCounts.EMPTY);
+		}
+
+		@Override
+		public Mono<ru.yandex.practicum.mymarket.dto.response.CartSummaryResponseDto> getCartSummary(org.springframework.web.server.WebSession session) {
+			return Mono.empty();
+		}
+
+		@Override
+		public Mono<ru.yandex.practicum.mymarket.dto.response.CartSummaryResponseDto> applyActionAndGetSummary(
+				CartAction action, Long itemId, org.springframework.web.server.WebSession session) {
+			return Mono.empty();
+		}
+
+		@Override
+		public Mono<CartLineResponseDto> applyActionAndGetLine(
+				CartAction action, Long itemId, org.springframework.web.server.WebSession session) {
+			return updateResponse;
+		}
 	}
 }
@@ -13,6 +13,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.yandex.practicum.mymarket.dto.response.OrderItemResponseDto;
 import ru.yandex.practicum.mymarket.dto.response.OrderResponseDto;
+import ru.yandex.practicum.mymarket.entity.OrderStatus;
 import ru.yandex.practicum.mymarket.service.OrderService;
 import ru.yandex.practicum.mymarket.service.PaymentServiceHealthCheck;
 
@@ -34,7 +35,7 @@ class ApiOrdersControllerTest {
 
 	@Test
 	void buy_createsOrder() {
-		OrderResponseDto response = new OrderResponseDto(1L, List.of(), 500L, LocalDateTime.now());
+		OrderResponseDto response = new OrderResponseDto(1L, List.of(), 500L, LocalDateTime.now(), OrderStatus.PAID);
 		orderService.buyResponse = Mono.just(response);
 
 		webTestClient.post()
@@ -48,7 +49,7 @@ class ApiOrdersControllerTest {
 	@Test
 	void getOrders_returnsList() {
 		OrderItemResponseDto item = new OrderItemResponseDto("Title", 200L, 2);
-		OrderResponseDto response = new OrderResponseDto(2L, List.of(item), 400L, LocalDateTime.now());
+		OrderResponseDto response = new OrderResponseDto(2L, List.of(item), 400L, LocalDateTime.now(), OrderStatus.PAID);
 		orderService.ordersFlux = Flux.just(response);
 
 		webTestClient.get()
@@ -62,7 +63,7 @@ class ApiOrdersControllerTest {
 
 	@Test
 	void getOrder_returnsSingle() {
-		OrderResponseDto response = new OrderResponseDto(3L, List.of(), 0L, LocalDateTime.now());
+		OrderResponseDto response = new OrderResponseDto(3L, List.of(), 0L, LocalDateTime.now(), OrderStatus.PAID);
 		orderService.orderResponse = Mono.just(response);
 
 		webTestClient.get()
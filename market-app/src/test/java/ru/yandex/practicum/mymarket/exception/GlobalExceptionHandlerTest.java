@@ -7,6 +7,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import ru.yandex.practicum.mymarket.dto.response.ApiErrorResponse;
 
 class GlobalExceptionHandlerTest {
@@ -39,6 +41,15 @@ class GlobalExceptionHandlerTest {
 		assertEquals("init failed", response.getBody().message());
 	}
 
+	@Test
+	void handlesOpenCircuitAsUnavailable() {
+		CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("redis");
+		circuitBreaker.transitionToOpenState();
+		ResponseEntity<ApiErrorResponse> response = handler.handleDependencyUnavailable(
+				CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+	}
+
 	@Test
 	void handlesGeneric() {
 		ResponseEntity<ApiErrorResponse> response = handler.handleGenericException(new RuntimeException("boom"));
@@ -7,6 +7,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -15,17 +16,24 @@ import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
 import org.springframework.mock.web.server.MockServerWebExchange;
 import org.springframework.web.server.WebSession;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.yandex.practicum.mymarket.dto.request.CartUpdateRequestDto;
 import ru.yandex.practicum.mymarket.dto.response.CartItemResponseDto;
+import ru.yandex.practicum.mymarket.dto.response.CartLineResponseDto;
 import ru.yandex.practicum.mymarket.dto.response.CartStateResponseDto;
+import ru.yandex.practicum.mymarket.dto.response.CartSummaryResponseDto;
 import ru.yandex.practicum.mymarket.entity.CartItemEntity;
 import ru.yandex.practicum.mymarket.entity.ItemEntity;
 import ru.yandex.practicum.mymarket.enums.CartAction;
 import ru.yandex.practicum.mymarket.mapper.CartMapper;
 import ru.yandex.practicum.mymarket.repository.CartItemRepository;
+import ru.yandex.practicum.mymarket.repository.CartLineCount;
 import ru.yandex.practicum.mymarket.repository.ItemRepository;
+import ru.yandex.practicum.mymarket.service.cart.CartSummaryStore;
+import ru.yandex.practicum.mymarket.service.cart.impl.DatabaseCartStorage;
+import ru.yandex.practicum.mymarket.service.events.UserEventBus;
 import ru.yandex.practicum.mymarket.service.impl.CartServiceImpl;
 
 class CartServiceImplTest {
@@ -36,6 +44,8 @@ class CartServiceImplTest {
 	private ItemService itemService;
 	private UserService userService;
 	private CartServiceImpl cartService;
+	private StubCartSummaryStore cartSummaryStore;
+	private StubUserEventBus userEventBus;
 
 	private WebSession session;
 	private Map<String, CartItemEntity> cartItemStorage;
@@ -46,11 +56,14 @@ class CartServiceImplTest {
 		session = exchange.getSession().block();
 
 		cartItemStorage = new ConcurrentHashMap<>();
+		cartSummaryStore = new StubCartSummaryStore();
+		userEventBus = new StubUserEventBus();
 
 		ItemEntity item = new ItemEntity(1L, "Test", "Desc", 100L, "img");
 
 		itemRepository = new StubItemRepository(item);
 
+		AtomicLong versions = new AtomicLong();
 		cartItemRepository = new CartItemRepository() {
 			@Override
 			public <S extends CartItemEntity> Mono<S> save(S entity) {
@@ -181,6 +194,66 @@ class CartServiceImplTest {
 				cartItemStorage.remove(key);
 				return Mono.empty();
 			}
+
+			@Override
+			public Mono<Integer> lockCartWriteBack(Long userId) {
+				return Mono.just(1);
+			}
+
+			@Override
+			public Mono<CartLineCount> removeLine(Long userId, Long itemId) {
+				CartItemEntity removed = cartItemStorage.remove(userId + "-" + itemId);
+				return removed == null ? Mono.empty() : Mono.just(new CartLineCount(0, versions.incrementAndGet()));
+			}
+
+			@Override
+			public Mono<CartLineCount> incrementCount(Long userId, Long itemId) {
+				String key = userId + "-" + itemId;
+				CartItemEntity updated = cartItemStorage.compute(key, (k, existing) -> {
+					if (existing == null) {
+						CartItemEntity created = new CartItemEntity();
+						created.setId((long) (cartItemStorage.size() + 1));
+						created.setUserId(userId);
+						created.setItemId(itemId);
+						created.setCount(1);
+						return created;
+					}
+					existing.setCount(existing.getCount() + 1);
+					return existing;
+				});
+				return Mono.just(new CartLineCount(updated.getCount(), versions.incrementAndGet()));
+			}
+
+			@Override
+			public Mono<CartLineCount> decrementCount(Long userId, Long itemId) {
+				String key = userId + "-" + itemId;
+				CartItemEntity existing = cartItemStorage.get(key);
+				if (existing == null) {
+					return Mono.empty();
+				}
+				if (existing.getCount() > 1) {
+					existing.setCount(existing.getCount() - 1);
+					return Mono.just(new CartLineCount(existing.getCount(), versions.incrementAndGet()));
+				}
+				cartItemStorage.remove(key);
+				return Mono.just(new CartLineCount(0, versions.incrementAndGet()));
+			}
+
+			@Override
+			public Mono<Integer> upsertCount(Long userId, Long itemId, Integer count) {
+				return incrementCount(userId, itemId).map(ignored -> {
+					cartItemStorage.get(userId + "-" + itemId).setCount(count);
+					return 1;
+				});
+			}
+
+			@Override
+			public Mono<Integer> deleteByUserIdExcept(Long userId, Long[] keptItemIds) {
+				List<Long> kept = List.of(keptItemIds);
+				int sizeBefore = cartItemStorage.size();
+				cartItemStorage.values().removeIf(e -> e.getUserId().equals(userId) && !kept.contains(e.getItemId()));
+				return Mono.just(sizeBefore - cartItemStorage.size());
+			}
 		};
 
 		cartMapper = entry -> new CartItemResponseDto(
@@ -217,7 +290,7 @@ class CartServiceImplTest {
 			public Mono<org.springframework.data.domain.Page<ru.yandex.practicum.mymarket.dto.response.ItemResponseDto>> getItemsWithCartCounts(
 				ru.yandex.practicum.mymarket.dto.request.ItemsFilterRequestDto filter,
 				org.springframework.data.domain.Pageable pageable,
-				ru.yandex.practicum.mymarket.dto.response.CartStateResponseDto cart) {
+				ru.yandex.practicum.mymarket.service.model.CartCounts cartCounts) {
 				return Mono.empty();
 			}
 			@Override
@@ -253,18 +326,66 @@ class CartServiceImplTest {
 			}
 		};
 
-		cartService = new CartServiceImpl(cartItemRepository, itemRepository, cartMapper, itemService, userService);
+		cartService = new CartServiceImpl(new DatabaseCartStorage(cartItemRepository, cartSummaryStore), itemRepository, cartMapper, itemService, userService, cartSummaryStore, userEventBus, new SimpleMeterRegistry());
 	}
 
 	@Test
 	void shouldAddAndRemoveItemsInSessionCart() {
-		CartStateResponseDto added = cartService.updateCart(new CartUpdateRequestDto(1L, CartAction.PLUS), session).block();
-		assertEquals(1, added.items().size());
-		assertEquals(100L, added.total());
+		CartLineResponseDto added = cartService.updateCart(new CartUpdateRequestDto(1L, CartAction.PLUS), session).block();
+		assertEquals(1, added.count());
+		assertEquals(new CartSummaryResponseDto(1, 1, 100L), added.summary());
+
+		CartLineResponseDto removed = cartService.updateCart(new CartUpdateRequestDto(1L, CartAction.MINUS), session).block();
+		assertEquals(0, removed.count());
+		assertEquals(new CartSummaryResponseDto(0, 0, 0L), removed.summary());
+	}
+
+	@Test
+	void applyActionAndGetSummary_recomputesOnMissAndThenUpdatesIncrementally() {
+		CartSummaryResponseDto first = cartService.applyActionAndGetSummary(CartAction.PLUS, 1L, session).block();
+		assertEquals(new CartSummaryResponseDto(1, 1, 100L), first);
+		assertEquals(1, cartSummaryStore.recomputations);
+
+		CartSummaryResponseDto second = cartService.applyActionAndGetSummary(CartAction.PLUS, 1L, session).block();
+		assertEquals(new CartSummaryResponseDto(1, 2, 200L), second);
+
+		CartSummaryResponseDto removed = cartService.applyActionAndGetSummary(CartAction.DELETE, 1L, session).block();
+		assertEquals(new CartSummaryResponseDto(0, 0, 0L), removed);
+		assertEquals(1, cartSummaryStore.recomputations);
+	}
+
+	@Test
+	void applyActionAndGetLine_returnsNewCountWithSummary() {
+		CartLineResponseDto added = cartService.applyActionAndGetLine(CartAction.PLUS, 1L, session).block();
+		assertEquals(new CartLineResponseDto(1L, 1, new CartSummaryResponseDto(1, 1, 100L)), added);
+
+		CartLineResponseDto removed = cartService.applyActionAndGetLine(CartAction.MINUS, 1L, session).block();
+		assertEquals(new CartLineResponseDto(1L, 0, new CartSummaryResponseDto(0, 0, 0L)), removed);
+
+		CartLineResponseDto absent = cartService.applyActionAndGetLine(CartAction.MINUS, 1L, session).block();
+		assertEquals(new CartLineResponseDto(1L, 0, new CartSummaryResponseDto(0, 0, 0L)), absent);
+	}
 
-		CartStateResponseDto removed = cartService.updateCart(new CartUpdateRequestDto(1L, CartAction.MINUS), session).block();
-		assertTrue(removed.items().isEmpty());
-		assertEquals(0L, removed.total());
+	@Test
+	void cartChanges_publishCartSummaryEvents() {
+		cartService.applyCartAction(CartAction.PLUS, 1L, session).block();
+		cartService.applyCartAction(CartAction.PLUS, 1L, session).block();
+		cartService.clear(session).block();
+
+		assertEquals(List.of(
+				new CartSummaryResponseDto(1, 1, 100L),
+				new CartSummaryResponseDto(1, 2, 200L),
+				new CartSummaryResponseDto(0, 0, 0L)), userEventBus.summaries);
+	}
+
+	@Test
+	void clear_evictsCartSummary() {
+		cartService.applyActionAndGetSummary(CartAction.PLUS, 1L, session).block();
+		cartService.clear(session).block();
+
+		CartSummaryResponseDto summary = cartService.getCartSummary(session).block();
+		assertEquals(new CartSummaryResponseDto(0, 0, 0L), summary);
+		assertEquals(2, cartSummaryStore.recomputations);
 	}
 
 	@Test
@@ -475,4 +596,68 @@ class CartServiceImplTest {
 			return findAll();
 		}
 	}
+
+	private static class StubCartSummaryStore extends CartSummaryStore {
+		private final Map<Long, Map<Long, long[]>> lines = new ConcurrentHashMap<>();
+		private int recomputations;
+
+		StubCartSummaryStore() {
+			super(null, null, java.time.Duration.ofMinutes(3));
+		}
+
+		@Override
+		public Mono<CartSummaryResponseDto> get(Long userId) {
+			return Mono.justOrEmpty(lines.get(userId)).map(this::summarize);
+		}
+
+		@Override
+		public Mono<CartSummaryResponseDto> applyLineChange(Long userId, Long itemId, int count, long price, long version) {
+			Map<Long, long[]> userLines = lines.get(userId);
+			if (userLines == null) {
+				return Mono.empty();
+			}
+			if (count > 0) {
+				long linePrice = price >= 0 ? price : userLines.get(itemId)[1];
+				userLines.put(itemId, new long[] {count, linePrice});
+			} else {
+				userLines.remove(itemId);
+			}
+			return Mono.just(summarize(userLines));
+		}
+
+		@Override
+		public Mono<CartSummaryResponseDto> store(Long userId, List<CartItemResponseDto> items) {
+			recomputations++;
+			Map<Long, long[]> userLines = new ConcurrentHashMap<>();
+			items.forEach(item -> userLines.put(item.id(), new long[] {item.count(), item.price()}));
+			lines.put(userId, userLines);
+			return Mono.just(CartSummaryResponseDto.of(items));
+		}
+
+		@Override
+		public Mono<Void> evict(Long userId) {
+			lines.remove(userId);
+			return Mono.empty();
+		}
+
+		private CartSummaryResponseDto summarize(Map<Long, long[]> userLines) {
+			long items = userLines.values().stream().mapToLong(line -> line[0]).sum();
+			long total = userLines.values().stream().mapToLong(line -> line[0] * line[1]).sum();
+			return new CartSummaryResponseDto(userLines.size(), items, total);
+		}
+	}
+
+	private static class StubUserEventBus extends UserEventBus {
+		private final List<CartSummaryResponseDto> summaries = new ArrayList<>();
+
+		StubUserEventBus() {
+			super(null, null, null, java.time.Duration.ofSeconds(15));
+		}
+
+		@Override
+		public Mono<Void> publishCartSummary(Long userId, CartSummaryResponseDto summary) {
+			summaries.add(summary);
+			return Mono.empty();
+		}
+	}
 }
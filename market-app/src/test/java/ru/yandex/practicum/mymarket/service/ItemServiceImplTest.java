@@ -14,10 +14,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import ru.yandex.practicum.mymarket.dto.request.ItemsFilterRequestDto;
+import ru.yandex.practicum.mymarket.dto.response.ItemDetailsResponseDto;
 import ru.yandex.practicum.mymarket.dto.response.ItemResponseDto;
 import ru.yandex.practicum.mymarket.entity.ItemEntity;
 import ru.yandex.practicum.mymarket.entity.ItemImageEntity;
@@ -26,13 +29,18 @@ import ru.yandex.practicum.mymarket.exception.ItemNotFoundException;
 import ru.yandex.practicum.mymarket.mapper.ItemMapperImpl;
 import ru.yandex.practicum.mymarket.repository.ItemImageRepository;
 import ru.yandex.practicum.mymarket.repository.ItemRepository;
+import ru.yandex.practicum.mymarket.service.catalog.CatalogQuery;
+import ru.yandex.practicum.mymarket.service.catalog.CatalogVersion;
 import ru.yandex.practicum.mymarket.service.impl.ItemServiceImpl;
+import ru.yandex.practicum.mymarket.service.model.CartCounts;
+import ru.yandex.practicum.mymarket.service.model.CartLine;
 
 class ItemServiceImplTest {
 
 	private StubItemRepository itemRepository;
 	private StubItemImageRepository itemImageRepository;
 	private StubReactiveCacheService cacheService;
+	private StubCatalogVersion catalogVersion;
 	private ItemService itemService;
 
 	@BeforeEach
@@ -40,7 +48,9 @@ class ItemServiceImplTest {
 		itemRepository = new StubItemRepository();
 		itemImageRepository = new StubItemImageRepository();
 		cacheService = new StubReactiveCacheService();
-		itemService = new ItemServiceImpl(itemRepository, itemImageRepository, new ItemMapperImpl(), cacheService);
+		catalogVersion = new StubCatalogVersion();
+		itemService = new ItemServiceImpl(itemRepository, itemImageRepository, new ItemMapperImpl(), cacheService, catalogVersion, new SimpleMeterRegistry(),
+				Duration.ofMinutes(10), 50);
 	}
 
 	@Test
@@ -107,6 +117,112 @@ class ItemServiceImplTest {
 				.verifyComplete();
 	}
 
+	@Test
+	void getItemsWithCartCounts_overlaysCountsFromCart() {
+		itemRepository.saveSync(new ItemEntity(30L, "A", "desc", 1L, "img"));
+		itemRepository.saveSync(new ItemEntity(31L, "B", "desc", 2L, "img"));
+		itemRepository.saveSync(new ItemEntity(32L, "C", "desc", 3L, "img"));
+
+		ItemsFilterRequestDto filter = new ItemsFilterRequestDto(null, SortType.NO);
+		org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(0, 5);
+		CartCounts cartCounts = CartCounts.of(List.of(
+				new CartLine(32L, 4),
+				new CartLine(30L, 2),
+				new CartLine(99L, 1)));
+
+		StepVerifier.create(itemService.getItemsWithCartCounts(filter, pageable, cartCounts).map(Page::getContent))
+				.assertNext(list -> org.junit.jupiter.api.Assertions.assertEquals(
+						Map.of(30L, 2, 31L, 0, 32L, 4),
+						list.stream().collect(Collectors.toMap(ItemResponseDto::id, ItemResponseDto::count))))
+				.verifyComplete();
+	}
+
+	@Test
+	void getItems_cacheKeyFollowsCatalogVersion() {
+		ItemsFilterRequestDto filter = new ItemsFilterRequestDto("phone", SortType.PRICE);
+		org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(0, 5);
+
+		itemService.getItems(filter, pageable).block();
+		catalogVersion.version = 8L;
+		itemService.getItems(filter, pageable).block();
+
+		catalogVersion.priceVersion = 4L;
+		itemService.getItems(filter, pageable).block();
+		itemService.getItems(new ItemsFilterRequestDto("phone", SortType.ALPHA), pageable).block();
+
+		String priceHash = new CatalogQuery("phone", SortType.PRICE).hash();
+		String alphaHash = new CatalogQuery("phone", SortType.ALPHA).hash();
+		org.junit.jupiter.api.Assertions.assertEquals(List.of(
+				"items:ids:v7p3:" + priceHash + ":block=0:size=50",
+				"items:ids:v8p3:" + priceHash + ":block=0:size=50",
+				"items:ids:v8p4:" + priceHash + ":block=0:size=50",
+				"items:ids:v8:" + alphaHash + ":block=0:size=50"), cacheService.keys);
+	}
+
+	@Test
+	void getItems_equivalentSearchesAndPageSizesShareOneBlock() {
+		for (long id = 1; id <= 7; id++) {
+			itemRepository.saveSync(new ItemEntity(id, "Phone " + id, "desc", id * 100, "img" + id));
+		}
+
+		StepVerifier.create(itemService.getItems(new ItemsFilterRequestDto("  PHONE ", SortType.PRICE),
+								org.springframework.data.domain.PageRequest.of(1, 3))
+						.map(page -> page.getContent().stream().map(ItemResponseDto::id).toList()))
+				.expectNext(List.of(4L, 5L, 6L))
+				.verifyComplete();
+		StepVerifier.create(itemService.getItems(new ItemsFilterRequestDto("phone", SortType.PRICE),
+						org.springframework.data.domain.PageRequest.of(0, 5)))
+				.assertNext(page -> {
+					org.junit.jupiter.api.Assertions.assertEquals(List.of(1L, 2L, 3L, 4L, 5L),
+							page.getContent().stream().map(ItemResponseDto::id).toList());
+					org.junit.jupiter.api.Assertions.assertEquals(7L, page.getTotalElements());
+				})
+				.verifyComplete();
+
+		org.junit.jupiter.api.Assertions.assertEquals(1,
+				cacheService.keys.stream().filter(key -> key.startsWith("items:ids:")).distinct().count());
+	}
+
+	@Test
+	void getItems_pageBeyondAnyBlockIsEmptyWithTotal() {
+		itemRepository.saveSync(new ItemEntity(1L, "Phone", "desc", 100L, "img1"));
+
+		StepVerifier.create(itemService.getItems(new ItemsFilterRequestDto("phone", SortType.NO),
+						org.springframework.data.domain.PageRequest.of(Integer.MAX_VALUE - 1, 100)))
+				.assertNext(page -> {
+					org.junit.jupiter.api.Assertions.assertTrue(page.getContent().isEmpty());
+					org.junit.jupiter.api.Assertions.assertEquals(1L, page.getTotalElements());
+				})
+				.verifyComplete();
+		org.junit.jupiter.api.Assertions.assertTrue(cacheService.keys.stream()
+				.filter(key -> key.startsWith("items:ids:"))
+				.allMatch(key -> key.endsWith(":block=0:size=50")));
+	}
+
+	@Test
+	void getItems_rejectsPageSpanningTooManyBlocks() {
+		StepVerifier.create(itemService.getItems(new ItemsFilterRequestDto("phone", SortType.NO),
+						org.springframework.data.domain.PageRequest.of(0, 1000)))
+				.expectError(IllegalArgumentException.class)
+				.verify();
+	}
+
+	@Test
+	void getItems_hydratesPageFromItemCacheAndCachesMisses() {
+		itemRepository.saveSync(new ItemEntity(1L, "A Phone", "desc", 100L, "img1"));
+		itemRepository.saveSync(new ItemEntity(2L, "B Phone", "desc", 200L, "img2"));
+		cacheService.values.put("item:1", new ItemDetailsResponseDto(1L, "A Phone", "desc", "img1", 150L, 0));
+
+		ItemsFilterRequestDto filter = new ItemsFilterRequestDto("phone", SortType.ALPHA);
+		org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(0, 5);
+
+		StepVerifier.create(itemService.getItems(filter, pageable).map(Page::getContent))
+				.assertNext(list -> org.junit.jupiter.api.Assertions.assertEquals(
+						List.of(150L, 200L), list.stream().map(ItemResponseDto::price).toList()))
+				.verifyComplete();
+		org.junit.jupiter.api.Assertions.assertTrue(cacheService.values.containsKey("item:2"));
+	}
+
 	@Test
 	void getItemImageResponse_returnsImage() {
 		byte[] data = new byte[] {9, 8, 7};
@@ -366,13 +482,33 @@ class ItemServiceImplTest {
 	}
 
 	private static class StubReactiveCacheService extends ReactiveCacheService {
+		private final List<String> keys = new ArrayList<>();
+		private final Map<String, Object> values = new ConcurrentHashMap<>();
+
 		public StubReactiveCacheService() {
-			super(null);
+			super(null, null, new SimpleMeterRegistry(), ObservationRegistry.NOOP);
 		}
 
 		@Override
 		public <T> Mono<T> getOrPut(String key, Class<T> valueClass, Mono<T> dataSupplier, Duration ttl) {
-			return dataSupplier;
+			keys.add(key);
+			if (valueClass.isInstance(values.get(key))) {
+				return Mono.just(valueClass.cast(values.get(key)));
+			}
+			return dataSupplier.doOnNext(value -> values.put(key, value));
+		}
+
+		@Override
+		public <T> Mono<List<T>> multiGet(List<String> keys, Class<T> valueClass) {
+			List<T> result = new ArrayList<>();
+			keys.forEach(key -> result.add(valueClass.isInstance(values.get(key)) ? valueClass.cast(values.get(key)) : null));
+			return Mono.just(result);
+		}
+
+		@Override
+		public Mono<Void> putAll(Map<String, ?> entries, Duration ttl) {
+			values.putAll(entries);
+			return Mono.empty();
 		}
 
 		@Override
@@ -385,4 +521,23 @@ class ItemServiceImplTest {
 			return Mono.just(0L);
 		}
 	}
+
+	private static class StubCatalogVersion extends CatalogVersion {
+		private long version = 7L;
+		private long priceVersion = 3L;
+
+		StubCatalogVersion() {
+			super(null, Duration.ofSeconds(10));
+		}
+
+		@Override
+		public long current() {
+			return version;
+		}
+
+		@Override
+		public long currentPrices() {
+			return priceVersion;
+		}
+	}
 }
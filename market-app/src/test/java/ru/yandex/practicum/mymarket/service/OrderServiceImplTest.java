@@ -18,17 +18,21 @@ import org.springframework.transaction.reactive.TransactionCallback;
 import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.web.server.WebSession;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import ru.yandex.practicum.mymarket.entity.ItemEntity;
 import ru.yandex.practicum.mymarket.entity.OrderEntity;
 import ru.yandex.practicum.mymarket.entity.OrderItemEntity;
+import ru.yandex.practicum.mymarket.entity.OrderStatus;
 import ru.yandex.practicum.mymarket.exception.OrderNotFoundException;
 import ru.yandex.practicum.mymarket.client.PaymentClient;
 import ru.yandex.practicum.mymarket.mapper.OrderMapperImpl;
 import ru.yandex.practicum.mymarket.repository.OrderItemRepository;
 import ru.yandex.practicum.mymarket.repository.OrderRepository;
+import ru.yandex.practicum.mymarket.service.events.UserEventBus;
 import ru.yandex.practicum.mymarket.service.impl.OrderServiceImpl;
 import ru.yandex.practicum.mymarket.service.model.CartEntry;
 import ru.yandex.practicum.payment.client.model.PaymentResponse;
@@ -41,6 +45,7 @@ class OrderServiceImplTest {
 	private StubCartService cartService;
 	private StubPaymentClient paymentClient;
 	private StubUserService userService;
+	private StubUserEventBus userEventBus;
 
 	private OrderService orderService;
 
@@ -53,10 +58,11 @@ class OrderServiceImplTest {
 		cartService = new StubCartService();
 		paymentClient = new StubPaymentClient();
 		userService = new StubUserService();
+		userEventBus = new StubUserEventBus();
 
 		org.springframework.transaction.reactive.TransactionalOperator transactionalOperator = new StubTransactionalOperator();
 
-		orderService = new OrderServiceImpl(orderRepository, orderItemRepository, cartService, new OrderMapperImpl(), transactionalOperator, paymentClient, userService);
+		orderService = new OrderServiceImpl(orderRepository, orderItemRepository, cartService, new OrderMapperImpl(), transactionalOperator, paymentClient, userService, userEventBus, new SimpleMeterRegistry(), ObservationRegistry.NOOP);
 
 		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/").build());
 		session = exchange.getSession().block();
@@ -72,10 +78,12 @@ class OrderServiceImplTest {
 					assertEquals(300L, resp.totalSum());
 					assertNotNull(resp.createdAt());
 					assertEquals(1, resp.items().size());
+					assertEquals(OrderStatus.PAID, resp.status());
 				})
 				.verifyComplete();
 
 		assertEquals(1, cartService.clearCalls);
+		assertEquals(List.of(OrderStatus.PENDING, OrderStatus.PAID), userEventBus.statuses);
 	}
 
 	@Test
@@ -389,12 +397,7 @@ class OrderServiceImplTest {
 		}
 
 		@Override
-		public Mono<ru.yandex.practicum.mymarket.dto.response.CartStateResponseDto> updateCart(ru.yandex.practicum.mymarket.dto.request.CartUpdateRequestDto request, WebSession session) {
-			return Mono.empty();
-		}
-
-		@Override
-		public Mono<ru.yandex.practicum.mymarket.dto.response.CartStateResponseDto> applyActionAndGetCart(ru.yandex.practicum.mymarket.enums.CartAction action, Long itemId, WebSession session) {
+		public Mono<ru.yandex.practicum.mymarket.dto.response.CartLineResponseDto> updateCart(ru.yandex.practicum.mymarket.dto.request.CartUpdateRequestDto request, WebSession session) {
 			return Mono.empty();
 		}
 
@@ -407,6 +410,28 @@ class OrderServiceImplTest {
 		public Mono<Integer> getItemCountInCart(Long itemId, WebSession session) {
 			return Mono.just(0);
 		}
+
+		@Override
+		public Mono<ru.yandex.practicum.mymarket.service.model.CartCounts> getCartCounts(WebSession session) {
+			return Mono.just(ru.yandex.practicum.mymarket.service.model.CartCounts.EMPTY);
+		}
+
+		@Override
+		public Mono<ru.yandex.practicum.mymarket.dto.response.CartSummaryResponseDto> getCartSummary(WebSession session) {
+			return Mono.empty();
+		}
+
+		@Override
+		public Mono<ru.yandex.practicum.mymarket.dto.response.CartSummaryResponseDto> applyActionAndGetSummary(
+				ru.yandex.practicum.mymarket.enums.CartAction action, Long itemId, WebSession session) {
+			return Mono.empty();
+		}
+
+		@Override
+		public Mono<ru.yandex.practicum.mymarket.dto.response.CartLineResponseDto> applyActionAndGetLine(
+				ru.yandex.practicum.mymarket.enums.CartAction action, Long itemId, WebSession session) {
+			return Mono.empty();
+		}
 	}
 
 	private static class StubTransactionalOperator implements TransactionalOperator {
@@ -418,7 +443,7 @@ class OrderServiceImplTest {
 
 	private static class StubPaymentClient extends PaymentClient {
 		public StubPaymentClient() {
-			super(null, null);
+			super(null, null, null, new SimpleMeterRegistry(), ObservationRegistry.NOOP);
 		}
 
 		@Override
@@ -458,4 +483,23 @@ class OrderServiceImplTest {
 			return Mono.just(true);
 		}
 	}
+
+	private static class StubUserEventBus extends UserEventBus {
+		private final List<OrderStatus> statuses = new ArrayList<>();
+
+		StubUserEventBus() {
+			super(null, null, null, java.time.Duration.ofSeconds(15));
+		}
+
+		@Override
+		public Mono<Void> publishCartSummary(Long userId, ru.yandex.practicum.mymarket.dto.response.CartSummaryResponseDto summary) {
+			return Mono.empty();
+		}
+
+		@Override
+		public Mono<Void> publishOrderStatus(Long userId, Long orderId, OrderStatus status) {
+			statuses.add(status);
+			return Mono.empty();
+		}
+	}
 }
@@ -28,6 +28,7 @@ import ru.yandex.practicum.mymarket.dto.response.OrderResponseDto;
 import ru.yandex.practicum.mymarket.entity.ItemEntity;
 import ru.yandex.practicum.mymarket.entity.OrderEntity;
 import ru.yandex.practicum.mymarket.entity.OrderItemEntity;
+import ru.yandex.practicum.mymarket.entity.OrderStatus;
 import ru.yandex.practicum.mymarket.mapper.OrderMapper;
 import ru.yandex.practicum.mymarket.repository.OrderItemRepository;
 import ru.yandex.practicum.mymarket.repository.OrderRepository;
@@ -108,7 +109,7 @@ class OrderServiceIntegrationTest {
 	@Test
 	void buy_shouldCreateOrderAndPayment() {
 		OrderItemResponseDto itemDto = new OrderItemResponseDto("Test Item", 1000L, 2);
-		OrderResponseDto expectedResponse = new OrderResponseDto(1L, List.of(itemDto), 2000L, LocalDateTime.now());
+		OrderResponseDto expectedResponse = new OrderResponseDto(1L, List.of(itemDto), 2000L, LocalDateTime.now(), OrderStatus.PAID);
 
 		when(cartService.getItems(session)).thenReturn(Flux.just(cartEntry));
 		when(orderRepository.save(any(OrderEntity.class))).thenReturn(Mono.just(savedOrder));
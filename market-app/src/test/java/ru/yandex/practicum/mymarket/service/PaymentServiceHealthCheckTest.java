@@ -4,37 +4,57 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.stubbing.Answer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 
+import io.github.resilience4j.bulkhead.Bulkhead;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import ru.yandex.practicum.mymarket.client.PaymentServiceInstance;
+import ru.yandex.practicum.mymarket.client.PaymentServiceInstances;
+import ru.yandex.practicum.mymarket.config.resilience.DependencyGuard;
 
 class PaymentServiceHealthCheckTest {
 
 	private MockWebServer mockWebServer;
 	private PaymentServiceHealthCheck healthCheck;
-	private CircuitBreaker circuitBreaker;
+	private PaymentServiceInstances instances;
+	private PaymentServiceInstance instance;
+	private CircuitBreaker.State circuitState;
 
 	@BeforeEach
 	void setUp() throws IOException {
 		mockWebServer = new MockWebServer();
 		mockWebServer.start();
 
-		circuitBreaker = mock(CircuitBreaker.class, (Answer<?>) invocation -> CircuitBreaker.State.CLOSED);
+		circuitState = CircuitBreaker.State.CLOSED;
+		CircuitBreaker circuitBreaker = mock(CircuitBreaker.class, (Answer<?>) invocation -> circuitState);
 
-		String baseUrl = mockWebServer.url("/").toString();
-		healthCheck = new PaymentServiceHealthCheck(WebClient.builder(), baseUrl, circuitBreaker);
+		String baseUrl = mockWebServer.url("/").toString().replaceAll("/$", "");
+		instances = new PaymentServiceInstances(List.of(baseUrl), WebClient.create(), new SimpleMeterRegistry());
+		instance = instances.all().get(0);
+		healthCheck = new PaymentServiceHealthCheck(WebClient.builder(), instances,
+				new DependencyGuard(circuitBreaker, Bulkhead.ofDefaults("payment-write")), Duration.ofMillis(50));
 	}
 
 	@AfterEach
 	void tearDown() throws IOException {
+		healthCheck.stopHealthCheck();
 		mockWebServer.shutdown();
 	}
 
@@ -43,11 +63,23 @@ class PaymentServiceHealthCheckTest {
 		assertFalse(healthCheck.isPaymentServiceAvailable());
 	}
 
+	@Test
+	void shouldMarkAsAvailableWhenProbeSucceeds() {
+		mockWebServer.enqueue(new MockResponse().setResponseCode(200));
+
+		StepVerifier.create(healthCheck.probe(instance))
+				.expectNext(true)
+				.verifyComplete();
+
+		assertTrue(healthCheck.isPaymentServiceAvailable());
+	}
+
 	@Test
 	void shouldMarkAsUnavailableWhenHealthCheckFails() {
 		mockWebServer.enqueue(new MockResponse().setResponseCode(500));
 
-		StepVerifier.create(healthCheck.checkHealth())
+		StepVerifier.create(healthCheck.probe(instance))
+				.expectNext(false)
 				.verifyComplete();
 
 		assertFalse(healthCheck.isPaymentServiceAvailable());
@@ -56,11 +88,46 @@ class PaymentServiceHealthCheckTest {
 	@Test
 	void shouldMarkAsUnavailableOnTimeout() {
 		mockWebServer.enqueue(new MockResponse()
-				.setHeadersDelay(5, java.util.concurrent.TimeUnit.SECONDS));
+				.setHeadersDelay(5, TimeUnit.SECONDS));
 
-		StepVerifier.create(healthCheck.checkHealth())
+		StepVerifier.create(healthCheck.probe(instance))
+				.expectNext(false)
 				.verifyComplete();
 
 		assertFalse(healthCheck.isPaymentServiceAvailable());
 	}
+
+	@Test
+	void shouldBeUnavailableWhileCircuitIsOpen() {
+		instance.recordSuccess();
+		circuitState = CircuitBreaker.State.OPEN;
+
+		assertFalse(healthCheck.isPaymentServiceAvailable());
+	}
+
+	@Test
+	void shouldProbeUnhealthyInstanceUntilItRecovers() throws InterruptedException {
+		instance.recordSuccess();
+		for (int i = 0; i < 3; i++) {
+			failedCall().transform(instances.tracked(instance)).onErrorComplete().block();
+		}
+		assertFalse(healthCheck.isPaymentServiceAvailable());
+
+		mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+		mockWebServer.enqueue(new MockResponse().setResponseCode(200));
+
+		assertNotNull(mockWebServer.takeRequest(5, TimeUnit.SECONDS));
+		assertNotNull(mockWebServer.takeRequest(5, TimeUnit.SECONDS));
+		StepVerifier.create(Mono.fromSupplier(healthCheck::isPaymentServiceAvailable)
+						.filter(available -> available)
+						.repeatWhenEmpty(repeat -> repeat.delayElements(Duration.ofMillis(10)))
+						.timeout(Duration.ofSeconds(5)))
+				.expectNext(true)
+				.verifyComplete();
+	}
+
+	private static Mono<Void> failedCall() {
+		return Mono.error(new WebClientRequestException(new IOException("Connection refused"),
+				HttpMethod.GET, URI.create("http://localhost"), new HttpHeaders()));
+	}
 }
@@ -0,0 +1,113 @@
+package ru.yandex.practicum.mymarket.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.yandex.practicum.mymarket.config.RedisConfig;
+import ru.yandex.practicum.mymarket.config.resilience.DependencyGuard;
+import ru.yandex.practicum.mymarket.dto.response.ItemDetailsResponseDto;
+
+@Testcontainers
+class ReactiveCacheServiceIntegrationTest {
+
+	@Container
+	static GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+			.withExposedPorts(6379);
+
+	private LettuceConnectionFactory connectionFactory;
+	private ReactiveRedisTemplate<String, Object> redisTemplate;
+	private DependencyGuard redisGuard;
+	private ReactiveCacheService cacheService;
+
+	@BeforeEach
+	void setUp() {
+		connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getFirstMappedPort());
+		connectionFactory.afterPropertiesSet();
+		redisTemplate = new RedisConfig().reactiveRedisTemplate(connectionFactory);
+		redisTemplate.execute(connection -> connection.serverCommands().flushAll()).blockLast();
+		redisGuard = new DependencyGuard(CircuitBreaker.ofDefaults("redis"), Bulkhead.ofDefaults("redis"));
+		cacheService = new ReactiveCacheService(redisTemplate, redisGuard, new SimpleMeterRegistry(),
+				ObservationRegistry.NOOP);
+	}
+
+	@AfterEach
+	void tearDown() {
+		connectionFactory.destroy();
+	}
+
+	@Test
+	void evictByPattern_unlinksAllMatchingKeys() {
+		Flux.range(0, 1200)
+				.concatMap(i -> redisTemplate.opsForValue().set("items:list:test:" + i, "page"))
+				.then(redisTemplate.opsForValue().set("item:1", "item"))
+				.block();
+
+		StepVerifier.create(cacheService.evictByPattern("items:list:*"))
+				.expectNext(1200L)
+				.verifyComplete();
+
+		StepVerifier.create(redisTemplate.hasKey("item:1"))
+				.expectNext(true)
+				.verifyComplete();
+	}
+
+	@Test
+	void getOrPut_skipsTheWriteWhileRedisIsGuarded() {
+		AtomicInteger loads = new AtomicInteger();
+		Mono<String> dataSupplier = Mono.fromCallable(() -> {
+			loads.incrementAndGet();
+			redisGuard.circuitBreaker().transitionToForcedOpenState();
+			return "value";
+		});
+
+		StepVerifier.create(cacheService.getOrPut("item:1", String.class, dataSupplier, Duration.ofMinutes(1)))
+				.expectNext("value")
+				.verifyComplete();
+
+		assertEquals(1, loads.get());
+		StepVerifier.create(redisTemplate.hasKey("item:1"))
+				.expectNext(false)
+				.verifyComplete();
+	}
+
+	@Test
+	void multiGet_readsBackCachedItemsAsTheirType() {
+		ItemDetailsResponseDto item = new ItemDetailsResponseDto(1L, "Phone", "desc", "img", 100L, 0);
+		cacheService.putAll(Map.of("item:1", item), Duration.ofMinutes(1)).block();
+
+		StepVerifier.create(cacheService.multiGet(List.of("item:1"), ItemDetailsResponseDto.class))
+				.expectNext(List.of(item))
+				.verifyComplete();
+	}
+
+	@Test
+	void multiGet_returnsValuesInKeyOrderWithNullsForMisses() {
+		cacheService.putAll(Map.of("item:1", "first", "item:3", "third"), Duration.ofMinutes(1)).block();
+
+		StepVerifier.create(cacheService.multiGet(List.of("item:3", "item:2", "item:1"), String.class))
+				.expectNext(Arrays.asList("third", null, "first"))
+				.verifyComplete();
+	}
+}
@@ -0,0 +1,189 @@
+package ru.yandex.practicum.mymarket.service.cart;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.yandex.practicum.mymarket.dto.response.CartSummaryResponseDto;
+import ru.yandex.practicum.mymarket.entity.CartItemEntity;
+import ru.yandex.practicum.mymarket.repository.CartItemRepository;
+import ru.yandex.practicum.mymarket.service.cart.impl.RedisCartStorage;
+import ru.yandex.practicum.mymarket.service.catalog.CatalogVersion;
+import ru.yandex.practicum.mymarket.service.model.CartLine;
+import ru.yandex.practicum.mymarket.service.model.CartLineChange;
+
+@Testcontainers
+class RedisCartStorageIntegrationTest {
+
+	@Container
+	static GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+			.withExposedPorts(6379);
+
+	private LettuceConnectionFactory connectionFactory;
+	private ReactiveStringRedisTemplate redisTemplate;
+	private CartItemRepository cartItemRepository;
+	private CatalogVersion catalogVersion;
+	private CartSummaryStore cartSummaryStore;
+	private RedisCartStorage cartStorage;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getFirstMappedPort());
+		connectionFactory.afterPropertiesSet();
+		redisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+		redisTemplate.execute(connection -> connection.serverCommands().flushAll()).blockLast();
+
+		cartItemRepository = mock(CartItemRepository.class);
+		TransactionalOperator transactionalOperator = mock(TransactionalOperator.class);
+		when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		catalogVersion = new CatalogVersion(redisTemplate, Duration.ofSeconds(10));
+		cartSummaryStore = new CartSummaryStore(redisTemplate, catalogVersion, Duration.ofMinutes(3));
+		cartStorage = new RedisCartStorage(redisTemplate, cartItemRepository, cartSummaryStore, transactionalOperator,
+				Duration.ofDays(1), Duration.ofSeconds(1), 100);
+	}
+
+	@AfterEach
+	void tearDown() {
+		connectionFactory.destroy();
+	}
+
+	@Test
+	void shouldHydrateFromDatabaseAndApplyMutations() {
+		CartItemEntity stored = new CartItemEntity();
+		stored.setUserId(1L);
+		stored.setItemId(5L);
+		stored.setCount(2);
+		when(cartItemRepository.findByUserId(1L)).thenReturn(Flux.just(stored));
+
+		StepVerifier.create(cartStorage.increment(1L, 5L, 100L))
+				.expectNext(new CartLineChange(3, null))
+				.verifyComplete();
+		StepVerifier.create(cartStorage.increment(1L, 7L, 50L))
+				.expectNext(new CartLineChange(1, null))
+				.verifyComplete();
+		StepVerifier.create(cartStorage.decrement(1L, 7L))
+				.expectNext(new CartLineChange(0, null))
+				.verifyComplete();
+		StepVerifier.create(cartStorage.decrement(1L, 9L))
+				.verifyComplete();
+		StepVerifier.create(cartStorage.getLines(1L))
+				.expectNext(new CartLine(5L, 3))
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldHydrateAgainWhenTheHashExpires() {
+		CartItemEntity stored = new CartItemEntity();
+		stored.setUserId(1L);
+		stored.setItemId(5L);
+		stored.setCount(2);
+		when(cartItemRepository.findByUserId(1L)).thenReturn(Flux.just(stored));
+
+		StepVerifier.create(cartStorage.getLines(1L).then(redisTemplate.delete("cart:1")))
+				.expectNext(1L)
+				.verifyComplete();
+		StepVerifier.create(cartStorage.increment(1L, 5L, 100L))
+				.expectNext(new CartLineChange(3, null))
+				.verifyComplete();
+		StepVerifier.create(redisTemplate.opsForHash().hasKey("cart:1", "_hydrated"))
+				.expectNext(true)
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldAdjustSummaryInTheSameScript() {
+		when(cartItemRepository.findByUserId(1L)).thenReturn(Flux.empty());
+		StepVerifier.create(cartSummaryStore.store(1L, List.of()))
+				.expectNext(new CartSummaryResponseDto(0, 0, 0L))
+				.verifyComplete();
+
+		StepVerifier.create(Flux.range(0, 20).flatMap(i -> cartStorage.increment(1L, 5L, 100L)).then())
+				.verifyComplete();
+		StepVerifier.create(cartStorage.increment(1L, 7L, 30L))
+				.expectNext(new CartLineChange(1, new CartSummaryResponseDto(2, 21, 2030L)))
+				.verifyComplete();
+		StepVerifier.create(cartStorage.decrement(1L, 5L))
+				.expectNext(new CartLineChange(19, new CartSummaryResponseDto(2, 20, 1930L)))
+				.verifyComplete();
+		StepVerifier.create(cartStorage.remove(1L, 7L))
+				.expectNext(new CartLineChange(0, new CartSummaryResponseDto(1, 19, 1900L)))
+				.verifyComplete();
+		StepVerifier.create(cartSummaryStore.get(1L))
+				.expectNext(new CartSummaryResponseDto(1, 19, 1900L))
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldEvictSummaryWhenLineChangesArriveOutOfOrder() {
+		StepVerifier.create(cartSummaryStore.store(1L, List.of()))
+				.expectNext(new CartSummaryResponseDto(0, 0, 0L))
+				.verifyComplete();
+
+		StepVerifier.create(cartSummaryStore.applyLineChange(1L, 5L, 2, 100L, 8L))
+				.expectNext(new CartSummaryResponseDto(1, 2, 200L))
+				.verifyComplete();
+		StepVerifier.create(cartSummaryStore.applyLineChange(1L, 5L, 1, 100L, 7L))
+				.verifyComplete();
+		StepVerifier.create(cartSummaryStore.get(1L))
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldRetireSummariesOncePerPriceChange() {
+		StepVerifier.create(cartSummaryStore.store(1L, List.of()))
+				.expectNext(new CartSummaryResponseDto(0, 0, 0L))
+				.verifyComplete();
+
+		StepVerifier.create(catalogVersion.bumpPrices(List.of(42L)).then(catalogVersion.bumpPrices(List.of(42L))))
+				.expectNext(1L)
+				.verifyComplete();
+		StepVerifier.create(catalogVersion.bumpPrices(List.of(42L, 43L)))
+				.expectNext(2L)
+				.verifyComplete();
+		StepVerifier.create(cartSummaryStore.get(1L))
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldWriteBackDirtyCarts() {
+		when(cartItemRepository.findByUserId(1L)).thenReturn(Flux.empty());
+		when(cartItemRepository.lockCartWriteBack(1L)).thenReturn(Mono.just(1));
+		when(cartItemRepository.deleteByUserIdExcept(eq(1L), any(Long[].class))).thenReturn(Mono.just(0));
+		when(cartItemRepository.upsertCount(eq(1L), eq(5L), anyInt())).thenReturn(Mono.just(1));
+
+		StepVerifier.create(cartStorage.increment(1L, 5L, 100L).then(cartStorage.increment(1L, 5L, 100L)))
+				.expectNext(new CartLineChange(2, null))
+				.verifyComplete();
+
+		StepVerifier.create(cartStorage.getLines(1L).then(Mono.defer(() -> redisTemplate.opsForSet().size("cart:dirty"))))
+				.expectNext(1L)
+				.verifyComplete();
+
+		cartStorage.stopFlushing();
+
+		verify(cartItemRepository).lockCartWriteBack(1L);
+		verify(cartItemRepository).upsertCount(1L, 5L, 2);
+	}
+}
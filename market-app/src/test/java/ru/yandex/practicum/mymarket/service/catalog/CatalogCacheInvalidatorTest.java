@@ -0,0 +1,99 @@
+package ru.yandex.practicum.mymarket.service.catalog;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.yandex.practicum.mymarket.service.ReactiveCacheService;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogCacheInvalidatorTest {
+
+	@Mock
+	private ReactiveCacheService cacheService;
+
+	@Mock
+	private CatalogVersion catalogVersion;
+
+	private CatalogCacheInvalidator cacheInvalidator;
+
+	@BeforeEach
+	void setUp() {
+		cacheInvalidator = new CatalogCacheInvalidator(cacheService, catalogVersion);
+	}
+
+	@Test
+	void apply_listingChangeEvictsItemKeysAndBumpsCatalogVersionOncePerChange() {
+		when(cacheService.evictAll(List.of("item:1", "item-image:1", "item:2", "item-image:2"))).thenReturn(Mono.just(3L));
+		when(catalogVersion.bump(List.of(100L))).thenReturn(Mono.just(5L));
+
+		StepVerifier.create(cacheInvalidator.apply(List.of(
+						new CatalogChange(CatalogChange.Scope.LISTING, 1L, 100L),
+						new CatalogChange(CatalogChange.Scope.CONTENT, 2L, 101L))))
+				.verifyComplete();
+
+		verify(catalogVersion).bump(List.of(100L));
+		verify(catalogVersion, never()).bump();
+		verify(catalogVersion, never()).bumpPrices(anyCollection());
+	}
+
+	@Test
+	void apply_changeWithoutIdBumpsUnconditionally() {
+		when(cacheService.evictAll(List.of("item:1", "item-image:1", "item:2", "item-image:2"))).thenReturn(Mono.just(3L));
+		when(catalogVersion.bump()).thenReturn(Mono.just(5L));
+
+		StepVerifier.create(cacheInvalidator.apply(List.of(
+						new CatalogChange(CatalogChange.Scope.LISTING, 1L, 100L),
+						new CatalogChange(CatalogChange.Scope.LISTING, 2L, null))))
+				.verifyComplete();
+
+		verify(catalogVersion).bump();
+		verify(catalogVersion, never()).bump(anyCollection());
+	}
+
+	@Test
+	void apply_priceChangeBumpsOnlyPriceVersion() {
+		when(cacheService.evictAll(List.of("item:2", "item-image:2", "item:3", "item-image:3"))).thenReturn(Mono.just(2L));
+		when(catalogVersion.bumpPrices(List.of(200L))).thenReturn(Mono.just(9L));
+
+		StepVerifier.create(cacheInvalidator.apply(List.of(
+						new CatalogChange(CatalogChange.Scope.PRICE, 2L, 200L),
+						new CatalogChange(CatalogChange.Scope.CONTENT, 3L, 201L))))
+				.verifyComplete();
+
+		verify(catalogVersion).bumpPrices(List.of(200L));
+		verify(catalogVersion, never()).bump(anyCollection());
+	}
+
+	@Test
+	void apply_contentChangeEvictsOnlyItemKeys() {
+		when(cacheService.evictAll(List.of("item:2", "item-image:2", "item:3", "item-image:3"))).thenReturn(Mono.just(2L));
+
+		StepVerifier.create(cacheInvalidator.apply(List.of(
+						new CatalogChange(CatalogChange.Scope.CONTENT, 2L, 300L),
+						new CatalogChange(CatalogChange.Scope.IMAGE, 3L, 301L))))
+				.verifyComplete();
+
+		verify(catalogVersion, never()).bump(anyCollection());
+		verify(catalogVersion, never()).bumpPrices(anyCollection());
+	}
+
+	@Test
+	void apply_doesNothingWithoutChanges() {
+		StepVerifier.create(cacheInvalidator.apply(List.of()))
+				.verifyComplete();
+
+		verify(catalogVersion, never()).bump(anyCollection());
+	}
+}
@@ -0,0 +1,32 @@
+package ru.yandex.practicum.mymarket.service.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class CatalogChangeTest {
+
+	@Test
+	void parse_readsScopeItemIdAndChangeId() {
+		assertEquals(new CatalogChange(CatalogChange.Scope.LISTING, 12L, 901L), CatalogChange.parse("listing:12:901"));
+		assertEquals(new CatalogChange(CatalogChange.Scope.PRICE, 5L, 902L), CatalogChange.parse("price:5:902"));
+		assertEquals(new CatalogChange(CatalogChange.Scope.CONTENT, 3L, 903L), CatalogChange.parse("content:3:903"));
+		assertEquals(new CatalogChange(CatalogChange.Scope.IMAGE, 7L, 904L), CatalogChange.parse("image:7:904"));
+	}
+
+	@Test
+	void parse_acceptsPayloadWithoutChangeId() {
+		assertEquals(new CatalogChange(CatalogChange.Scope.LISTING, 12L, null), CatalogChange.parse("listing:12"));
+	}
+
+	@Test
+	void parse_skipsMalformedPayload() {
+		assertNull(CatalogChange.parse("listing:"));
+		assertNull(CatalogChange.parse("rating:1"));
+		assertNull(CatalogChange.parse("12"));
+		assertNull(CatalogChange.parse("price:5:"));
+		assertNull(CatalogChange.parse("price:5:1:2"));
+		assertNull(CatalogChange.parse(null));
+	}
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.mymarket.service.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+import ru.yandex.practicum.mymarket.dto.request.ItemsFilterRequestDto;
+import ru.yandex.practicum.mymarket.enums.SortType;
+
+class CatalogQueryTest {
+
+	@Test
+	void of_canonicalizesSearch() {
+		CatalogQuery expected = new CatalogQuery("smart phone", SortType.ALPHA);
+
+		assertEquals(expected, CatalogQuery.of(new ItemsFilterRequestDto("Smart Phone", SortType.ALPHA)));
+		assertEquals(expected, CatalogQuery.of(new ItemsFilterRequestDto("  SMART \t phone ", SortType.ALPHA)));
+		assertEquals(expected, CatalogQuery.of(new ItemsFilterRequestDto("ｓｍａｒｔ phone", SortType.ALPHA)));
+		assertFalse(CatalogQuery.of(new ItemsFilterRequestDto("   ", SortType.NO)).hasSearch());
+	}
+
+	@Test
+	void hash_hasFixedLengthAndDependsOnSort() {
+		CatalogQuery shortQuery = new CatalogQuery("a", SortType.NO);
+		CatalogQuery longQuery = new CatalogQuery("a".repeat(1000), SortType.NO);
+
+		assertEquals(32, shortQuery.hash().length());
+		assertEquals(32, longQuery.hash().length());
+		assertNotEquals(shortQuery.hash(), new CatalogQuery("a", SortType.PRICE).hash());
+	}
+}
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.mymarket.service.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class ReactiveTimersTest {
+
+	private SimpleMeterRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+	}
+
+	@Test
+	void timed_recordsOutcomePerSubscription() {
+		Mono<String> timed = Mono.just("value")
+				.transform(ReactiveTimers.timed(registry, "test.op", Tags.of("operation", "get")));
+
+		StepVerifier.create(timed).expectNext("value").verifyComplete();
+		StepVerifier.create(timed).expectNext("value").verifyComplete();
+
+		assertEquals(2, registry.get("test.op").tags("operation", "get", "outcome", "success").timer().count());
+	}
+
+	@Test
+	void timed_classifiesErrors() {
+		Mono<String> timed = Mono.<String>error(new TimeoutException())
+				.transform(ReactiveTimers.timed(registry, "test.op", Tags.empty(),
+						error -> error instanceof TimeoutException ? "timeout" : "error"));
+
+		StepVerifier.create(timed).expectError(TimeoutException.class).verify();
+
+		assertEquals(1, registry.get("test.op").tags("outcome", "timeout").timer().count());
+	}
+
+	@Test
+	void timedMany_recordsCancellation() {
+		Flux<Long> timed = Flux.interval(Duration.ofMillis(10))
+				.transform(ReactiveTimers.timedMany(registry, "test.stream", Tags.empty()));
+
+		StepVerifier.create(timed.take(1)).expectNext(0L).verifyComplete();
+
+		assertEquals(1, registry.get("test.stream").tags("outcome", "cancelled").timer().count());
+	}
+
+	@Test
+	void traced_nestsSpansAndTagsOutcome() {
+		List<Observation.Context> stopped = new CopyOnWriteArrayList<>();
+		ObservationRegistry observationRegistry = ObservationRegistry.create();
+		observationRegistry.observationConfig().observationHandler(new ObservationHandler<>() {
+			@Override
+			public boolean supportsContext(Observation.Context context) {
+				return true;
+			}
+
+			@Override
+			public void onStop(Observation.Context context) {
+				stopped.add(context);
+			}
+		});
+
+		Mono<String> traced = Mono.<String>error(new TimeoutException())
+				.transform(ReactiveTimers.traced(registry, observationRegistry, "test.stage", "stage payment",
+						Tags.of("stage", "payment"), error -> "timeout"))
+				.onErrorReturn("fallback")
+				.transform(ReactiveTimers.traced(registry, observationRegistry, "test.op", "op", Tags.empty()));
+
+		StepVerifier.create(traced).expectNext("fallback").verifyComplete();
+
+		assertEquals(2, stopped.size());
+		Observation.Context stage = stopped.stream().filter(context -> context.getName().equals("test.stage")).findFirst().orElseThrow();
+		Observation.Context op = stopped.stream().filter(context -> context.getName().equals("test.op")).findFirst().orElseThrow();
+		assertEquals("stage payment", stage.getContextualName());
+		assertEquals("timeout", stage.getLowCardinalityKeyValue("outcome").getValue());
+		assertEquals("payment", stage.getLowCardinalityKeyValue("stage").getValue());
+		assertEquals(TimeoutException.class, stage.getError().getClass());
+		assertSame(op, stage.getParentObservation().getContextView());
+		assertEquals("success", op.getLowCardinalityKeyValue("outcome").getValue());
+		assertEquals(1, registry.get("test.stage").tags("stage", "payment", "outcome", "timeout").timer().count());
+		assertEquals(1, registry.get("test.op").tags("outcome", "success").timer().count());
+	}
+}
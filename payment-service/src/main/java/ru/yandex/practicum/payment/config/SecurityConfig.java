@@ -1,21 +1,29 @@
 package ru.yandex.practicum.payment.config;
 
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 
+import ru.yandex.practicum.security.IpAllowlistAuthorizationManager;
+
 @Configuration
 @EnableWebFluxSecurity
 public class SecurityConfig {
 
     @Bean
-    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+    public SecurityWebFilterChain securityWebFilterChain(
+            ServerHttpSecurity http,
+            @Value("${metrics.prometheus.allowed-addresses:127.0.0.1/32,::1/128}") List<String> prometheusAddresses) {
         return http
                 .csrf(csrf -> csrf.disable())
                 .authorizeExchange(exchanges -> exchanges
                         .pathMatchers("/actuator/health").permitAll()
+                        .pathMatchers("/actuator/prometheus").access(new IpAllowlistAuthorizationManager(prometheusAddresses))
                         .pathMatchers("/api/**").authenticated()
                         .anyExchange().authenticated()
                 )
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.payment.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Writes spans to the log with {@code tracing.log-spans.enabled=true}, in addition to the OTLP export.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tracing.log-spans.enabled", havingValue = "true")
+public class TracingConfig {
+
+	@Bean
+	public SpanExporter loggingSpanExporter() {
+		return LoggingSpanExporter.create();
+	}
+}
@@ -0,0 +1,119 @@
+package ru.yandex.practicum.payment.repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Persistence of the in-memory balance ledger: applies journaled deductions to user_balances
+ * and records the last applied journal sequence in the same transaction.
+ * <p>
+ * A deduction is applied only if the balance covers it. Deductions that cannot be applied, because the balance
+ * was lowered outside the ledger or the user is gone, are moved to balance_ledger_quarantine instead of failing
+ * the whole batch, so reconciliation always moves forward.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BalanceLedgerRepository {
+
+	private static final String FIND_CHECKPOINT_SQL =
+			"SELECT last_sequence FROM balance_ledger_checkpoints WHERE journal_id = :journalId";
+
+	private static final String SAVE_CHECKPOINT_SQL = "INSERT INTO balance_ledger_checkpoints " +
+			"(journal_id, last_sequence, updated_at) VALUES (:journalId, :lastSequence, CURRENT_TIMESTAMP) " +
+			"ON CONFLICT (journal_id) DO UPDATE SET " +
+			"last_sequence = EXCLUDED.last_sequence, updated_at = CURRENT_TIMESTAMP";
+
+	private static final String APPLY_DEDUCTIONS_SQL = "UPDATE user_balances b " +
+			"SET balance = b.balance - d.amount, updated_at = CURRENT_TIMESTAMP " +
+			"FROM unnest(CAST(:userIds AS BIGINT[]), CAST(:amounts AS BIGINT[])) AS d(user_id, amount) " +
+			"WHERE b.user_id = d.user_id AND b.balance >= d.amount " +
+			"RETURNING b.user_id, b.balance";
+
+	private static final String QUARANTINE_SQL = "INSERT INTO balance_ledger_quarantine " +
+			"(journal_id, user_id, amount, last_sequence, reason, created_at) " +
+			"SELECT :journalId, d.user_id, d.amount, :lastSequence, :reason, CURRENT_TIMESTAMP " +
+			"FROM unnest(CAST(:userIds AS BIGINT[]), CAST(:amounts AS BIGINT[])) AS d(user_id, amount)";
+
+	private static final String FIND_BALANCES_SQL =
+			"SELECT user_id, balance FROM user_balances WHERE user_id = ANY(:userIds)";
+
+	private static final String NOT_APPLICABLE_REASON = "Balance does not cover the deduction or user not found";
+
+	private final DatabaseClient databaseClient;
+
+	public Mono<Long> findCheckpoint(String journalId) {
+		return databaseClient.sql(FIND_CHECKPOINT_SQL)
+				.bind("journalId", journalId)
+				.map((row, metadata) -> row.get("last_sequence", Long.class))
+				.one()
+				.defaultIfEmpty(0L);
+	}
+
+	/**
+	 * Applies the deductions, quarantines the ones that cannot be applied and saves the checkpoint.
+	 *
+	 * @return balances after the deduction of the users whose deductions were applied
+	 */
+	public Mono<Map<Long, Long>> applyDeductions(String journalId, Map<Long, Long> deductions, long lastSequence) {
+		return bindDeductions(databaseClient.sql(APPLY_DEDUCTIONS_SQL), deductions)
+				.map((row, metadata) -> Map.entry(row.get("user_id", Long.class), row.get("balance", Long.class)))
+				.all()
+				.collectMap(Map.Entry::getKey, Map.Entry::getValue)
+				.flatMap(applied -> {
+					Map<Long, Long> rejected = new HashMap<>(deductions);
+					rejected.keySet().removeAll(applied.keySet());
+					return quarantine(journalId, rejected, lastSequence, NOT_APPLICABLE_REASON)
+							.thenReturn(applied);
+				});
+	}
+
+	/**
+	 * Moves deductions that will never apply to balance_ledger_quarantine for manual resolution and saves
+	 * the checkpoint, so they are not retried.
+	 */
+	public Mono<Void> quarantine(String journalId, Map<Long, Long> deductions, long lastSequence, String reason) {
+		Mono<Long> quarantined = deductions.isEmpty()
+				? Mono.just(0L)
+				: bindDeductions(databaseClient.sql(QUARANTINE_SQL), deductions)
+						.bind("journalId", journalId)
+						.bind("lastSequence", lastSequence)
+						.bind("reason", reason)
+						.fetch()
+						.rowsUpdated();
+		return quarantined
+				.then(databaseClient.sql(SAVE_CHECKPOINT_SQL)
+						.bind("journalId", journalId)
+						.bind("lastSequence", lastSequence)
+						.fetch()
+						.rowsUpdated())
+				.then();
+	}
+
+	public Mono<Map<Long, Long>> findBalances(Collection<Long> userIds) {
+		return databaseClient.sql(FIND_BALANCES_SQL)
+				.bind("userIds", userIds.toArray(Long[]::new))
+				.map((row, metadata) -> Map.entry(row.get("user_id", Long.class), row.get("balance", Long.class)))
+				.all()
+				.collectMap(Map.Entry::getKey, Map.Entry::getValue);
+	}
+
+	private DatabaseClient.GenericExecuteSpec bindDeductions(DatabaseClient.GenericExecuteSpec spec,
+			Map<Long, Long> deductions) {
+		Long[] userIds = new Long[deductions.size()];
+		Long[] amounts = new Long[deductions.size()];
+		int i = 0;
+		for (Map.Entry<Long, Long> deduction : deductions.entrySet()) {
+			userIds[i] = deduction.getKey();
+			amounts[i] = deduction.getValue();
+			i++;
+		}
+		return spec.bind("userIds", userIds).bind("amounts", amounts);
+	}
+}
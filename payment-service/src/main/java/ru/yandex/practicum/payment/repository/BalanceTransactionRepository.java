@@ -0,0 +1,99 @@
+package ru.yandex.practicum.payment.repository;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Insert-only balance transactions on top of the user_balances snapshot.
+ * The current balance is the snapshot balance plus the sum of transactions after snapshot_tx_id.
+ * Writers of one user are serialized with a transaction-scoped advisory lock on the user id.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BalanceTransactionRepository {
+
+	public static final String DEBIT = "DEBIT";
+
+	private static final String LOCK_USER_SQL = "SELECT pg_advisory_xact_lock(:userId)";
+
+	private static final String CURRENT_BALANCE_SQL = "SELECT b.balance + COALESCE(SUM(t.amount), 0) AS balance " +
+			"FROM user_balances b " +
+			"LEFT JOIN balance_transactions t ON t.user_id = b.user_id AND t.id > b.snapshot_tx_id " +
+			"WHERE b.user_id = :userId GROUP BY b.user_id, b.balance";
+
+	private static final String INSERT_IF_COVERED_SQL = "INSERT INTO balance_transactions " +
+			"(user_id, amount, type, created_at) " +
+			"SELECT :userId, :delta, :type, CURRENT_TIMESTAMP FROM (" + CURRENT_BALANCE_SQL + ") current " +
+			"WHERE current.balance >= :amount";
+
+	private static final String FIND_USERS_TO_COMPACT_SQL = "SELECT DISTINCT t.user_id FROM balance_transactions t " +
+			"JOIN user_balances b ON b.user_id = t.user_id AND t.id > b.snapshot_tx_id LIMIT :limit";
+
+	private static final String COMPACT_SNAPSHOT_SQL = "UPDATE user_balances b " +
+			"SET balance = b.balance + d.delta, snapshot_tx_id = d.last_tx_id, updated_at = CURRENT_TIMESTAMP " +
+			"FROM (SELECT SUM(t.amount) AS delta, MAX(t.id) AS last_tx_id FROM balance_transactions t " +
+			"JOIN user_balances s ON s.user_id = t.user_id AND t.id > s.snapshot_tx_id WHERE t.user_id = :userId) d " +
+			"WHERE b.user_id = :userId AND d.last_tx_id IS NOT NULL";
+
+	private static final String CREATE_PARTITION_SQL = "CREATE TABLE IF NOT EXISTS balance_transactions_%s " +
+			"PARTITION OF balance_transactions FOR VALUES FROM ('%s') TO ('%s')";
+
+	private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+	private final DatabaseClient databaseClient;
+
+	public Mono<Void> lockUser(Long userId) {
+		return databaseClient.sql(LOCK_USER_SQL)
+				.bind("userId", userId)
+				.fetch()
+				.first()
+				.then();
+	}
+
+	public Mono<Long> findCurrentBalance(Long userId) {
+		return databaseClient.sql(CURRENT_BALANCE_SQL)
+				.bind("userId", userId)
+				.map((row, metadata) -> row.get("balance", Long.class))
+				.one();
+	}
+
+	public Mono<Long> insertDebitIfCovered(Long userId, Long amount) {
+		return databaseClient.sql(INSERT_IF_COVERED_SQL)
+				.bind("userId", userId)
+				.bind("delta", -amount)
+				.bind("type", DEBIT)
+				.bind("amount", amount)
+				.fetch()
+				.rowsUpdated();
+	}
+
+	public Flux<Long> findUsersToCompact(int limit) {
+		return databaseClient.sql(FIND_USERS_TO_COMPACT_SQL)
+				.bind("limit", limit)
+				.map((row, metadata) -> row.get("user_id", Long.class))
+				.all();
+	}
+
+	public Mono<Long> compactSnapshot(Long userId) {
+		return databaseClient.sql(COMPACT_SNAPSHOT_SQL)
+				.bind("userId", userId)
+				.fetch()
+				.rowsUpdated();
+	}
+
+	public Mono<Void> createMonthlyPartition(YearMonth month) {
+		String sql = CREATE_PARTITION_SQL.formatted(month.format(PARTITION_SUFFIX),
+				month.atDay(1), month.plusMonths(1).atDay(1));
+		return databaseClient.sql(sql)
+				.fetch()
+				.rowsUpdated()
+				.then();
+	}
+}
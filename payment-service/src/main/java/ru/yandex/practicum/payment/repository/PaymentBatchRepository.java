@@ -0,0 +1,99 @@
+package ru.yandex.practicum.payment.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.payment.entity.PaymentEntity;
+
+/**
+ * Multi-row statements used by batched payment processing.
+ * Each method issues a single statement regardless of the number of rows involved.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentBatchRepository {
+
+	private static final String LOCK_BALANCES_SQL = "SELECT user_id, balance FROM user_balances " +
+			"WHERE user_id = ANY(:userIds) ORDER BY user_id FOR UPDATE";
+
+	private static final String DEDUCT_BALANCE_SQL = "UPDATE user_balances " +
+			"SET balance = balance - $1, updated_at = CURRENT_TIMESTAMP WHERE user_id = $2";
+
+	private static final String INSERT_PAYMENT_SQL = "INSERT INTO payments " +
+			"(order_id, user_id, amount, status, description, failure_reason, created_at, updated_at) " +
+			"VALUES ($1, $2, $3, $4, $5, $6, $7, $8)";
+
+	private final DatabaseClient databaseClient;
+
+	public Mono<Map<Long, Long>> lockBalances(Collection<Long> userIds) {
+		return databaseClient.sql(LOCK_BALANCES_SQL)
+				.bind("userIds", userIds.toArray(Long[]::new))
+				.map((row, metadata) -> Map.entry(row.get("user_id", Long.class), row.get("balance", Long.class)))
+				.all()
+				.collectMap(Map.Entry::getKey, Map.Entry::getValue);
+	}
+
+	public Mono<Void> deductBalances(Map<Long, Long> deductions) {
+		if (deductions.isEmpty()) {
+			return Mono.empty();
+		}
+		return databaseClient.inConnectionMany(connection -> {
+					Statement statement = connection.createStatement(DEDUCT_BALANCE_SQL);
+					boolean first = true;
+					for (Map.Entry<Long, Long> deduction : deductions.entrySet()) {
+						if (!first) {
+							statement.add();
+						}
+						statement.bind(0, deduction.getValue()).bind(1, deduction.getKey());
+						first = false;
+					}
+					return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+				})
+				.then();
+	}
+
+	public Flux<Long> insertPayments(List<PaymentEntity> payments) {
+		if (payments.isEmpty()) {
+			return Flux.empty();
+		}
+		return databaseClient.inConnectionMany(connection -> {
+			Statement statement = connection.createStatement(INSERT_PAYMENT_SQL).returnGeneratedValues("id");
+			for (int i = 0; i < payments.size(); i++) {
+				if (i > 0) {
+					statement.add();
+				}
+				bindPayment(statement, payments.get(i));
+			}
+			return Flux.from(statement.execute())
+					.concatMap(result -> result.map((row, metadata) -> row.get("id", Long.class)));
+		});
+	}
+
+	private void bindPayment(Statement statement, PaymentEntity payment) {
+		statement.bind(0, payment.getOrderId())
+				.bind(1, payment.getUserId())
+				.bind(2, payment.getAmount())
+				.bind(3, payment.getStatus().name())
+				.bind(6, payment.getCreatedAt())
+				.bind(7, payment.getUpdatedAt());
+		bindNullable(statement, 4, payment.getDescription());
+		bindNullable(statement, 5, payment.getFailureReason());
+	}
+
+	private void bindNullable(Statement statement, int index, String value) {
+		if (value == null) {
+			statement.bindNull(index, String.class);
+		} else {
+			statement.bind(index, value);
+		}
+	}
+}
@@ -1,11 +1,27 @@
 package ru.yandex.practicum.payment.repository;
 
+import java.time.LocalDateTime;
+
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 
+import reactor.core.publisher.Mono;
 import ru.yandex.practicum.payment.entity.PaymentEntity;
 
 @Repository
 public interface PaymentRepository extends ReactiveCrudRepository<PaymentEntity, Long> {
 
+	@Query("WITH deducted AS (" +
+			"UPDATE user_balances SET balance = balance - :amount, updated_at = CURRENT_TIMESTAMP " +
+			"WHERE user_id = :userId AND balance >= :amount RETURNING user_id) " +
+			"INSERT INTO payments (order_id, user_id, amount, status, description, failure_reason, created_at, updated_at) " +
+			"SELECT :orderId, :userId, :amount, " +
+			"CASE WHEN EXISTS (SELECT 1 FROM deducted) THEN 'COMPLETED' ELSE 'FAILED' END, " +
+			":description, " +
+			"CASE WHEN EXISTS (SELECT 1 FROM deducted) THEN NULL ELSE :failureReason END, " +
+			":createdAt, :createdAt " +
+			"RETURNING *")
+	Mono<PaymentEntity> insertWithBalanceDeduction(Long orderId, Long userId, Long amount, String description,
+			String failureReason, LocalDateTime createdAt);
 }
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.payment.service;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -9,6 +10,8 @@ import reactor.core.publisher.Mono;
 import ru.yandex.practicum.payment.exception.InsufficientBalanceException;
 import ru.yandex.practicum.payment.exception.UserNotFoundException;
 import ru.yandex.practicum.payment.repository.UserBalanceRepository;
+import ru.yandex.practicum.payment.service.journal.BalanceTransactionJournal;
+import ru.yandex.practicum.payment.service.ledger.BalanceLedger;
 
 @Slf4j
 @Service
@@ -17,10 +20,20 @@ import ru.yandex.practicum.payment.repository.UserBalanceRepository;
 public class BalanceService {
 
 	private final UserBalanceRepository userBalanceRepository;
+	private final ObjectProvider<BalanceLedger> balanceLedger;
+	private final ObjectProvider<BalanceTransactionJournal> balanceTransactionJournal;
 
 	@Transactional(readOnly = true)
 	public Mono<Long> getUserBalance(Long userId) {
 		log.debug("Getting balance for user {}", userId);
+		BalanceLedger ledger = balanceLedger.getIfAvailable();
+		if (ledger != null) {
+			return ledger.getBalance(userId);
+		}
+		BalanceTransactionJournal journal = balanceTransactionJournal.getIfAvailable();
+		if (journal != null) {
+			return journal.getBalance(userId);
+		}
 		return userBalanceRepository.findById(userId)
 				.map(userBalance -> userBalance.getBalance())
 				.switchIfEmpty(Mono.error(new UserNotFoundException("User balance not found for user: " + userId)))
@@ -29,6 +42,14 @@ public class BalanceService {
 
 	public Mono<Void> deductBalance(Long userId, Long amount) {
 		log.debug("Deducting {} from user {} balance", amount, userId);
+		BalanceLedger ledger = balanceLedger.getIfAvailable();
+		if (ledger != null) {
+			return ledger.deduct(userId, amount);
+		}
+		BalanceTransactionJournal journal = balanceTransactionJournal.getIfAvailable();
+		if (journal != null) {
+			return journal.deduct(userId, amount);
+		}
 		return userBalanceRepository.deductBalance(userId, amount)
 				.flatMap(rowsUpdated -> {
 					if (rowsUpdated == 0) {
@@ -2,8 +2,11 @@ package ru.yandex.practicum.payment.service;
 
 import java.time.LocalDateTime;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,6 +19,7 @@ import ru.yandex.practicum.payment.model.PaymentRequest;
 import ru.yandex.practicum.payment.model.PaymentResponse;
 import ru.yandex.practicum.payment.model.PaymentStatus;
 import ru.yandex.practicum.payment.repository.PaymentRepository;
+import ru.yandex.practicum.payment.service.processor.PaymentProcessor;
 
 @Slf4j
 @Service
@@ -26,14 +30,15 @@ public class PaymentService {
 	private final PaymentRepository paymentRepository;
 	private final PaymentMapper paymentMapper;
 	private final BalanceService balanceService;
+	private final TransactionalOperator transactionalOperator;
+	private final ObjectProvider<PaymentProcessor> paymentProcessor;
 
+	@Transactional(propagation = Propagation.SUPPORTS)
 	public Mono<PaymentResponse> createPayment(PaymentRequest request) {
 		log.info("createPayment called with orderId: {}, amount: {}", request.getOrderId(), request.getAmount());
 
 		return Mono.fromCallable(() -> initializePaymentEntity(request))
-				.flatMap(paymentRepository::save)
-				.doOnNext(saved -> log.info("Payment entity saved with id: {}", saved.getId()))
-				.flatMap(this::processPayment)
+				.flatMap(this::executePayment)
 				.map(paymentMapper::toResponse)
 				.doOnSuccess(response -> log.info("createPayment completed successfully: paymentId={}, status={}",
 						response.getId(), response.getStatus()))
@@ -41,6 +46,17 @@ public class PaymentService {
 						request.getOrderId(), error.getMessage()));
 	}
 
+	private Mono<PaymentEntity> executePayment(PaymentEntity payment) {
+		PaymentProcessor processor = paymentProcessor.getIfAvailable();
+		if (processor != null) {
+			return processor.process(payment);
+		}
+		return paymentRepository.save(payment)
+				.doOnNext(saved -> log.info("Payment entity saved with id: {}", saved.getId()))
+				.flatMap(this::processPayment)
+				.as(transactionalOperator::transactional);
+	}
+
 	private PaymentEntity initializePaymentEntity(PaymentRequest request) {
 		log.debug("Initializing payment entity for order {}", request.getOrderId());
 		PaymentEntity entity = paymentMapper.toEntity(request);
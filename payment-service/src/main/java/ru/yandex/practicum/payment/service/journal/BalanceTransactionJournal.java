@@ -0,0 +1,116 @@
+package ru.yandex.practicum.payment.service.journal;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.payment.exception.InsufficientBalanceException;
+import ru.yandex.practicum.payment.exception.UserNotFoundException;
+import ru.yandex.practicum.payment.repository.BalanceTransactionRepository;
+
+/**
+ * Balance storage as an insert-only transaction journal over a materialized snapshot.
+ * <p>
+ * A deduction inserts a DEBIT row into balance_transactions instead of updating user_balances.
+ * The current balance is the user_balances snapshot plus transactions after its snapshot_tx_id.
+ * A background job periodically folds new transactions into the snapshot so reads stay cheap.
+ * <p>
+ * Writers of one user are serialized by a transaction-scoped advisory lock. Because the snapshot
+ * compaction takes the same lock, no transaction of that user can commit below the new snapshot_tx_id.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.balance.journal.enabled", havingValue = "true")
+public class BalanceTransactionJournal {
+
+	private static final String STANDARD_PROCESSING_MODE = "standard";
+
+	private final BalanceTransactionRepository balanceTransactionRepository;
+	private final TransactionalOperator transactionalOperator;
+	private final Duration compactionInterval;
+	private final int compactionBatchSize;
+	private Disposable compactionSubscription;
+
+	public BalanceTransactionJournal(
+			BalanceTransactionRepository balanceTransactionRepository,
+			TransactionalOperator transactionalOperator,
+			@Value("${payment.processing.mode:standard}") String processingMode,
+			@Value("${payment.balance.ledger.enabled:false}") boolean ledgerEnabled,
+			@Value("${payment.balance.journal.compaction-interval:30s}") Duration compactionInterval,
+			@Value("${payment.balance.journal.compaction-batch-size:100}") int compactionBatchSize) {
+		if (!STANDARD_PROCESSING_MODE.equalsIgnoreCase(processingMode)) {
+			throw new IllegalStateException("Balance journal requires payment.processing.mode=standard, but was: " + processingMode);
+		}
+		if (ledgerEnabled) {
+			throw new IllegalStateException("Balance journal and balance ledger cannot be enabled together");
+		}
+		this.balanceTransactionRepository = balanceTransactionRepository;
+		this.transactionalOperator = transactionalOperator;
+		this.compactionInterval = compactionInterval;
+		this.compactionBatchSize = compactionBatchSize;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void startCompaction() {
+		log.info("Starting balance snapshot compaction every {}", compactionInterval);
+		compactionSubscription = Flux.interval(compactionInterval)
+				.onBackpressureDrop()
+				.concatMap(tick -> compactSnapshots()
+						.onErrorResume(error -> {
+							log.error("Balance snapshot compaction failed: {}", error.getMessage());
+							return Mono.empty();
+						}))
+				.subscribe();
+	}
+
+	public Mono<Long> getBalance(Long userId) {
+		return balanceTransactionRepository.findCurrentBalance(userId)
+				.switchIfEmpty(Mono.error(new UserNotFoundException("User balance not found for user: " + userId)));
+	}
+
+	public Mono<Void> deduct(Long userId, Long amount) {
+		return balanceTransactionRepository.lockUser(userId)
+				.then(balanceTransactionRepository.insertDebitIfCovered(userId, amount))
+				.as(transactionalOperator::transactional)
+				.flatMap(inserted -> {
+					if (inserted == 0) {
+						log.warn("Failed to deduct balance for user {}: insufficient funds or user not found", userId);
+						return Mono.error(new InsufficientBalanceException("Insufficient balance"));
+					}
+					return Mono.empty();
+				});
+	}
+
+	Mono<Long> compactSnapshots() {
+		return balanceTransactionRepository.findUsersToCompact(compactionBatchSize)
+				.collectList()
+				.flatMapMany(Flux::fromIterable)
+				.concatMap(userId -> balanceTransactionRepository.lockUser(userId)
+						.then(balanceTransactionRepository.compactSnapshot(userId))
+						.as(transactionalOperator::transactional))
+				.count()
+				.doOnNext(compacted -> {
+					if (compacted > 0) {
+						log.debug("Compacted balance snapshots of {} users", compacted);
+					}
+				});
+	}
+
+	@PreDestroy
+	public void stopCompaction() {
+		if (compactionSubscription != null && !compactionSubscription.isDisposed()) {
+			compactionSubscription.dispose();
+			log.info("Balance snapshot compaction stopped");
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.payment.service.journal;
+
+import java.time.Duration;
+import java.time.YearMonth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.payment.repository.BalanceTransactionRepository;
+
+/**
+ * Keeps monthly partitions of balance_transactions ahead of time: the current and the next month.
+ * Rows outside of existing partitions land in the default partition.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.balance.journal.enabled", havingValue = "true")
+public class BalanceTransactionPartitionManager {
+
+	private final BalanceTransactionRepository balanceTransactionRepository;
+	private final Duration checkInterval;
+	private Disposable partitionSubscription;
+
+	public BalanceTransactionPartitionManager(
+			BalanceTransactionRepository balanceTransactionRepository,
+			@Value("${payment.balance.journal.partition-check-interval:12h}") Duration checkInterval) {
+		this.balanceTransactionRepository = balanceTransactionRepository;
+		this.checkInterval = checkInterval;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void startPartitionMaintenance() {
+		partitionSubscription = Flux.interval(Duration.ZERO, checkInterval)
+				.onBackpressureDrop()
+				.concatMap(tick -> ensurePartitions(YearMonth.now()))
+				.subscribe();
+	}
+
+	Mono<Void> ensurePartitions(YearMonth currentMonth) {
+		return Flux.just(currentMonth, currentMonth.plusMonths(1))
+				.concatMap(month -> balanceTransactionRepository.createMonthlyPartition(month)
+						.doOnSuccess(ignored -> log.debug("Balance transactions partition for {} is ready", month))
+						.onErrorResume(error -> {
+							log.warn("Failed to create balance transactions partition for {}: {}", month, error.getMessage());
+							return Mono.empty();
+						}))
+				.then();
+	}
+
+	@PreDestroy
+	public void stopPartitionMaintenance() {
+		if (partitionSubscription != null && !partitionSubscription.isDisposed()) {
+			partitionSubscription.dispose();
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package ru.yandex.practicum.payment.service.ledger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only local journal of balance entries, one {@code sequence,userId,amount} line per entry;
+ * a negative amount is a credit.
+ * <p>
+ * The journal is split into segments named {@code <path>.<first sequence>}. {@link #roll()} closes the current
+ * segment, and closed segments whose entries are all covered by a checkpoint are deleted with
+ * {@link #deleteSegmentsUpTo(long)}, so the journal stays bounded while newer entries are still unreconciled.
+ * Not thread-safe: all calls are made from the ledger scheduler thread.
+ */
+@Slf4j
+class BalanceJournal implements AutoCloseable {
+
+	private final Path path;
+	private final Deque<Segment> closedSegments = new ArrayDeque<>();
+	private FileChannel channel;
+	private Path currentSegment;
+	private long lastAppendedSequence;
+
+	BalanceJournal(Path path) {
+		this.path = path;
+	}
+
+	/**
+	 * Streams entries after {@code sequence} from all segments on disk in sequence order.
+	 *
+	 * @return the last sequence found, or {@code sequence} if there are no later entries
+	 */
+	long replayAfter(long sequence, Consumer<Entry> consumer) {
+		long last = sequence;
+		for (Path segment : segmentsOnDisk()) {
+			try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					Entry entry = parse(line);
+					if (entry != null && entry.sequence() > sequence) {
+						consumer.accept(entry);
+						last = Math.max(last, entry.sequence());
+					}
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to read balance journal segment " + segment, e);
+			}
+		}
+		return last;
+	}
+
+	void append(List<Entry> entries) throws IOException {
+		StringBuilder lines = new StringBuilder(entries.size() * 32);
+		for (Entry entry : entries) {
+			lines.append(entry.sequence()).append(',')
+					.append(entry.userId()).append(',')
+					.append(entry.amount()).append('\n');
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+		FileChannel target = channel(entries.get(0).sequence());
+		long sizeBeforeAppend = target.size();
+		try {
+			while (buffer.hasRemaining()) {
+				target.write(buffer);
+			}
+			target.force(false);
+		} catch (IOException e) {
+			target.truncate(sizeBeforeAppend);
+			throw e;
+		}
+		lastAppendedSequence = entries.get(entries.size() - 1).sequence();
+	}
+
+	/**
+	 * Closes the current segment; the next append starts a new one.
+	 */
+	void roll() throws IOException {
+		if (channel == null) {
+			return;
+		}
+		FileChannel closing = channel;
+		channel = null;
+		closedSegments.addLast(new Segment(currentSegment, lastAppendedSequence));
+		closing.close();
+	}
+
+	/**
+	 * Deletes closed segments whose entries all have a sequence of at most {@code sequence}.
+	 */
+	void deleteSegmentsUpTo(long sequence) throws IOException {
+		while (!closedSegments.isEmpty() && closedSegments.peekFirst().lastSequence() <= sequence) {
+			Files.deleteIfExists(closedSegments.pollFirst().path());
+		}
+	}
+
+	/**
+	 * Deletes every segment on disk; called once all of them are applied.
+	 */
+	void deleteAll() throws IOException {
+		close();
+		closedSegments.clear();
+		for (Path segment : segmentsOnDisk()) {
+			Files.deleteIfExists(segment);
+		}
+	}
+
+	private List<Path> segmentsOnDisk() {
+		Path absolute = path.toAbsolutePath();
+		Path directory = absolute.getParent();
+		String prefix = absolute.getFileName() + ".";
+		List<Path> segments = new ArrayList<>();
+		// A journal written before segments were introduced holds the oldest entries
+		if (Files.exists(absolute)) {
+			segments.add(absolute);
+		}
+		if (directory == null || !Files.isDirectory(directory)) {
+			return segments;
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			files.filter(file -> isSegment(file.getFileName().toString(), prefix))
+					.sorted(Comparator.comparingLong(file -> firstSequence(file.getFileName().toString(), prefix)))
+					.forEach(segments::add);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to list balance journal segments in " + directory, e);
+		}
+		return segments;
+	}
+
+	private static boolean isSegment(String fileName, String prefix) {
+		if (!fileName.startsWith(prefix) || fileName.length() == prefix.length()) {
+			return false;
+		}
+		for (int i = prefix.length(); i < fileName.length(); i++) {
+			if (!Character.isDigit(fileName.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long firstSequence(String fileName, String prefix) {
+		return Long.parseLong(fileName.substring(prefix.length()));
+	}
+
+	private static Entry parse(String line) {
+		String[] parts = line.split(",");
+		if (parts.length != 3) {
+			log.warn("Skipping malformed balance journal line: {}", line);
+			return null;
+		}
+		return new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+	}
+
+	private FileChannel channel(long firstSequence) throws IOException {
+		if (channel == null) {
+			Path absolute = path.toAbsolutePath();
+			Path parent = absolute.getParent();
+			if (parent != null) {
+				Files.createDirectories(parent);
+			}
+			currentSegment = absolute.resolveSibling(absolute.getFileName() + "." + firstSequence);
+			channel = FileChannel.open(currentSegment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND);
+		}
+		return channel;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+
+	record Entry(long sequence, long userId, long amount) {
+	}
+
+	private record Segment(Path path, long lastSequence) {
+	}
+}
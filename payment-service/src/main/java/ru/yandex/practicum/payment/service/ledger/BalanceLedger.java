@@ -0,0 +1,432 @@
+package ru.yandex.practicum.payment.service.ledger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+import ru.yandex.practicum.payment.exception.InsufficientBalanceException;
+import ru.yandex.practicum.payment.exception.PaymentOperationException;
+import ru.yandex.practicum.payment.exception.UserNotFoundException;
+import ru.yandex.practicum.payment.repository.BalanceLedgerRepository;
+import ru.yandex.practicum.payment.repository.UserBalanceRepository;
+
+/**
+ * In-memory balance ledger that takes balance deductions off the user_balances row lock.
+ * <p>
+ * Each user balance is an {@link AtomicLong} updated with compare-and-set, so concurrent deductions
+ * for a hot account never block each other. A deduction completes once its journal entry is fsynced
+ * (entries accumulated during {@code fsync-interval} share one fsync), and journaled deductions are
+ * periodically applied to user_balances together with a checkpoint of the last applied sequence.
+ * On startup, journal entries after the checkpoint are replayed.
+ * <p>
+ * A deduction made inside a transaction that is rolled back, e.g. because the payment could not be saved,
+ * is credited back. Changes made to user_balances outside the ledger, such as top-ups, are picked up when
+ * a user's deductions are reconciled and by a refresh of all cached balances every {@code refresh-interval}.
+ * <p>
+ * The ledger assumes it is the only payment-service instance deducting balances: a single instance
+ * running the standard processing mode.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.balance.ledger.enabled", havingValue = "true")
+public class BalanceLedger {
+
+	private static final String STANDARD_PROCESSING_MODE = "standard";
+	private static final Duration FOREVER = Duration.ofMillis(Long.MAX_VALUE);
+	private static final Duration RECOVERY_MIN_BACKOFF = Duration.ofMillis(500);
+	private static final Duration RECOVERY_MAX_BACKOFF = Duration.ofSeconds(30);
+	private static final int REFRESH_CHUNK_SIZE = 1000;
+
+	private final UserBalanceRepository userBalanceRepository;
+	private final BalanceLedgerRepository balanceLedgerRepository;
+	private final TransactionalOperator transactionalOperator;
+	private final BalanceJournal journal;
+	private final String journalId;
+	private final Duration fsyncInterval;
+	private final Duration reconcileInterval;
+	private final Duration refreshInterval;
+
+	private final Map<Long, Account> accounts = new ConcurrentHashMap<>();
+	private final Queue<PendingEntry> pendingEntries = new ConcurrentLinkedQueue<>();
+	private final Scheduler scheduler = Schedulers.newSingle("balance-ledger");
+	// Only a successful recovery is cached; after a failure the next caller runs it again
+	private final Mono<Void> recovery = Mono.defer(this::recover)
+			.cache(ignored -> FOREVER, error -> Duration.ZERO, () -> FOREVER);
+
+	// Accessed only from the ledger scheduler thread
+	private final Map<Long, Long> unreconciledDeductions = new HashMap<>();
+	private long lastSequence;
+	private long lastRefreshMillis;
+
+	private Disposable startSubscription;
+	private Disposable flushSubscription;
+	private Disposable reconcileSubscription;
+
+	public BalanceLedger(
+			UserBalanceRepository userBalanceRepository,
+			BalanceLedgerRepository balanceLedgerRepository,
+			TransactionalOperator transactionalOperator,
+			@Value("${payment.processing.mode:standard}") String processingMode,
+			@Value("${spring.application.name:payment-service}") String journalId,
+			@Value("${payment.balance.ledger.journal-path:./data/balance-ledger.journal}") Path journalPath,
+			@Value("${payment.balance.ledger.fsync-interval:2ms}") Duration fsyncInterval,
+			@Value("${payment.balance.ledger.reconcile-interval:1s}") Duration reconcileInterval,
+			@Value("${payment.balance.ledger.refresh-interval:30s}") Duration refreshInterval) {
+		if (!STANDARD_PROCESSING_MODE.equalsIgnoreCase(processingMode)) {
+			throw new IllegalStateException("Balance ledger requires payment.processing.mode=standard, but was: " + processingMode);
+		}
+		this.userBalanceRepository = userBalanceRepository;
+		this.balanceLedgerRepository = balanceLedgerRepository;
+		this.transactionalOperator = transactionalOperator;
+		this.journal = new BalanceJournal(journalPath);
+		this.journalId = journalId;
+		this.fsyncInterval = fsyncInterval;
+		this.reconcileInterval = reconcileInterval;
+		this.refreshInterval = refreshInterval;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void startLedger() {
+		log.info("Starting balance ledger: fsync interval {}, reconcile interval {}, refresh interval {}",
+				fsyncInterval, reconcileInterval, refreshInterval);
+		startSubscription = recovery
+				.retryWhen(Retry.backoff(Long.MAX_VALUE, RECOVERY_MIN_BACKOFF)
+						.maxBackoff(RECOVERY_MAX_BACKOFF)
+						.doBeforeRetry(signal -> log.error("Balance ledger recovery failed, retrying: {}",
+								signal.failure().getMessage())))
+				.subscribe(
+						ignored -> {},
+						error -> log.error("Balance ledger recovery failed: {}", error.getMessage()),
+						() -> {
+							flushSubscription = Flux.interval(fsyncInterval, scheduler)
+									.subscribe(tick -> flushJournal());
+							// A refresh runs after a reconciliation, never concurrently with one
+							reconcileSubscription = Flux.interval(reconcileInterval, scheduler)
+									.onBackpressureDrop()
+									.concatMap(tick -> reconcile().then(refreshBalancesIfDue()))
+									.subscribe();
+						});
+	}
+
+	public Mono<Long> getBalance(Long userId) {
+		return recovery.then(accountOf(userId))
+				.map(account -> account.available().get())
+				.switchIfEmpty(Mono.error(new UserNotFoundException("User balance not found for user: " + userId)));
+	}
+
+	/**
+	 * Deducts the amount once it is journaled. Inside a transaction, the amount is credited back if the
+	 * transaction is rolled back.
+	 */
+	public Mono<Void> deduct(Long userId, Long amount) {
+		return recovery.then(accountOf(userId))
+				.switchIfEmpty(Mono.error(new InsufficientBalanceException("Insufficient balance")))
+				.flatMap(account -> {
+					if (!tryDeduct(account.available(), amount)) {
+						log.warn("Failed to deduct balance for user {}: insufficient funds", userId);
+						return Mono.error(new InsufficientBalanceException("Insufficient balance"));
+					}
+					return Mono.<Void>create(sink -> pendingEntries.add(new PendingEntry(userId, amount, sink)))
+							.then(creditOnRollback(userId, amount));
+				});
+	}
+
+	private Mono<Void> creditOnRollback(long userId, long amount) {
+		return TransactionSynchronizationManager.forCurrentTransaction()
+				.filter(TransactionSynchronizationManager::isSynchronizationActive)
+				.doOnNext(synchronizationManager -> synchronizationManager.registerSynchronization(
+						new TransactionSynchronization() {
+							@Override
+							public Mono<Void> afterCompletion(int status) {
+								if (status != STATUS_ROLLED_BACK) {
+									return Mono.empty();
+								}
+								log.info("Crediting back {} to user {} after transaction rollback", amount, userId);
+								return credit(userId, amount)
+										.onErrorResume(error -> {
+											log.error("Failed to credit back {} to user {}: {}", amount, userId, error.getMessage());
+											return Mono.empty();
+										});
+							}
+						}))
+				.onErrorResume(NoTransactionException.class, error -> Mono.empty())
+				.then();
+	}
+
+	private Mono<Void> credit(long userId, long amount) {
+		accounts.get(userId).available().addAndGet(amount);
+		return Mono.create(sink -> pendingEntries.add(new PendingEntry(userId, -amount, sink)));
+	}
+
+	private Mono<Account> accountOf(Long userId) {
+		Account account = accounts.get(userId);
+		if (account != null) {
+			return Mono.just(account);
+		}
+		return userBalanceRepository.findById(userId)
+				.map(entity -> accounts.computeIfAbsent(userId, id -> new Account(entity.getBalance())));
+	}
+
+	private boolean tryDeduct(AtomicLong balance, long amount) {
+		long current;
+		do {
+			current = balance.get();
+			if (current < amount) {
+				return false;
+			}
+		} while (!balance.compareAndSet(current, current - amount));
+		return true;
+	}
+
+	private void flushJournal() {
+		if (pendingEntries.isEmpty()) {
+			return;
+		}
+		List<PendingEntry> batch = new ArrayList<>();
+		PendingEntry next;
+		while ((next = pendingEntries.poll()) != null) {
+			batch.add(next);
+		}
+
+		List<BalanceJournal.Entry> entries = new ArrayList<>(batch.size());
+		long sequence = lastSequence;
+		for (PendingEntry pending : batch) {
+			entries.add(new BalanceJournal.Entry(++sequence, pending.userId(), pending.amount()));
+		}
+
+		try {
+			journal.append(entries);
+		} catch (IOException e) {
+			log.error("Failed to journal {} balance entries: {}", batch.size(), e.getMessage());
+			for (PendingEntry pending : batch) {
+				accounts.get(pending.userId()).available().addAndGet(pending.amount());
+				pending.sink().error(new PaymentOperationException("Balance deduction could not be recorded"));
+			}
+			return;
+		}
+
+		lastSequence = sequence;
+		for (PendingEntry pending : batch) {
+			unreconciledDeductions.merge(pending.userId(), pending.amount(), Long::sum);
+			pending.sink().success();
+		}
+	}
+
+	private Mono<Void> reconcile() {
+		return Mono.fromCallable(this::drainUnreconciled)
+				.subscribeOn(scheduler)
+				.flatMap(batch -> balanceLedgerRepository.applyDeductions(journalId, batch.deductions(), batch.lastSequence())
+						.as(transactionalOperator::transactional)
+						.publishOn(scheduler)
+						.doOnNext(applied -> {
+							log.debug("Reconciled {} user balances up to journal sequence {}",
+									batch.deductions().size(), batch.lastSequence());
+							applied.forEach((userId, balance) ->
+									syncDatabaseBalance(userId, balance, batch.deductions().get(userId)));
+							deleteReconciledSegments(batch.lastSequence());
+						})
+						.then()
+						.onErrorResume(error -> isPermanent(error)
+								? quarantine(batch, error)
+								: retryLater(batch, error)));
+	}
+
+	private Mono<Void> quarantine(ReconcileBatch batch, Throwable error) {
+		log.error("Quarantining {} balance deductions up to journal sequence {} that cannot be reconciled: {}",
+				batch.deductions().size(), batch.lastSequence(), error.getMessage());
+		return balanceLedgerRepository.quarantine(journalId, batch.deductions(), batch.lastSequence(), error.getMessage())
+				.as(transactionalOperator::transactional)
+				.publishOn(scheduler)
+				.doOnSuccess(ignored -> deleteReconciledSegments(batch.lastSequence()))
+				.onErrorResume(quarantineError -> retryLater(batch, quarantineError));
+	}
+
+	private Mono<Void> retryLater(ReconcileBatch batch, Throwable error) {
+		return Mono.<Void>fromRunnable(() -> {
+					log.error("Failed to reconcile user balances, will retry: {}", error.getMessage());
+					batch.deductions().forEach((userId, amount) ->
+							unreconciledDeductions.merge(userId, amount, Long::sum));
+				})
+				.subscribeOn(scheduler);
+	}
+
+	private static boolean isPermanent(Throwable error) {
+		return error instanceof NonTransientDataAccessException
+				&& !(error instanceof DataAccessResourceFailureException);
+	}
+
+	private ReconcileBatch drainUnreconciled() {
+		if (unreconciledDeductions.isEmpty()) {
+			return null;
+		}
+		ReconcileBatch batch = new ReconcileBatch(new HashMap<>(unreconciledDeductions), lastSequence);
+		unreconciledDeductions.clear();
+		// Everything in the batch is now in closed segments that can be deleted once it is reconciled
+		try {
+			journal.roll();
+		} catch (IOException e) {
+			log.warn("Failed to roll balance journal segment: {}", e.getMessage());
+		}
+		return batch;
+	}
+
+	private void deleteReconciledSegments(long reconciledSequence) {
+		try {
+			journal.deleteSegmentsUpTo(reconciledSequence);
+		} catch (IOException e) {
+			log.warn("Failed to delete reconciled balance journal segments: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Picks up balance changes made outside the ledger for every cached user once per {@code refresh-interval}.
+	 */
+	private Mono<Void> refreshBalancesIfDue() {
+		return Mono.defer(() -> {
+			long now = scheduler.now(TimeUnit.MILLISECONDS);
+			if (now - lastRefreshMillis < refreshInterval.toMillis()) {
+				return Mono.empty();
+			}
+			lastRefreshMillis = now;
+			return refreshBalances();
+		}).subscribeOn(scheduler);
+	}
+
+	private Mono<Void> refreshBalances() {
+		return Flux.defer(() -> Flux.fromIterable(List.copyOf(accounts.keySet())))
+				.buffer(REFRESH_CHUNK_SIZE)
+				.concatMap(balanceLedgerRepository::findBalances)
+				.publishOn(scheduler)
+				.doOnNext(balances -> balances.forEach((userId, balance) -> syncDatabaseBalance(userId, balance, 0L)))
+				.onErrorResume(error -> {
+					log.warn("Failed to refresh cached user balances: {}", error.getMessage());
+					return Mono.empty();
+				})
+				.then();
+	}
+
+	/**
+	 * Applies the difference between the database balance and the one the ledger expects to the cached balance.
+	 * Called on the ledger scheduler thread, never concurrently with a reconciliation.
+	 */
+	private void syncDatabaseBalance(long userId, long databaseBalance, long appliedDeduction) {
+		Account account = accounts.get(userId);
+		if (account == null) {
+			return;
+		}
+		long externalChange = databaseBalance - (account.databaseBalance - appliedDeduction);
+		account.databaseBalance = databaseBalance;
+		if (externalChange != 0) {
+			log.info("Balance of user {} changed by {} outside the ledger", userId, externalChange);
+			account.available().addAndGet(externalChange);
+		}
+	}
+
+	private Mono<Void> recover() {
+		return balanceLedgerRepository.findCheckpoint(journalId)
+				.publishOn(scheduler)
+				.flatMap(checkpoint -> {
+					Map<Long, Long> deductions = new HashMap<>();
+					long[] replayed = new long[1];
+					lastSequence = journal.replayAfter(checkpoint, entry -> {
+						deductions.merge(entry.userId(), entry.amount(), Long::sum);
+						replayed[0]++;
+					});
+					if (deductions.isEmpty()) {
+						return Mono.fromCallable(this::deleteJournal);
+					}
+
+					log.info("Replaying {} journaled balance entries after sequence {}", replayed[0], checkpoint);
+					return balanceLedgerRepository.applyDeductions(journalId, deductions, lastSequence)
+							.as(transactionalOperator::transactional)
+							.publishOn(scheduler)
+							.then(Mono.fromCallable(this::deleteJournal));
+				})
+				.doOnSuccess(ignored -> log.info("Balance ledger recovered at journal sequence {}", lastSequence))
+				.then();
+	}
+
+	private Boolean deleteJournal() throws IOException {
+		journal.deleteAll();
+		return true;
+	}
+
+	@PreDestroy
+	public void stopLedger() {
+		if (startSubscription != null) {
+			startSubscription.dispose();
+		}
+		if (flushSubscription != null) {
+			flushSubscription.dispose();
+		}
+		if (reconcileSubscription != null) {
+			reconcileSubscription.dispose();
+		}
+		try {
+			Mono.fromRunnable(this::flushJournal)
+					.subscribeOn(scheduler)
+					.then(reconcile())
+					.block(Duration.ofSeconds(10));
+			journal.close();
+		} catch (Exception e) {
+			log.warn("Balance ledger did not shut down cleanly, journal will be replayed on startup: {}", e.getMessage());
+		}
+		scheduler.dispose();
+		log.info("Balance ledger stopped");
+	}
+
+	/**
+	 * Cached balance of a user. {@code databaseBalance} is the user_balances value the ledger last saw; it is
+	 * written only on the ledger scheduler thread after the account is created.
+	 */
+	private static final class Account {
+
+		private final AtomicLong available;
+		private long databaseBalance;
+
+		private Account(long balance) {
+			this.available = new AtomicLong(balance);
+			this.databaseBalance = balance;
+		}
+
+		private AtomicLong available() {
+			return available;
+		}
+	}
+
+	private record PendingEntry(long userId, long amount, MonoSink<Void> sink) {
+	}
+
+	private record ReconcileBatch(Map<Long, Long> deductions, long lastSequence) {
+	}
+}
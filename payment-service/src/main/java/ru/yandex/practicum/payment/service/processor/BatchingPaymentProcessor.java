@@ -0,0 +1,184 @@
+package ru.yandex.practicum.payment.service.processor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+import ru.yandex.practicum.payment.entity.PaymentEntity;
+import ru.yandex.practicum.payment.exception.InsufficientBalanceException;
+import ru.yandex.practicum.payment.model.PaymentStatus;
+import ru.yandex.practicum.payment.repository.PaymentBatchRepository;
+import ru.yandex.practicum.payment.repository.PaymentRepository;
+
+/**
+ * Groups payments arriving within a short window and settles them in one transaction:
+ * one locking read of the affected balances, one batched balance update and one batched insert.
+ * <p>
+ * Batches are processed one after another and payments inside a batch are applied in arrival order,
+ * so payments of the same user are settled in the order they were received. When a batch fails, its transaction
+ * is rolled back and its payments are settled one by one in the single-statement way, so one bad payment does not
+ * fail the payments of other users.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.processing.mode", havingValue = "batched")
+public class BatchingPaymentProcessor implements PaymentProcessor {
+
+	private static final String INSUFFICIENT_BALANCE_MESSAGE = "Insufficient balance";
+	private static final Duration EMIT_TIMEOUT = Duration.ofSeconds(1);
+
+	private final PaymentBatchRepository paymentBatchRepository;
+	private final PaymentRepository paymentRepository;
+	private final TransactionalOperator transactionalOperator;
+	private final int maxBatchSize;
+	private final Duration batchWindow;
+	private final Sinks.Many<PendingPayment> pendingPayments = Sinks.many().unicast().onBackpressureBuffer();
+	private Disposable batchSubscription;
+
+	public BatchingPaymentProcessor(
+			PaymentBatchRepository paymentBatchRepository,
+			PaymentRepository paymentRepository,
+			TransactionalOperator transactionalOperator,
+			@Value("${payment.processing.batch.max-size:64}") int maxBatchSize,
+			@Value("${payment.processing.batch.window:5ms}") Duration batchWindow) {
+		this.paymentBatchRepository = paymentBatchRepository;
+		this.paymentRepository = paymentRepository;
+		this.transactionalOperator = transactionalOperator;
+		this.maxBatchSize = maxBatchSize;
+		this.batchWindow = batchWindow;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void startBatching() {
+		log.info("Starting payment batching: max batch size {}, window {}", maxBatchSize, batchWindow);
+		batchSubscription = pendingPayments.asFlux()
+				.bufferTimeout(maxBatchSize, batchWindow)
+				.concatMap(this::processBatch)
+				.subscribe();
+	}
+
+	@Override
+	public Mono<PaymentEntity> process(PaymentEntity payment) {
+		return Mono.<PaymentEntity>create(sink -> pendingPayments.emitNext(new PendingPayment(payment, sink),
+						Sinks.EmitFailureHandler.busyLooping(EMIT_TIMEOUT)))
+				.flatMap(processed -> {
+					if (processed.getStatus() != PaymentStatus.COMPLETED) {
+						return Mono.error(new InsufficientBalanceException(processed.getFailureReason()));
+					}
+					return Mono.just(processed);
+				});
+	}
+
+	private Mono<Void> processBatch(List<PendingPayment> batch) {
+		log.debug("Processing payment batch of {} payments", batch.size());
+		List<PaymentEntity> payments = batch.stream().map(PendingPayment::payment).toList();
+
+		return settleBatch(payments)
+				.onErrorResume(error -> {
+					log.warn("Payment batch of {} payments failed, settling them one by one: {}",
+							batch.size(), error.getMessage());
+					return settleIndividually(batch).then(Mono.empty());
+				})
+				.doOnNext(ids -> {
+					for (int i = 0; i < batch.size(); i++) {
+						PaymentEntity payment = payments.get(i);
+						payment.setId(ids.get(i));
+						batch.get(i).sink().success(payment);
+					}
+					log.debug("Payment batch of {} payments settled", batch.size());
+				})
+				.then()
+				.onErrorComplete();
+	}
+
+	private Mono<List<Long>> settleBatch(List<PaymentEntity> payments) {
+		Set<Long> userIds = payments.stream()
+				.map(PaymentEntity::getUserId)
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+
+		return paymentBatchRepository.lockBalances(userIds)
+				.flatMap(balances -> paymentBatchRepository.deductBalances(allocate(payments, balances))
+						.thenMany(paymentBatchRepository.insertPayments(payments))
+						.collectList())
+				.flatMap(ids -> ids.size() == payments.size()
+						? Mono.just(ids)
+						: Mono.error(new IllegalStateException("Batch insert returned " + ids.size()
+								+ " ids for " + payments.size() + " payments")))
+				.as(transactionalOperator::transactional);
+	}
+
+	private Mono<Void> settleIndividually(List<PendingPayment> batch) {
+		return Flux.fromIterable(batch)
+				.concatMap(pending -> {
+					PaymentEntity payment = pending.payment();
+					return paymentRepository.insertWithBalanceDeduction(
+									payment.getOrderId(),
+									payment.getUserId(),
+									payment.getAmount(),
+									payment.getDescription(),
+									INSUFFICIENT_BALANCE_MESSAGE,
+									payment.getCreatedAt())
+							.switchIfEmpty(Mono.error(new IllegalStateException(
+									"Payment for order " + payment.getOrderId() + " was not inserted")))
+							.doOnNext(pending.sink()::success)
+							.doOnError(error -> {
+								log.error("Payment for order {} failed: {}", payment.getOrderId(), error.getMessage());
+								pending.sink().error(error);
+							})
+							.onErrorComplete();
+				})
+				.then();
+	}
+
+	private Map<Long, Long> allocate(List<PaymentEntity> payments, Map<Long, Long> balances) {
+		Map<Long, Long> available = new HashMap<>(balances);
+		Map<Long, Long> deductions = new LinkedHashMap<>();
+		LocalDateTime now = LocalDateTime.now();
+
+		for (PaymentEntity payment : payments) {
+			Long balance = available.get(payment.getUserId());
+			if (balance != null && balance >= payment.getAmount()) {
+				available.put(payment.getUserId(), balance - payment.getAmount());
+				deductions.merge(payment.getUserId(), payment.getAmount(), Long::sum);
+				payment.setStatus(PaymentStatus.COMPLETED);
+			} else {
+				log.warn("Insufficient balance for payment of order {} by user {}", payment.getOrderId(), payment.getUserId());
+				payment.setStatus(PaymentStatus.FAILED);
+				payment.setFailureReason(INSUFFICIENT_BALANCE_MESSAGE);
+			}
+			payment.setUpdatedAt(now);
+		}
+		return deductions;
+	}
+
+	@PreDestroy
+	public void stopBatching() {
+		if (batchSubscription != null && !batchSubscription.isDisposed()) {
+			batchSubscription.dispose();
+			log.info("Payment batching stopped");
+		}
+	}
+
+	private record PendingPayment(PaymentEntity payment, MonoSink<PaymentEntity> sink) {
+	}
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.payment.service.processor;
+
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.payment.entity.PaymentEntity;
+
+/**
+ * Alternative execution strategy for new payments, selected with {@code payment.processing.mode}.
+ * <p>
+ * Receives a not yet persisted {@code PENDING} payment and returns it persisted with its final status.
+ * When the balance cannot cover the payment, the payment is persisted as {@code FAILED}
+ * and the returned Mono fails with {@link ru.yandex.practicum.payment.exception.InsufficientBalanceException}.
+ */
+public interface PaymentProcessor {
+
+	Mono<PaymentEntity> process(PaymentEntity payment);
+}
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.payment.service.processor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.payment.entity.PaymentEntity;
+import ru.yandex.practicum.payment.exception.InsufficientBalanceException;
+import ru.yandex.practicum.payment.model.PaymentStatus;
+import ru.yandex.practicum.payment.repository.PaymentRepository;
+
+/**
+ * Deducts the balance and inserts the payment with its final status in one SQL statement,
+ * so both the happy path and the insufficient balance path take a single round trip.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "payment.processing.mode", havingValue = "single-statement")
+public class SingleStatementPaymentProcessor implements PaymentProcessor {
+
+	private static final String INSUFFICIENT_BALANCE_MESSAGE = "Insufficient balance";
+
+	private final PaymentRepository paymentRepository;
+
+	@Override
+	public Mono<PaymentEntity> process(PaymentEntity payment) {
+		log.debug("Processing payment for order {} by user {} in a single statement",
+				payment.getOrderId(), payment.getUserId());
+
+		return paymentRepository.insertWithBalanceDeduction(
+						payment.getOrderId(),
+						payment.getUserId(),
+						payment.getAmount(),
+						payment.getDescription(),
+						INSUFFICIENT_BALANCE_MESSAGE,
+						payment.getCreatedAt())
+				.flatMap(saved -> {
+					if (saved.getStatus() != PaymentStatus.COMPLETED) {
+						log.warn("Payment {} failed for user {}: {}", saved.getId(), saved.getUserId(), saved.getFailureReason());
+						return Mono.error(new InsufficientBalanceException(saved.getFailureReason()));
+					}
+					log.info("Payment {} completed successfully for user {}", saved.getId(), saved.getUserId());
+					return Mono.just(saved);
+				});
+	}
+}
@@ -27,3 +27,40 @@ CREATE TABLE IF NOT EXISTS user_balances (
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
+
+-- Контрольные точки журнала балансов (режим payment.balance.ledger)
+CREATE TABLE IF NOT EXISTS balance_ledger_checkpoints (
+    journal_id VARCHAR(100) PRIMARY KEY,
+    last_sequence BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Списания журнала балансов, которые не удалось применить к user_balances, для ручного разбора
+CREATE TABLE IF NOT EXISTS balance_ledger_quarantine (
+    id BIGSERIAL PRIMARY KEY,
+    journal_id VARCHAR(100) NOT NULL,
+    user_id BIGINT NOT NULL,
+    amount BIGINT NOT NULL,
+    last_sequence BIGINT NOT NULL,
+    reason VARCHAR(500) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Снимок баланса: balance учитывает все транзакции с id <= snapshot_tx_id (режим payment.balance.journal)
+ALTER TABLE user_balances ADD COLUMN IF NOT EXISTS snapshot_tx_id BIGINT NOT NULL DEFAULT 0;
+
+-- Журнал транзакций по балансу, только вставки, секционирован по месяцам
+CREATE TABLE IF NOT EXISTS balance_transactions (
+    id BIGSERIAL,
+    user_id BIGINT NOT NULL,
+    amount BIGINT NOT NULL CHECK (amount <> 0),
+    type VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Секция по умолчанию для строк вне созданных месячных секций
+CREATE TABLE IF NOT EXISTS balance_transactions_default PARTITION OF balance_transactions DEFAULT;
+
+-- Индекс для суммирования транзакций пользователя после снимка
+CREATE INDEX IF NOT EXISTS idx_balance_transactions_user_id ON balance_transactions(user_id, id);
@@ -12,6 +12,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.reactive.TransactionalOperator;
 
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -21,6 +23,7 @@ import ru.yandex.practicum.payment.model.PaymentRequest;
 import ru.yandex.practicum.payment.model.PaymentResponse;
 import ru.yandex.practicum.payment.model.PaymentStatus;
 import ru.yandex.practicum.payment.repository.PaymentRepository;
+import ru.yandex.practicum.payment.service.processor.PaymentProcessor;
 
 @ExtendWith(MockitoExtension.class)
 class PaymentServiceTest {
@@ -34,6 +37,12 @@ class PaymentServiceTest {
 	@Mock
 	private BalanceService balanceService;
 
+	@Mock
+	private TransactionalOperator transactionalOperator;
+
+	@Mock
+	private ObjectProvider<PaymentProcessor> paymentProcessor;
+
 	@InjectMocks
 	private PaymentService paymentService;
 
@@ -74,6 +83,7 @@ class PaymentServiceTest {
 		});
 		when(balanceService.deductBalance(any(Long.class), any(Long.class))).thenReturn(Mono.empty());
 		when(paymentMapper.toResponse(any(PaymentEntity.class))).thenReturn(paymentResponse);
+		when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
 		Mono<PaymentResponse> result = paymentService.createPayment(paymentRequest);
 
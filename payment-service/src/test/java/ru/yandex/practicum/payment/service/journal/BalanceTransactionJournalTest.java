@@ -0,0 +1,99 @@
+package ru.yandex.practicum.payment.service.journal;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.yandex.practicum.payment.exception.InsufficientBalanceException;
+import ru.yandex.practicum.payment.exception.UserNotFoundException;
+import ru.yandex.practicum.payment.repository.BalanceTransactionRepository;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceTransactionJournalTest {
+
+	@Mock
+	private BalanceTransactionRepository balanceTransactionRepository;
+
+	@Mock
+	private TransactionalOperator transactionalOperator;
+
+	private BalanceTransactionJournal journal;
+
+	@BeforeEach
+	void setUp() {
+		lenient().when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		journal = new BalanceTransactionJournal(balanceTransactionRepository, transactionalOperator,
+				"standard", false, Duration.ofSeconds(30), 100);
+	}
+
+	@Test
+	void deduct_shouldInsertDebitUnderUserLock() {
+		when(balanceTransactionRepository.lockUser(1L)).thenReturn(Mono.empty());
+		when(balanceTransactionRepository.insertDebitIfCovered(1L, 100L)).thenReturn(Mono.just(1L));
+
+		StepVerifier.create(journal.deduct(1L, 100L))
+				.verifyComplete();
+
+		InOrder order = inOrder(balanceTransactionRepository);
+		order.verify(balanceTransactionRepository).lockUser(1L);
+		order.verify(balanceTransactionRepository).insertDebitIfCovered(1L, 100L);
+	}
+
+	@Test
+	void deduct_shouldFailWhenBalanceIsInsufficient() {
+		when(balanceTransactionRepository.lockUser(1L)).thenReturn(Mono.empty());
+		when(balanceTransactionRepository.insertDebitIfCovered(1L, 100L)).thenReturn(Mono.just(0L));
+
+		StepVerifier.create(journal.deduct(1L, 100L))
+				.expectError(InsufficientBalanceException.class)
+				.verify();
+	}
+
+	@Test
+	void getBalance_shouldFailWhenUserIsUnknown() {
+		when(balanceTransactionRepository.findCurrentBalance(1L)).thenReturn(Mono.empty());
+
+		StepVerifier.create(journal.getBalance(1L))
+				.expectError(UserNotFoundException.class)
+				.verify();
+	}
+
+	@Test
+	void compactSnapshots_shouldCompactEachUserUnderItsLock() {
+		when(balanceTransactionRepository.findUsersToCompact(100)).thenReturn(Flux.just(1L, 2L));
+		when(balanceTransactionRepository.lockUser(any())).thenReturn(Mono.empty());
+		when(balanceTransactionRepository.compactSnapshot(any())).thenReturn(Mono.just(1L));
+
+		StepVerifier.create(journal.compactSnapshots())
+				.expectNext(2L)
+				.verifyComplete();
+
+		InOrder order = inOrder(balanceTransactionRepository);
+		order.verify(balanceTransactionRepository).lockUser(1L);
+		order.verify(balanceTransactionRepository).compactSnapshot(1L);
+		order.verify(balanceTransactionRepository).lockUser(2L);
+		order.verify(balanceTransactionRepository).compactSnapshot(2L);
+	}
+
+	@Test
+	void constructor_shouldRejectEnabledLedger() {
+		assertThatThrownBy(() -> new BalanceTransactionJournal(balanceTransactionRepository, transactionalOperator,
+				"standard", true, Duration.ofSeconds(30), 100))
+				.isInstanceOf(IllegalStateException.class);
+	}
+}
@@ -0,0 +1,294 @@
+package ru.yandex.practicum.payment.service.ledger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.AbstractReactiveTransactionManager;
+import org.springframework.transaction.reactive.GenericReactiveTransaction;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.yandex.practicum.payment.entity.UserBalanceEntity;
+import ru.yandex.practicum.payment.exception.InsufficientBalanceException;
+import ru.yandex.practicum.payment.repository.BalanceLedgerRepository;
+import ru.yandex.practicum.payment.repository.UserBalanceRepository;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceLedgerTest {
+
+	@Mock
+	private UserBalanceRepository userBalanceRepository;
+
+	@Mock
+	private BalanceLedgerRepository balanceLedgerRepository;
+
+	@Mock
+	private TransactionalOperator transactionalOperator;
+
+	@TempDir
+	private Path tempDir;
+
+	private Path journalPath;
+	private BalanceLedger ledger;
+
+	@BeforeEach
+	void setUp() {
+		journalPath = tempDir.resolve("balance-ledger.journal");
+		lenient().when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		lenient().when(balanceLedgerRepository.applyDeductions(any(), anyMap(), anyLong())).thenReturn(Mono.just(Map.of()));
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (ledger != null) {
+			ledger.stopLedger();
+		}
+	}
+
+	@Test
+	void deduct_shouldDeductInMemoryAndReconcileToDatabase() {
+		when(balanceLedgerRepository.findCheckpoint("payment-service")).thenReturn(Mono.just(0L));
+		when(userBalanceRepository.findById(1L)).thenReturn(Mono.just(balance(1L, 150L)));
+		when(balanceLedgerRepository.applyDeductions("payment-service", Map.of(1L, 100L), 1L))
+				.thenReturn(Mono.just(Map.of(1L, 50L)));
+		startLedger("standard");
+
+		StepVerifier.create(ledger.deduct(1L, 100L))
+				.verifyComplete();
+		StepVerifier.create(ledger.getBalance(1L))
+				.expectNext(50L)
+				.verifyComplete();
+
+		verify(balanceLedgerRepository, timeout(2000)).applyDeductions("payment-service", Map.of(1L, 100L), 1L);
+		awaitJournalSegments(0);
+		StepVerifier.create(ledger.getBalance(1L))
+				.expectNext(50L)
+				.verifyComplete();
+	}
+
+	@Test
+	void reconcile_shouldApplyBalanceChangesMadeOutsideTheLedger() {
+		when(balanceLedgerRepository.findCheckpoint("payment-service")).thenReturn(Mono.just(0L));
+		when(userBalanceRepository.findById(1L)).thenReturn(Mono.just(balance(1L, 150L)));
+		when(balanceLedgerRepository.applyDeductions("payment-service", Map.of(1L, 100L), 1L))
+				.thenReturn(Mono.just(Map.of(1L, 250L)));
+		startLedger("standard");
+
+		StepVerifier.create(ledger.deduct(1L, 100L))
+				.verifyComplete();
+
+		awaitBalance(1L, 250L);
+	}
+
+	@Test
+	void refresh_shouldPickUpTopUpsOfCachedUsers() {
+		when(balanceLedgerRepository.findCheckpoint("payment-service")).thenReturn(Mono.just(0L));
+		when(userBalanceRepository.findById(1L)).thenReturn(Mono.just(balance(1L, 150L)));
+		when(balanceLedgerRepository.findBalances(List.of(1L))).thenReturn(Mono.just(Map.of(1L, 400L)));
+		startLedger("standard");
+
+		StepVerifier.create(ledger.getBalance(1L))
+				.expectNext(150L)
+				.verifyComplete();
+
+		awaitBalance(1L, 400L);
+	}
+
+	@Test
+	void reconcile_shouldQuarantineDeductionsThatFailPermanently() {
+		when(balanceLedgerRepository.findCheckpoint("payment-service")).thenReturn(Mono.just(0L));
+		when(userBalanceRepository.findById(1L)).thenReturn(Mono.just(balance(1L, 150L)));
+		when(balanceLedgerRepository.applyDeductions("payment-service", Map.of(1L, 100L), 1L))
+				.thenReturn(Mono.error(new DataIntegrityViolationException("violates check constraint")));
+		when(balanceLedgerRepository.quarantine(eq("payment-service"), eq(Map.of(1L, 100L)), eq(1L), any()))
+				.thenReturn(Mono.empty());
+		startLedger("standard");
+
+		StepVerifier.create(ledger.deduct(1L, 100L))
+				.verifyComplete();
+
+		verify(balanceLedgerRepository, timeout(2000))
+				.quarantine(eq("payment-service"), eq(Map.of(1L, 100L)), eq(1L), any());
+		awaitJournalSegments(0);
+		verify(balanceLedgerRepository, after(200).times(1)).applyDeductions(any(), anyMap(), anyLong());
+	}
+
+	@Test
+	void reconcile_shouldRetryTransientFailures() {
+		when(balanceLedgerRepository.findCheckpoint("payment-service")).thenReturn(Mono.just(0L));
+		when(userBalanceRepository.findById(1L)).thenReturn(Mono.just(balance(1L, 150L)));
+		when(balanceLedgerRepository.applyDeductions("payment-service", Map.of(1L, 100L), 1L))
+				.thenReturn(Mono.error(new DataAccessResourceFailureException("connection lost")))
+				.thenReturn(Mono.just(Map.of(1L, 50L)));
+		startLedger("standard");
+
+		StepVerifier.create(ledger.deduct(1L, 100L))
+				.verifyComplete();
+
+		verify(balanceLedgerRepository, timeout(2000).times(2)).applyDeductions("payment-service", Map.of(1L, 100L), 1L);
+		verify(balanceLedgerRepository, never()).quarantine(any(), anyMap(), anyLong(), any());
+	}
+
+	@Test
+	void deduct_shouldCreditBackWhenTransactionRollsBack() {
+		when(balanceLedgerRepository.findCheckpoint("payment-service")).thenReturn(Mono.just(0L));
+		when(userBalanceRepository.findById(1L)).thenReturn(Mono.just(balance(1L, 150L)));
+		startLedger("standard");
+		TransactionalOperator paymentTransaction = TransactionalOperator.create(new NoOpTransactionManager());
+
+		StepVerifier.create(ledger.deduct(1L, 100L)
+						.then(Mono.error(new IllegalStateException("payment insert failed")))
+						.as(paymentTransaction::transactional))
+				.expectErrorMessage("payment insert failed")
+				.verify();
+
+		StepVerifier.create(ledger.getBalance(1L))
+				.expectNext(150L)
+				.verifyComplete();
+		verify(balanceLedgerRepository, timeout(2000)).applyDeductions("payment-service", Map.of(1L, 0L), 2L);
+	}
+
+	@Test
+	void getBalance_shouldRetryRecoveryAfterFailure() {
+		when(balanceLedgerRepository.findCheckpoint("payment-service"))
+				.thenReturn(Mono.error(new DataAccessResourceFailureException("connection refused")))
+				.thenReturn(Mono.just(0L));
+		when(userBalanceRepository.findById(1L)).thenReturn(Mono.just(balance(1L, 150L)));
+		ledger = createLedger("standard");
+
+		StepVerifier.create(ledger.getBalance(1L))
+				.expectError(DataAccessResourceFailureException.class)
+				.verify();
+		StepVerifier.create(ledger.getBalance(1L))
+				.expectNext(150L)
+				.verifyComplete();
+	}
+
+	@Test
+	void deduct_shouldFailWhenBalanceIsInsufficient() {
+		when(balanceLedgerRepository.findCheckpoint("payment-service")).thenReturn(Mono.just(0L));
+		when(userBalanceRepository.findById(1L)).thenReturn(Mono.just(balance(1L, 50L)));
+		startLedger("standard");
+
+		StepVerifier.create(ledger.deduct(1L, 100L))
+				.expectError(InsufficientBalanceException.class)
+				.verify();
+		StepVerifier.create(ledger.getBalance(1L))
+				.expectNext(50L)
+				.verifyComplete();
+	}
+
+	@Test
+	void startLedger_shouldReplayJournalEntriesAfterCheckpoint() throws IOException {
+		Files.write(journalPath, List.of("1,1,30", "2,2,40", "3,1,20"));
+		Files.write(tempDir.resolve("balance-ledger.journal.4"), List.of("4,2,10", "5,1,-20"));
+		when(balanceLedgerRepository.findCheckpoint("payment-service")).thenReturn(Mono.just(1L));
+		startLedger("standard");
+
+		verify(balanceLedgerRepository, timeout(2000)).applyDeductions(eq("payment-service"), eq(Map.of(2L, 50L, 1L, 0L)), eq(5L));
+		awaitJournalSegments(0);
+		assertThat(journalPath).doesNotExist();
+	}
+
+	@Test
+	void constructor_shouldRejectNonStandardProcessingMode() {
+		assertThatThrownBy(() -> createLedger("batched"))
+				.isInstanceOf(IllegalStateException.class);
+		assertThat(journalPath).doesNotExist();
+	}
+
+	private void startLedger(String processingMode) {
+		ledger = createLedger(processingMode);
+		ledger.startLedger();
+	}
+
+	private BalanceLedger createLedger(String processingMode) {
+		return new BalanceLedger(userBalanceRepository, balanceLedgerRepository, transactionalOperator,
+				processingMode, "payment-service", journalPath, Duration.ofMillis(2), Duration.ofMillis(50),
+				Duration.ofMillis(100));
+	}
+
+	private void awaitBalance(Long userId, long expected) {
+		StepVerifier.create(Mono.defer(() -> ledger.getBalance(userId))
+						.filter(balance -> balance == expected)
+						.repeatWhenEmpty(repeat -> repeat.delayElements(Duration.ofMillis(10)))
+						.timeout(Duration.ofSeconds(5)))
+				.expectNext(expected)
+				.verifyComplete();
+	}
+
+	private void awaitJournalSegments(long expected) {
+		StepVerifier.create(Mono.fromCallable(this::journalSegments)
+						.filter(count -> count == expected)
+						.repeatWhenEmpty(repeat -> repeat.delayElements(Duration.ofMillis(10)))
+						.timeout(Duration.ofSeconds(5)))
+				.expectNext(expected)
+				.verifyComplete();
+	}
+
+	private long journalSegments() throws IOException {
+		try (Stream<Path> files = Files.list(tempDir)) {
+			return files.filter(file -> file.getFileName().toString().startsWith("balance-ledger.journal")).count();
+		}
+	}
+
+	private UserBalanceEntity balance(Long userId, Long amount) {
+		return UserBalanceEntity.builder().userId(userId).balance(amount).build();
+	}
+
+	private static final class NoOpTransactionManager extends AbstractReactiveTransactionManager {
+
+		@Override
+		protected Object doGetTransaction(TransactionSynchronizationManager synchronizationManager) {
+			return new Object();
+		}
+
+		@Override
+		protected Mono<Void> doBegin(TransactionSynchronizationManager synchronizationManager, Object transaction,
+				TransactionDefinition definition) {
+			return Mono.empty();
+		}
+
+		@Override
+		protected Mono<Void> doCommit(TransactionSynchronizationManager synchronizationManager,
+				GenericReactiveTransaction status) {
+			return Mono.empty();
+		}
+
+		@Override
+		protected Mono<Void> doRollback(TransactionSynchronizationManager synchronizationManager,
+				GenericReactiveTransaction status) {
+			return Mono.empty();
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package ru.yandex.practicum.payment.service.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.yandex.practicum.payment.entity.PaymentEntity;
+import ru.yandex.practicum.payment.exception.InsufficientBalanceException;
+import ru.yandex.practicum.payment.model.PaymentStatus;
+import ru.yandex.practicum.payment.repository.PaymentBatchRepository;
+import ru.yandex.practicum.payment.repository.PaymentRepository;
+
+@ExtendWith(MockitoExtension.class)
+class BatchingPaymentProcessorTest {
+
+	@Mock
+	private PaymentBatchRepository paymentBatchRepository;
+
+	@Mock
+	private PaymentRepository paymentRepository;
+
+	@Mock
+	private TransactionalOperator transactionalOperator;
+
+	private BatchingPaymentProcessor processor;
+
+	@BeforeEach
+	void setUp() {
+		when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		processor = new BatchingPaymentProcessor(paymentBatchRepository, paymentRepository, transactionalOperator, 2,
+				Duration.ofMillis(50));
+		processor.startBatching();
+	}
+
+	@AfterEach
+	void tearDown() {
+		processor.stopBatching();
+	}
+
+	@Test
+	void process_shouldSettleBatchInArrivalOrderPerUser() {
+		when(paymentBatchRepository.lockBalances(anyCollection())).thenReturn(Mono.just(Map.of(1L, 150L)));
+		when(paymentBatchRepository.deductBalances(anyMap())).thenReturn(Mono.empty());
+		when(paymentBatchRepository.insertPayments(anyList())).thenReturn(Flux.just(10L, 11L));
+
+		Mono<PaymentEntity> first = processor.process(payment(1L, 100L));
+		Mono<Object> second = processor.process(payment(2L, 100L))
+				.<Object>map(payment -> payment)
+				.onErrorResume(Mono::just);
+
+		StepVerifier.create(Mono.zip(first, second))
+				.assertNext(results -> {
+					assertThat(results.getT1().getId()).isEqualTo(10L);
+					assertThat(results.getT1().getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+					assertThat(results.getT2()).isInstanceOf(InsufficientBalanceException.class);
+				})
+				.verifyComplete();
+
+		verify(paymentBatchRepository).deductBalances(Map.of(1L, 100L));
+	}
+
+	@Test
+	void process_shouldSettlePaymentsOneByOneWhenBatchFails() {
+		when(paymentBatchRepository.lockBalances(anyCollection()))
+				.thenReturn(Mono.error(new IllegalStateException("deadlock detected")));
+		when(paymentRepository.insertWithBalanceDeduction(eq(1L), any(), any(), any(), any(), any()))
+				.thenReturn(Mono.just(settled(1L, 20L, PaymentStatus.COMPLETED)));
+		when(paymentRepository.insertWithBalanceDeduction(eq(2L), any(), any(), any(), any(), any()))
+				.thenReturn(Mono.error(new IllegalStateException("connection lost")));
+
+		Mono<PaymentEntity> first = processor.process(payment(1L, 100L));
+		Mono<Object> second = processor.process(payment(2L, 100L))
+				.<Object>map(payment -> payment)
+				.onErrorResume(Mono::just);
+
+		StepVerifier.create(Mono.zip(first, second))
+				.assertNext(results -> {
+					assertThat(results.getT1().getId()).isEqualTo(20L);
+					assertThat(results.getT2()).isInstanceOf(IllegalStateException.class);
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void process_shouldNotCompleteAnyPaymentWhenBatchInsertReturnsTooFewIds() {
+		when(paymentBatchRepository.lockBalances(anyCollection())).thenReturn(Mono.just(Map.of(1L, 500L)));
+		when(paymentBatchRepository.deductBalances(anyMap())).thenReturn(Mono.empty());
+		when(paymentBatchRepository.insertPayments(anyList())).thenReturn(Flux.just(10L));
+		when(paymentRepository.insertWithBalanceDeduction(any(), any(), any(), any(), any(), any()))
+				.thenAnswer(invocation -> Mono.just(settled(invocation.getArgument(0), 30L + invocation.<Long>getArgument(0),
+						PaymentStatus.COMPLETED)));
+
+		StepVerifier.create(Mono.zip(processor.process(payment(1L, 100L)), processor.process(payment(2L, 100L))))
+				.assertNext(results -> {
+					assertThat(results.getT1().getId()).isEqualTo(31L);
+					assertThat(results.getT2().getId()).isEqualTo(32L);
+				})
+				.verifyComplete();
+	}
+
+	private PaymentEntity settled(Long orderId, Long id, PaymentStatus status) {
+		PaymentEntity payment = payment(orderId, 100L);
+		payment.setId(id);
+		payment.setStatus(status);
+		return payment;
+	}
+
+	private PaymentEntity payment(Long orderId, Long amount) {
+		PaymentEntity payment = new PaymentEntity();
+		payment.setOrderId(orderId);
+		payment.setUserId(1L);
+		payment.setAmount(amount);
+		payment.setStatus(PaymentStatus.PENDING);
+		return payment;
+	}
+}
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.payment.service.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.yandex.practicum.payment.entity.PaymentEntity;
+import ru.yandex.practicum.payment.exception.InsufficientBalanceException;
+import ru.yandex.practicum.payment.model.PaymentStatus;
+import ru.yandex.practicum.payment.repository.PaymentRepository;
+
+@ExtendWith(MockitoExtension.class)
+class SingleStatementPaymentProcessorTest {
+
+	@Mock
+	private PaymentRepository paymentRepository;
+
+	@InjectMocks
+	private SingleStatementPaymentProcessor processor;
+
+	private PaymentEntity payment;
+
+	@BeforeEach
+	void setUp() {
+		payment = new PaymentEntity();
+		payment.setOrderId(1L);
+		payment.setUserId(1L);
+		payment.setAmount(10000L);
+		payment.setDescription("Test payment");
+		payment.setStatus(PaymentStatus.PENDING);
+		payment.setCreatedAt(LocalDateTime.now());
+	}
+
+	@Test
+	void process_shouldReturnCompletedPayment() {
+		when(paymentRepository.insertWithBalanceDeduction(anyLong(), anyLong(), anyLong(), anyString(), anyString(), any()))
+				.thenReturn(Mono.just(saved(PaymentStatus.COMPLETED, null)));
+
+		StepVerifier.create(processor.process(payment))
+				.assertNext(result -> {
+					assertThat(result.getId()).isEqualTo(1L);
+					assertThat(result.getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void process_shouldFailWhenBalanceIsInsufficient() {
+		when(paymentRepository.insertWithBalanceDeduction(anyLong(), anyLong(), anyLong(), anyString(), anyString(), any()))
+				.thenReturn(Mono.just(saved(PaymentStatus.FAILED, "Insufficient balance")));
+
+		StepVerifier.create(processor.process(payment))
+				.expectError(InsufficientBalanceException.class)
+				.verify();
+	}
+
+	private PaymentEntity saved(PaymentStatus status, String failureReason) {
+		PaymentEntity saved = new PaymentEntity();
+		saved.setId(1L);
+		saved.setOrderId(payment.getOrderId());
+		saved.setUserId(payment.getUserId());
+		saved.setAmount(payment.getAmount());
+		saved.setStatus(status);
+		saved.setFailureReason(failureReason);
+		return saved;
+	}
+}
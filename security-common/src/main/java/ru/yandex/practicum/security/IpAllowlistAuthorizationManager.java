@@ -0,0 +1,35 @@
+package ru.yandex.practicum.security;
+
+import java.util.List;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.authorization.AuthorizationContext;
+import org.springframework.security.web.server.authorization.IpAddressReactiveAuthorizationManager;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Grants access to requests from the given addresses or subnets, e.g. the Prometheus scrapers.
+ */
+public class IpAllowlistAuthorizationManager implements ReactiveAuthorizationManager<AuthorizationContext> {
+
+	private final List<IpAddressReactiveAuthorizationManager> managers;
+
+	public IpAllowlistAuthorizationManager(List<String> addresses) {
+		this.managers = addresses.stream()
+				.map(String::trim)
+				.map(IpAddressReactiveAuthorizationManager::hasIpAddress)
+				.toList();
+	}
+
+	@Override
+	public Mono<AuthorizationDecision> check(Mono<Authentication> authentication, AuthorizationContext context) {
+		return Flux.fromIterable(managers)
+				.concatMap(manager -> manager.check(authentication, context))
+				.any(AuthorizationDecision::isGranted)
+				.map(AuthorizationDecision::new);
+	}
+}
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.web.server.authorization.AuthorizationContext;
+
+import reactor.core.publisher.Mono;
+
+class IpAllowlistAuthorizationManagerTest {
+
+	private final IpAllowlistAuthorizationManager prometheusAccess =
+			new IpAllowlistAuthorizationManager(List.of("127.0.0.1/32", " 10.0.0.0/8"));
+
+	@Test
+	void check_grantsListedAddressesAndSubnets() {
+		assertEquals(true, isGranted("127.0.0.1"));
+		assertEquals(true, isGranted("10.20.30.40"));
+	}
+
+	@Test
+	void check_deniesOtherAddresses() {
+		assertEquals(false, isGranted("192.168.1.10"));
+	}
+
+	private boolean isGranted(String remoteAddress) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/actuator/prometheus")
+				.remoteAddress(new InetSocketAddress(remoteAddress, 40000)));
+		return prometheusAccess.check(Mono.empty(), new AuthorizationContext(exchange))
+				.map(AuthorizationDecision::isGranted)
+				.block();
+	}
+}